@@ -41,6 +41,9 @@ import org.onosproject.store.serializers.KryoSerializer;
 import org.osgi.service.component.ComponentContext;
 import org.slf4j.Logger;
 
+import com.codahale.metrics.SlidingTimeWindowReservoir;
+import com.codahale.metrics.Snapshot;
+import com.codahale.metrics.Timer;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
@@ -108,6 +111,8 @@ public class MessagingPerfApp {
     private AtomicInteger sent = new AtomicInteger(0);
     private AtomicInteger attempted = new AtomicInteger(0);
     private AtomicInteger completed = new AtomicInteger(0);
+    private final Timer requestReplyLatency =
+            new Timer(new SlidingTimeWindowReservoir(reportIntervalSeconds, TimeUnit.SECONDS));
 
     protected static final KryoSerializer SERIALIZER = new KryoSerializer() {
         @Override
@@ -281,6 +286,7 @@ public class MessagingPerfApp {
     private void requestReply() {
         try {
             attempted.incrementAndGet();
+            long start = System.nanoTime();
             CompletableFuture<Data> response =
                     communicationService.<Data, Data>sendAndReceive(
                             data,
@@ -291,6 +297,7 @@ public class MessagingPerfApp {
             response.whenComplete((result, error) -> {
                 if (Objects.equals(data, result)) {
                     completed.incrementAndGet();
+                    requestReplyLatency.update(System.nanoTime() - start, TimeUnit.NANOSECONDS);
                 }
                 messageSendingExecutor.submit(this::requestReply);
             });
@@ -327,16 +334,23 @@ public class MessagingPerfApp {
     }
 
     private NodeId randomPeer() {
+        // Fall back to the local node so that the test also runs standalone
         return clusterService.getNodes()
                     .stream()
-                    .filter(node -> clusterService.getLocalNode().equals(node))
+                    .filter(node -> !clusterService.getLocalNode().equals(node))
                     .findAny()
-                    .get()
+                    .orElse(clusterService.getLocalNode())
                     .id();
     }
 
     private void reportPerformance() {
-        log.info("Attempted: {} Completed: {}", attempted.getAndSet(0), completed.getAndSet(0));
+        Snapshot latency = requestReplyLatency.getSnapshot();
+        log.info("Attempted: {} Completed: {} Latency (us): median {} p99 {} max {}",
+                 attempted.getAndSet(0),
+                 completed.getAndSet(0),
+                 TimeUnit.NANOSECONDS.toMicros((long) latency.getMedian()),
+                 TimeUnit.NANOSECONDS.toMicros((long) latency.get99thPercentile()),
+                 TimeUnit.NANOSECONDS.toMicros(latency.getMax()));
     }
 
     private static class Data {
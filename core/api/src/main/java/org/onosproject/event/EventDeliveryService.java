@@ -35,4 +35,21 @@ public interface EventDeliveryService extends EventDispatcher, EventSinkRegistry
      */
     long getDispatchTimeLimit();
 
+    /**
+     * Sets whether events of each event class are delivered to their sink
+     * by a dedicated queue and thread, rather than all events being
+     * delivered by a single queue and thread. Events delivered to any one
+     * sink remain in order, including across a change of this setting.
+     *
+     * @param sharded true to dispatch events for each sink independently
+     */
+    void setShardedDispatch(boolean sharded);
+
+    /**
+     * Returns whether events for each sink are dispatched independently.
+     *
+     * @return true if sharded dispatch is enabled
+     */
+    boolean isShardedDispatch();
+
 }
@@ -67,6 +67,33 @@ public class DefaultFlowEntry extends DefaultFlowRule
         this.lastSeen = System.currentTimeMillis();
     }
 
+    /**
+     * Creates a flow entry with all of its attributes given, as needed when
+     * restoring a flow entry from its serialized form.
+     *
+     * @param rule     flow rule
+     * @param created  time the flow rule was created, in millis
+     * @param state    flow entry state
+     * @param life     flow entry life, in seconds
+     * @param packets  packet count
+     * @param bytes    byte count
+     * @param lastSeen time the entry was last seen, in millis
+     * @param errType  error type, or -1 if none
+     * @param errCode  error code, or -1 if none
+     */
+    public DefaultFlowEntry(FlowRule rule, long created, FlowEntryState state,
+                            long life, long packets, long bytes,
+                            long lastSeen, int errType, int errCode) {
+        super(rule, created);
+        this.state = state;
+        this.life = life;
+        this.packets = packets;
+        this.bytes = bytes;
+        this.lastSeen = lastSeen;
+        this.errType = errType;
+        this.errCode = errCode;
+    }
+
     @Override
     public long life() {
         return life;
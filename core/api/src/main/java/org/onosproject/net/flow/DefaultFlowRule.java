@@ -60,6 +60,29 @@ public class DefaultFlowRule implements FlowRule {
         this.payLoad = rule.payLoad();
     }
 
+    /**
+     * Creates a flow rule with the attributes of the given rule and the given
+     * creation time, as needed when restoring a flow rule from its serialized
+     * form.
+     *
+     * @param rule    flow rule
+     * @param created time the rule was created, in millis
+     */
+    public DefaultFlowRule(FlowRule rule, long created) {
+        this.deviceId = rule.deviceId();
+        this.priority = rule.priority();
+        this.selector = rule.selector();
+        this.treatment = rule.treatment();
+        this.appId = rule.appId();
+        this.groupId = rule.groupId();
+        this.id = rule.id();
+        this.timeout = rule.timeout();
+        this.permanent = rule.isPermanent();
+        this.created = created;
+        this.tableId = rule.tableId();
+        this.payLoad = rule.payLoad();
+    }
+
     private DefaultFlowRule(DeviceId deviceId, TrafficSelector selector,
                             TrafficTreatment treatment, Integer priority,
                             FlowId flowId, Boolean permanent, Integer timeout,
@@ -269,6 +292,15 @@ public class DefaultFlowRule implements FlowRule {
                 .toString();
     }
 
+    /**
+     * Returns the time this rule was created.
+     *
+     * @return creation time, in millis
+     */
+    public long created() {
+        return created;
+    }
+
     @Override
     public int timeout() {
         return timeout;
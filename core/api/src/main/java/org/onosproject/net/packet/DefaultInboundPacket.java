@@ -15,7 +15,10 @@
  */
 package org.onosproject.net.packet;
 
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
 import org.onosproject.net.ConnectPoint;
+import org.onlab.packet.DeserializationException;
 import org.onlab.packet.Ethernet;
 
 import java.nio.ByteBuffer;
@@ -25,12 +28,16 @@ import static com.google.common.base.MoreObjects.toStringHelper;
 
 /**
  * Default implementation of an immutable inbound packet.
+ * <p>
+ * The ethernet frame may be left to be decoded from the raw bytes the first
+ * time it is asked for, after which it is shared by all callers.
+ * </p>
  */
 public final class DefaultInboundPacket implements InboundPacket {
 
     private final ConnectPoint receivedFrom;
-    private final Ethernet parsed;
     private final ByteBuffer unparsed;
+    private final Supplier<Ethernet> parsed;
 
     /**
      * Creates an immutable inbound packet.
@@ -42,10 +49,23 @@ public final class DefaultInboundPacket implements InboundPacket {
     public  DefaultInboundPacket(ConnectPoint receivedFrom, Ethernet parsed,
                                 ByteBuffer unparsed) {
         this.receivedFrom = receivedFrom;
-        this.parsed = parsed;
+        this.parsed = Suppliers.ofInstance(parsed);
         this.unparsed = unparsed;
     }
 
+    /**
+     * Creates an immutable inbound packet, whose ethernet frame is decoded
+     * from the raw bytes when first needed.
+     *
+     * @param receivedFrom connection point where received
+     * @param unparsed     unparsed raw bytes
+     */
+    public DefaultInboundPacket(ConnectPoint receivedFrom, ByteBuffer unparsed) {
+        this.receivedFrom = receivedFrom;
+        this.unparsed = unparsed;
+        this.parsed = Suppliers.memoize(() -> decode(unparsed));
+    }
+
     @Override
     public ConnectPoint receivedFrom() {
         return receivedFrom;
@@ -53,7 +73,26 @@ public final class DefaultInboundPacket implements InboundPacket {
 
     @Override
     public Ethernet parsed() {
-        return parsed;
+        return parsed.get();
+    }
+
+    // Decodes the ethernet header, leaving the headers it carries to be decoded
+    // on first access; returns null if the frame is malformed.
+    private static Ethernet decode(ByteBuffer frame) {
+        if (frame == null) {
+            return null;
+        }
+        try {
+            if (frame.hasArray()) {
+                return Ethernet.lazyDeserializer().deserialize(
+                        frame.array(), frame.arrayOffset() + frame.position(), frame.remaining());
+            }
+            byte[] bytes = new byte[frame.remaining()];
+            frame.duplicate().get(bytes);
+            return Ethernet.lazyDeserializer().deserialize(bytes, 0, bytes.length);
+        } catch (DeserializationException e) {
+            return null;
+        }
     }
 
     @Override
@@ -64,7 +103,7 @@ public final class DefaultInboundPacket implements InboundPacket {
 
     @Override
     public int hashCode() {
-        return Objects.hash(receivedFrom, parsed, unparsed);
+        return Objects.hash(receivedFrom, parsed(), unparsed);
     }
 
     @Override
@@ -75,7 +114,7 @@ public final class DefaultInboundPacket implements InboundPacket {
         if (obj instanceof InboundPacket) {
             final DefaultInboundPacket other = (DefaultInboundPacket) obj;
             return Objects.equals(this.receivedFrom, other.receivedFrom) &&
-                    Objects.equals(this.parsed, other.parsed) &&
+                    Objects.equals(this.parsed(), other.parsed()) &&
                     Objects.equals(this.unparsed, other.unparsed);
         }
         return false;
@@ -85,7 +124,7 @@ public final class DefaultInboundPacket implements InboundPacket {
     public String toString() {
         return toStringHelper(this)
                 .add("receivedFrom", receivedFrom)
-                .add("parsed", parsed)
+                .add("parsed", parsed())
                 .toString();
     }
 }
@@ -38,7 +38,20 @@ public interface PacketService {
      */
     void addProcessor(PacketProcessor processor, int priority);
 
-    // TODO allow processors to register for particular types of packets
+    /**
+     * Adds the specified processor to the list of packet processors, to be
+     * given only the packets that match the specified selector. Criteria
+     * which cannot be evaluated against an inbound packet are ignored, so
+     * the processor should still check the packets it is given.
+     *
+     * @param processor processor to be added
+     * @param priority  priority in the reverse natural order
+     * @param selector  selector of the packets of interest
+     * @throws java.lang.IllegalArgumentException if a processor with the
+     *                                            given priority already exists
+     */
+    void addProcessor(PacketProcessor processor, int priority,
+                      TrafficSelector selector);
 
     /**
      * Removes the specified processor from the processing pipeline.
@@ -15,6 +15,7 @@
  */
 package org.onosproject.store.cluster.messaging;
 
+import java.nio.ByteBuffer;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
@@ -157,6 +158,22 @@ public interface ClusterCommunicationService {
                            Consumer<M> handler,
                            Executor executor);
 
+    /**
+     * Adds a new subscriber for the specified message subject whose decoder
+     * reads incoming messages straight from the receive buffer. The buffer
+     * handed to the decoder is only valid for the duration of the call.
+     *
+     * @param subject message subject
+     * @param decoder decoder to resurrecting incoming message
+     * @param handler handler for handling message
+     * @param executor executor to run this handler on
+     * @param <M> incoming message type
+     */
+    <M> void addBufferSubscriber(MessageSubject subject,
+                                 Function<ByteBuffer, M> decoder,
+                                 Consumer<M> handler,
+                                 Executor executor);
+
     /**
      * Removes a subscriber for the specified message subject.
      *
@@ -153,6 +153,22 @@ public class ClusterMessage {
                 payloadBytes);
     }
 
+    /**
+     * Returns a view of the payload of a serialized cluster message, sharing
+     * its content with the specified buffer.
+     *
+     * @param buffer serialized cluster message
+     * @return payload buffer
+     */
+    public static ByteBuffer payloadOf(ByteBuffer buffer) {
+        ByteBuffer payload = buffer.duplicate();
+        payload.position(payload.position() + payload.getInt());
+        payload.position(payload.position() + payload.getInt());
+        int payloadLength = payload.getInt();
+        payload.limit(payload.position() + payloadLength);
+        return payload.slice();
+    }
+
     @Override
     public int hashCode() {
         return Objects.hash(sender, subject, payload);
@@ -15,6 +15,7 @@
  */
 package org.onosproject.store.cluster.messaging;
 
+import java.nio.ByteBuffer;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
 import java.util.function.Consumer;
@@ -52,6 +53,16 @@ public interface MessagingService {
      */
     void registerHandler(String type, Consumer<byte[]> handler, Executor executor);
 
+    /**
+     * Registers a new message handler for message type that consumes the
+     * message payload in place, without it being copied into a byte array.
+     * The buffer is only valid for the duration of the handler invocation.
+     * @param type message type.
+     * @param handler message handler
+     * @param executor executor to use for running message handler logic.
+     */
+    void registerBufferHandler(String type, Consumer<ByteBuffer> handler, Executor executor);
+
     /**
      * Registers a new message handler for message type.
      * @param type message type.
@@ -17,6 +17,7 @@
 package org.onosproject.store.service;
 
 import java.util.Collection;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
@@ -86,6 +87,17 @@ public interface AsyncConsistentMap<K, V> {
      */
     CompletableFuture<Versioned<V>> get(K key);
 
+    /**
+     * Returns the values (and versions) to which the specified keys are mapped.
+     * Keys are grouped by partition and the values are read with one request
+     * per partition.
+     *
+     * @param keys keys whose associated values (and versions) are to be returned
+     * @return a future for a map of each key present in this map to its value (and version);
+     * keys with no mapping are left out
+     */
+    CompletableFuture<Map<K, Versioned<V>>> getAll(Collection<K> keys);
+
     /**
      * If the specified key is not already associated with a value (or is mapped to null),
      * attempts to compute its value using the given mapping function and enters it into
@@ -164,6 +176,19 @@ public interface AsyncConsistentMap<K, V> {
      */
     CompletableFuture<Versioned<V>> putAndGet(K key, V value);
 
+    /**
+     * Associates each of the specified keys with its value, with one request
+     * per partition. The updates are applied atomically within a partition but
+     * not across partitions.
+     * A partition in which a transaction holds a lock on any of the keys is
+     * left unchanged and its keys are left out of the result; the update
+     * fails with a concurrent modification only if all of its partitions are locked.
+     *
+     * @param entries keys and the values to associate with them
+     * @return a future for a map of each key to its new value (and version)
+     */
+    CompletableFuture<Map<K, Versioned<V>>> putAll(Map<K, V> entries);
+
     /**
      * Removes the mapping for a key from this map if it is present (optional operation).
      *
@@ -173,6 +198,20 @@ public interface AsyncConsistentMap<K, V> {
      */
     CompletableFuture<Versioned<V>> remove(K key);
 
+    /**
+     * Removes the mappings for the specified keys, with one request per
+     * partition. The removals are applied atomically within a partition but
+     * not across partitions.
+     * A partition in which a transaction holds a lock on any of the keys is
+     * left unchanged and its keys are left out of the result; the removal
+     * fails with a concurrent modification only if all of its partitions are locked.
+     *
+     * @param keys keys whose mappings are to be removed
+     * @return a future for a map of each removed key to its previous value (and version);
+     * keys with no mapping are left out
+     */
+    CompletableFuture<Map<K, Versioned<V>>> removeAll(Collection<K> keys);
+
     /**
      * Removes all of the mappings from this map (optional operation).
      * The map will be empty after this call returns.
@@ -213,6 +252,17 @@ public interface AsyncConsistentMap<K, V> {
      */
     CompletableFuture<Set<Entry<K, Versioned<V>>>> entrySet();
 
+    /**
+     * Returns a page of at most pageSize entries, starting at the position
+     * of the specified cursor. Pages are returned in a stable order; entries
+     * added or removed while a scan is in progress may or may not be seen.
+     *
+     * @param cursor cursor returned with the previous page, or null to start a new scan
+     * @param pageSize maximum number of entries to return
+     * @return a future for the page of entries
+     */
+    CompletableFuture<MapPage<K, V>> scan(MapCursor cursor, int pageSize);
+
     /**
      * If the specified key is not already associated with a value
      * associates it with the given value and returns null, else returns the current value.
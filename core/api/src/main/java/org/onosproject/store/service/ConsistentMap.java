@@ -86,6 +86,17 @@ public interface ConsistentMap<K, V> {
      */
     Versioned<V> get(K key);
 
+    /**
+     * Returns the values (and versions) to which the specified keys are mapped.
+     * Keys are grouped by partition and the values are read with one request
+     * per partition.
+     *
+     * @param keys keys whose associated values (and versions) are to be returned
+     * @return a map of each key present in this map to its value (and version);
+     * keys with no mapping are left out
+     */
+    Map<K, Versioned<V>> getAll(Collection<K> keys);
+
     /**
      * If the specified key is not already associated with a value (or is mapped to null),
      * attempts to compute its value using the given mapping function and enters it into
@@ -167,6 +178,19 @@ public interface ConsistentMap<K, V> {
      */
     Versioned<V> putAndGet(K key, V value);
 
+    /**
+     * Associates each of the specified keys with its value, with one request
+     * per partition. The updates are applied atomically within a partition but
+     * not across partitions.
+     * A partition in which a transaction holds a lock on any of the keys is
+     * left unchanged and its keys are left out of the result; the update
+     * fails with a concurrent modification only if all of its partitions are locked.
+     *
+     * @param entries keys and the values to associate with them
+     * @return a map of each key to its new value (and version)
+     */
+    Map<K, Versioned<V>> putAll(Map<K, V> entries);
+
     /**
      * Removes the mapping for a key from this map if it is present (optional operation).
      *
@@ -176,6 +200,20 @@ public interface ConsistentMap<K, V> {
      */
     Versioned<V> remove(K key);
 
+    /**
+     * Removes the mappings for the specified keys, with one request per
+     * partition. The removals are applied atomically within a partition but
+     * not across partitions.
+     * A partition in which a transaction holds a lock on any of the keys is
+     * left unchanged and its keys are left out of the result; the removal
+     * fails with a concurrent modification only if all of its partitions are locked.
+     *
+     * @param keys keys whose mappings are to be removed
+     * @return a map of each removed key to its previous value (and version);
+     * keys with no mapping are left out
+     */
+    Map<K, Versioned<V>> removeAll(Collection<K> keys);
+
     /**
      * Removes all of the mappings from this map (optional operation).
      * The map will be empty after this call returns.
@@ -185,7 +223,9 @@ public interface ConsistentMap<K, V> {
     /**
      * Returns a Set view of the keys contained in this map.
      * This method differs from the behavior of java.util.Map.keySet() in that
-     * what is returned is a unmodifiable snapshot view of the keys in the ConsistentMap.
+     * what is returned is an unmodifiable view whose iterator fetches the keys
+     * in pages as it advances, so that it reflects the contents of the map at
+     * the time of iteration rather than a snapshot.
      * Attempts to modify the returned set, whether direct or via its iterator,
      * result in an UnsupportedOperationException.
      *
@@ -196,7 +236,9 @@ public interface ConsistentMap<K, V> {
     /**
      * Returns the collection of values (and associated versions) contained in this map.
      * This method differs from the behavior of java.util.Map.values() in that
-     * what is returned is a unmodifiable snapshot view of the values in the ConsistentMap.
+     * what is returned is an unmodifiable view whose iterator fetches the values
+     * in pages as it advances, so that it reflects the contents of the map at
+     * the time of iteration rather than a snapshot.
      * Attempts to modify the returned collection, whether direct or via its iterator,
      * result in an UnsupportedOperationException.
      *
@@ -207,7 +249,9 @@ public interface ConsistentMap<K, V> {
     /**
      * Returns the set of entries contained in this map.
      * This method differs from the behavior of java.util.Map.entrySet() in that
-     * what is returned is a unmodifiable snapshot view of the entries in the ConsistentMap.
+     * what is returned is an unmodifiable view whose iterator fetches the entries
+     * in pages as it advances, so that it reflects the contents of the map at
+     * the time of iteration rather than a snapshot.
      * Attempts to modify the returned set, whether direct or via its iterator,
      * result in an UnsupportedOperationException.
      *
@@ -215,6 +259,17 @@ public interface ConsistentMap<K, V> {
      */
     Set<Entry<K, Versioned<V>>> entrySet();
 
+    /**
+     * Returns a page of at most pageSize entries, starting at the position
+     * of the specified cursor. Pages are returned in a stable order; entries
+     * added or removed while a scan is in progress may or may not be seen.
+     *
+     * @param cursor cursor returned with the previous page, or null to start a new scan
+     * @param pageSize maximum number of entries to return
+     * @return page of entries
+     */
+    MapPage<K, V> scan(MapCursor cursor, int pageSize);
+
     /**
      * If the specified key is not already associated with a value
      * associates it with the given value and returns null, else returns the current value.
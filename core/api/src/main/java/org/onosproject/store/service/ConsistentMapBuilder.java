@@ -123,6 +123,27 @@ public interface ConsistentMapBuilder<K, V> {
      */
     ConsistentMapBuilder<K, V> withRelaxedReadConsistency();
 
+    /**
+     * Sets the consistency of map gets and key lookups.
+     * <p>
+     * Sequential reads are served by the local replica and take load off the
+     * partition leaders, at the cost of possibly missing the latest updates.
+     * By default reads are linearizable.
+     * </p>
+     * <p>
+     * The two settings are independent and neither overrides the other:
+     * {@link #withRelaxedReadConsistency()} places a local cache in front of
+     * the map, while the read consistency set here governs how the gets and
+     * key lookups that miss that cache reach the partitions. A relaxed map
+     * may therefore serve stale values from its cache even when its read
+     * consistency is linearizable.
+     * </p>
+     *
+     * @param readConsistency read consistency
+     * @return this ConsistentMapBuilder
+     */
+    ConsistentMapBuilder<K, V> withReadConsistency(ReadConsistency readConsistency);
+
     /**
      * Builds an consistent map based on the configuration options
      * supplied to this builder.
@@ -176,6 +176,20 @@ public interface EventuallyConsistentMapBuilder<K, V> {
      */
     EventuallyConsistentMapBuilder<K, V> withPersistence();
 
+    /**
+     * Configure anti-entropy to exchange hash trees of the map contents
+     * instead of a digest of every entry. Peers compare per-bucket hashes
+     * and only exchange entry digests for the buckets that differ, so the
+     * anti-entropy traffic stays small while replicas are in sync. Suited
+     * to large maps.
+     * <p>
+     * The default behavior is to advertise a digest of every entry.
+     * </p>
+     *
+     * @return this EventuallyConsistentMapBuilder
+     */
+    EventuallyConsistentMapBuilder<K, V> withHashTreeAntiEntropy();
+
     /**
      * Builds an eventually consistent map based on the configuration options
      * supplied to this builder.
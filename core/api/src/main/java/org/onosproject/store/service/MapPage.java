@@ -0,0 +1,82 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.service;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.List;
+import java.util.Map.Entry;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Page of entries returned by a paged scan over a consistent map.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+public final class MapPage<K, V> {
+
+    private final List<Entry<K, Versioned<V>>> entries;
+    private final MapCursor next;
+
+    /**
+     * Creates a new page of map entries.
+     *
+     * @param entries entries in this page
+     * @param next cursor for the following page, or null if this is the last page
+     */
+    public MapPage(List<Entry<K, Versioned<V>>> entries, MapCursor next) {
+        this.entries = ImmutableList.copyOf(checkNotNull(entries, "entries cannot be null"));
+        this.next = next;
+    }
+
+    /**
+     * Returns the entries in this page.
+     *
+     * @return immutable list of entries
+     */
+    public List<Entry<K, Versioned<V>>> entries() {
+        return entries;
+    }
+
+    /**
+     * Returns the cursor to pass to the map for fetching the following page.
+     *
+     * @return next cursor, or null if this is the last page
+     */
+    public MapCursor next() {
+        return next;
+    }
+
+    /**
+     * Returns true if no more pages follow this one.
+     *
+     * @return true for the last page
+     */
+    public boolean isLast() {
+        return next == null;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("entries", entries.size())
+                .add("last", isLast())
+                .toString();
+    }
+}
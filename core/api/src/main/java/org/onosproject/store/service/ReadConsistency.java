@@ -0,0 +1,37 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.service;
+
+/**
+ * Consistency guarantee offered by reads of a consistent map.
+ */
+public enum ReadConsistency {
+
+    /**
+     * Reads are served by the leader of the partition holding the key and
+     * always observe the latest committed update. The leader answers from
+     * its own state while its leadership lease holds, without a round trip
+     * to a quorum of replicas.
+     */
+    LINEARIZABLE,
+
+    /**
+     * Reads are served by the local replica of the partition holding the key.
+     * A read may miss the most recent updates, but updates are always
+     * observed in the order in which they were committed.
+     */
+    SEQUENTIAL
+}
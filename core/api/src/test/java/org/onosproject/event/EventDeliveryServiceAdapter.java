@@ -33,6 +33,16 @@ public class EventDeliveryServiceAdapter implements EventDeliveryService {
         return 0;
     }
 
+    @Override
+    public void setShardedDispatch(boolean sharded) {
+
+    }
+
+    @Override
+    public boolean isShardedDispatch() {
+        return false;
+    }
+
     @Override
     public void post(Event event) {
 
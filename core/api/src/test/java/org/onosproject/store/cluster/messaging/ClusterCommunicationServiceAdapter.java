@@ -15,6 +15,7 @@
  */
 package org.onosproject.store.cluster.messaging;
 
+import java.nio.ByteBuffer;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
@@ -85,4 +86,10 @@ public class ClusterCommunicationServiceAdapter
                                   Executor executor) {
 
     }
+
+    @Override
+    public <M> void addBufferSubscriber(MessageSubject subject,
+                                        Function<ByteBuffer, M> decoder, Consumer<M> handler,
+                                        Executor executor) {
+    }
 }
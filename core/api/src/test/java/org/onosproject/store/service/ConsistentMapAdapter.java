@@ -51,6 +51,11 @@ public class ConsistentMapAdapter<K, V> implements ConsistentMap<K, V> {
         return null;
     }
 
+    @Override
+    public Map<K, Versioned<V>> getAll(Collection<K> keys) {
+        return null;
+    }
+
     @Override
     public Versioned<V> computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
         return null;
@@ -82,11 +87,21 @@ public class ConsistentMapAdapter<K, V> implements ConsistentMap<K, V> {
         return null;
     }
 
+    @Override
+    public Map<K, Versioned<V>> putAll(Map<K, V> entries) {
+        return null;
+    }
+
     @Override
     public Versioned<V> remove(K key) {
         return null;
     }
 
+    @Override
+    public Map<K, Versioned<V>> removeAll(Collection<K> keys) {
+        return null;
+    }
+
     @Override
     public void clear() {
 
@@ -107,6 +122,11 @@ public class ConsistentMapAdapter<K, V> implements ConsistentMap<K, V> {
         return null;
     }
 
+    @Override
+    public MapPage<K, V> scan(MapCursor cursor, int pageSize) {
+        return null;
+    }
+
     @Override
     public Versioned<V> putIfAbsent(K key, V value) {
         return null;
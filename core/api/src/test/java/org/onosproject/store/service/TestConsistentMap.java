@@ -267,6 +267,11 @@ public final class TestConsistentMap<K, V> extends ConsistentMapAdapter<K, V> {
             return this;
         }
 
+        @Override
+        public ConsistentMapBuilder<K, V> withReadConsistency(ReadConsistency readConsistency) {
+            return this;
+        }
+
         @Override
         public ConsistentMapBuilder<K, V> withMeteringDisabled() {
             return this;
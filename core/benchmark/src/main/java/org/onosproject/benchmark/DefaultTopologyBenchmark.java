@@ -0,0 +1,122 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.benchmark;
+
+import com.google.common.collect.ImmutableSet;
+import org.onlab.packet.ChassisId;
+import org.onosproject.common.DefaultTopology;
+import org.onosproject.net.ConnectPoint;
+import org.onosproject.net.DefaultDevice;
+import org.onosproject.net.DefaultLink;
+import org.onosproject.net.Device;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.Link;
+import org.onosproject.net.Path;
+import org.onosproject.net.PortNumber;
+import org.onosproject.net.provider.ProviderId;
+import org.onosproject.net.topology.DefaultGraphDescription;
+import org.onosproject.net.topology.LinkWeight;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of shortest path computations on a leaf-spine topology.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class DefaultTopologyBenchmark {
+
+    private static final ProviderId PID = new ProviderId("of", "benchmark");
+
+    private static final LinkWeight WEIGHT = edge -> 1.0;
+
+    /**
+     * Number of spine switches.
+     */
+    @Param({"4"})
+    public int spines;
+
+    /**
+     * Number of leaf switches.
+     */
+    @Param({"20", "200"})
+    public int leaves;
+
+    private DefaultTopology topology;
+    private DeviceId[] leafIds;
+
+    @Setup
+    public void setUp() {
+        ImmutableSet.Builder<Device> devices = ImmutableSet.builder();
+        ImmutableSet.Builder<Link> links = ImmutableSet.builder();
+
+        leafIds = new DeviceId[leaves];
+        for (int l = 0; l < leaves; l++) {
+            leafIds[l] = DeviceId.deviceId(String.format("of:1%015x", l));
+            devices.add(device(leafIds[l]));
+        }
+        for (int s = 0; s < spines; s++) {
+            DeviceId spine = DeviceId.deviceId(String.format("of:2%015x", s));
+            devices.add(device(spine));
+            for (int l = 0; l < leaves; l++) {
+                ConnectPoint leafPort = new ConnectPoint(leafIds[l], PortNumber.portNumber(s + 1));
+                ConnectPoint spinePort = new ConnectPoint(spine, PortNumber.portNumber(l + 1));
+                links.add(new DefaultLink(PID, leafPort, spinePort, Link.Type.DIRECT));
+                links.add(new DefaultLink(PID, spinePort, leafPort, Link.Type.DIRECT));
+            }
+        }
+
+        topology = new DefaultTopology(PID, new DefaultGraphDescription(System.nanoTime(),
+                                                                         devices.build(),
+                                                                         links.build()));
+    }
+
+    private static Device device(DeviceId id) {
+        return new DefaultDevice(PID, id, Device.Type.SWITCH,
+                                 "mfg", "1.0", "1.1", "1234", new ChassisId());
+    }
+
+    private DeviceId randomLeaf() {
+        return leafIds[ThreadLocalRandom.current().nextInt(leafIds.length)];
+    }
+
+    @Benchmark
+    public Set<Path> getPaths() {
+        return topology.getPaths(randomLeaf(), randomLeaf());
+    }
+
+    @Benchmark
+    public Set<Path> getPathsWithWeight() {
+        return topology.getPaths(randomLeaf(), randomLeaf(), WEIGHT);
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.benchmark;
+
+import org.onlab.packet.ARP;
+import org.onlab.packet.Data;
+import org.onlab.packet.DeserializationException;
+import org.onlab.packet.Deserializer;
+import org.onlab.packet.Ethernet;
+import org.onlab.packet.IPv4;
+import org.onlab.packet.Ip4Address;
+import org.onlab.packet.MacAddress;
+import org.onlab.packet.UDP;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the decoding of Ethernet frames, as done for every packet-in.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class EthernetBenchmark {
+
+    private static final MacAddress SRC_MAC = MacAddress.valueOf("00:00:00:00:00:01");
+    private static final MacAddress DST_MAC = MacAddress.valueOf("00:00:00:00:00:02");
+    private static final Ip4Address SRC_IP = Ip4Address.valueOf("10.0.0.1");
+    private static final Ip4Address DST_IP = Ip4Address.valueOf("10.0.0.2");
+
+    private final Deserializer<Ethernet> deserializer = Ethernet.deserializer();
+
+    private byte[] arpFrame;
+    private byte[] udpFrame;
+
+    @Setup
+    public void setUp() {
+        ARP arp = new ARP()
+                .setHardwareType(ARP.HW_TYPE_ETHERNET)
+                .setProtocolType(ARP.PROTO_TYPE_IP)
+                .setHardwareAddressLength((byte) Ethernet.DATALAYER_ADDRESS_LENGTH)
+                .setProtocolAddressLength((byte) Ip4Address.BYTE_LENGTH)
+                .setOpCode(ARP.OP_REQUEST)
+                .setSenderHardwareAddress(SRC_MAC.toBytes())
+                .setSenderProtocolAddress(SRC_IP.toOctets())
+                .setTargetHardwareAddress(MacAddress.ZERO.toBytes())
+                .setTargetProtocolAddress(DST_IP.toOctets());
+        Ethernet arpEth = new Ethernet();
+        arpEth.setSourceMACAddress(SRC_MAC)
+                .setDestinationMACAddress(MacAddress.BROADCAST)
+                .setEtherType(Ethernet.TYPE_ARP)
+                .setPayload(arp);
+        arpFrame = arpEth.serialize();
+
+        UDP udp = new UDP()
+                .setSourcePort(5000)
+                .setDestinationPort(6000);
+        udp.setPayload(new Data(new byte[1000]));
+        IPv4 ip = new IPv4()
+                .setSourceAddress(SRC_IP.toInt())
+                .setDestinationAddress(DST_IP.toInt())
+                .setProtocol(IPv4.PROTOCOL_UDP)
+                .setTtl((byte) 64);
+        ip.setPayload(udp);
+        Ethernet udpEth = new Ethernet();
+        udpEth.setSourceMACAddress(SRC_MAC)
+                .setDestinationMACAddress(DST_MAC)
+                .setVlanID((short) 10)
+                .setEtherType(Ethernet.TYPE_IPV4)
+                .setPayload(ip);
+        udpFrame = udpEth.serialize();
+    }
+
+    @Benchmark
+    public Ethernet deserializeArp() throws DeserializationException {
+        return deserializer.deserialize(arpFrame, 0, arpFrame.length);
+    }
+
+    @Benchmark
+    public Ethernet deserializeUdp() throws DeserializationException {
+        return deserializer.deserialize(udpFrame, 0, udpFrame.length);
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.benchmark;
+
+import org.onlab.util.KryoNamespace;
+import org.onosproject.cluster.ControllerNode;
+import org.onosproject.store.ecmap.EventuallyConsistentMapBuilderImpl;
+import org.onosproject.store.impl.LogicalTimestamp;
+import org.onosproject.store.serializers.KryoNamespaces;
+import org.onosproject.store.service.EventuallyConsistentMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Benchmarks of the eventually consistent map put and get operations.
+ * <p>
+ * One map instance is created per member of an in-process cluster, so puts
+ * also pay for the replication of the update to the peer instances.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class EventuallyConsistentMapBenchmark {
+
+    /**
+     * Number of cluster members.
+     */
+    @Param({"1", "3"})
+    public int clusterSize;
+
+    /**
+     * Number of distinct keys.
+     */
+    @Param({"1000"})
+    public int keyCount;
+
+    private final AtomicLong clock = new AtomicLong();
+    private final List<EventuallyConsistentMap<String, String>> maps = new ArrayList<>();
+    private EventuallyConsistentMap<String, String> map;
+    private String[] keys;
+
+    @Setup
+    public void setUp() {
+        LocalCluster cluster = new LocalCluster(clusterSize);
+        for (ControllerNode node : cluster.nodes()) {
+            EventuallyConsistentMap<String, String> instance =
+                    new EventuallyConsistentMapBuilderImpl<String, String>(
+                            cluster.clusterService(node.id()),
+                            cluster.communicationService(node.id()))
+                            .withName("benchmark")
+                            .withSerializer(KryoNamespace.newBuilder().register(KryoNamespaces.API))
+                            .withTimestampProvider((k, v) -> new LogicalTimestamp(clock.incrementAndGet()))
+                            .build();
+            maps.add(instance);
+        }
+        map = maps.get(0);
+
+        keys = new String[keyCount];
+        for (int i = 0; i < keyCount; i++) {
+            keys[i] = "key" + i;
+            map.put(keys[i], "value" + i);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        maps.forEach(EventuallyConsistentMap::destroy);
+        maps.clear();
+    }
+
+    private String randomKey() {
+        return keys[ThreadLocalRandom.current().nextInt(keys.length)];
+    }
+
+    @Benchmark
+    public void put() {
+        map.put(randomKey(), "value");
+    }
+
+    @Benchmark
+    public String get() {
+        return map.get(randomKey());
+    }
+}
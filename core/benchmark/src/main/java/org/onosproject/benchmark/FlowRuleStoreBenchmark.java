@@ -0,0 +1,197 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.benchmark;
+
+import com.google.common.collect.ImmutableSet;
+import org.onosproject.cfg.ComponentConfigAdapter;
+import org.onosproject.cluster.ControllerNode;
+import org.onosproject.cluster.NodeId;
+import org.onosproject.core.CoreServiceAdapter;
+import org.onosproject.core.DefaultApplicationId;
+import org.onosproject.core.IdGenerator;
+import org.onosproject.mastership.MastershipServiceAdapter;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.PortNumber;
+import org.onosproject.net.device.DeviceServiceAdapter;
+import org.onosproject.net.flow.DefaultFlowRule;
+import org.onosproject.net.flow.DefaultTrafficSelector;
+import org.onosproject.net.flow.DefaultTrafficTreatment;
+import org.onosproject.net.flow.FlowRuleBatchEntry;
+import org.onosproject.net.flow.FlowRuleBatchEntry.FlowRuleOperation;
+import org.onosproject.net.flow.FlowRuleBatchEvent;
+import org.onosproject.net.flow.FlowRuleBatchOperation;
+import org.onosproject.store.flow.ReplicaInfo;
+import org.onosproject.store.flow.ReplicaInfoEventListener;
+import org.onosproject.store.flow.ReplicaInfoService;
+import org.onosproject.store.flow.impl.NewDistributedFlowRuleStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Benchmarks of flow rule batch operations applied to the distributed
+ * flow rule store.
+ * <p>
+ * Every store instance runs on a member of an in-process cluster. When the
+ * device master is remote, the batch is forwarded to the store of the master
+ * through the in-process cluster communication service.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class FlowRuleStoreBenchmark {
+
+    private static final DeviceId DID = DeviceId.deviceId("of:0000000000000001");
+
+    /**
+     * Whether the device is mastered by the local or by a remote member.
+     */
+    @Param({"local", "remote"})
+    public String master;
+
+    /**
+     * Number of flow rules per batch.
+     */
+    @Param({"1", "100"})
+    public int batchSize;
+
+    private final AtomicLong operationId = new AtomicLong();
+    private final Semaphore completions = new Semaphore(0);
+    private final List<BenchmarkFlowRuleStore> stores = new ArrayList<>();
+    private BenchmarkFlowRuleStore store;
+    private List<FlowRuleBatchEntry> entries;
+
+    @Setup
+    public void setUp() {
+        LocalCluster cluster = new LocalCluster(2);
+        NodeId local = cluster.nodes().get(0).id();
+        NodeId masterId = "local".equals(master) ? local : cluster.nodes().get(1).id();
+        List<NodeId> backups = cluster.nodes().stream()
+                .map(ControllerNode::id)
+                .filter(id -> !id.equals(masterId))
+                .collect(Collectors.toList());
+
+        for (ControllerNode node : cluster.nodes()) {
+            BenchmarkFlowRuleStore instance = new BenchmarkFlowRuleStore(cluster, node.id(),
+                                                                         masterId, backups);
+            instance.activate(null);
+            if (node.id().equals(masterId)) {
+                instance.setDelegate(event -> {
+                    if (event.type() == FlowRuleBatchEvent.Type.BATCH_OPERATION_REQUESTED) {
+                        completions.release();
+                    }
+                });
+            }
+            stores.add(instance);
+        }
+        store = stores.get(0);
+
+        entries = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            entries.add(new FlowRuleBatchEntry(
+                    FlowRuleOperation.ADD,
+                    DefaultFlowRule.builder()
+                            .forDevice(DID)
+                            .withSelector(DefaultTrafficSelector.builder()
+                                                  .matchInPort(PortNumber.portNumber(i + 1))
+                                                  .build())
+                            .withTreatment(DefaultTrafficTreatment.builder()
+                                                   .setOutput(PortNumber.portNumber(i + 2))
+                                                   .build())
+                            .withPriority(10)
+                            .fromApp(new DefaultApplicationId(1, "benchmark"))
+                            .makePermanent()
+                            .build()));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        stores.forEach(s -> s.deactivate(null));
+        stores.clear();
+    }
+
+    @Benchmark
+    public void storeBatch() throws InterruptedException {
+        store.storeBatch(new FlowRuleBatchOperation(entries, DID, operationId.incrementAndGet()));
+        completions.acquire();
+    }
+
+    // Flow rule store wired to the services of a member of the local cluster.
+    private static final class BenchmarkFlowRuleStore extends NewDistributedFlowRuleStore {
+        private BenchmarkFlowRuleStore(LocalCluster cluster, NodeId nodeId,
+                                       NodeId masterId, List<NodeId> backups) {
+            clusterService = cluster.clusterService(nodeId);
+            clusterCommunicator = cluster.communicationService(nodeId);
+            deviceService = new DeviceServiceAdapter();
+            configService = new ComponentConfigAdapter();
+            coreService = new CoreServiceAdapter() {
+                private final AtomicLong ids = new AtomicLong();
+
+                @Override
+                public IdGenerator getIdGenerator(String topic) {
+                    return ids::incrementAndGet;
+                }
+            };
+            mastershipService = new MastershipServiceAdapter() {
+                @Override
+                public NodeId getMasterFor(DeviceId deviceId) {
+                    return masterId;
+                }
+
+                @Override
+                public Set<DeviceId> getDevicesOf(NodeId node) {
+                    return node.equals(masterId) ? ImmutableSet.of(DID) : ImmutableSet.of();
+                }
+            };
+            replicaInfoManager = new ReplicaInfoService() {
+                @Override
+                public ReplicaInfo getReplicaInfoFor(DeviceId deviceId) {
+                    return new ReplicaInfo(masterId, backups);
+                }
+
+                @Override
+                public void addListener(ReplicaInfoEventListener listener) {
+                }
+
+                @Override
+                public void removeListener(ReplicaInfoEventListener listener) {
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.benchmark;
+
+import org.onlab.packet.Ip4Address;
+import org.onlab.packet.IpAddress;
+import org.onlab.packet.MacAddress;
+import org.onlab.packet.VlanId;
+import org.onosproject.cluster.NodeId;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.Host;
+import org.onosproject.net.HostId;
+import org.onosproject.net.HostLocation;
+import org.onosproject.net.PortNumber;
+import org.onosproject.net.host.DefaultHostDescription;
+import org.onosproject.net.provider.ProviderId;
+import org.onosproject.store.ecmap.EventuallyConsistentMapBuilderImpl;
+import org.onosproject.store.host.impl.ECHostStore;
+import org.onosproject.store.impl.LogicalTimestamp;
+import org.onosproject.store.service.EventuallyConsistentMapBuilder;
+import org.onosproject.store.service.StorageServiceAdapter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Benchmarks of the host store lookups made when resolving ARP requests
+ * and when looking up hosts attached to a device.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class HostStoreBenchmark {
+
+    private static final ProviderId PID = new ProviderId("of", "benchmark");
+    private static final VlanId VLAN = VlanId.vlanId((short) 10);
+    private static final int BASE_ADDRESS = 0x0a000000;
+    private static final int HOSTS_PER_DEVICE = 48;
+
+    /**
+     * Number of hosts in the store.
+     */
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int hostCount;
+
+    private BenchmarkHostStore store;
+
+    @Setup
+    public void setUp() {
+        LocalCluster cluster = new LocalCluster(1);
+        store = new BenchmarkHostStore(cluster, cluster.nodes().get(0).id());
+        store.activate();
+
+        for (int i = 0; i < hostCount; i++) {
+            MacAddress mac = MacAddress.valueOf(i + 1L);
+            HostLocation location = new HostLocation(deviceId(i / HOSTS_PER_DEVICE),
+                                                     PortNumber.portNumber(i % HOSTS_PER_DEVICE + 1), 0);
+            store.createOrUpdateHost(PID, HostId.hostId(mac, VLAN),
+                                     new DefaultHostDescription(mac, VLAN, location,
+                                                                Ip4Address.valueOf(BASE_ADDRESS + i)));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        store.deactivate();
+    }
+
+    private static DeviceId deviceId(int index) {
+        return DeviceId.deviceId(String.format("of:%016x", index + 1));
+    }
+
+    /**
+     * Performs the lookups done by the proxy ARP for an ARP request; the
+     * target host is looked up by its IP address and the sender by its id.
+     *
+     * @param blackhole consumer of the lookup results
+     */
+    @Benchmark
+    public void arpResolution(Blackhole blackhole) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        IpAddress target = Ip4Address.valueOf(BASE_ADDRESS + random.nextInt(hostCount));
+        HostId sender = HostId.hostId(MacAddress.valueOf(random.nextInt(hostCount) + 1L), VLAN);
+        blackhole.consume(store.getHosts(target));
+        blackhole.consume(store.getHost(sender));
+    }
+
+    @Benchmark
+    public Set<Host> hostsByMac() {
+        return store.getHosts(MacAddress.valueOf(ThreadLocalRandom.current().nextInt(hostCount) + 1L));
+    }
+
+    @Benchmark
+    public Set<Host> connectedHosts() {
+        int devices = (hostCount + HOSTS_PER_DEVICE - 1) / HOSTS_PER_DEVICE;
+        return store.getConnectedHosts(deviceId(ThreadLocalRandom.current().nextInt(devices)));
+    }
+
+    // Host store wired to the services of a member of the local cluster.
+    private static final class BenchmarkHostStore extends ECHostStore {
+        private BenchmarkHostStore(LocalCluster cluster, NodeId nodeId) {
+            AtomicLong clock = new AtomicLong();
+            clockService = () -> new LogicalTimestamp(clock.incrementAndGet());
+            storageService = new StorageServiceAdapter() {
+                @Override
+                public <K, V> EventuallyConsistentMapBuilder<K, V> eventuallyConsistentMapBuilder() {
+                    return new EventuallyConsistentMapBuilderImpl<>(cluster.clusterService(nodeId),
+                                                                    cluster.communicationService(nodeId));
+                }
+            };
+        }
+    }
+}
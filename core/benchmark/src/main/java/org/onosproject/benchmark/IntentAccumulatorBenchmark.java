@@ -0,0 +1,109 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.benchmark;
+
+import org.onosproject.core.ApplicationId;
+import org.onosproject.core.DefaultApplicationId;
+import org.onosproject.core.IdGenerator;
+import org.onosproject.net.HostId;
+import org.onosproject.net.intent.HostToHostIntent;
+import org.onosproject.net.intent.Intent;
+import org.onosproject.net.intent.IntentData;
+import org.onosproject.net.intent.IntentState;
+import org.onosproject.net.intent.Key;
+import org.onosproject.net.intent.impl.IntentAccumulator;
+import org.onosproject.store.service.WallClockTimestamp;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Benchmarks of the batching of intent operations by the intent accumulator.
+ * <p>
+ * Each invocation submits a number of intent operations and waits until
+ * all of them have been handed to the batch delegate, so the score is the
+ * time it takes to drain a burst of operations.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class IntentAccumulatorBenchmark {
+
+    private static final ApplicationId APP_ID = new DefaultApplicationId(1, "benchmark");
+
+    /**
+     * Number of intent operations submitted per invocation.
+     */
+    @Param({"1", "100", "5000"})
+    public int burstSize;
+
+    private final IdGenerator idGenerator = new AtomicLong()::incrementAndGet;
+    private final Semaphore processed = new Semaphore(0);
+    private IntentAccumulator accumulator;
+    private IntentData[] operations;
+
+    @Setup
+    public void setUp() {
+        Intent.bindIdGenerator(idGenerator);
+        accumulator = new IntentAccumulator(ops -> {
+            processed.release(ops.size());
+            accumulator.ready();
+        }) {
+        };
+
+        operations = new IntentData[burstSize];
+        for (int i = 0; i < burstSize; i++) {
+            Intent intent = HostToHostIntent.builder()
+                    .appId(APP_ID)
+                    .key(Key.of(i, APP_ID))
+                    .one(HostId.hostId("00:00:00:00:00:01/-1"))
+                    .two(HostId.hostId("00:00:00:00:00:02/-1"))
+                    .build();
+            operations[i] = new IntentData(intent, IntentState.INSTALL_REQ,
+                                           new WallClockTimestamp());
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        Intent.unbindIdGenerator(idGenerator);
+    }
+
+    @Benchmark
+    public void submitBurst() throws InterruptedException {
+        for (IntentData operation : operations) {
+            accumulator.add(operation);
+        }
+        processed.acquire(operations.length);
+    }
+}
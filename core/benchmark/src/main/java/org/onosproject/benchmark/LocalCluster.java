@@ -0,0 +1,260 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.benchmark;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import org.onlab.packet.IpAddress;
+import org.onosproject.cluster.ClusterServiceAdapter;
+import org.onosproject.cluster.ControllerNode;
+import org.onosproject.cluster.DefaultControllerNode;
+import org.onosproject.cluster.NodeId;
+import org.onosproject.store.cluster.messaging.ClusterCommunicationService;
+import org.onosproject.store.cluster.messaging.ClusterMessage;
+import org.onosproject.store.cluster.messaging.ClusterMessageHandler;
+import org.onosproject.store.cluster.messaging.MessageSubject;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * In-process stand-in for a cluster of controller nodes.
+ * <p>
+ * Each member has cluster and cluster communication services of its own.
+ * Messages are encoded and decoded exactly as they would be on the wire,
+ * but are handed straight to the subscribers of the destination member
+ * instead of going through the network.
+ * </p>
+ */
+public final class LocalCluster {
+
+    private final List<ControllerNode> nodes;
+    private final Map<NodeId, Member> members = Maps.newConcurrentMap();
+
+    /**
+     * Creates a cluster of the specified size.
+     *
+     * @param size number of members
+     */
+    public LocalCluster(int size) {
+        checkArgument(size > 0, "Cluster must have at least one member");
+        ImmutableList.Builder<ControllerNode> builder = ImmutableList.builder();
+        for (int i = 1; i <= size; i++) {
+            ControllerNode node = new DefaultControllerNode(new NodeId("node" + i),
+                                                            IpAddress.valueOf("127.0.0." + i));
+            builder.add(node);
+            members.put(node.id(), new Member(node));
+        }
+        this.nodes = builder.build();
+    }
+
+    /**
+     * Returns the controller nodes of the cluster, in creation order.
+     *
+     * @return controller nodes
+     */
+    public List<ControllerNode> nodes() {
+        return nodes;
+    }
+
+    /**
+     * Returns the cluster service as seen by the specified member.
+     *
+     * @param nodeId member identifier
+     * @return cluster service
+     */
+    public ClusterServiceAdapter clusterService(NodeId nodeId) {
+        return members.get(nodeId).clusterService;
+    }
+
+    /**
+     * Returns the cluster communication service of the specified member.
+     *
+     * @param nodeId member identifier
+     * @return cluster communication service
+     */
+    public ClusterCommunicationService communicationService(NodeId nodeId) {
+        return members.get(nodeId).communicationService;
+    }
+
+    // Delivers the message payload to the subscriber of the given member.
+    private CompletableFuture<byte[]> deliver(NodeId sender, NodeId receiver,
+                                              MessageSubject subject, byte[] payload) {
+        Member member = members.get(receiver);
+        Function<ClusterMessage, CompletableFuture<byte[]>> handler =
+                member == null ? null : member.communicationService.handlers.get(subject);
+        if (handler == null) {
+            CompletableFuture<byte[]> failed = new CompletableFuture<>();
+            failed.completeExceptionally(
+                    new IllegalStateException("No handler for " + subject + " on " + receiver));
+            return failed;
+        }
+        return handler.apply(new ClusterMessage(sender, subject, payload));
+    }
+
+    // Member of the cluster and its services.
+    private final class Member {
+        private final LocalClusterService clusterService;
+        private final LocalCommunicationService communicationService;
+
+        private Member(ControllerNode node) {
+            this.clusterService = new LocalClusterService(node);
+            this.communicationService = new LocalCommunicationService(node.id());
+        }
+    }
+
+    private final class LocalClusterService extends ClusterServiceAdapter {
+        private final ControllerNode local;
+
+        private LocalClusterService(ControllerNode local) {
+            this.local = local;
+        }
+
+        @Override
+        public ControllerNode getLocalNode() {
+            return local;
+        }
+
+        @Override
+        public Set<ControllerNode> getNodes() {
+            return ImmutableSet.copyOf(nodes);
+        }
+
+        @Override
+        public ControllerNode getNode(NodeId nodeId) {
+            return members.containsKey(nodeId) ? members.get(nodeId).clusterService.local : null;
+        }
+
+        @Override
+        public ControllerNode.State getState(NodeId nodeId) {
+            return members.containsKey(nodeId) ? ControllerNode.State.ACTIVE : null;
+        }
+    }
+
+    private final class LocalCommunicationService implements ClusterCommunicationService {
+        private final NodeId localNodeId;
+        private final Map<MessageSubject, Function<ClusterMessage, CompletableFuture<byte[]>>> handlers =
+                Maps.newConcurrentMap();
+
+        private LocalCommunicationService(NodeId localNodeId) {
+            this.localNodeId = localNodeId;
+        }
+
+        @Override
+        public void addSubscriber(MessageSubject subject, ClusterMessageHandler subscriber,
+                                  ExecutorService executor) {
+            handlers.put(subject, message -> CompletableFuture.supplyAsync(() -> {
+                subscriber.handle(message);
+                return message.response();
+            }, executor));
+        }
+
+        @Override
+        public <M> void broadcast(M message, MessageSubject subject, Function<M, byte[]> encoder) {
+            byte[] payload = encoder.apply(message);
+            nodes.stream()
+                    .map(ControllerNode::id)
+                    .filter(id -> !id.equals(localNodeId))
+                    .forEach(id -> deliver(localNodeId, id, subject, payload));
+        }
+
+        @Override
+        public <M> void broadcastIncludeSelf(M message, MessageSubject subject,
+                                             Function<M, byte[]> encoder) {
+            byte[] payload = encoder.apply(message);
+            nodes.forEach(node -> deliver(localNodeId, node.id(), subject, payload));
+        }
+
+        @Override
+        public <M> CompletableFuture<Void> unicast(M message, MessageSubject subject,
+                                                   Function<M, byte[]> encoder, NodeId toNodeId) {
+            return deliver(localNodeId, toNodeId, subject, encoder.apply(message))
+                    .thenApply(response -> null);
+        }
+
+        @Override
+        public <M> void multicast(M message, MessageSubject subject,
+                                  Function<M, byte[]> encoder, Set<NodeId> nodeIds) {
+            byte[] payload = encoder.apply(message);
+            nodeIds.forEach(id -> deliver(localNodeId, id, subject, payload));
+        }
+
+        @Override
+        public <M, R> CompletableFuture<R> sendAndReceive(M message, MessageSubject subject,
+                                                          Function<M, byte[]> encoder,
+                                                          Function<byte[], R> decoder,
+                                                          NodeId toNodeId) {
+            return deliver(localNodeId, toNodeId, subject, encoder.apply(message))
+                    .thenApply(decoder);
+        }
+
+        @Override
+        public <M, R> void addSubscriber(MessageSubject subject,
+                                         Function<byte[], M> decoder,
+                                         Function<M, R> handler,
+                                         Function<R, byte[]> encoder,
+                                         Executor executor) {
+            handlers.put(subject, message -> CompletableFuture.supplyAsync(
+                    () -> encoder.apply(handler.apply(decoder.apply(message.payload()))), executor));
+        }
+
+        @Override
+        public <M, R> void addSubscriber(MessageSubject subject,
+                                         Function<byte[], M> decoder,
+                                         Function<M, CompletableFuture<R>> handler,
+                                         Function<R, byte[]> encoder) {
+            handlers.put(subject, message -> handler.apply(decoder.apply(message.payload()))
+                    .thenApply(encoder));
+        }
+
+        @Override
+        public <M> void addSubscriber(MessageSubject subject,
+                                      Function<byte[], M> decoder,
+                                      Consumer<M> handler,
+                                      Executor executor) {
+            handlers.put(subject, message -> {
+                executor.execute(() -> handler.accept(decoder.apply(message.payload())));
+                return CompletableFuture.completedFuture(null);
+            });
+        }
+
+        @Override
+        public <M> void addBufferSubscriber(MessageSubject subject,
+                                            Function<ByteBuffer, M> decoder,
+                                            Consumer<M> handler,
+                                            Executor executor) {
+            handlers.put(subject, message -> {
+                executor.execute(() -> handler.accept(decoder.apply(ByteBuffer.wrap(message.payload()))));
+                return CompletableFuture.completedFuture(null);
+            });
+        }
+
+        @Override
+        public void removeSubscriber(MessageSubject subject) {
+            handlers.remove(subject);
+        }
+    }
+}
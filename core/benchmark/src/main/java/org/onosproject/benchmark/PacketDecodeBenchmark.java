@@ -0,0 +1,169 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.benchmark;
+
+import org.onlab.packet.ARP;
+import org.onlab.packet.ChassisId;
+import org.onlab.packet.Data;
+import org.onlab.packet.DeserializationException;
+import org.onlab.packet.Deserializer;
+import org.onlab.packet.Ethernet;
+import org.onlab.packet.IPv4;
+import org.onlab.packet.Ip4Address;
+import org.onlab.packet.MacAddress;
+import org.onlab.packet.ONOSLLDP;
+import org.onlab.packet.TCP;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the eager and the lazy decoding of Ethernet frames, each
+ * followed by the header reads a typical packet processor makes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class PacketDecodeBenchmark {
+
+    private static final MacAddress SRC_MAC = MacAddress.valueOf("00:00:00:00:00:01");
+    private static final MacAddress DST_MAC = MacAddress.valueOf("00:00:00:00:00:02");
+    private static final Ip4Address SRC_IP = Ip4Address.valueOf("10.0.0.1");
+    private static final Ip4Address DST_IP = Ip4Address.valueOf("10.0.0.2");
+
+    private final Deserializer<Ethernet> eager = Ethernet.deserializer();
+    private final Deserializer<Ethernet> lazy = Ethernet.lazyDeserializer();
+
+    private byte[] arpFrame;
+    private byte[] lldpFrame;
+    private byte[] tcpFrame;
+
+    @Setup
+    public void setUp() {
+        ARP arp = new ARP()
+                .setHardwareType(ARP.HW_TYPE_ETHERNET)
+                .setProtocolType(ARP.PROTO_TYPE_IP)
+                .setHardwareAddressLength((byte) Ethernet.DATALAYER_ADDRESS_LENGTH)
+                .setProtocolAddressLength((byte) Ip4Address.BYTE_LENGTH)
+                .setOpCode(ARP.OP_REQUEST)
+                .setSenderHardwareAddress(SRC_MAC.toBytes())
+                .setSenderProtocolAddress(SRC_IP.toOctets())
+                .setTargetHardwareAddress(MacAddress.ZERO.toBytes())
+                .setTargetProtocolAddress(DST_IP.toOctets());
+        Ethernet arpEth = new Ethernet();
+        arpEth.setSourceMACAddress(SRC_MAC)
+                .setDestinationMACAddress(MacAddress.BROADCAST)
+                .setEtherType(Ethernet.TYPE_ARP)
+                .setPayload(arp);
+        arpFrame = arpEth.serialize();
+
+        ONOSLLDP lldp = new ONOSLLDP();
+        lldp.setChassisId(new ChassisId(1));
+        lldp.setPortId(1);
+        lldp.setDevice("of:0000000000000001");
+        Ethernet lldpEth = new Ethernet();
+        lldpEth.setSourceMACAddress(SRC_MAC)
+                .setDestinationMACAddress(ONOSLLDP.LLDP_NICIRA)
+                .setEtherType(Ethernet.TYPE_LLDP)
+                .setPayload(lldp);
+        lldpFrame = lldpEth.serialize();
+
+        TCP tcp = new TCP()
+                .setSourcePort(5000)
+                .setDestinationPort(80);
+        tcp.setPayload(new Data(new byte[1000]));
+        IPv4 ip = new IPv4()
+                .setSourceAddress(SRC_IP.toInt())
+                .setDestinationAddress(DST_IP.toInt())
+                .setProtocol(IPv4.PROTOCOL_TCP)
+                .setTtl((byte) 64);
+        ip.setPayload(tcp);
+        Ethernet tcpEth = new Ethernet();
+        tcpEth.setSourceMACAddress(SRC_MAC)
+                .setDestinationMACAddress(DST_MAC)
+                .setEtherType(Ethernet.TYPE_IPV4)
+                .setPayload(ip);
+        tcpFrame = tcpEth.serialize();
+    }
+
+    private static short arpOpCode(Ethernet eth) {
+        return ((ARP) eth.getPayload()).getOpCode();
+    }
+
+    private static Integer lldpPort(Ethernet eth) {
+        return ONOSLLDP.parseONOSLLDP(eth).getPort();
+    }
+
+    private static MacAddress destination(Ethernet eth) {
+        return eth.getEtherType() == Ethernet.TYPE_IPV4 ? eth.getDestinationMAC() : null;
+    }
+
+    private static int tcpPort(Ethernet eth) {
+        return ((TCP) eth.getPayload().getPayload()).getDestinationPort();
+    }
+
+    @Benchmark
+    public short eagerArp() throws DeserializationException {
+        return arpOpCode(eager.deserialize(arpFrame, 0, arpFrame.length));
+    }
+
+    @Benchmark
+    public short lazyArp() throws DeserializationException {
+        return arpOpCode(lazy.deserialize(arpFrame, 0, arpFrame.length));
+    }
+
+    @Benchmark
+    public Integer eagerLldp() throws DeserializationException {
+        return lldpPort(eager.deserialize(lldpFrame, 0, lldpFrame.length));
+    }
+
+    @Benchmark
+    public Integer lazyLldp() throws DeserializationException {
+        return lldpPort(lazy.deserialize(lldpFrame, 0, lldpFrame.length));
+    }
+
+    @Benchmark
+    public MacAddress eagerTcpHeader() throws DeserializationException {
+        return destination(eager.deserialize(tcpFrame, 0, tcpFrame.length));
+    }
+
+    @Benchmark
+    public MacAddress lazyTcpHeader() throws DeserializationException {
+        return destination(lazy.deserialize(tcpFrame, 0, tcpFrame.length));
+    }
+
+    @Benchmark
+    public int eagerTcpPort() throws DeserializationException {
+        return tcpPort(eager.deserialize(tcpFrame, 0, tcpFrame.length));
+    }
+
+    @Benchmark
+    public int lazyTcpPort() throws DeserializationException {
+        return tcpPort(lazy.deserialize(tcpFrame, 0, tcpFrame.length));
+    }
+}
@@ -18,15 +18,21 @@ package org.onosproject.common;
 import com.google.common.base.Function;
 import com.google.common.base.Supplier;
 import com.google.common.base.Suppliers;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSetMultimap;
 import com.google.common.collect.ImmutableSetMultimap.Builder;
+import org.onlab.graph.AbstractEdge;
+import org.onlab.graph.AdjacencyListsGraph;
 import org.onlab.graph.DijkstraGraphSearch;
 import org.onlab.graph.GraphPathSearch;
 import org.onlab.graph.GraphPathSearch.Result;
 import org.onlab.graph.TarjanGraphSearch;
 import org.onlab.graph.TarjanGraphSearch.SCCResult;
+import org.onlab.graph.Vertex;
 import org.onosproject.net.AbstractModel;
 import org.onosproject.net.ConnectPoint;
 import org.onosproject.net.DefaultPath;
@@ -46,8 +52,11 @@ import org.onosproject.net.topology.TopologyGraph;
 import org.onosproject.net.topology.TopologyVertex;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 
 import static com.google.common.base.MoreObjects.toStringHelper;
@@ -67,6 +76,24 @@ public class DefaultTopology extends AbstractModel implements Topology {
 
     private static final DijkstraGraphSearch<TopologyVertex, TopologyEdge> DIJKSTRA = new DijkstraGraphSearch<>();
     private static final TarjanGraphSearch<TopologyVertex, TopologyEdge> TARJAN = new TarjanGraphSearch<>();
+    private static final TarjanGraphSearch<ClusterNode, NodeEdge> NODE_TARJAN = new TarjanGraphSearch<>();
+    private static final LinkWeight NO_INDIRECT_LINKS = new NoIndirectLinksWeight();
+
+    // Maximum number of single-source shortest path trees cached per topology
+    private static final int MAX_CACHED_PATH_TREES = 256;
+
+    // Link weight classes whose instances can be told apart by value; only
+    // those can share a cached path tree across requests.
+    private static final ClassValue<Boolean> VALUE_BASED_WEIGHT = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            try {
+                return type.getMethod("equals", Object.class).getDeclaringClass() != Object.class;
+            } catch (NoSuchMethodException e) {
+                return false;
+            }
+        }
+    };
 
     private final long time;
     private final long creationTime;
@@ -74,12 +101,11 @@ public class DefaultTopology extends AbstractModel implements Topology {
     private final TopologyGraph graph;
 
     private final LinkWeight weight;
-    private final Supplier<SCCResult<TopologyVertex, TopologyEdge>> clusterResults;
-    private final Supplier<ImmutableMap<ClusterId, TopologyCluster>> clusters;
     private final Supplier<ImmutableSet<ConnectPoint>> infrastructurePoints;
     private final Supplier<ImmutableSetMultimap<ClusterId, ConnectPoint>> broadcastSets;
     private final Function<ConnectPoint, Boolean> broadcastFunction;
     private final Supplier<ClusterIndexes> clusterIndexes;
+    private final LoadingCache<PathTreeKey, ImmutableSetMultimap<DeviceId, Path>> pathTrees;
 
     /**
      * Creates a topology descriptor attributed to the specified provider.
@@ -90,6 +116,24 @@ public class DefaultTopology extends AbstractModel implements Topology {
      */
     public DefaultTopology(ProviderId providerId, GraphDescription description,
                            Function<ConnectPoint, Boolean> broadcastFunction) {
+        this(providerId, description, broadcastFunction, null);
+    }
+
+    /**
+     * Creates a topology descriptor attributed to the specified provider,
+     * deriving it incrementally from the previous topology. Clusters which
+     * are not affected by the changes between the two graphs are carried
+     * over together with their broadcast sets; only the affected ones are
+     * searched for and computed anew.
+     *
+     * @param providerId        identity of the provider
+     * @param description       data describing the new topology
+     * @param broadcastFunction broadcast point function
+     * @param previous          previous topology; null to compute from scratch
+     */
+    public DefaultTopology(ProviderId providerId, GraphDescription description,
+                           Function<ConnectPoint, Boolean> broadcastFunction,
+                           DefaultTopology previous) {
         super(providerId);
         this.broadcastFunction = broadcastFunction;
         this.time = description.timestamp();
@@ -99,14 +143,22 @@ public class DefaultTopology extends AbstractModel implements Topology {
         this.graph = new DefaultTopologyGraph(description.vertexes(),
                                               description.edges());
 
-        this.clusterResults = Suppliers.memoize(() -> searchForClusters());
-        this.clusters = Suppliers.memoize(() -> buildTopologyClusters());
-
-        this.clusterIndexes = Suppliers.memoize(() -> buildIndexes());
+        if (previous == null) {
+            this.clusterIndexes = Suppliers.memoize(() -> buildIndexes(searchForClusters()));
+            this.broadcastSets = Suppliers.memoize(() -> buildBroadcastSets(ImmutableSetMultimap.of()));
+        } else {
+            // Resolve the clusters right away so that no reference to the
+            // previous topology is retained.
+            ClusterUpdate update = updateClusters(previous);
+            this.clusterIndexes = Suppliers.ofInstance(update.indexes);
+            this.broadcastSets = Suppliers.memoize(() -> buildBroadcastSets(update.broadcastSets));
+        }
 
         this.weight = new HopCountLinkWeight(graph.getVertexes().size());
-        this.broadcastSets = Suppliers.memoize(() -> buildBroadcastSets());
         this.infrastructurePoints = Suppliers.memoize(() -> findInfrastructurePoints());
+        this.pathTrees = CacheBuilder.newBuilder()
+                .maximumSize(MAX_CACHED_PATH_TREES)
+                .build(CacheLoader.from(this::searchPathTree));
         this.computeCost = Math.max(0, System.nanoTime() - time);
     }
 
@@ -137,7 +189,7 @@ public class DefaultTopology extends AbstractModel implements Topology {
 
     @Override
     public int clusterCount() {
-        return clusters.get().size();
+        return clusters().size();
     }
 
     @Override
@@ -150,6 +202,10 @@ public class DefaultTopology extends AbstractModel implements Topology {
         return graph.getEdges().size();
     }
 
+    private ImmutableMap<ClusterId, TopologyCluster> clusters() {
+        return clusterIndexes.get().clusters;
+    }
+
     private ImmutableMap<DeviceId, TopologyCluster> clustersByDevice() {
         return clusterIndexes.get().clustersByDevice;
     }
@@ -177,7 +233,7 @@ public class DefaultTopology extends AbstractModel implements Topology {
      * @return set of clusters
      */
     public Set<TopologyCluster> getClusters() {
-        return ImmutableSet.copyOf(clusters.get().values());
+        return ImmutableSet.copyOf(clusters().values());
     }
 
     /**
@@ -187,7 +243,7 @@ public class DefaultTopology extends AbstractModel implements Topology {
      * @return topology cluster
      */
     public TopologyCluster getCluster(ClusterId clusterId) {
-        return clusters.get().get(clusterId);
+        return clusters().get(clusterId);
     }
 
     /**
@@ -291,6 +347,13 @@ public class DefaultTopology extends AbstractModel implements Topology {
     /**
      * Computes on-demand the set of shortest paths between source and
      * destination devices.
+     * <p>
+     * For the default hop-count weight, and for link weight functions that
+     * define value-based equality, the shortest paths from the source to all
+     * destinations are computed at once and retained for subsequent requests
+     * with the same source and weight, for as long as this topology is
+     * current. Any other weight is searched for the single destination only.
+     * </p>
      *
      * @param src    source device
      * @param dst    destination device
@@ -306,6 +369,10 @@ public class DefaultTopology extends AbstractModel implements Topology {
             return ImmutableSet.of();
         }
 
+        if (weight == null || VALUE_BASED_WEIGHT.get(weight.getClass())) {
+            return pathTrees.getUnchecked(new PathTreeKey(src, weight)).get(dst);
+        }
+
         GraphPathSearch.Result<TopologyVertex, TopologyEdge> result =
                 DIJKSTRA.search(graph, srcV, dstV, weight, ALL_PATHS);
         ImmutableSet.Builder<Path> builder = ImmutableSet.builder();
@@ -315,6 +382,19 @@ public class DefaultTopology extends AbstractModel implements Topology {
         return builder.build();
     }
 
+    // Searches for the shortest paths from a source to all reachable
+    // devices, indexed by their destination device.
+    private ImmutableSetMultimap<DeviceId, Path> searchPathTree(PathTreeKey key) {
+        GraphPathSearch.Result<TopologyVertex, TopologyEdge> result =
+                DIJKSTRA.search(graph, new DefaultTopologyVertex(key.src), null,
+                                key.weight, ALL_PATHS);
+        ImmutableSetMultimap.Builder<DeviceId, Path> builder = ImmutableSetMultimap.builder();
+        for (org.onlab.graph.Path<TopologyVertex, TopologyEdge> path : result.paths()) {
+            builder.put(path.dst().deviceId(), networkPath(path));
+        }
+        return builder.build();
+    }
+
     // Converts graph path to a network path with the same cost.
     private Path networkPath(org.onlab.graph.Path<TopologyVertex, TopologyEdge> path) {
         List<Link> links = new ArrayList<>();
@@ -327,13 +407,12 @@ public class DefaultTopology extends AbstractModel implements Topology {
     // Searches for SCC clusters in the network topology graph using Tarjan
     // algorithm.
     private SCCResult<TopologyVertex, TopologyEdge> searchForClusters() {
-        return TARJAN.search(graph, new NoIndirectLinksWeight());
+        return TARJAN.search(graph, NO_INDIRECT_LINKS);
     }
 
-    // Builds the topology clusters and returns the id-cluster bindings.
-    private ImmutableMap<ClusterId, TopologyCluster> buildTopologyClusters() {
-        ImmutableMap.Builder<ClusterId, TopologyCluster> clusterBuilder = ImmutableMap.builder();
-        SCCResult<TopologyVertex, TopologyEdge> results = clusterResults.get();
+    // Builds the topology clusters and their indexes from the SCC results.
+    private ClusterIndexes buildIndexes(SCCResult<TopologyVertex, TopologyEdge> results) {
+        ClusterIndexesBuilder builder = new ClusterIndexesBuilder();
         // Extract both vertexes and edges from the results; the lists form
         // pairs along the same index.
         List<Set<TopologyVertex>> clusterVertexes = results.clusterVertexes();
@@ -341,25 +420,151 @@ public class DefaultTopology extends AbstractModel implements Topology {
 
         // Scan over the lists and create a cluster from the results.
         for (int i = 0, n = results.clusterCount(); i < n; i++) {
-            Set<TopologyVertex> vertexSet = clusterVertexes.get(i);
-            Set<TopologyEdge> edgeSet = clusterEdges.get(i);
+            builder.add(ClusterId.clusterId(i), clusterVertexes.get(i), clusterEdges.get(i));
+        }
+        return builder.build();
+    }
+
+    // Derives the clusters from those of the previous topology. Clusters
+    // which lost a vertex or a traversable intra-cluster edge may have split
+    // and are broken up into their vertexes; all others remain strongly
+    // connected and are each contracted into a single node. The SCC search
+    // over the contracted graph then yields clusters which are either carried
+    // over as they are, or are assembled anew.
+    private ClusterUpdate updateClusters(DefaultTopology previous) {
+        ClusterIndexes old = previous.clusterIndexes.get();
+
+        // Clusters which may have split, and clusters whose links changed.
+        Set<TopologyCluster> broken = new HashSet<>();
+        Set<TopologyCluster> changed = new HashSet<>();
+
+        for (TopologyVertex vertex : previous.graph.getVertexes()) {
+            if (!graph.getVertexes().contains(vertex)) {
+                addIfPresent(broken, old.clustersByDevice.get(vertex.deviceId()));
+            }
+        }
+
+        // Edges are equal if their links are, regardless of the link state
+        // or annotations; any such difference counts as a change as well.
+        Map<TopologyEdge, TopologyEdge> staleEdges = new HashMap<>();
+        previous.graph.getEdges().forEach(edge -> staleEdges.put(edge, edge));
+        List<TopologyEdge> addedEdges = new ArrayList<>();
+        for (TopologyEdge edge : graph.getEdges()) {
+            TopologyEdge oldEdge = staleEdges.get(edge);
+            if (oldEdge == null || !isSameLink(oldEdge.link(), edge.link())) {
+                addedEdges.add(edge);
+            } else {
+                staleEdges.remove(edge);
+            }
+        }
+
+        for (TopologyEdge edge : staleEdges.values()) {
+            TopologyCluster cluster = intraClusterOf(old, edge);
+            addIfPresent(changed, cluster);
+            if (NO_INDIRECT_LINKS.weight(edge) >= 0) {
+                addIfPresent(broken, cluster);
+            }
+        }
+        for (TopologyEdge edge : addedEdges) {
+            addIfPresent(changed, intraClusterOf(old, edge));
+        }
+
+        // Contract the intact clusters and search for SCCs among the nodes.
+        Map<TopologyCluster, ClusterNode> contracted = new HashMap<>();
+        Map<TopologyVertex, ClusterNode> nodes = new HashMap<>();
+        for (TopologyVertex vertex : graph.getVertexes()) {
+            TopologyCluster cluster = old.clustersByDevice.get(vertex.deviceId());
+            ClusterNode node = cluster != null && !broken.contains(cluster) ?
+                    contracted.computeIfAbsent(cluster, ClusterNode::new) : new ClusterNode(null);
+            node.vertexes.add(vertex);
+            nodes.put(vertex, node);
+        }
+
+        Set<NodeEdge> nodeEdges = new HashSet<>();
+        for (TopologyEdge edge : graph.getEdges()) {
+            ClusterNode src = nodes.get(edge.src());
+            ClusterNode dst = nodes.get(edge.dst());
+            if (src != dst && NO_INDIRECT_LINKS.weight(edge) >= 0) {
+                nodeEdges.add(new NodeEdge(src, dst));
+            }
+        }
+
+        SCCResult<ClusterNode, NodeEdge> results =
+                NODE_TARJAN.search(new AdjacencyListsGraph<>(ImmutableSet.copyOf(nodes.values()),
+                                                             nodeEdges), null);
+
+        // Carry over the untouched clusters first, so that their identifiers
+        // are retained, and then assemble the others under free identifiers.
+        ClusterIndexesBuilder builder = new ClusterIndexesBuilder();
+        ImmutableSetMultimap.Builder<ClusterId, ConnectPoint> broadcastBuilder =
+                ImmutableSetMultimap.builder();
+        ImmutableSetMultimap<ClusterId, ConnectPoint> oldBroadcastSets = previous.broadcastSets.get();
+        Set<ClusterId> usedIds = new HashSet<>();
+        List<Set<TopologyVertex>> newClusters = new ArrayList<>();
+
+        for (Set<ClusterNode> members : results.clusterVertexes()) {
+            ClusterNode node = members.size() == 1 ? members.iterator().next() : null;
+            if (node != null && node.cluster != null && !changed.contains(node.cluster)) {
+                TopologyCluster cluster = node.cluster;
+                builder.add(cluster, old.devicesByCluster.get(cluster), old.linksByCluster.get(cluster));
+                broadcastBuilder.putAll(cluster.id(), oldBroadcastSets.get(cluster.id()));
+                usedIds.add(cluster.id());
+            } else {
+                Set<TopologyVertex> vertexes = new HashSet<>();
+                members.forEach(member -> vertexes.addAll(member.vertexes));
+                newClusters.add(vertexes);
+            }
+        }
+
+        int index = 0;
+        for (Set<TopologyVertex> vertexes : newClusters) {
+            ClusterId cid = ClusterId.clusterId(index++);
+            while (usedIds.contains(cid)) {
+                cid = ClusterId.clusterId(index++);
+            }
+            builder.add(cid, vertexes, findClusterEdges(vertexes));
+        }
+        return new ClusterUpdate(builder.build(), broadcastBuilder.build());
+    }
+
+    // Returns the cluster containing both ends of the given edge, if any.
+    private static TopologyCluster intraClusterOf(ClusterIndexes indexes, TopologyEdge edge) {
+        TopologyCluster cluster = indexes.clustersByDevice.get(edge.src().deviceId());
+        return cluster != null &&
+                cluster.equals(indexes.clustersByDevice.get(edge.dst().deviceId())) ? cluster : null;
+    }
+
+    private static void addIfPresent(Set<TopologyCluster> clusters, TopologyCluster cluster) {
+        if (cluster != null) {
+            clusters.add(cluster);
+        }
+    }
 
-            ClusterId cid = ClusterId.clusterId(i);
-            DefaultTopologyCluster cluster = new DefaultTopologyCluster(cid,
-                                                                        vertexSet.size(),
-                                                                        edgeSet.size(),
-                                                                        findRoot(vertexSet));
-            clusterBuilder.put(cid, cluster);
+    // Indicates whether the two links are equal in all their attributes.
+    private static boolean isSameLink(Link a, Link b) {
+        return a == b || (a.state() == b.state() &&
+                Objects.equals(a.annotations(), b.annotations()));
+    }
+
+    // Finds all edges linking the given vertexes of a cluster.
+    private Set<TopologyEdge> findClusterEdges(Set<TopologyVertex> vertexes) {
+        Set<TopologyEdge> edges = new HashSet<>();
+        for (TopologyVertex vertex : vertexes) {
+            for (TopologyEdge edge : graph.getEdgesFrom(vertex)) {
+                if (vertexes.contains(edge.dst())) {
+                    edges.add(edge);
+                }
+            }
         }
-        return clusterBuilder.build();
+        return edges;
     }
 
     // Finds the vertex whose device id is the lexicographical minimum in the
     // specified set.
-    private TopologyVertex findRoot(Set<TopologyVertex> vertexSet) {
+    private static TopologyVertex findRoot(Set<TopologyVertex> vertexSet) {
         TopologyVertex minVertex = null;
         for (TopologyVertex vertex : vertexSet) {
-            if ((minVertex == null) || (minVertex.deviceId()
+            if ((minVertex == null) || (vertex.deviceId()
                     .toString().compareTo(minVertex.deviceId().toString()) < 0)) {
                 minVertex = vertex;
             }
@@ -367,12 +572,17 @@ public class DefaultTopology extends AbstractModel implements Topology {
         return minVertex;
     }
 
-    // Processes a map of broadcast sets for each cluster.
-    private ImmutableSetMultimap<ClusterId, ConnectPoint> buildBroadcastSets() {
+    // Processes a map of broadcast sets for each cluster, reusing any of the
+    // given, already computed broadcast sets.
+    private ImmutableSetMultimap<ClusterId, ConnectPoint> buildBroadcastSets(
+            ImmutableSetMultimap<ClusterId, ConnectPoint> computed) {
         Builder<ClusterId, ConnectPoint> builder = ImmutableSetMultimap
                 .builder();
-        for (TopologyCluster cluster : clusters.get().values()) {
-            addClusterBroadcastSet(cluster, builder);
+        builder.putAll(computed);
+        for (TopologyCluster cluster : clusters().values()) {
+            if (!computed.containsKey(cluster.id())) {
+                addClusterBroadcastSet(cluster, builder);
+            }
         }
         return builder.build();
     }
@@ -415,38 +625,6 @@ public class DefaultTopology extends AbstractModel implements Topology {
         return builder.build();
     }
 
-    // Builds cluster-devices, cluster-links and device-cluster indexes.
-    private ClusterIndexes buildIndexes() {
-        // Prepare the index builders
-        ImmutableMap.Builder<DeviceId, TopologyCluster> clusterBuilder =
-                ImmutableMap.builder();
-        ImmutableSetMultimap.Builder<TopologyCluster, DeviceId> devicesBuilder =
-                ImmutableSetMultimap.builder();
-        ImmutableSetMultimap.Builder<TopologyCluster, Link> linksBuilder =
-                ImmutableSetMultimap.builder();
-
-        // Now scan through all the clusters
-        for (TopologyCluster cluster : clusters.get().values()) {
-            int i = cluster.id().index();
-
-            // Scan through all the cluster vertexes.
-            for (TopologyVertex vertex : clusterResults.get().clusterVertexes().get(i)) {
-                devicesBuilder.put(cluster, vertex.deviceId());
-                clusterBuilder.put(vertex.deviceId(), cluster);
-            }
-
-            // Scan through all the cluster edges.
-            for (TopologyEdge edge : clusterResults.get().clusterEdges().get(i)) {
-                linksBuilder.put(cluster, edge.link());
-            }
-        }
-
-        // Finalize all indexes.
-        return new ClusterIndexes(clusterBuilder.build(),
-                                  devicesBuilder.build(),
-                                  linksBuilder.build());
-    }
-
     // Link weight for measuring link cost as hop count with indirect links
     // being as expensive as traversing the entire graph to assume the worst.
     private static class HopCountLinkWeight implements LinkWeight {
@@ -475,20 +653,125 @@ public class DefaultTopology extends AbstractModel implements Topology {
         }
     }
 
+    // Key of a cached single-source shortest path tree; link weight
+    // functions are either null or compared by value.
+    private static final class PathTreeKey {
+        private final DeviceId src;
+        private final LinkWeight weight;
+
+        private PathTreeKey(DeviceId src, LinkWeight weight) {
+            this.src = src;
+            this.weight = weight;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(src, weight);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj instanceof PathTreeKey) {
+                PathTreeKey that = (PathTreeKey) obj;
+                return Objects.equals(src, that.src) && Objects.equals(weight, that.weight);
+            }
+            return false;
+        }
+    }
+
     static final class ClusterIndexes {
+        final ImmutableMap<ClusterId, TopologyCluster> clusters;
         final ImmutableMap<DeviceId, TopologyCluster> clustersByDevice;
         final ImmutableSetMultimap<TopologyCluster, DeviceId> devicesByCluster;
         final ImmutableSetMultimap<TopologyCluster, Link> linksByCluster;
 
-        public ClusterIndexes(ImmutableMap<DeviceId, TopologyCluster> clustersByDevice,
+        public ClusterIndexes(ImmutableMap<ClusterId, TopologyCluster> clusters,
+                              ImmutableMap<DeviceId, TopologyCluster> clustersByDevice,
                               ImmutableSetMultimap<TopologyCluster, DeviceId> devicesByCluster,
                               ImmutableSetMultimap<TopologyCluster, Link> linksByCluster) {
+            this.clusters = clusters;
             this.clustersByDevice = clustersByDevice;
             this.devicesByCluster = devicesByCluster;
             this.linksByCluster = linksByCluster;
         }
     }
 
+    // Accumulates the clusters along with their device and link indexes.
+    private static final class ClusterIndexesBuilder {
+        private final ImmutableMap.Builder<ClusterId, TopologyCluster> clusters =
+                ImmutableMap.builder();
+        private final ImmutableMap.Builder<DeviceId, TopologyCluster> clustersByDevice =
+                ImmutableMap.builder();
+        private final ImmutableSetMultimap.Builder<TopologyCluster, DeviceId> devicesByCluster =
+                ImmutableSetMultimap.builder();
+        private final ImmutableSetMultimap.Builder<TopologyCluster, Link> linksByCluster =
+                ImmutableSetMultimap.builder();
+
+        // Adds a new cluster comprising the given vertexes and edges.
+        void add(ClusterId cid, Set<TopologyVertex> vertexes, Set<TopologyEdge> edges) {
+            TopologyCluster cluster = new DefaultTopologyCluster(cid, vertexes.size(),
+                                                                 edges.size(),
+                                                                 findRoot(vertexes));
+            clusters.put(cid, cluster);
+            for (TopologyVertex vertex : vertexes) {
+                devicesByCluster.put(cluster, vertex.deviceId());
+                clustersByDevice.put(vertex.deviceId(), cluster);
+            }
+            for (TopologyEdge edge : edges) {
+                linksByCluster.put(cluster, edge.link());
+            }
+        }
+
+        // Adds an existing cluster comprising the given devices and links.
+        void add(TopologyCluster cluster, Set<DeviceId> devices, Set<Link> links) {
+            clusters.put(cluster.id(), cluster);
+            for (DeviceId deviceId : devices) {
+                clustersByDevice.put(deviceId, cluster);
+            }
+            devicesByCluster.putAll(cluster, devices);
+            linksByCluster.putAll(cluster, links);
+        }
+
+        ClusterIndexes build() {
+            return new ClusterIndexes(clusters.build(), clustersByDevice.build(),
+                                      devicesByCluster.build(), linksByCluster.build());
+        }
+    }
+
+    // Clusters derived from the previous topology, along with the broadcast
+    // sets of those carried over from it.
+    private static final class ClusterUpdate {
+        private final ClusterIndexes indexes;
+        private final ImmutableSetMultimap<ClusterId, ConnectPoint> broadcastSets;
+
+        private ClusterUpdate(ClusterIndexes indexes,
+                              ImmutableSetMultimap<ClusterId, ConnectPoint> broadcastSets) {
+            this.indexes = indexes;
+            this.broadcastSets = broadcastSets;
+        }
+    }
+
+    // Node of the contracted graph; either an intact cluster of the previous
+    // topology or a single vertex.
+    private static final class ClusterNode implements Vertex {
+        private final TopologyCluster cluster;
+        private final Set<TopologyVertex> vertexes = new HashSet<>();
+
+        private ClusterNode(TopologyCluster cluster) {
+            this.cluster = cluster;
+        }
+    }
+
+    // Edge of the contracted graph.
+    private static final class NodeEdge extends AbstractEdge<ClusterNode> {
+        private NodeEdge(ClusterNode src, ClusterNode dst) {
+            super(src, dst);
+        }
+    }
+
     @Override
     public String toString() {
         return toStringHelper(this)
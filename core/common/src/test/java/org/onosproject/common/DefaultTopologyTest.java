@@ -32,8 +32,12 @@ import org.onosproject.net.topology.DefaultGraphDescription;
 import org.onosproject.net.topology.GraphDescription;
 import org.onosproject.net.topology.LinkWeight;
 import org.onosproject.net.topology.TopologyCluster;
+import org.onosproject.net.topology.TopologyEdge;
+
+import com.google.common.collect.Sets;
 
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.google.common.collect.ImmutableSet.of;
 import static org.junit.Assert.*;
@@ -100,6 +104,67 @@ public class DefaultTopologyTest {
         assertEquals("incorrect path count", 1, paths.size());
     }
 
+    @Test
+    public void pathsFromCachedTree() {
+        AtomicInteger evaluations = new AtomicInteger();
+
+        Set<Path> paths = dt.getPaths(D1, D3, new CountingWeight(evaluations));
+        assertEquals("incorrect path count", 1, paths.size());
+        int searchCost = evaluations.get();
+        assertTrue("weight should be evaluated", searchCost > 0);
+
+        CountingWeight weight = new CountingWeight(evaluations);
+        assertEquals("incorrect path count", 1, dt.getPaths(D1, D2, weight).size());
+        assertEquals("incorrect path count", 1, dt.getPaths(D1, D4, weight).size());
+        assertSame("paths should be cached", paths, dt.getPaths(D1, D3, weight));
+        assertEquals("source tree should be reused", searchCost, evaluations.get());
+
+        assertSame("paths should be cached", dt.getPaths(D1, D3), dt.getPaths(D1, D3));
+        assertEquals("incorrect path count", 2, dt.getPaths(D1, D3).size());
+        assertTrue("no paths expected", dt.getPaths(D1, D1, weight).isEmpty());
+    }
+
+    @Test
+    public void pathsWithoutValueEquality() {
+        AtomicInteger evaluations = new AtomicInteger();
+        LinkWeight weight = edge -> {
+            evaluations.incrementAndGet();
+            return WEIGHT.weight(edge);
+        };
+
+        assertEquals("incorrect path count", 1, dt.getPaths(D1, D3, weight).size());
+        int searchCost = evaluations.get();
+        assertTrue("weight should be evaluated", searchCost > 0);
+
+        assertEquals("incorrect path count", 1, dt.getPaths(D1, D3, weight).size());
+        assertTrue("weight should not be cached", evaluations.get() > searchCost);
+    }
+
+    // Link weight with value-based equality that counts its evaluations.
+    private static final class CountingWeight implements LinkWeight {
+        private final AtomicInteger evaluations;
+
+        private CountingWeight(AtomicInteger evaluations) {
+            this.evaluations = evaluations;
+        }
+
+        @Override
+        public double weight(TopologyEdge edge) {
+            evaluations.incrementAndGet();
+            return WEIGHT.weight(edge);
+        }
+
+        @Override
+        public int hashCode() {
+            return CountingWeight.class.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof CountingWeight;
+        }
+    }
+
     @Test
     public void pointRelated() {
         assertTrue("should be infrastructure point",
@@ -120,6 +185,83 @@ public class DefaultTopologyTest {
         assertFalse("cluster should not contain D5", devs.contains(D5));
     }
 
+    @Test
+    public void incrementalClusters() {
+        Set<Device> devices = of(device("1"), device("2"), device("3"),
+                                 device("4"), device("5"));
+        Set<Link> ring = of(link("1", 1, "2", 1), link("2", 1, "1", 1),
+                            link("3", 2, "2", 2), link("2", 2, "3", 2),
+                            link("1", 3, "4", 3), link("4", 3, "1", 3),
+                            link("3", 4, "4", 4), link("4", 4, "3", 4));
+
+        // New device joined to an untouched cluster
+        DefaultTopology t = assertIncremental(dt, Sets.union(devices, of(device("6"))),
+                                              Sets.union(ring, of(link("5", 1, "6", 1),
+                                                                  link("6", 1, "5", 1))));
+        assertSame("cluster should be carried over", dt.getCluster(D1), t.getCluster(D1));
+        assertEquals("incorrect cluster count", 2, t.clusterCount());
+
+        // One-way link between clusters
+        t = assertIncremental(dt, devices, Sets.union(ring, of(link("5", 1, "1", 5))));
+        assertSame("cluster should be carried over", dt.getCluster(D1), t.getCluster(D1));
+        assertSame("cluster should be carried over", dt.getCluster(D5), t.getCluster(D5));
+
+        // Clusters merged by a bidirectional link
+        t = assertIncremental(dt, devices, Sets.union(ring, of(link("4", 5, "5", 5),
+                                                               link("5", 5, "4", 5))));
+        assertEquals("incorrect cluster count", 1, t.clusterCount());
+
+        // Cluster which remains connected after losing a link
+        t = assertIncremental(dt, devices, Sets.difference(ring, of(link("1", 1, "2", 1))));
+        assertEquals("incorrect cluster count", 2, t.clusterCount());
+
+        // Cluster split by removal of links
+        Set<Link> split = Sets.difference(ring, of(link("1", 1, "2", 1), link("2", 1, "1", 1),
+                                                   link("3", 4, "4", 4), link("4", 4, "3", 4)));
+        t = assertIncremental(dt, devices, split);
+        assertEquals("incorrect cluster count", 3, t.clusterCount());
+
+        // ...and joined again
+        t = assertIncremental(t, devices, ring);
+        assertEquals("incorrect cluster count", 2, t.clusterCount());
+
+        // Cluster split by removal of a device
+        t = assertIncremental(dt, Sets.difference(devices, of(device("2"))), ring);
+        assertEquals("incorrect cluster count", 2, t.clusterCount());
+        assertEquals("incorrect cluster device count", 3,
+                     t.getClusterDevices(t.getCluster(D1)).size());
+    }
+
+    // Derives a topology incrementally from the previous one and verifies
+    // that it is equivalent to one computed from scratch.
+    private DefaultTopology assertIncremental(DefaultTopology previous,
+                                              Set<Device> devices, Set<Link> links) {
+        GraphDescription description =
+                new DefaultGraphDescription(System.nanoTime(), System.currentTimeMillis(),
+                                            devices, links);
+        DefaultTopology expected = new DefaultTopology(PID, description);
+        DefaultTopology actual = new DefaultTopology(PID, description, null, previous);
+
+        assertEquals("incorrect device count", expected.deviceCount(), actual.deviceCount());
+        assertEquals("incorrect link count", expected.linkCount(), actual.linkCount());
+        assertEquals("incorrect cluster count", expected.clusterCount(), actual.clusterCount());
+        for (TopologyCluster cluster : expected.getClusters()) {
+            TopologyCluster other = actual.getCluster(cluster.root().deviceId());
+            assertNotNull("cluster expected", other);
+            assertSame("incorrect cluster", other, actual.getCluster(other.id()));
+            assertEquals("incorrect root", cluster.root(), other.root());
+            assertEquals("incorrect device count", cluster.deviceCount(), other.deviceCount());
+            assertEquals("incorrect link count", cluster.linkCount(), other.linkCount());
+            assertEquals("incorrect cluster devices",
+                         expected.getClusterDevices(cluster), actual.getClusterDevices(other));
+            assertEquals("incorrect cluster links",
+                         expected.getClusterLinks(cluster), actual.getClusterLinks(other));
+            assertEquals("incorrect broadcast set",
+                         expected.broadcastPoints(cluster.id()), actual.broadcastPoints(other.id()));
+        }
+        return actual;
+    }
+
     // Short-hand for creating a link.
     public static Link link(String src, int sp, String dst, int dp) {
         return new DefaultLink(PID, new ConnectPoint(did(src), portNumber(sp)),
@@ -45,4 +45,13 @@ public class TestEventDispatcher extends DefaultEventSinkRegistry
     public long getDispatchTimeLimit() {
         return 0;
     }
+
+    @Override
+    public void setShardedDispatch(boolean sharded) {
+    }
+
+    @Override
+    public boolean isShardedDispatch() {
+        return false;
+    }
 }
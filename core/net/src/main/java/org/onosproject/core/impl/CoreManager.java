@@ -82,6 +82,11 @@ public class CoreManager implements CoreService {
             label = "Maximum number of millis an event sink has to process an event")
     private int maxEventTimeLimit = DEFAULT_EVENT_TIME;
 
+    private static final boolean DEFAULT_SHARDED_EVENT_DISPATCH = false;
+    @Property(name = "shardedEventDispatch", boolValue = DEFAULT_SHARDED_EVENT_DISPATCH,
+            label = "Dispatch events to each event sink from its own queue and thread")
+    private boolean shardedEventDispatch = DEFAULT_SHARDED_EVENT_DISPATCH;
+
     @Activate
     public void activate() {
         registerApplication(CORE_APP_NAME);
@@ -160,8 +165,14 @@ public class CoreManager implements CoreService {
             log.warn("maxEventTimeLimit must be greater than 1");
         }
 
-        log.info("Settings: sharedThreadPoolSize={}, maxEventTimeLimit={}",
-                 sharedThreadPoolSize, maxEventTimeLimit);
+        String sharded = Tools.get(properties, "shardedEventDispatch");
+        if (sharded != null) {
+            shardedEventDispatch = Boolean.parseBoolean(sharded);
+            eventDeliveryService.setShardedDispatch(shardedEventDispatch);
+        }
+
+        log.info("Settings: sharedThreadPoolSize={}, maxEventTimeLimit={}, shardedEventDispatch={}",
+                 sharedThreadPoolSize, maxEventTimeLimit, shardedEventDispatch);
     }
 
 
@@ -15,10 +15,18 @@
  */
 package org.onosproject.event.impl;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Timer;
+import com.google.common.collect.ImmutableList;
 import org.apache.felix.scr.annotations.Activate;
 import org.apache.felix.scr.annotations.Component;
 import org.apache.felix.scr.annotations.Deactivate;
+import org.apache.felix.scr.annotations.Reference;
+import org.apache.felix.scr.annotations.ReferenceCardinality;
 import org.apache.felix.scr.annotations.Service;
+import org.onlab.metrics.MetricsComponent;
+import org.onlab.metrics.MetricsFeature;
+import org.onlab.metrics.MetricsService;
 import org.onlab.util.SharedExecutors;
 import org.onosproject.event.AbstractEvent;
 import org.onosproject.event.DefaultEventSinkRegistry;
@@ -27,19 +35,44 @@ import org.onosproject.event.EventDeliveryService;
 import org.onosproject.event.EventSink;
 import org.slf4j.Logger;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.TimerTask;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static java.util.concurrent.Executors.newSingleThreadExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.onlab.metrics.MetricsUtil.startTimer;
+import static org.onlab.metrics.MetricsUtil.stopTimer;
 import static org.onlab.util.Tools.groupedThreads;
 import static org.slf4j.LoggerFactory.getLogger;
 
 /**
  * Simple implementation of an event dispatching service.
+ * <p>
+ * By default all events are delivered from a single queue by a single
+ * dispatch thread. When sharded dispatch is enabled, events of each
+ * registered event class are delivered from a queue and thread of their
+ * own, preserving ordering within a sink while letting independent sinks
+ * run in parallel. When the dispatch mode changes, the queues that take
+ * over hold back their events until the queues they replace have drained.
+ * The queues being drained remain under the watch of the watchdog, and the
+ * queues waiting for them give up once they stop making progress.
+ * </p>
  */
 @Component(immediate = true)
 @Service
@@ -52,35 +85,47 @@ public class CoreEventDispatcher extends DefaultEventSinkRegistry
     private static final long DEFAULT_EXECUTE_MS = 5_000; // ms
     private static final long WATCHDOG_MS = 250; // ms
 
-    private final BlockingQueue<Event> events = new LinkedBlockingQueue<>();
+    private static final String METRICS_COMPONENT = "EventDispatcher";
+    private static final String DEFAULT_SHARD = "all";
 
-    private final ExecutorService executor =
-            newSingleThreadExecutor(groupedThreads("onos/event", "dispatch-%d"));
+    @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
+    protected MetricsService metricsService;
 
     @SuppressWarnings("unchecked")
     private static final Event KILL_PILL = new AbstractEvent(null, 0) {
     };
 
-    private DispatchLoop dispatchLoop;
+    // Guards the dispatch mode and shard membership against concurrent posts
+    private final ReadWriteLock modeLock = new ReentrantReadWriteLock();
+
+    private DispatchShard defaultShard;
+    private final Map<Class<? extends Event>, DispatchShard> shards = new ConcurrentHashMap<>();
+    // Shards draining their queued events before they terminate
+    private final Set<DispatchShard> retiringShards = ConcurrentHashMap.newKeySet();
+    private final Map<Class<? extends Event>, Timer> sinkTimers = new ConcurrentHashMap<>();
+    private volatile boolean sharded = false;
+    // Completes once events queued before sharded dispatch was enabled are delivered
+    private CompletableFuture<Void> shardHandoff = CompletableFuture.completedFuture(null);
     private long maxProcessMillis = DEFAULT_EXECUTE_MS;
 
     // Means to detect long-running sinks
     private TimerTask watchdog;
-    private EventSink lastSink;
-    private long lastStart = 0;
-    private Future<?> dispatchFuture;
 
     @Override
     public void post(Event event) {
-        if (!events.add(event)) {
-            log.error("Unable to post event {}", event);
+        modeLock.readLock().lock();
+        try {
+            if (!shardFor(event.getClass()).events.add(event)) {
+                log.error("Unable to post event {}", event);
+            }
+        } finally {
+            modeLock.readLock().unlock();
         }
     }
 
     @Activate
     public void activate() {
-        dispatchLoop = new DispatchLoop();
-        dispatchFuture = executor.submit(dispatchLoop);
+        defaultShard = new DispatchShard(DEFAULT_SHARD);
         watchdog = new Watchdog();
         SharedExecutors.getTimer().schedule(watchdog, WATCHDOG_MS, WATCHDOG_MS);
         log.info("Started");
@@ -88,12 +133,29 @@ public class CoreEventDispatcher extends DefaultEventSinkRegistry
 
     @Deactivate
     public void deactivate() {
-        dispatchLoop.stop();
         watchdog.cancel();
-        post(KILL_PILL);
+        defaultShard.terminate();
+        shards.values().forEach(DispatchShard::terminate);
+        shards.clear();
+        retiringShards.forEach(DispatchShard::terminate);
+        retiringShards.clear();
         log.info("Stopped");
     }
 
+    @Override
+    public <E extends Event> void removeSink(Class<E> eventClass) {
+        modeLock.writeLock().lock();
+        try {
+            super.removeSink(eventClass);
+            DispatchShard shard = shards.remove(eventClass);
+            if (shard != null) {
+                shard.stop();
+            }
+        } finally {
+            modeLock.writeLock().unlock();
+        }
+    }
+
     @Override
     public void setDispatchTimeLimit(long millis) {
         checkArgument(millis >= WATCHDOG_MS,
@@ -106,10 +168,196 @@ public class CoreEventDispatcher extends DefaultEventSinkRegistry
         return maxProcessMillis;
     }
 
+    @Override
+    public void setShardedDispatch(boolean sharded) {
+        modeLock.writeLock().lock();
+        try {
+            if (this.sharded == sharded) {
+                return;
+            }
+            this.sharded = sharded;
+            if (sharded) {
+                // New shards wait for the events already in the default queue
+                CompletableFuture<Void> drained = new CompletableFuture<>();
+                defaultShard.events.add(new Handoff(() -> drained.complete(null)));
+                shardHandoff = drained;
+            } else {
+                // Existing shards drain their queued events and then terminate;
+                // the default queue waits for them before delivering new events
+                List<DispatchShard> retiring = ImmutableList.copyOf(shards.values());
+                shards.clear();
+                CompletableFuture<Void> allDrained = CompletableFuture.allOf(
+                        retiring.stream().map(DispatchShard::stop).toArray(CompletableFuture[]::new));
+                defaultShard.events.add(new Handoff(() -> awaitDrained(allDrained, retiring)));
+            }
+        } finally {
+            modeLock.writeLock().unlock();
+        }
+        log.info("Sharded event dispatch {}", sharded ? "enabled" : "disabled");
+    }
+
+    @Override
+    public boolean isShardedDispatch() {
+        return sharded;
+    }
+
+    // Locates the shard responsible for delivering events of the given class;
+    // must be called while holding the mode lock.
+    private DispatchShard shardFor(Class<? extends Event> eventClass) {
+        if (!sharded || getSink(eventClass) == null) {
+            return defaultShard;
+        }
+        return shards.computeIfAbsent(eventClass, c -> new DispatchShard(c.getSimpleName(), shardHandoff));
+    }
+
+    // Waits for the given shards to drain, as signalled by the given future.
+    // The watchdog replaces the dispatch loop of a shard whose sink exceeds
+    // its time limit, so the wait is given up once the shards deliver no
+    // event for longer than that, or if the dispatch thread is interrupted.
+    private void awaitDrained(CompletableFuture<?> drained, Collection<DispatchShard> predecessors) {
+        long delivered = -1;
+        try {
+            while (true) {
+                try {
+                    drained.get(maxProcessMillis + WATCHDOG_MS, MILLISECONDS);
+                    return;
+                } catch (TimeoutException e) {
+                    long progress = predecessors.stream().mapToLong(p -> p.delivered.get()).sum();
+                    if (progress == delivered) {
+                        log.warn("Event dispatch {} stalled; delivering events without waiting for it",
+                                 predecessors.stream().map(p -> p.name).collect(Collectors.toList()));
+                        return;
+                    }
+                    delivered = progress;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // Nothing to wait for any longer
+        }
+    }
+
+    // Returns the processing latency timer for the sink of the given event class.
+    private Timer sinkTimer(Class<? extends Event> eventClass) {
+        if (metricsService == null) {
+            return null;
+        }
+        return sinkTimers.computeIfAbsent(eventClass, c -> {
+            MetricsComponent component = metricsService.registerComponent(METRICS_COMPONENT);
+            MetricsFeature feature = component.registerFeature(c.getSimpleName());
+            return metricsService.createTimer(component, feature, "latency");
+        });
+    }
+
+    // Queue of events and the dispatch loop that feeds off it.
+    private class DispatchShard {
+        private final String name;
+        private final BlockingQueue<Event> events = new LinkedBlockingQueue<>();
+        private final AtomicLong delivered = new AtomicLong();
+        private final ExecutorService executor;
+
+        private volatile DispatchLoop dispatchLoop;
+        private Future<?> dispatchFuture;
+
+        private DispatchShard(String name) {
+            this(name, null);
+        }
+
+        // Creates a shard that delivers no events until its predecessor is done.
+        private DispatchShard(String name, CompletableFuture<Void> predecessor) {
+            this.name = name;
+            this.executor = newSingleThreadExecutor(
+                    groupedThreads("onos/event", "dispatch-" + name + "-%d"));
+            if (predecessor != null && !predecessor.isDone()) {
+                events.add(new Handoff(() -> awaitDrained(predecessor, ImmutableList.of(defaultShard))));
+            }
+            registerQueueDepth();
+            start();
+        }
+
+        private void start() {
+            dispatchLoop = new DispatchLoop(events, delivered);
+            dispatchFuture = executor.submit(dispatchLoop);
+        }
+
+        // Cancels the current dispatch loop and submits a new one.
+        private void restart() {
+            dispatchLoop.stop();
+            dispatchFuture.cancel(true);
+            start();
+        }
+
+        // Stops the dispatch loop without draining the queued events.
+        private void terminate() {
+            dispatchLoop.stop();
+            events.add(KILL_PILL);
+            executor.shutdownNow();
+            unregisterQueueDepth();
+        }
+
+        // Lets the dispatch loop drain the queued events and terminate;
+        // the returned future completes once all queued events are delivered.
+        // Until then, the watchdog keeps watching over the shard and may
+        // replace its dispatch loop.
+        private CompletableFuture<Void> stop() {
+            CompletableFuture<Void> drained = new CompletableFuture<>();
+            retiringShards.add(this);
+            drained.whenComplete((r, e) -> {
+                retiringShards.remove(this);
+                executor.shutdown();
+            });
+            events.add(new Handoff(() -> drained.complete(null)));
+            events.add(KILL_PILL);
+            unregisterQueueDepth();
+            return drained;
+        }
+
+        private void registerQueueDepth() {
+            if (metricsService != null) {
+                MetricsComponent component = metricsService.registerComponent(METRICS_COMPONENT);
+                MetricsFeature feature = component.registerFeature(name);
+                metricsService.removeMetric(component, feature, "queueDepth");
+                metricsService.registerMetric(component, feature, "queueDepth",
+                                              (Gauge<Integer>) events::size);
+            }
+        }
+
+        private void unregisterQueueDepth() {
+            if (metricsService != null) {
+                MetricsComponent component = metricsService.registerComponent(METRICS_COMPONENT);
+                metricsService.removeMetric(component, component.registerFeature(name), "queueDepth");
+            }
+        }
+    }
+
+    // Marker queued between the events of two queues during a mode change;
+    // its action runs on the dispatch thread when the marker is reached.
+    @SuppressWarnings("unchecked")
+    private static final class Handoff extends AbstractEvent {
+        private final Runnable action;
+
+        private Handoff(Runnable action) {
+            super(null, 0);
+            this.action = action;
+        }
+    }
+
     // Auxiliary event dispatching loop that feeds off the events queue.
     private class DispatchLoop implements Runnable {
+        private final BlockingQueue<Event> events;
+        private final AtomicLong delivered;
         private volatile boolean stopped;
 
+        // Means to detect long-running sinks
+        private volatile EventSink lastSink;
+        private volatile long lastStart = 0;
+
+        DispatchLoop(BlockingQueue<Event> events, AtomicLong delivered) {
+            this.events = events;
+            this.delivered = delivered;
+        }
+
         @Override
         public void run() {
             stopped = false;
@@ -121,6 +369,10 @@ public class CoreEventDispatcher extends DefaultEventSinkRegistry
                     if (event == KILL_PILL) {
                         break;
                     }
+                    if (event instanceof Handoff) {
+                        ((Handoff) event).action.run();
+                        continue;
+                    }
                     process(event);
                 } catch (InterruptedException e) {
                     log.warn("Dispatch loop interrupted");
@@ -138,8 +390,14 @@ public class CoreEventDispatcher extends DefaultEventSinkRegistry
             if (sink != null) {
                 lastSink = sink;
                 lastStart = System.currentTimeMillis();
-                sink.process(event);
-                lastStart = 0;
+                Timer.Context timer = startTimer(sinkTimer(event.getClass()));
+                try {
+                    sink.process(event);
+                } finally {
+                    stopTimer(timer);
+                    lastStart = 0;
+                    delivered.incrementAndGet();
+                }
             } else {
                 log.warn("No sink registered for event class {}",
                          event.getClass().getName());
@@ -155,20 +413,25 @@ public class CoreEventDispatcher extends DefaultEventSinkRegistry
     private class Watchdog extends TimerTask {
         @Override
         public void run() {
-            long delta = System.currentTimeMillis() - lastStart;
-            if (lastStart > 0 && delta > maxProcessMillis) {
-                lastStart = 0;
+            check(defaultShard);
+            shards.values().forEach(this::check);
+            retiringShards.forEach(this::check);
+        }
+
+        private void check(DispatchShard shard) {
+            DispatchLoop loop = shard.dispatchLoop;
+            long start = loop.lastStart;
+            long delta = System.currentTimeMillis() - start;
+            if (start > 0 && delta > maxProcessMillis) {
+                loop.lastStart = 0;
                 log.warn("Event sink {} exceeded execution time limit: {} ms; spawning new dispatch loop",
-                          lastSink.getClass().getName(), delta);
+                          loop.lastSink.getClass().getName(), delta);
 
                 // Notify the sink that it has exceeded its time limit.
-                lastSink.onProcessLimit();
+                loop.lastSink.onProcessLimit();
 
                 // Cancel the old dispatch loop and submit a new one.
-                dispatchLoop.stop();
-                dispatchLoop = new DispatchLoop();
-                dispatchFuture.cancel(true);
-                dispatchFuture = executor.submit(dispatchLoop);
+                shard.restart();
             }
         }
     }
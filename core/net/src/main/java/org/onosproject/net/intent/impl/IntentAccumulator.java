@@ -24,11 +24,13 @@ import org.onosproject.net.intent.Key;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
-import java.util.Timer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.base.Preconditions.checkArgument;
 
 /**
- * An accumulator for building batches of intent operations. Only one batch should
- * be in process per instance at a time.
+ * An accumulator for building batches of intent operations. Only a bounded
+ * number of batches may be in process per instance at a time.
  */
 public class IntentAccumulator extends AbstractAccumulator<IntentData> {
 
@@ -36,29 +38,37 @@ public class IntentAccumulator extends AbstractAccumulator<IntentData> {
     private static final int DEFAULT_MAX_IDLE_MS = 10;
     private static final int DEFAULT_MAX_BATCH_MS = 50;
 
-    // FIXME: Replace with a system-wide timer instance;
-    // TODO: Convert to use HashedWheelTimer or produce a variant of that; then decide which we want to adopt
-    private static final Timer TIMER = new Timer("onos-intent-op-batching");
-
     private final IntentBatchDelegate delegate;
 
-    private volatile boolean ready;
+    private final int maxBatchesInFlight;
+    private final AtomicInteger batchesInFlight = new AtomicInteger();
 
     /**
-     * Creates an intent operation accumulator.
+     * Creates an intent operation accumulator which allows only one batch
+     * in process at a time.
      *
      * @param delegate the intent batch delegate
      */
     protected IntentAccumulator(IntentBatchDelegate delegate) {
-        super(TIMER, DEFAULT_MAX_EVENTS, DEFAULT_MAX_BATCH_MS, DEFAULT_MAX_IDLE_MS);
+        this(delegate, 1);
+    }
+
+    /**
+     * Creates an intent operation accumulator.
+     *
+     * @param delegate           the intent batch delegate
+     * @param maxBatchesInFlight maximum number of batches in process at a time
+     */
+    protected IntentAccumulator(IntentBatchDelegate delegate, int maxBatchesInFlight) {
+        super(DEFAULT_MAX_EVENTS, DEFAULT_MAX_BATCH_MS, DEFAULT_MAX_IDLE_MS);
+        checkArgument(maxBatchesInFlight > 0, "Maximum batches in flight must be positive");
         this.delegate = delegate;
-        // Assume that the delegate is ready for work at the start
-        ready = true; //TODO validate the assumption that delegate is ready
+        this.maxBatchesInFlight = maxBatchesInFlight;
     }
 
     @Override
     public void processItems(List<IntentData> items) {
-        ready = false;
+        batchesInFlight.incrementAndGet();
         delegate.execute(reduce(items));
     }
 
@@ -73,10 +83,14 @@ public class IntentAccumulator extends AbstractAccumulator<IntentData> {
 
     @Override
     public boolean isReady() {
-        return ready;
+        return batchesInFlight.get() < maxBatchesInFlight;
     }
 
+    /**
+     * Notifies the accumulator that one of the batches in process has
+     * completed.
+     */
     public void ready() {
-        ready = true;
+        batchesInFlight.updateAndGet(n -> n > 0 ? n - 1 : 0);
     }
 }
@@ -15,13 +15,20 @@
  */
 package org.onosproject.net.intent.impl;
 
+import com.codahale.metrics.Timer;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import org.apache.felix.scr.annotations.Activate;
 import org.apache.felix.scr.annotations.Component;
 import org.apache.felix.scr.annotations.Deactivate;
 import org.apache.felix.scr.annotations.Reference;
 import org.apache.felix.scr.annotations.ReferenceCardinality;
 import org.apache.felix.scr.annotations.Service;
+import org.onlab.metrics.MetricsComponent;
+import org.onlab.metrics.MetricsFeature;
+import org.onlab.metrics.MetricsService;
 import org.onosproject.event.AbstractListenerManager;
 import org.onosproject.core.CoreService;
 import org.onosproject.core.IdGenerator;
@@ -53,14 +60,17 @@ import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.ExecutionException;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static java.util.concurrent.Executors.newFixedThreadPool;
 import static java.util.concurrent.Executors.newSingleThreadExecutor;
+import static org.onlab.metrics.MetricsUtil.startTimer;
+import static org.onlab.metrics.MetricsUtil.stopTimer;
 import static org.onlab.util.Tools.groupedThreads;
 import static org.onosproject.net.intent.IntentState.*;
 import static org.onosproject.net.intent.constraint.PartialFailureConstraint.intentAllowsPartialFailure;
@@ -83,6 +93,11 @@ public class IntentManager
     public static final String INTENT_ID_NULL = "Intent key cannot be null";
 
     private static final int NUM_THREADS = 12;
+    private static final int NUM_INSTALL_THREADS = 4;
+    private static final int MAX_BATCHES_IN_FLIGHT = 4;
+
+    private static final String METRICS_COMPONENT = "IntentManager";
+    private static final String METRICS_LATENCY = "latency";
 
     private static final EnumSet<IntentState> RECOMPILE
             = EnumSet.of(INSTALL_REQ, FAILED, WITHDRAW_REQ);
@@ -101,8 +116,23 @@ public class IntentManager
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
     protected FlowRuleService flowRuleService;
 
-    private ExecutorService batchExecutor;
-    private ExecutorService workerExecutor;
+    @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
+    protected MetricsService metricsService;
+
+    // Intents are compiled, installed and written to the store in separate
+    // stages, so that a slow compilation does not hold up other intents
+    private ExecutorService compileExecutor;
+    private ExecutorService installExecutor;
+    private ExecutorService storeExecutor;
+
+    private Timer compileTimer;
+    private Timer installTimer;
+    private Timer storeTimer;
+
+    // Keys of the intents in process, and the latest operation on each of
+    // them which arrived in the meantime; guarded by inFlight
+    private final Set<Key> inFlight = Sets.newHashSet();
+    private final Map<Key, IntentData> deferred = Maps.newHashMap();
 
     private final CompilerRegistry compilerRegistry = new CompilerRegistry();
     private final InternalIntentProcessor processor = new InternalIntentProcessor();
@@ -111,15 +141,19 @@ public class IntentManager
     private final IntentBatchDelegate batchDelegate = new InternalBatchDelegate();
     private IdGenerator idGenerator;
 
-    private final IntentAccumulator accumulator = new IntentAccumulator(batchDelegate);
+    private final IntentAccumulator accumulator =
+            new IntentAccumulator(batchDelegate, MAX_BATCHES_IN_FLIGHT);
 
     @Activate
     public void activate() {
         store.setDelegate(delegate);
         trackerService.setDelegate(topoDelegate);
         eventDispatcher.addSink(IntentEvent.class, listenerRegistry);
-        batchExecutor = newSingleThreadExecutor(groupedThreads("onos/intent", "batch"));
-        workerExecutor = newFixedThreadPool(NUM_THREADS, groupedThreads("onos/intent", "worker-%d"));
+        compileExecutor = newFixedThreadPool(NUM_THREADS, groupedThreads("onos/intent", "compile-%d"));
+        installExecutor = newFixedThreadPool(NUM_INSTALL_THREADS,
+                                             groupedThreads("onos/intent", "install-%d"));
+        storeExecutor = newSingleThreadExecutor(groupedThreads("onos/intent", "store"));
+        registerMetrics();
         idGenerator = coreService.getIdGenerator("intent-ids");
         Intent.bindIdGenerator(idGenerator);
         log.info("Started");
@@ -130,8 +164,10 @@ public class IntentManager
         store.unsetDelegate(delegate);
         trackerService.unsetDelegate(topoDelegate);
         eventDispatcher.removeSink(IntentEvent.class);
-        batchExecutor.shutdown();
-        workerExecutor.shutdown();
+        compileExecutor.shutdown();
+        installExecutor.shutdown();
+        storeExecutor.shutdown();
+        removeMetrics();
         Intent.unbindIdGenerator(idGenerator);
         log.info("Stopped");
     }
@@ -285,56 +321,148 @@ public class IntentManager
         }
     }
 
-    private Future<FinalIntentProcessPhase> submitIntentData(IntentData data) {
-        IntentData current = store.getIntentData(data.key());
-        IntentProcessPhase initial = newInitialPhase(processor, data, current);
-        return workerExecutor.submit(new IntentWorker(initial));
+    private void registerMetrics() {
+        if (metricsService == null) {
+            return;
+        }
+        MetricsComponent component = metricsService.registerComponent(METRICS_COMPONENT);
+        compileTimer = metricsService.createTimer(component, component.registerFeature("compile"),
+                                                  METRICS_LATENCY);
+        installTimer = metricsService.createTimer(component, component.registerFeature("install"),
+                                                  METRICS_LATENCY);
+        storeTimer = metricsService.createTimer(component, component.registerFeature("store"),
+                                                METRICS_LATENCY);
+        MetricsFeature batching = component.registerFeature("accumulator");
+        metricsService.registerMetric(component, batching, "batchSize", accumulator.batchSizes());
+        metricsService.registerMetric(component, batching, "batchInterval", accumulator.batchIntervals());
+    }
+
+    private void removeMetrics() {
+        if (metricsService == null) {
+            return;
+        }
+        MetricsComponent component = metricsService.registerComponent(METRICS_COMPONENT);
+        for (String stage : ImmutableList.of("compile", "install", "store")) {
+            MetricsFeature feature = component.registerFeature(stage);
+            metricsService.removeMetric(component, feature, METRICS_LATENCY);
+        }
+        MetricsFeature batching = component.registerFeature("accumulator");
+        metricsService.removeMetric(component, batching, "batchSize");
+        metricsService.removeMetric(component, batching, "batchInterval");
+    }
+
+    // Admits the operations on intents which are not in process yet and
+    // defers the others until the operation in process completes.
+    private List<IntentData> admit(Collection<IntentData> operations) {
+        List<IntentData> admitted = Lists.newArrayListWithCapacity(operations.size());
+        synchronized (inFlight) {
+            for (IntentData data : operations) {
+                if (inFlight.add(data.key())) {
+                    admitted.add(data);
+                } else {
+                    deferred.put(data.key(), data);
+                }
+            }
+        }
+        return admitted;
+    }
+
+    // Releases the keys of the completed operations and returns the
+    // deferred operations which may now be admitted in their place.
+    private List<IntentData> release(Collection<IntentData> completed) {
+        List<IntentData> admitted = Lists.newArrayList();
+        synchronized (inFlight) {
+            for (IntentData data : completed) {
+                IntentData next = deferred.remove(data.key());
+                if (next != null) {
+                    admitted.add(next);
+                } else {
+                    inFlight.remove(data.key());
+                }
+            }
+        }
+        return admitted;
+    }
+
+    private FinalIntentProcessPhase compile(IntentData data) {
+        Timer.Context context = startTimer(compileTimer);
+        try {
+            IntentData current = store.getIntentData(data.key());
+            IntentProcessPhase initial = newInitialPhase(processor, data, current);
+            return new IntentWorker(initial).advanceToFinalPhase();
+        } finally {
+            stopTimer(context);
+        }
     }
 
-    private class IntentBatchProcess implements Runnable {
+    private FinalIntentProcessPhase install(FinalIntentProcessPhase phase) {
+        Timer.Context context = startTimer(installTimer);
+        try {
+            phase.execute();
+            return phase;
+        } finally {
+            stopTimer(context);
+        }
+    }
+
+    private class IntentBatchProcess {
 
-        protected final Collection<IntentData> data;
+        protected final List<IntentData> data;
+        private final boolean accumulated;
 
-        IntentBatchProcess(Collection<IntentData> data) {
+        /**
+         * Creates a batch process for operations which have been admitted.
+         *
+         * @param data        admitted intent operations
+         * @param accumulated whether the batch came from the accumulator
+         */
+        IntentBatchProcess(List<IntentData> data, boolean accumulated) {
             this.data = checkNotNull(data);
+            this.accumulated = accumulated;
         }
 
-        @Override
-        public void run() {
+        void start() {
+            /*
+             1. compile each intent on the compile stage and hand it over
+                to the install stage as soon as it is compiled
+             2. once all intents of the batch are through, submit a batch
+                write of the resulting IntentData on the store stage
+             3. release the intents, admitting any operation deferred on them
+             */
+            List<CompletableFuture<FinalIntentProcessPhase>> futures = data.stream()
+                    .map(d -> CompletableFuture
+                            .supplyAsync(() -> compile(d), compileExecutor)
+                            .thenApplyAsync(IntentManager.this::install, installExecutor))
+                    .collect(Collectors.toList());
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()]))
+                    .whenCompleteAsync((r, e) -> complete(futures), storeExecutor);
+        }
+
+        private void complete(List<CompletableFuture<FinalIntentProcessPhase>> futures) {
             try {
-                /*
-                 1. wrap each intentdata in a runnable and submit
-                 2. wait for completion of all the work
-                 3. accumulate results and submit batch write of IntentData to store
-                    (we can also try to update these individually)
-                 */
-                submitUpdates(waitForFutures(createIntentUpdates()));
+                submitUpdates(collectUpdates(futures));
             } catch (Exception e) {
                 log.error("Error submitting batches:", e);
                 // FIXME incomplete Intents should be cleaned up
                 //       (transition to FAILED, etc.)
-
-                // the batch has failed
-                // TODO: maybe we should do more?
-                log.error("Walk the plank, matey...");
-                //FIXME
-//            batchService.removeIntentOperations(data);
+            } finally {
+                if (accumulated) {
+                    accumulator.ready();
+                }
+                List<IntentData> next = release(data);
+                if (!next.isEmpty()) {
+                    new IntentBatchProcess(next, false).start();
+                }
             }
-            accumulator.ready();
         }
 
-        private List<Future<FinalIntentProcessPhase>> createIntentUpdates() {
-            return data.stream()
-                    .map(IntentManager.this::submitIntentData)
-                    .collect(Collectors.toList());
-        }
-
-        private List<FinalIntentProcessPhase> waitForFutures(List<Future<FinalIntentProcessPhase>> futures) {
+        private List<FinalIntentProcessPhase> collectUpdates(
+                List<CompletableFuture<FinalIntentProcessPhase>> futures) {
             ImmutableList.Builder<FinalIntentProcessPhase> updateBuilder = ImmutableList.builder();
-            for (Future<FinalIntentProcessPhase> future : futures) {
+            for (CompletableFuture<FinalIntentProcessPhase> future : futures) {
                 try {
-                    updateBuilder.add(future.get());
-                } catch (InterruptedException | ExecutionException e) {
+                    updateBuilder.add(future.join());
+                } catch (CompletionException e) {
                     //FIXME
                     log.warn("Future failed: {}", e);
                 }
@@ -343,9 +471,14 @@ public class IntentManager
         }
 
         private void submitUpdates(List<FinalIntentProcessPhase> updates) {
-            store.batchWrite(updates.stream()
-                                     .map(FinalIntentProcessPhase::data)
-                                     .collect(Collectors.toList()));
+            Timer.Context context = startTimer(storeTimer);
+            try {
+                store.batchWrite(updates.stream()
+                                         .map(FinalIntentProcessPhase::data)
+                                         .collect(Collectors.toList()));
+            } finally {
+                stopTimer(context);
+            }
         }
     }
 
@@ -355,8 +488,9 @@ public class IntentManager
             log.debug("Execute {} operation(s).", operations.size());
             log.trace("Execute operations: {}", operations);
 
-            // batchExecutor is single-threaded, so only one batch is in flight at a time
-            batchExecutor.execute(new IntentBatchProcess(operations));
+            // Several batches may be in flight, but operations on an intent
+            // already in process wait for that one to complete
+            new IntentBatchProcess(admit(operations), true).start();
         }
     }
 
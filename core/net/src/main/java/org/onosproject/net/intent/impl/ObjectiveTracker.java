@@ -15,10 +15,9 @@
  */
 package org.onosproject.net.intent.impl;
 
-import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
-import com.google.common.collect.SetMultimap;
 import org.apache.felix.scr.annotations.Activate;
 import org.apache.felix.scr.annotations.Component;
 import org.apache.felix.scr.annotations.Deactivate;
@@ -60,7 +59,9 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -70,7 +71,6 @@ import java.util.concurrent.atomic.AtomicBoolean;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
-import static com.google.common.collect.Multimaps.synchronizedSetMultimap;
 import static java.util.concurrent.Executors.newSingleThreadExecutor;
 import static org.onlab.util.Tools.groupedThreads;
 import static org.onlab.util.Tools.isNullOrEmpty;
@@ -93,12 +93,11 @@ public class ObjectiveTracker implements ObjectiveTrackerService {
 
     private final ConcurrentMap<Key, Intent> intents = Maps.newConcurrentMap();
 
-    private final SetMultimap<LinkKey, Key> intentsByLink =
-            //TODO this could be slow as a point of synchronization
-            synchronizedSetMultimap(HashMultimap.<LinkKey, Key>create());
+    private final ResourceIndex<LinkKey> intentsByLink = new ResourceIndex<>();
+    private final ResourceIndex<ElementId> intentsByDevice = new ResourceIndex<>();
 
-    private final SetMultimap<ElementId, Key> intentsByDevice =
-            synchronizedSetMultimap(HashMultimap.<ElementId, Key>create());
+    // Topology events yet to be examined by the topology change handler
+    private final Queue<TopologyEvent> topologyEvents = new ConcurrentLinkedQueue<>();
 
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
     protected TopologyService topologyService;
@@ -185,9 +184,9 @@ public class ObjectiveTracker implements ObjectiveTrackerService {
                                     Collection<NetworkResource> resources) {
         for (NetworkResource resource : resources) {
             if (resource instanceof Link) {
-                intentsByLink.put(linkKey((Link) resource), intentKey);
+                intentsByLink.add(linkKey((Link) resource), intentKey);
             } else if (resource instanceof ElementId) {
-                intentsByDevice.put((ElementId) resource, intentKey);
+                intentsByDevice.add((ElementId) resource, intentKey);
             }
         }
     }
@@ -220,7 +219,7 @@ public class ObjectiveTracker implements ObjectiveTrackerService {
         if (log.isTraceEnabled()) {
             log.trace("intent {}, old: {}, new: {}, installableCount: {}, resourceCount: {}",
                       key,
-                      intentsByDevice.values().contains(key),
+                      intentsByDevice.contains(key),
                       isLocal && isInstalled,
                       installables.size(),
                       intent.resources().size() +
@@ -252,53 +251,58 @@ public class ObjectiveTracker implements ObjectiveTrackerService {
     private class InternalTopologyListener implements TopologyListener {
         @Override
         public void event(TopologyEvent event) {
-            executorService.execute(new TopologyChangeHandler(event));
+            topologyEvents.add(event);
+            executorService.execute(new TopologyChangeHandler());
         }
     }
 
-    // Re-dispatcher of topology change events.
+    // Re-dispatcher of topology change events; examines all the events
+    // queued up so far at once.
     private class TopologyChangeHandler implements Runnable {
 
-        private final TopologyEvent event;
-
-        TopologyChangeHandler(TopologyEvent event) {
-            this.event = event;
-        }
-
         @Override
         public void run() {
+            List<TopologyEvent> events = Lists.newArrayList();
+            for (TopologyEvent event = topologyEvents.poll(); event != null;
+                    event = topologyEvents.poll()) {
+                events.add(event);
+            }
+
             // If there is no delegate, why bother? Just bail.
-            if (delegate == null) {
+            if (delegate == null || events.isEmpty()) {
                 return;
             }
 
-            if (event.reasons() == null || event.reasons().isEmpty()) {
-                delegate.triggerCompile(Collections.emptySet(), true);
-
-            } else {
-                Set<Key> intentsToRecompile = new HashSet<>();
-                boolean dontRecompileAllFailedIntents = true;
+            Set<LinkKey> linkKeys = new HashSet<>();
+            boolean recompileAllFailedIntents = false;
+            boolean dontRecompileAllFailedIntents = true;
 
-                // Scan through the list of reasons and keep accruing all
-                // intents that need to be recompiled.
+            // Scan through the list of reasons and keep accruing all
+            // links whose intents need to be recompiled.
+            for (TopologyEvent event : events) {
+                if (event.reasons() == null || event.reasons().isEmpty()) {
+                    recompileAllFailedIntents = true;
+                    continue;
+                }
                 for (Event reason : event.reasons()) {
                     if (reason instanceof LinkEvent) {
                         LinkEvent linkEvent = (LinkEvent) reason;
-                        final LinkKey linkKey = linkKey(linkEvent.subject());
-                        synchronized (intentsByLink) {
-                            Set<Key> intentKeys = intentsByLink.get(linkKey);
-                            log.debug("recompile triggered by LinkEvent {} ({}) for {}",
-                                    linkKey, linkEvent.type(), intentKeys);
-                            intentsToRecompile.addAll(intentKeys);
-                        }
+                        linkKeys.add(linkKey(linkEvent.subject()));
                         dontRecompileAllFailedIntents = dontRecompileAllFailedIntents &&
                                 (linkEvent.type() == LINK_REMOVED ||
                                 (linkEvent.type() == LINK_UPDATED &&
                                 linkEvent.subject().isDurable()));
                     }
                 }
-                delegate.triggerCompile(intentsToRecompile, !dontRecompileAllFailedIntents);
             }
+
+            // Look up the intents affected by all the links in one pass
+            Set<Key> intentsToRecompile = new HashSet<>();
+            intentsByLink.collect(linkKeys, intentsToRecompile);
+            log.debug("recompile triggered by {} topology event(s) on links {} for {}",
+                      events.size(), linkKeys, intentsToRecompile);
+            delegate.triggerCompile(intentsToRecompile,
+                                    recompileAllFailedIntents || !dontRecompileAllFailedIntents);
         }
     }
 
@@ -378,7 +382,7 @@ public class ObjectiveTracker implements ObjectiveTrackerService {
             }
 
             // TODO should we recompile on available==true?
-            delegate.triggerCompile(intentsByDevice.get(id), available);
+            delegate.triggerCompile(ImmutableSet.copyOf(intentsByDevice.get(id)), available);
         }
     }
 
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.net.intent.impl;
+
+import org.onosproject.net.intent.Key;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Concurrent index of the intents using each of a set of resources.
+ * <p>
+ * Updates only contend for the bin of the concurrent map holding the
+ * resource, so that intents can be tracked in parallel with one another and
+ * with lookups on behalf of topology changes.
+ * </p>
+ *
+ * @param <R> resource type
+ */
+final class ResourceIndex<R> {
+
+    private final ConcurrentMap<R, Set<Key>> index = new ConcurrentHashMap<>();
+
+    /**
+     * Records that the specified intent uses the given resource.
+     *
+     * @param resource resource
+     * @param key      intent key
+     */
+    void add(R resource, Key key) {
+        index.compute(resource, (r, keys) -> {
+            Set<Key> result = keys != null ? keys : ConcurrentHashMap.newKeySet();
+            result.add(key);
+            return result;
+        });
+    }
+
+    /**
+     * Records that the specified intent no longer uses the given resource.
+     *
+     * @param resource resource
+     * @param key      intent key
+     */
+    void remove(R resource, Key key) {
+        index.computeIfPresent(resource, (r, keys) -> {
+            keys.remove(key);
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+
+    /**
+     * Returns a live view of the intents using the given resource.
+     *
+     * @param resource resource
+     * @return keys of the intents using the resource
+     */
+    Set<Key> get(R resource) {
+        Set<Key> keys = index.get(resource);
+        return keys != null ? Collections.unmodifiableSet(keys) : Collections.emptySet();
+    }
+
+    /**
+     * Adds the intents using any of the given resources to the specified set.
+     *
+     * @param resources resources
+     * @param keys      set to which the intent keys are added
+     */
+    void collect(Iterable<R> resources, Set<Key> keys) {
+        for (R resource : resources) {
+            Set<Key> users = index.get(resource);
+            if (users != null) {
+                keys.addAll(users);
+            }
+        }
+    }
+
+    /**
+     * Indicates whether the specified intent uses any of the resources.
+     *
+     * @param key intent key
+     * @return true if the intent is in the index
+     */
+    boolean contains(Key key) {
+        return index.values().stream().anyMatch(keys -> keys.contains(key));
+    }
+}
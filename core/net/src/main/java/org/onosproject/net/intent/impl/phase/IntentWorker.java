@@ -39,14 +39,27 @@ public final class IntentWorker implements Callable<FinalIntentProcessPhase> {
 
     @Override
     public FinalIntentProcessPhase call() throws Exception {
-        IntentProcessPhase update = initial;
-        Optional<IntentProcessPhase> currentPhase = Optional.of(update);
-        IntentProcessPhase previousPhase = update;
+        FinalIntentProcessPhase finalPhase = advanceToFinalPhase();
+        finalPhase.execute();
+        return finalPhase;
+    }
 
-        while (currentPhase.isPresent()) {
-            previousPhase = currentPhase.get();
-            currentPhase = previousPhase.execute();
+    /**
+     * Executes the phases leading up to the final phase, such as the
+     * compilation of the intent, and returns the final phase without
+     * executing it.
+     *
+     * @return final intent process phase
+     */
+    public FinalIntentProcessPhase advanceToFinalPhase() {
+        IntentProcessPhase phase = initial;
+        while (!(phase instanceof FinalIntentProcessPhase)) {
+            Optional<IntentProcessPhase> next = phase.execute();
+            if (!next.isPresent()) {
+                throw new IllegalStateException("Phase " + phase + " did not lead to a final phase");
+            }
+            phase = next.get();
         }
-        return (FinalIntentProcessPhase) previousPhase;
+        return (FinalIntentProcessPhase) phase;
     }
 }
@@ -15,12 +15,16 @@
  */
 package org.onosproject.net.packet.impl;
 
+import com.codahale.metrics.Timer;
 import org.apache.felix.scr.annotations.Activate;
 import org.apache.felix.scr.annotations.Component;
 import org.apache.felix.scr.annotations.Deactivate;
 import org.apache.felix.scr.annotations.Reference;
 import org.apache.felix.scr.annotations.ReferenceCardinality;
 import org.apache.felix.scr.annotations.Service;
+import org.onlab.metrics.MetricsComponent;
+import org.onlab.metrics.MetricsFeature;
+import org.onlab.metrics.MetricsService;
 import org.onosproject.core.ApplicationId;
 import org.onosproject.core.CoreService;
 import org.onosproject.core.Permission;
@@ -28,6 +32,7 @@ import org.onosproject.net.Device;
 import org.onosproject.net.device.DeviceEvent;
 import org.onosproject.net.device.DeviceListener;
 import org.onosproject.net.device.DeviceService;
+import org.onosproject.net.flow.DefaultTrafficSelector;
 import org.onosproject.net.flow.DefaultTrafficTreatment;
 import org.onosproject.net.flow.FlowRuleService;
 import org.onosproject.net.flow.TrafficSelector;
@@ -60,6 +65,8 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static org.onlab.metrics.MetricsUtil.startTimer;
+import static org.onlab.metrics.MetricsUtil.stopTimer;
 import static org.onlab.util.Tools.groupedThreads;
 import static org.onosproject.security.AppGuard.checkPermission;
 import static org.slf4j.LoggerFactory.getLogger;
@@ -80,6 +87,8 @@ public class PacketManager
             "Table Type cannot be null. For requesting packets without " +
                     "table hints, use other methods in the packetService API";
 
+    private static final String METRICS_COMPONENT = "PacketProcessor";
+
     private final PacketStoreDelegate delegate = new InternalStoreDelegate();
 
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
@@ -97,11 +106,15 @@ public class PacketManager
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
     private FlowObjectiveService objectiveService;
 
+    @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
+    protected MetricsService metricsService;
+
     private ExecutorService eventHandlingExecutor;
 
     private final DeviceListener deviceListener = new InternalDeviceListener();
 
-    private final Map<Integer, PacketProcessor> processors = new ConcurrentHashMap<>();
+    private volatile PacketProcessorIndex processors = PacketProcessorIndex.EMPTY;
+    private final Map<Integer, ProcessorTimer> processorTimers = new ConcurrentHashMap<>();
 
     private ApplicationId appId;
 
@@ -126,16 +139,70 @@ public class PacketManager
 
     @Override
     public void addProcessor(PacketProcessor processor, int priority) {
+        addProcessor(processor, priority, DefaultTrafficSelector.emptySelector());
+    }
+
+    @Override
+    public void addProcessor(PacketProcessor processor, int priority,
+                             TrafficSelector selector) {
         checkPermission(Permission.PACKET_EVENT);
         checkNotNull(processor, "Processor cannot be null");
-        processors.put(priority, processor);
+        checkNotNull(selector, "Selector cannot be null");
+        synchronized (this) {
+            processors = processors.with(processor, priority, selector);
+            // Replaces the timer of any processor registered with the same priority
+            removeTimer(processorTimers.remove(priority));
+            if (metricsService != null) {
+                processorTimers.put(priority, new ProcessorTimer(processor, priority));
+            }
+        }
     }
 
     @Override
     public void removeProcessor(PacketProcessor processor) {
         checkPermission(Permission.PACKET_EVENT);
         checkNotNull(processor, "Processor cannot be null");
-        processors.values().remove(processor);
+        synchronized (this) {
+            processors = processors.without(processor);
+            processorTimers.values().removeIf(timer -> {
+                if (timer.processor.equals(processor)) {
+                    removeTimer(timer);
+                    return true;
+                }
+                return false;
+            });
+        }
+    }
+
+    // Returns the processing latency timer of the processor registered with the given priority.
+    private Timer processorTimer(int priority) {
+        ProcessorTimer timer = processorTimers.get(priority);
+        return timer != null ? timer.timer : null;
+    }
+
+    private void removeTimer(ProcessorTimer timer) {
+        if (timer != null) {
+            MetricsComponent component = metricsService.registerComponent(METRICS_COMPONENT);
+            metricsService.removeMetric(component, component.registerFeature(timer.name), "latency");
+        }
+    }
+
+    // Processing latency timer of a processor registration. Processors are
+    // told apart by their priority as well as their class, as distinct
+    // processors may well share a class name.
+    private final class ProcessorTimer {
+        private final PacketProcessor processor;
+        private final String name;
+        private final Timer timer;
+
+        private ProcessorTimer(PacketProcessor processor, int priority) {
+            String className = processor.getClass().getSimpleName();
+            this.processor = processor;
+            this.name = (className.isEmpty() ? processor.getClass().getName() : className) + "-" + priority;
+            MetricsComponent component = metricsService.registerComponent(METRICS_COMPONENT);
+            MetricsFeature feature = component.registerFeature(name);
+            this.timer = metricsService.createTimer(component, feature, "latency");
+        }
     }
 
     @Override
@@ -280,10 +347,14 @@ public class PacketManager
 
         @Override
         public void processPacket(PacketContext context) {
-            // TODO filter packets sent to processors based on registrations
-            for (PacketProcessor processor : processors.values()) {
-                processor.process(context);
-            }
+            processors.forEach(context.inPacket(), (processor, priority) -> {
+                Timer.Context timer = startTimer(processorTimer(priority));
+                try {
+                    processor.process(context);
+                } finally {
+                    stopTimer(timer);
+                }
+            });
         }
 
     }
@@ -0,0 +1,217 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.net.packet.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.onlab.packet.Ethernet;
+import org.onlab.packet.IPv4;
+import org.onlab.packet.IPv6;
+import org.onosproject.net.flow.TrafficSelector;
+import org.onosproject.net.flow.criteria.Criterion;
+import org.onosproject.net.flow.criteria.EthCriterion;
+import org.onosproject.net.flow.criteria.EthTypeCriterion;
+import org.onosproject.net.flow.criteria.IPProtocolCriterion;
+import org.onosproject.net.flow.criteria.PortCriterion;
+import org.onosproject.net.flow.criteria.VlanIdCriterion;
+import org.onosproject.net.packet.InboundPacket;
+import org.onosproject.net.packet.PacketProcessor;
+
+import java.nio.ByteBuffer;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.ObjIntConsumer;
+import java.util.stream.Collectors;
+
+/**
+ * Immutable index of the registered packet processors, which yields the
+ * processors interested in an inbound packet, in the order of their priority.
+ * <p>
+ * Processors are indexed by the ethertype of their selector, which is
+ * matched against the ethertype read straight from the raw packet, so that
+ * a packet need not be decoded to find its processors. The other criteria
+ * of a selector are then matched against the decoded packet; criteria which
+ * cannot be evaluated against an inbound packet are considered to match.
+ * </p>
+ */
+final class PacketProcessorIndex {
+
+    static final PacketProcessorIndex EMPTY = new PacketProcessorIndex(ImmutableList.of());
+
+    private static final int ETH_TYPE_OFFSET = 12;
+    private static final int VLAN_ETH_TYPE_OFFSET = 16;
+
+    private final List<Registration> registrations;
+    private final List<Registration> anyEtherType;
+    private final Map<Short, List<Registration>> byEtherType;
+
+    private PacketProcessorIndex(List<Registration> registrations) {
+        this.registrations = registrations;
+        this.anyEtherType = registrations.stream()
+                .filter(r -> r.etherType == null)
+                .collect(Collectors.collectingAndThen(Collectors.toList(), ImmutableList::copyOf));
+
+        ImmutableMap.Builder<Short, List<Registration>> builder = ImmutableMap.builder();
+        registrations.stream()
+                .map(r -> r.etherType)
+                .filter(Objects::nonNull)
+                .distinct()
+                .forEach(type -> builder.put(type, registrations.stream()
+                        .filter(r -> r.etherType == null || r.etherType.equals(type))
+                        .collect(Collectors.collectingAndThen(Collectors.toList(),
+                                                              ImmutableList::copyOf))));
+        this.byEtherType = builder.build();
+    }
+
+    /**
+     * Returns an index with the specified processor added, replacing any
+     * processor registered with the same priority.
+     *
+     * @param processor packet processor
+     * @param priority  processor priority
+     * @param selector  selector of the packets of interest
+     * @return new index
+     */
+    PacketProcessorIndex with(PacketProcessor processor, int priority,
+                              TrafficSelector selector) {
+        List<Registration> updated = registrations.stream()
+                .filter(r -> r.priority != priority)
+                .collect(Collectors.toList());
+        updated.add(new Registration(processor, priority, selector));
+        updated.sort(Comparator.comparingInt(r -> r.priority));
+        return new PacketProcessorIndex(ImmutableList.copyOf(updated));
+    }
+
+    /**
+     * Returns an index with the specified processor removed.
+     *
+     * @param processor packet processor
+     * @return new index
+     */
+    PacketProcessorIndex without(PacketProcessor processor) {
+        return new PacketProcessorIndex(registrations.stream()
+                .filter(r -> !r.processor.equals(processor))
+                .collect(Collectors.collectingAndThen(Collectors.toList(),
+                                                      ImmutableList::copyOf)));
+    }
+
+    /**
+     * Returns true if the specified processor is registered.
+     *
+     * @param processor packet processor
+     * @return true if registered
+     */
+    boolean contains(PacketProcessor processor) {
+        return registrations.stream().anyMatch(r -> r.processor.equals(processor));
+    }
+
+    /**
+     * Performs the given action for each processor interested in the
+     * specified packet, in the order of their priority. The action is given
+     * the processor along with the priority it was registered with.
+     *
+     * @param packet inbound packet
+     * @param action action to perform
+     */
+    void forEach(InboundPacket packet, ObjIntConsumer<PacketProcessor> action) {
+        List<Registration> candidates = byEtherType.isEmpty() ? anyEtherType :
+                byEtherType.getOrDefault(etherType(packet), anyEtherType);
+        for (Registration registration : candidates) {
+            if (registration.matches(packet)) {
+                action.accept(registration.processor, registration.priority);
+            }
+        }
+    }
+
+    // Reads the ethertype from the raw packet, looking past a VLAN tag.
+    private static short etherType(InboundPacket packet) {
+        ByteBuffer frame = packet.unparsed();
+        if (frame == null || frame.remaining() < ETH_TYPE_OFFSET + 2) {
+            Ethernet eth = packet.parsed();
+            return eth != null ? eth.getEtherType() : 0;
+        }
+        int start = frame.position();
+        short type = frame.getShort(start + ETH_TYPE_OFFSET);
+        if (type == Ethernet.TYPE_VLAN && frame.remaining() >= VLAN_ETH_TYPE_OFFSET + 2) {
+            type = frame.getShort(start + VLAN_ETH_TYPE_OFFSET);
+        }
+        return type;
+    }
+
+    // Processor registered along with the selector of its packets.
+    private static final class Registration {
+        private final PacketProcessor processor;
+        private final int priority;
+        private final Short etherType;
+        private final List<Criterion> criteria;
+
+        private Registration(PacketProcessor processor, int priority,
+                             TrafficSelector selector) {
+            this.processor = processor;
+            this.priority = priority;
+            EthTypeCriterion ethType =
+                    (EthTypeCriterion) selector.getCriterion(Criterion.Type.ETH_TYPE);
+            this.etherType = ethType != null ? ethType.ethType().toShort() : null;
+            this.criteria = selector.criteria().stream()
+                    .filter(c -> c.type() != Criterion.Type.ETH_TYPE)
+                    .collect(Collectors.collectingAndThen(Collectors.toList(),
+                                                          ImmutableList::copyOf));
+        }
+
+        private boolean matches(InboundPacket packet) {
+            for (Criterion criterion : criteria) {
+                if (!matches(criterion, packet)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static boolean matches(Criterion criterion, InboundPacket packet) {
+            switch (criterion.type()) {
+                case IN_PORT:
+                    return ((PortCriterion) criterion).port()
+                            .equals(packet.receivedFrom().port());
+                case ETH_SRC:
+                    return packet.parsed() != null && ((EthCriterion) criterion).mac()
+                            .equals(packet.parsed().getSourceMAC());
+                case ETH_DST:
+                    return packet.parsed() != null && ((EthCriterion) criterion).mac()
+                            .equals(packet.parsed().getDestinationMAC());
+                case VLAN_VID:
+                    return packet.parsed() != null && ((VlanIdCriterion) criterion).vlanId()
+                            .toShort() == packet.parsed().getVlanID();
+                case IP_PROTO:
+                    return packet.parsed() != null &&
+                            ((IPProtocolCriterion) criterion).protocol() == ipProtocol(packet.parsed());
+                default:
+                    // Left to the processor to check
+                    return true;
+            }
+        }
+
+        private static short ipProtocol(Ethernet eth) {
+            if (eth.getPayload() instanceof IPv4) {
+                return (short) (((IPv4) eth.getPayload()).getProtocol() & 0xff);
+            } else if (eth.getPayload() instanceof IPv6) {
+                return (short) (((IPv6) eth.getPayload()).getNextHeader() & 0xff);
+            }
+            return -1;
+        }
+    }
+}
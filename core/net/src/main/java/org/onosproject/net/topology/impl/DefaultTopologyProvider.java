@@ -20,6 +20,7 @@ import static java.util.concurrent.Executors.newFixedThreadPool;
 import static org.onlab.util.Tools.get;
 import static org.onlab.util.Tools.groupedThreads;
 import static org.onosproject.core.CoreService.CORE_PROVIDER_ID;
+import static org.onosproject.net.LinkKey.linkKey;
 import static org.onosproject.net.device.DeviceEvent.Type.DEVICE_ADDED;
 import static org.onosproject.net.device.DeviceEvent.Type.DEVICE_AVAILABILITY_CHANGED;
 import static org.onosproject.net.device.DeviceEvent.Type.DEVICE_REMOVED;
@@ -27,8 +28,9 @@ import static org.slf4j.LoggerFactory.getLogger;
 
 import java.util.Collections;
 import java.util.Dictionary;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Timer;
+import java.util.Map;
 import java.util.concurrent.ExecutorService;
 
 import org.apache.felix.scr.annotations.Activate;
@@ -39,10 +41,17 @@ import org.apache.felix.scr.annotations.Property;
 import org.apache.felix.scr.annotations.Reference;
 import org.apache.felix.scr.annotations.ReferenceCardinality;
 import org.apache.felix.scr.annotations.Service;
+import org.onlab.metrics.MetricsComponent;
+import org.onlab.metrics.MetricsFeature;
+import org.onlab.metrics.MetricsService;
 import org.onlab.util.AbstractAccumulator;
 import org.onlab.util.Accumulator;
 import org.onosproject.cfg.ComponentConfigService;
 import org.onosproject.event.Event;
+import org.onosproject.net.Device;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.Link;
+import org.onosproject.net.LinkKey;
 import org.onosproject.net.device.DeviceEvent;
 import org.onosproject.net.device.DeviceListener;
 import org.onosproject.net.device.DeviceService;
@@ -75,9 +84,8 @@ public class DefaultTopologyProvider extends AbstractProvider
     private static final int DEFAULT_MAX_IDLE_MS = 10;
     private static final int DEFAULT_MAX_BATCH_MS = 50;
 
-    // FIXME: Replace with a system-wide timer instance;
-    // TODO: Convert to use HashedWheelTimer or produce a variant of that; then decide which we want to adopt
-    private static final Timer TIMER = new Timer("onos-topo-event-batching");
+    private static final String METRICS_COMPONENT = "TopologyProvider";
+    private static final String METRICS_FEATURE = "accumulator";
 
     @Property(name = "maxEvents", intValue = DEFAULT_MAX_EVENTS,
             label = "Maximum number of events to accumulate")
@@ -105,6 +113,9 @@ public class DefaultTopologyProvider extends AbstractProvider
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
     protected ComponentConfigService cfgService;
 
+    @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
+    protected MetricsService metricsService;
+
     private volatile boolean isStarted = false;
 
     private TopologyProviderService providerService;
@@ -114,6 +125,12 @@ public class DefaultTopologyProvider extends AbstractProvider
     private Accumulator<Event> accumulator;
     private ExecutorService executor;
 
+    // Available devices and active links of the last described graph; these
+    // are kept current by applying the deltas cited by subsequent events.
+    private final Map<DeviceId, Device> devices = new HashMap<>();
+    private final Map<LinkKey, Link> links = new HashMap<>();
+    private boolean graphLoaded = false;
+
     /**
      * Creates a provider with the supplier identifier.
      */
@@ -125,7 +142,7 @@ public class DefaultTopologyProvider extends AbstractProvider
     public synchronized void activate(ComponentContext context) {
         cfgService.registerProperties(DefaultTopologyProvider.class);
         executor = newFixedThreadPool(MAX_THREADS, groupedThreads("onos/topo", "build-%d"));
-        accumulator = new TopologyChangeAccumulator();
+        accumulator = newAccumulator();
         logConfig("Configured");
 
         modified(context);
@@ -151,6 +168,13 @@ public class DefaultTopologyProvider extends AbstractProvider
 
         executor.shutdownNow();
         executor = null;
+        removeMetrics();
+
+        synchronized (this) {
+            graphLoaded = false;
+            devices.clear();
+            links.clear();
+        }
 
         log.info("Stopped");
     }
@@ -158,7 +182,7 @@ public class DefaultTopologyProvider extends AbstractProvider
     @Modified
     public void modified(ComponentContext context) {
         if (context == null) {
-            accumulator = new TopologyChangeAccumulator();
+            accumulator = newAccumulator();
             logConfig("Reconfigured");
             return;
         }
@@ -185,11 +209,35 @@ public class DefaultTopologyProvider extends AbstractProvider
             maxEvents = newMaxEvents;
             maxBatchMs = newMaxBatchMs;
             maxIdleMs = newMaxIdleMs;
-            accumulator = maxEvents > 1 ? new TopologyChangeAccumulator() : null;
+            removeMetrics();
+            accumulator = maxEvents > 1 ? newAccumulator() : null;
             logConfig("Reconfigured");
         }
     }
 
+    // Creates an event accumulator and exposes its batching histograms.
+    private Accumulator<Event> newAccumulator() {
+        TopologyChangeAccumulator newAccumulator = new TopologyChangeAccumulator();
+        if (metricsService != null) {
+            removeMetrics();
+            MetricsComponent component = metricsService.registerComponent(METRICS_COMPONENT);
+            MetricsFeature batching = component.registerFeature(METRICS_FEATURE);
+            metricsService.registerMetric(component, batching, "batchSize", newAccumulator.batchSizes());
+            metricsService.registerMetric(component, batching, "batchInterval", newAccumulator.batchIntervals());
+        }
+        return newAccumulator;
+    }
+
+    private void removeMetrics() {
+        if (metricsService == null) {
+            return;
+        }
+        MetricsComponent component = metricsService.registerComponent(METRICS_COMPONENT);
+        MetricsFeature batching = component.registerFeature(METRICS_FEATURE);
+        metricsService.removeMetric(component, batching, "batchSize");
+        metricsService.removeMetric(component, batching, "batchInterval");
+    }
+
     private void logConfig(String prefix) {
         log.info("{} with maxEvents = {}; maxBatchMs = {}; maxIdleMs = {}; accumulator={}",
                  prefix, maxEvents, maxBatchMs, maxIdleMs, accumulator != null);
@@ -217,13 +265,63 @@ public class DefaultTopologyProvider extends AbstractProvider
     // and citing the specified events as reasons for the change.
     private void buildTopology(List<Event> reasons) {
         if (isStarted) {
-            GraphDescription desc =
-                    new DefaultGraphDescription(System.nanoTime(),
-                                                System.currentTimeMillis(),
-                                                deviceService.getAvailableDevices(),
-                                                linkService.getActiveLinks());
-            providerService.topologyChanged(desc, reasons);
+            providerService.topologyChanged(describeGraph(reasons), reasons);
+        }
+    }
+
+    // Produces description of the graph by applying the deltas cited by the
+    // specified events to the previously described graph. The full graph is
+    // loaded afresh only initially, when recompute is requested explicitly,
+    // or when an event is not understood.
+    private synchronized GraphDescription describeGraph(List<Event> reasons) {
+        try {
+            if (!graphLoaded || reasons.isEmpty() || !applyDeltas(reasons)) {
+                loadGraph();
+            }
+        } catch (RuntimeException e) {
+            graphLoaded = false;
+            throw e;
+        }
+        return new DefaultGraphDescription(System.nanoTime(),
+                                           System.currentTimeMillis(),
+                                           devices.values(), links.values());
+    }
+
+    // Loads all available devices and active links.
+    private void loadGraph() {
+        devices.clear();
+        links.clear();
+        deviceService.getAvailableDevices().forEach(d -> devices.put(d.id(), d));
+        linkService.getActiveLinks().forEach(l -> links.put(linkKey(l), l));
+        graphLoaded = true;
+    }
+
+    // Applies the deltas cited by the events to the graph; returns false if
+    // any of the events could not be applied.
+    private boolean applyDeltas(List<Event> reasons) {
+        for (Event event : reasons) {
+            if (event instanceof DeviceEvent) {
+                // Re-read the device, as events may be applied out of order.
+                DeviceId deviceId = ((DeviceEvent) event).subject().id();
+                Device device = deviceService.getDevice(deviceId);
+                if (device != null && deviceService.isAvailable(deviceId)) {
+                    devices.put(deviceId, device);
+                } else {
+                    devices.remove(deviceId);
+                }
+            } else if (event instanceof LinkEvent) {
+                LinkKey key = linkKey(((LinkEvent) event).subject());
+                Link link = linkService.getLink(key.src(), key.dst());
+                if (link != null && link.state() == Link.State.ACTIVE) {
+                    links.put(key, link);
+                } else {
+                    links.remove(key);
+                }
+            } else {
+                return false;
+            }
         }
+        return true;
     }
 
     private void processEvent(Event event) {
@@ -257,7 +355,7 @@ public class DefaultTopologyProvider extends AbstractProvider
     // Event accumulator for paced triggering of topology assembly.
     private class TopologyChangeAccumulator extends AbstractAccumulator<Event> {
         TopologyChangeAccumulator() {
-            super(TIMER, maxEvents, maxBatchMs, maxIdleMs);
+            super(maxEvents, maxBatchMs, maxIdleMs);
         }
 
         @Override
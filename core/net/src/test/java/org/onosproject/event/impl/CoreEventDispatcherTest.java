@@ -15,24 +15,29 @@
  */
 package org.onosproject.event.impl;
 
+import com.google.common.util.concurrent.Uninterruptibles;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.onosproject.event.AbstractEvent;
 import org.onosproject.event.EventSink;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Test of the even dispatcher mechanism.
  */
 public class CoreEventDispatcherTest {
 
+    // Generous bound on event delivery; only reached if a test fails
+    private static final long TIMEOUT_SEC = 10;
+
     private final CoreEventDispatcher dispatcher = new CoreEventDispatcher();
     private final PrickleSink prickleSink = new PrickleSink();
     private final GooSink gooSink = new GooSink();
@@ -76,6 +81,106 @@ public class CoreEventDispatcherTest {
         validate(prickleSink);
     }
 
+    @Test
+    public void shardedDispatch() throws Exception {
+        dispatcher.setShardedDispatch(true);
+        assertTrue(dispatcher.isShardedDispatch());
+
+        // Block the goo sink; prickle events must still get through
+        CountDownLatch gooBlocker = new CountDownLatch(1);
+        gooSink.blocker = gooBlocker;
+        gooSink.latch = new CountDownLatch(1);
+        prickleSink.latch = new CountDownLatch(2);
+
+        dispatcher.post(new Goo("slow"));
+        dispatcher.post(new Prickle("one"));
+        dispatcher.post(new Prickle("two"));
+
+        assertTrue(prickleSink.latch.await(TIMEOUT_SEC, TimeUnit.SECONDS));
+        validate(prickleSink, "one", "two");
+
+        gooBlocker.countDown();
+        assertTrue(gooSink.latch.await(TIMEOUT_SEC, TimeUnit.SECONDS));
+        validate(gooSink, "slow");
+    }
+
+    @Test
+    public void orderAcrossModeChanges() throws Exception {
+        // Hold back delivery while events are queued on the default queue
+        CountDownLatch blocker = new CountDownLatch(1);
+        prickleSink.blocker = blocker;
+        prickleSink.latch = new CountDownLatch(3);
+
+        dispatcher.post(new Prickle("one"));
+        dispatcher.post(new Prickle("two"));
+        dispatcher.setShardedDispatch(true);
+        dispatcher.post(new Prickle("three"));
+        blocker.countDown();
+
+        assertTrue(prickleSink.latch.await(TIMEOUT_SEC, TimeUnit.SECONDS));
+        validate(prickleSink, "one", "two", "three");
+
+        // ...and again while events are queued on the sink's own queue
+        blocker = new CountDownLatch(1);
+        prickleSink.blocker = blocker;
+        prickleSink.latch = new CountDownLatch(2);
+
+        dispatcher.post(new Prickle("four"));
+        dispatcher.setShardedDispatch(false);
+        dispatcher.post(new Prickle("five"));
+        blocker.countDown();
+
+        assertTrue(prickleSink.latch.await(TIMEOUT_SEC, TimeUnit.SECONDS));
+        validate(prickleSink, "one", "two", "three", "four", "five");
+    }
+
+    @Test
+    public void stuckSinkWhileDraining() throws Exception {
+        dispatcher.setDispatchTimeLimit(300);
+        dispatcher.setShardedDispatch(true);
+
+        // The sink gets stuck on its own queue, which is then drained; the
+        // watchdog must still interrupt it for the default queue to go on
+        CountDownLatch blocker = new CountDownLatch(1);
+        prickleSink.blocker = blocker;
+        prickleSink.latch = new CountDownLatch(1);
+        gooSink.latch = new CountDownLatch(1);
+
+        dispatcher.post(new Prickle("stuck"));
+        dispatcher.setShardedDispatch(false);
+        dispatcher.post(new Goo("next"));
+
+        assertTrue(gooSink.latch.await(TIMEOUT_SEC, TimeUnit.SECONDS));
+        validate(prickleSink, "stuck");
+        validate(gooSink, "next");
+        blocker.countDown();
+    }
+
+    @Test
+    public void unresponsiveSinkWhileDraining() throws Exception {
+        dispatcher.setDispatchTimeLimit(300);
+        dispatcher.setShardedDispatch(true);
+
+        // The sink ignores the watchdog; the default queue gives up on it
+        CountDownLatch blocker = new CountDownLatch(1);
+        prickleSink.blocker = blocker;
+        prickleSink.uninterruptible = true;
+        prickleSink.latch = new CountDownLatch(1);
+        gooSink.latch = new CountDownLatch(1);
+
+        dispatcher.post(new Prickle("stuck"));
+        dispatcher.setShardedDispatch(false);
+        dispatcher.post(new Goo("next"));
+
+        assertTrue(gooSink.latch.await(TIMEOUT_SEC, TimeUnit.SECONDS));
+        validate(gooSink, "next");
+        validate(prickleSink);
+
+        blocker.countDown();
+        assertTrue(prickleSink.latch.await(TIMEOUT_SEC, TimeUnit.SECONDS));
+        validate(prickleSink, "stuck");
+    }
+
     private void validate(Sink sink, String... strings) {
         int i = 0;
         assertEquals("incorrect event count", strings.length, sink.subjects.size());
@@ -105,10 +210,21 @@ public class CoreEventDispatcherTest {
     }
 
     private static class Sink {
-        final List<String> subjects = new ArrayList<>();
+        final List<String> subjects = new CopyOnWriteArrayList<>();
         CountDownLatch latch;
+        CountDownLatch blocker;
+        boolean uninterruptible;
 
         protected void process(String subject) {
+            if (blocker != null && uninterruptible) {
+                Uninterruptibles.awaitUninterruptibly(blocker);
+            } else if (blocker != null) {
+                try {
+                    blocker.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
             subjects.add(subject);
             latch.countDown();
         }
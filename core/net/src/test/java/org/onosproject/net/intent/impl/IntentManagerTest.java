@@ -189,6 +189,28 @@ public class IntentManagerTest {
         }
     }
 
+    private static class TestIntentCompilerSlow implements IntentCompiler<MockIntent> {
+        private final Key slowKey;
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        TestIntentCompilerSlow(Key slowKey) {
+            this.slowKey = slowKey;
+        }
+
+        @Override
+        public List<Intent> compile(MockIntent intent, List<Intent> installable,
+                                    Set<LinkResourceAllocations> resources) {
+            if (intent.key().equals(slowKey)) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return Lists.newArrayList(new MockInstallableIntent());
+        }
+    }
+
     /**
      * Hamcrest matcher to check that a collection of Intents contains an
      * Intent with the specified Intent Id.
@@ -368,6 +390,34 @@ public class IntentManagerTest {
         verifyState();
     }
 
+    /**
+     * Tests that an intent whose compilation is slow does not hold up the
+     * intents submitted after it.
+     */
+    @Test
+    public void slowCompileDoesNotBlockOtherIntents() {
+        flowRuleService.setFuture(true);
+        MockIntent slow = new MockIntent(MockIntent.nextId());
+        MockIntent fast = new MockIntent(MockIntent.nextId());
+        TestIntentCompilerSlow slowCompiler = new TestIntentCompilerSlow(slow.key());
+        extensionService.registerCompiler(MockIntent.class, slowCompiler);
+
+        listener.setLatch(1, Type.INSTALLED);
+        service.submit(slow);
+        // let the slow intent go out in a batch of its own
+        delay(100);
+        service.submit(fast);
+        listener.await(Type.INSTALLED);
+        assertEquals(INSTALLED, service.getIntentState(fast.key()));
+        assertNotEquals(INSTALLED, service.getIntentState(slow.key()));
+
+        listener.setLatch(1, Type.INSTALLED);
+        slowCompiler.release.countDown();
+        listener.await(Type.INSTALLED);
+        assertEquals(INSTALLED, service.getIntentState(slow.key()));
+        verifyState();
+    }
+
     /**
      * Tests handling a future that contains an error as a result of
      * installing an intent.
@@ -49,6 +49,7 @@ import com.google.common.collect.Lists;
 
 import static org.easymock.EasyMock.createMock;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
@@ -221,6 +222,44 @@ public class ObjectiveTrackerTest {
                    equalTo("0x333"));
     }
 
+    /**
+     * Tests an event for several links down, some of which match existing
+     * intents, and that untracked intents are no longer matched.
+     *
+     * @throws InterruptedException if the latch wait fails.
+     */
+    @Test
+    public void testEventMultipleLinksDownMatch() throws Exception {
+        final Link link1 = link("src", 1, "dst", 2);
+        final Link link2 = link("src", 3, "dst", 4);
+        final Link link3 = link("src", 5, "dst", 6);
+        reasons.add(new LinkEvent(LinkEvent.Type.LINK_REMOVED, link1));
+        reasons.add(new LinkEvent(LinkEvent.Type.LINK_REMOVED, link2));
+        reasons.add(new LinkEvent(LinkEvent.Type.LINK_REMOVED, link3));
+
+        final TopologyEvent event = new TopologyEvent(
+                TopologyEvent.Type.TOPOLOGY_CHANGED,
+                topology,
+                reasons);
+
+        final Key key1 = Key.of(0x333L, APP_ID);
+        final Key key2 = Key.of(0x444L, APP_ID);
+        final Key key3 = Key.of(0x555L, APP_ID);
+        tracker.addTrackedResources(key1, ImmutableSet.of(link1, link2));
+        tracker.addTrackedResources(key2, ImmutableSet.of(link2));
+        tracker.addTrackedResources(key3, ImmutableSet.of(link3));
+        tracker.removeTrackedResources(key3, ImmutableSet.of(link3));
+
+        listener.event(event);
+        assertThat(
+                delegate.latch.await(WAIT_TIMEOUT_SECONDS, TimeUnit.SECONDS),
+                is(true));
+
+        assertThat(delegate.intentIdsFromEvent, hasSize(2));
+        assertThat(delegate.intentIdsFromEvent, containsInAnyOrder(key1, key2));
+        assertThat(delegate.compileAllFailedFromEvent, is(false));
+    }
+
     /**
      * Tests a resource available event.
      *
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.net.packet.impl;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+import org.onlab.packet.Data;
+import org.onlab.packet.Ethernet;
+import org.onlab.packet.IPv4;
+import org.onosproject.net.ConnectPoint;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.PortNumber;
+import org.onosproject.net.flow.DefaultTrafficSelector;
+import org.onosproject.net.packet.DefaultInboundPacket;
+import org.onosproject.net.packet.InboundPacket;
+import org.onosproject.net.packet.PacketProcessor;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for PacketProcessorIndex.
+ */
+public class PacketProcessorIndexTest {
+
+    private static final ConnectPoint CP1 =
+            new ConnectPoint(DeviceId.deviceId("of:1"), PortNumber.portNumber(1));
+    private static final ConnectPoint CP2 =
+            new ConnectPoint(DeviceId.deviceId("of:1"), PortNumber.portNumber(2));
+
+    private final PacketProcessor any = context -> { };
+    private final PacketProcessor ipv4 = context -> { };
+    private final PacketProcessor udp = context -> { };
+    private final PacketProcessor lldp = context -> { };
+    private final PacketProcessor port2 = context -> { };
+
+    private static InboundPacket packet(ConnectPoint cp, short etherType,
+                                        byte ipProtocol, short vlan) {
+        Ethernet eth = new Ethernet();
+        eth.setSourceMACAddress("00:00:00:00:00:01")
+                .setDestinationMACAddress("00:00:00:00:00:02")
+                .setEtherType(etherType)
+                .setVlanID(vlan);
+        if (etherType == Ethernet.TYPE_IPV4) {
+            IPv4 ip = new IPv4();
+            ip.setProtocol(ipProtocol)
+                    .setSourceAddress(1)
+                    .setDestinationAddress(2)
+                    .setPayload(new Data(new byte[8]));
+            eth.setPayload(ip);
+        } else {
+            eth.setPayload(new Data(new byte[8]));
+        }
+        return new DefaultInboundPacket(cp, ByteBuffer.wrap(eth.serialize()));
+    }
+
+    private static InboundPacket packet(short etherType, byte ipProtocol) {
+        return packet(CP1, etherType, ipProtocol, Ethernet.VLAN_UNTAGGED);
+    }
+
+    private static List<PacketProcessor> dispatch(PacketProcessorIndex index,
+                                                  InboundPacket packet) {
+        List<PacketProcessor> processors = new ArrayList<>();
+        index.forEach(packet, (processor, priority) -> processors.add(processor));
+        return processors;
+    }
+
+    private PacketProcessorIndex index() {
+        return PacketProcessorIndex.EMPTY
+                .with(lldp, 5, DefaultTrafficSelector.builder()
+                        .matchEthType(Ethernet.TYPE_LLDP).build())
+                .with(udp, 30, DefaultTrafficSelector.builder()
+                        .matchEthType(Ethernet.TYPE_IPV4)
+                        .matchIPProtocol(IPv4.PROTOCOL_UDP).build())
+                .with(any, 10, DefaultTrafficSelector.emptySelector())
+                .with(ipv4, 20, DefaultTrafficSelector.builder()
+                        .matchEthType(Ethernet.TYPE_IPV4).build())
+                .with(port2, 40, DefaultTrafficSelector.builder()
+                        .matchInPort(CP2.port()).build());
+    }
+
+    @Test
+    public void dispatchByEtherType() {
+        PacketProcessorIndex index = index();
+
+        assertEquals(ImmutableList.of(lldp, any),
+                     dispatch(index, packet(Ethernet.TYPE_LLDP, (byte) 0)));
+        assertEquals(ImmutableList.of(any),
+                     dispatch(index, packet(Ethernet.TYPE_ARP, (byte) 0)));
+        assertEquals(ImmutableList.of(any, ipv4),
+                     dispatch(index, packet(Ethernet.TYPE_IPV4, IPv4.PROTOCOL_TCP)));
+        assertEquals(ImmutableList.of(any, ipv4, udp),
+                     dispatch(index, packet(Ethernet.TYPE_IPV4, IPv4.PROTOCOL_UDP)));
+    }
+
+    @Test
+    public void dispatchByInPort() {
+        assertEquals(ImmutableList.of(any, port2),
+                     dispatch(index(), packet(CP2, Ethernet.TYPE_ARP, (byte) 0,
+                                              Ethernet.VLAN_UNTAGGED)));
+    }
+
+    @Test
+    public void dispatchVlanTagged() {
+        assertEquals(ImmutableList.of(any, ipv4, udp),
+                     dispatch(index(), packet(CP1, Ethernet.TYPE_IPV4, IPv4.PROTOCOL_UDP,
+                                              (short) 10)));
+    }
+
+    @Test
+    public void replaceAndRemove() {
+        PacketProcessor other = context -> { };
+        PacketProcessorIndex index = index()
+                .with(other, 10, DefaultTrafficSelector.emptySelector());
+        assertFalse(index.contains(any));
+        assertTrue(index.contains(other));
+
+        index = index.without(ipv4);
+        assertFalse(index.contains(ipv4));
+        assertEquals(ImmutableList.of(other, udp),
+                     dispatch(index, packet(Ethernet.TYPE_IPV4, IPv4.PROTOCOL_UDP)));
+    }
+}
@@ -16,6 +16,8 @@
 package org.onosproject.net.topology.impl;
 
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Sets;
 
 import org.junit.After;
 import org.junit.Before;
@@ -23,7 +25,9 @@ import org.junit.Test;
 import org.onosproject.cfg.ComponentConfigAdapter;
 import org.onosproject.event.Event;
 import org.onosproject.common.event.impl.TestEventDispatcher;
+import org.onosproject.net.ConnectPoint;
 import org.onosproject.net.Device;
+import org.onosproject.net.DeviceId;
 import org.onosproject.net.Link;
 import org.onosproject.net.device.DeviceEvent;
 import org.onosproject.net.device.impl.DeviceManager;
@@ -48,6 +52,7 @@ import static org.onosproject.net.NetTestTools.device;
 import static org.onosproject.net.NetTestTools.link;
 import static org.onosproject.net.device.DeviceEvent.Type.DEVICE_ADDED;
 import static org.onosproject.net.link.LinkEvent.Type.LINK_ADDED;
+import static org.onosproject.net.link.LinkEvent.Type.LINK_REMOVED;
 
 /**
  * Test of the default topology provider implementation.
@@ -82,11 +87,15 @@ public class DefaultTopologyProviderTest {
     }
 
     private void validateSubmission() {
+        validateSubmission(6, 10);
+    }
+
+    private void validateSubmission(int vertexCount, int edgeCount) {
         assertNotNull("registration expected", providerService);
         assertEquals("incorrect provider", provider, providerService.provider());
         assertNotNull("topo change should be submitted", providerService.graphDesc);
-        assertEquals("incorrect vertex count", 6, providerService.graphDesc.vertexes().size());
-        assertEquals("incorrect edge count", 10, providerService.graphDesc.edges().size());
+        assertEquals("incorrect vertex count", vertexCount, providerService.graphDesc.vertexes().size());
+        assertEquals("incorrect edge count", edgeCount, providerService.graphDesc.edges().size());
     }
 
     @Test
@@ -109,6 +118,35 @@ public class DefaultTopologyProviderTest {
         validateSubmission();
     }
 
+    @Test
+    public void eventDeltas() throws InterruptedException, TimeoutException {
+        assertEquals(1, topologyChangedCounts.awaitAdvanceInterruptibly(0, 1, TimeUnit.SECONDS));
+        validateSubmission();
+
+        Link link = link("z", 1, "a", 4);
+        deviceService.extraDevices.add(device("z"));
+        linkService.extraLinks.add(link);
+        deviceService.postEvent(new DeviceEvent(DEVICE_ADDED, device("z"), null));
+        linkService.postEvent(new LinkEvent(LINK_ADDED, link));
+        awaitSubmission(7, 11);
+
+        linkService.extraLinks.remove(link);
+        linkService.postEvent(new LinkEvent(LINK_REMOVED, link));
+        awaitSubmission(7, 10);
+    }
+
+    // Waits for a submission with the expected vertex and edge counts.
+    private void awaitSubmission(int vertexCount, int edgeCount) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            GraphDescription desc = providerService.graphDesc;
+            if (desc.vertexes().size() == vertexCount && desc.edges().size() == edgeCount) {
+                break;
+            }
+            Thread.sleep(10);
+        }
+        validateSubmission(vertexCount, edgeCount);
+    }
+
 
     private class TestTopoRegistry implements TopologyProviderRegistry {
 
@@ -145,6 +183,8 @@ public class DefaultTopologyProviderTest {
     }
 
     private class TestDeviceService extends DeviceManager {
+        final Set<Device> extraDevices = Sets.newConcurrentHashSet();
+
         TestDeviceService() {
             eventDispatcher = new TestEventDispatcher();
             eventDispatcher.addSink(DeviceEvent.class, listenerRegistry);
@@ -159,7 +199,22 @@ public class DefaultTopologyProviderTest {
 
         @Override
         public Iterable<Device> getAvailableDevices() {
-            return getDevices();
+            return Iterables.concat(getDevices(), extraDevices);
+        }
+
+        @Override
+        public Device getDevice(DeviceId deviceId) {
+            for (Device device : getAvailableDevices()) {
+                if (device.id().equals(deviceId)) {
+                    return device;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public boolean isAvailable(DeviceId deviceId) {
+            return getDevice(deviceId) != null;
         }
 
         void postEvent(DeviceEvent event) {
@@ -168,6 +223,8 @@ public class DefaultTopologyProviderTest {
     }
 
     private class TestLinkService extends LinkManager {
+        final Set<Link> extraLinks = Sets.newConcurrentHashSet();
+
         TestLinkService() {
             eventDispatcher = new TestEventDispatcher();
             eventDispatcher.addSink(LinkEvent.class, listenerRegistry);
@@ -184,7 +241,17 @@ public class DefaultTopologyProviderTest {
 
         @Override
         public Iterable<Link> getActiveLinks() {
-            return getLinks();
+            return Iterables.concat(getLinks(), extraLinks);
+        }
+
+        @Override
+        public Link getLink(ConnectPoint src, ConnectPoint dst) {
+            for (Link link : getActiveLinks()) {
+                if (link.src().equals(src) && link.dst().equals(dst)) {
+                    return link;
+                }
+            }
+            return null;
         }
 
         void postEvent(LinkEvent event) {
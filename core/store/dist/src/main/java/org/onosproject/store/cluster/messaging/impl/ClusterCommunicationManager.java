@@ -35,6 +35,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Objects;
+import java.nio.ByteBuffer;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
@@ -210,6 +211,16 @@ public class ClusterCommunicationManager
                 executor);
     }
 
+    @Override
+    public <M> void addBufferSubscriber(MessageSubject subject,
+            Function<ByteBuffer, M> decoder,
+            Consumer<M> handler,
+            Executor executor) {
+        messagingService.registerBufferHandler(subject.value(),
+                new InternalBufferMessageConsumer<>(decoder, handler),
+                executor);
+    }
+
     private class InternalClusterMessageHandler implements Function<byte[], byte[]> {
         private ClusterMessageHandler handler;
 
@@ -258,4 +269,19 @@ public class ClusterCommunicationManager
             consumer.accept(decoder.apply(ClusterMessage.fromBytes(bytes).payload()));
         }
     }
+
+    private class InternalBufferMessageConsumer<M> implements Consumer<ByteBuffer> {
+        private final Function<ByteBuffer, M> decoder;
+        private final Consumer<M> consumer;
+
+        public InternalBufferMessageConsumer(Function<ByteBuffer, M> decoder, Consumer<M> consumer) {
+            this.decoder = decoder;
+            this.consumer = consumer;
+        }
+
+        @Override
+        public void accept(ByteBuffer buffer) {
+            consumer.accept(decoder.apply(ClusterMessage.payloadOf(buffer)));
+        }
+    }
 }
@@ -4,6 +4,8 @@ import com.google.common.base.Strings;
 import org.apache.felix.scr.annotations.Activate;
 import org.apache.felix.scr.annotations.Component;
 import org.apache.felix.scr.annotations.Deactivate;
+import org.apache.felix.scr.annotations.Modified;
+import org.apache.felix.scr.annotations.Property;
 import org.apache.felix.scr.annotations.Reference;
 import org.apache.felix.scr.annotations.ReferenceCardinality;
 import org.apache.felix.scr.annotations.Service;
@@ -11,9 +13,15 @@ import org.onlab.netty.NettyMessaging;
 import org.onosproject.cluster.ClusterDefinitionService;
 import org.onosproject.cluster.ControllerNode;
 import org.onosproject.store.cluster.messaging.Endpoint;
+import org.osgi.service.component.ComponentContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Dictionary;
+
+import static com.google.common.base.Strings.isNullOrEmpty;
+import static org.onlab.util.Tools.get;
+
 /**
  * Netty based MessagingService.
  */
@@ -25,11 +33,27 @@ public class NettyMessagingManager extends NettyMessaging {
 
     private static final short MIN_KS_LENGTH = 6;
 
+    @Property(name = "maxBatchSize", intValue = DEFAULT_MAX_BATCH_SIZE,
+            label = "Maximum number of messages coalesced into a single flush; 1 disables coalescing")
+    private int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+
+    @Property(name = "maxBatchDelayMicros", longValue = DEFAULT_MAX_BATCH_DELAY_MICROS,
+            label = "Maximum delay in microseconds a message may wait for a batch to fill")
+    private long maxBatchDelayMicros = DEFAULT_MAX_BATCH_DELAY_MICROS;
+
+    @Property(name = "connectionsPerPeer", intValue = DEFAULT_CONNECTIONS_PER_PEER,
+            label = "Number of connections opened to each peer; takes effect on restart")
+    private int connectionsPerPeer = DEFAULT_CONNECTIONS_PER_PEER;
+
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
     protected ClusterDefinitionService clusterDefinitionService;
 
     @Activate
-    public void activate() throws Exception {
+    public void activate(ComponentContext context) throws Exception {
+        // Component configuration service relies on cluster messaging itself,
+        // so the settings are only taken from the component context.
+        modified(context);
+        setConnectionsPerPeer(connectionsPerPeer);
         ControllerNode localNode = clusterDefinitionService.localNode();
         getTLSParameters();
         super.start(new Endpoint(localNode.ip(), localNode.tcpPort()));
@@ -42,6 +66,48 @@ public class NettyMessagingManager extends NettyMessaging {
         log.info("Stopped");
     }
 
+    @SuppressWarnings("rawtypes")
+    @Modified
+    public void modified(ComponentContext context) {
+        if (context == null) {
+            return;
+        }
+
+        Dictionary properties = context.getProperties();
+        int newMaxBatchSize;
+        long newMaxBatchDelayMicros;
+        int newConnectionsPerPeer;
+        try {
+            String s = get(properties, "maxBatchSize");
+            newMaxBatchSize = isNullOrEmpty(s) ? maxBatchSize : Integer.parseInt(s.trim());
+
+            s = get(properties, "maxBatchDelayMicros");
+            newMaxBatchDelayMicros = isNullOrEmpty(s) ? maxBatchDelayMicros : Long.parseLong(s.trim());
+
+            s = get(properties, "connectionsPerPeer");
+            newConnectionsPerPeer = isNullOrEmpty(s) ? connectionsPerPeer : Integer.parseInt(s.trim());
+        } catch (NumberFormatException | ClassCastException e) {
+            newMaxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+            newMaxBatchDelayMicros = DEFAULT_MAX_BATCH_DELAY_MICROS;
+            newConnectionsPerPeer = DEFAULT_CONNECTIONS_PER_PEER;
+        }
+
+        if (newConnectionsPerPeer > 0) {
+            connectionsPerPeer = newConnectionsPerPeer;
+        }
+
+        if (newMaxBatchSize < 1 || newMaxBatchDelayMicros < 0) {
+            log.warn("Ignoring invalid batch limits: size {}, delay {} us",
+                     newMaxBatchSize, newMaxBatchDelayMicros);
+            return;
+        }
+        maxBatchSize = newMaxBatchSize;
+        maxBatchDelayMicros = newMaxBatchDelayMicros;
+        setBatchLimits(maxBatchSize, maxBatchDelayMicros);
+        log.info("Settings: maxBatchSize = {}, maxBatchDelayMicros = {}, connectionsPerPeer = {}",
+                 maxBatchSize, maxBatchDelayMicros, connectionsPerPeer);
+    }
+
     private void getTLSParameters() {
         String tempString = System.getProperty("enableNettyTLS");
         enableNettyTLS = Strings.isNullOrEmpty(tempString) ? TLS_DISABLED : Boolean.parseBoolean(tempString);
@@ -15,15 +15,21 @@
  */
 package org.onosproject.store.consistent.impl;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
 import org.onosproject.core.ApplicationId;
+import org.onosproject.store.service.ReadConsistency;
 import org.onosproject.store.service.Serializer;
 import org.onosproject.store.service.Versioned;
 
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 
 /**
  * Extension of DefaultAsyncConsistentMap that provides a weaker read consistency
@@ -51,8 +57,10 @@ public class AsyncCachingConsistentMap<K, V> extends DefaultAsyncConsistentMap<K
             Serializer serializer,
             boolean readOnly,
             boolean purgeOnUninstall,
-            boolean meteringEnabled) {
-        super(name, applicationId, database, serializer, readOnly, purgeOnUninstall, meteringEnabled);
+            boolean meteringEnabled,
+            ReadConsistency readConsistency) {
+        super(name, applicationId, database, serializer, readOnly, purgeOnUninstall, meteringEnabled,
+              readConsistency);
         addListener(event -> cache.invalidate(event.key()));
     }
 
@@ -68,4 +76,52 @@ public class AsyncCachingConsistentMap<K, V> extends DefaultAsyncConsistentMap<K
         }
         return cache.getUnchecked(key);
     }
-}
\ No newline at end of file
+
+    @Override
+    public CompletableFuture<Map<K, Versioned<V>>> getAll(Collection<K> keys) {
+        Map<K, CompletableFuture<Versioned<V>>> futures = Maps.newHashMap();
+        List<K> misses = Lists.newArrayList();
+        for (K key : keys) {
+            CompletableFuture<Versioned<V>> cachedValue = cache.getIfPresent(key);
+            if (cachedValue != null && !cachedValue.isCompletedExceptionally()) {
+                futures.put(key, cachedValue);
+            } else {
+                // cache the pending value first, so that an update notified
+                // while the batch is in flight invalidates it
+                CompletableFuture<Versioned<V>> pending = new CompletableFuture<>();
+                cache.put(key, pending);
+                futures.put(key, pending);
+                misses.add(key);
+            }
+        }
+        if (!misses.isEmpty()) {
+            CompletableFuture<Map<K, Versioned<V>>> batch;
+            try {
+                batch = super.getAll(misses);
+            } catch (Exception e) {
+                // the pending values must not outlive a batch that never started
+                batch = new CompletableFuture<>();
+                batch.completeExceptionally(e);
+            }
+            batch.whenComplete((values, error) -> misses.forEach(key -> {
+                if (error != null) {
+                    cache.asMap().remove(key, futures.get(key));
+                    futures.get(key).completeExceptionally(error);
+                } else {
+                    futures.get(key).complete(values.get(key));
+                }
+            }));
+        }
+        return CompletableFuture.allOf(futures.values().toArray(new CompletableFuture[futures.size()]))
+                .thenApply(v -> {
+                    Map<K, Versioned<V>> result = Maps.newHashMapWithExpectedSize(futures.size());
+                    futures.forEach((key, future) -> {
+                        Versioned<V> value = future.join();
+                        if (value != null) {
+                            result.put(key, value);
+                        }
+                    });
+                    return result;
+                });
+    }
+}
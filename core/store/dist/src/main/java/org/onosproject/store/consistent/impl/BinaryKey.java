@@ -0,0 +1,142 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.consistent.impl;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+import org.onlab.util.HexString;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.google.common.primitives.UnsignedBytes;
+
+/**
+ * Serialized form of a consistent map key, as stored in the database.
+ * <p>
+ * Earlier releases stored keys as colon separated hex strings. Such keys are
+ * still accepted by {@link #fromHexString(String)} so that entries replayed
+ * from logs written by those releases end up under the same key.
+ * <p>
+ * Keys are ordered by the unsigned lexicographical order of their bytes.
+ */
+public final class BinaryKey implements Comparable<BinaryKey> {
+
+    private static final Comparator<byte[]> ORDER = UnsignedBytes.lexicographicalComparator();
+
+    private final byte[] bytes;
+    private final int hash;
+
+    private BinaryKey(byte[] bytes) {
+        this.bytes = bytes;
+        this.hash = Arrays.hashCode(bytes);
+    }
+
+    /**
+     * Returns a key backed by the specified bytes. The array is not copied
+     * and must not be modified afterwards.
+     *
+     * @param bytes serialized key
+     * @return binary key
+     */
+    public static BinaryKey wrap(byte[] bytes) {
+        return new BinaryKey(checkNotNull(bytes, "bytes cannot be null"));
+    }
+
+    /**
+     * Returns the key for the specified colon separated hex string, the form
+     * keys were stored in by earlier releases.
+     *
+     * @param hexString hex encoded key
+     * @return binary key
+     */
+    public static BinaryKey fromHexString(String hexString) {
+        return new BinaryKey(HexString.fromHexString(hexString));
+    }
+
+    /**
+     * Returns the serialized key. The returned array must not be modified.
+     *
+     * @return key bytes
+     */
+    public byte[] bytes() {
+        return bytes;
+    }
+
+    /**
+     * Returns the length of the serialized key.
+     *
+     * @return number of bytes
+     */
+    public int length() {
+        return bytes.length;
+    }
+
+    @Override
+    public int compareTo(BinaryKey other) {
+        return ORDER.compare(bytes, other.bytes);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof BinaryKey)) {
+            return false;
+        }
+        BinaryKey that = (BinaryKey) obj;
+        return hash == that.hash && Arrays.equals(bytes, that.bytes);
+    }
+
+    @Override
+    public String toString() {
+        return HexString.toHexString(bytes);
+    }
+
+    /**
+     * Kryo serializer writing the key as a length prefixed byte sequence.
+     */
+    public static final class KeySerializer extends Serializer<BinaryKey> {
+
+        /**
+         * Creates a serializer for immutable binary keys.
+         */
+        public KeySerializer() {
+            super(false, true);
+        }
+
+        @Override
+        public void write(Kryo kryo, Output output, BinaryKey key) {
+            output.writeInt(key.bytes.length, true);
+            output.writeBytes(key.bytes);
+        }
+
+        @Override
+        public BinaryKey read(Kryo kryo, Input input, Class<BinaryKey> type) {
+            return new BinaryKey(input.readBytes(input.readInt(true)));
+        }
+    }
+}
@@ -17,8 +17,14 @@
 package org.onosproject.store.consistent.impl;
 
 
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
 
+import org.onosproject.store.service.MapCursor;
+import org.onosproject.store.service.MapPage;
+
+import com.google.common.collect.ImmutableList;
+
 import net.kuujo.copycat.cluster.ClusterConfig;
 import net.kuujo.copycat.cluster.internal.coordinator.ClusterCoordinator;
 import net.kuujo.copycat.cluster.internal.coordinator.CoordinatorConfig;
@@ -28,7 +34,7 @@ import net.kuujo.copycat.resource.Resource;
 /**
  * Database.
  */
-public interface Database extends DatabaseProxy<String, byte[]>, Resource<Database> {
+public interface Database extends DatabaseProxy<BinaryKey, byte[]>, Resource<Database> {
 
   /**
    * Creates a new database with the default cluster configuration.<p>
@@ -84,6 +90,18 @@ public interface Database extends DatabaseProxy<String, byte[]>, Resource<Databa
       .addShutdownTask(coordinator::close);
   }
 
+  /**
+   * Returns the next page of a paged scan over a map, in key order.
+   *
+   * @param mapName map name
+   * @param cursor cursor returned with the previous page, or null to start a new scan
+   * @param limit maximum number of entries in the page
+   * @return a future for the page of entries
+   */
+  default CompletableFuture<MapPage<BinaryKey, byte[]>> mapScanPage(String mapName, MapCursor cursor, int limit) {
+      return ScanCursor.scan(ImmutableList.of(this), mapName, (ScanCursor) cursor, limit);
+  }
+
   /**
    * Tells whether the database supports change notifications.
    * @return true if notifications are supported; false otherwise
@@ -48,6 +48,7 @@ import org.apache.felix.scr.annotations.ReferenceCardinality;
 import org.apache.felix.scr.annotations.ReferencePolicy;
 import org.apache.felix.scr.annotations.Service;
 
+import org.onlab.metrics.MetricsService;
 import org.onosproject.app.ApplicationEvent;
 import org.onosproject.app.ApplicationListener;
 import org.onosproject.app.ApplicationService;
@@ -107,6 +108,11 @@ public class DatabaseManager implements StorageService, StorageAdminService {
     private static final int RAFT_ELECTION_TIMEOUT_MILLIS = 3000;
     private static final int DATABASE_OPERATION_TIMEOUT_MILLIS = 5000;
 
+    // The state is snapshotted and the log compacted each time a segment is
+    // rolled over, which bounds how much of the log is replayed on restart.
+    private static final int PERSISTENT_LOG_SEGMENT_SIZE_BYTES = 67108864; // 64MB
+    private static final long PERSISTENT_LOG_SEGMENT_INTERVAL_MILLIS = 3600000; // 1 hour
+
     private ClusterCoordinator coordinator;
     protected PartitionedDatabase partitionedDatabase;
     protected Database inMemoryDatabase;
@@ -131,6 +137,9 @@ public class DatabaseManager implements StorageService, StorageAdminService {
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
     protected ClusterCommunicationService clusterCommunicator;
 
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL_UNARY, policy = ReferencePolicy.DYNAMIC)
+    protected MetricsService metricsService;
+
     protected String nodeToUri(NodeInfo node) {
         return String.format("onos://%s:%d", node.getIp(), node.getTcpPort());
     }
@@ -278,9 +287,9 @@ public class DatabaseManager implements StorageService, StorageAdminService {
         String logDir = System.getProperty("karaf.data", "./data");
         return new FileLog()
             .withDirectory(logDir)
-            .withSegmentSize(1073741824) // 1GB
+            .withSegmentSize(PERSISTENT_LOG_SEGMENT_SIZE_BYTES)
             .withFlushOnWrite(true)
-            .withSegmentInterval(Long.MAX_VALUE);
+            .withSegmentInterval(PERSISTENT_LOG_SEGMENT_INTERVAL_MILLIS);
     }
 
     private Log newInMemoryLog() {
@@ -333,7 +342,8 @@ public class DatabaseManager implements StorageService, StorageAdminService {
     @Override
     public <K, V> EventuallyConsistentMapBuilder<K, V> eventuallyConsistentMapBuilder() {
         return new EventuallyConsistentMapBuilderImpl<>(clusterService,
-                                                        clusterCommunicator);
+                                                        clusterCommunicator,
+                                                        metricsService);
     }
 
     @Override
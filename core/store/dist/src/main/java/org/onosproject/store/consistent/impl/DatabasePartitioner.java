@@ -21,6 +21,7 @@ import static com.google.common.base.Preconditions.checkState;
 import java.util.List;
 import com.google.common.base.Charsets;
 import com.google.common.collect.ImmutableList;
+import com.google.common.hash.Hasher;
 import com.google.common.hash.Hashing;
 
 /**
@@ -29,7 +30,9 @@ import com.google.common.hash.Hashing;
  * By default a md5 hash of the hash key (key or map name) is used to pick a
  * partition.
  */
-public abstract class DatabasePartitioner implements Partitioner<String> {
+public abstract class DatabasePartitioner implements Partitioner<BinaryKey> {
+    private static final byte[] HEX_DIGITS = "0123456789abcdef".getBytes(Charsets.US_ASCII);
+
     // Database partitions sorted by their partition name.
     protected final List<Database> partitions;
 
@@ -38,8 +41,38 @@ public abstract class DatabasePartitioner implements Partitioner<String> {
         this.partitions = ImmutableList.copyOf(partitions);
     }
 
+    /**
+     * Returns the database partition for a named counter or queue.
+     *
+     * @param name counter or queue name
+     * @param key hash key, usually the name itself
+     * @return Database partition
+     */
+    public abstract Database getPartition(String name, String key);
+
     protected int hash(String key) {
         return Math.abs(Hashing.md5().newHasher().putBytes(key.getBytes(Charsets.UTF_8)).hash().asInt());
     }
 
+    /**
+     * Hashes a binary key as if it were hashed in the colon separated hex
+     * form keys were stored in by earlier releases, so that existing entries
+     * stay in the partition they were written to.
+     *
+     * @param key binary key
+     * @return non negative hash
+     */
+    protected int hash(BinaryKey key) {
+        Hasher hasher = Hashing.md5().newHasher();
+        byte[] bytes = key.bytes();
+        for (int i = 0; i < bytes.length; i++) {
+            if (i > 0) {
+                hasher.putByte((byte) ':');
+            }
+            hasher.putByte(HEX_DIGITS[(bytes[i] >> 4) & 0xf]);
+            hasher.putByte(HEX_DIGITS[bytes[i] & 0xf]);
+        }
+        return Math.abs(hasher.hash().asInt());
+    }
+
 }
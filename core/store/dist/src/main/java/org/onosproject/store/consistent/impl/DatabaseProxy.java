@@ -17,6 +17,7 @@
 package org.onosproject.store.consistent.impl;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
@@ -85,6 +86,36 @@ public interface DatabaseProxy<K, V> {
      */
     CompletableFuture<Versioned<V>> mapGet(String mapName, K key);
 
+    /**
+     * Checks whether the local replica of the map contains a key.
+     * The result may not reflect the most recent updates.
+     *
+     * @param mapName map name
+     * @param key key to check.
+     * @return A completable future to be completed with the result once complete.
+     */
+    CompletableFuture<Boolean> mapContainsKeyLocal(String mapName, K key);
+
+    /**
+     * Gets a value from the local replica of the map.
+     * The result may not reflect the most recent updates.
+     *
+     * @param mapName map name
+     * @param key The key to get.
+     * @return A completable future to be completed with the result once complete.
+     */
+    CompletableFuture<Versioned<V>> mapGetLocal(String mapName, K key);
+
+    /**
+     * Gets the values for several keys from the map.
+     *
+     * @param mapName map name
+     * @param keys The keys to get.
+     * @return A completable future to be completed with the values, in the order of
+     * the keys and null for absent keys, once complete.
+     */
+    CompletableFuture<List<Versioned<V>>> mapBatchGet(String mapName, List<K> keys);
+
     /**
      * Updates the map.
      *
@@ -98,6 +129,22 @@ public interface DatabaseProxy<K, V> {
     CompletableFuture<Result<UpdateResult<K, V>>> mapUpdate(
             String mapName, K key, Match<V> valueMatch, Match<Long> versionMatch, V value);
 
+    /**
+     * Unconditionally sets or, for null values, removes several keys of the map.
+     * The keys held by one database partition are updated atomically: none of
+     * them is updated if any of them is locked by a transaction. The result
+     * of a key left unchanged for that reason is null, and the update fails
+     * as a whole, with status LOCKED, only if no key could be updated.
+     *
+     * @param mapName map name
+     * @param keys keys to update
+     * @param values new values, in the order of the keys
+     * @return A completable future to be completed with the update results, in the
+     * order of the keys, once complete
+     */
+    CompletableFuture<Result<List<UpdateResult<K, V>>>> mapBatchUpdate(
+            String mapName, List<K> keys, List<V> values);
+
     /**
      * Clears the map.
      *
@@ -130,6 +177,16 @@ public interface DatabaseProxy<K, V> {
      */
     CompletableFuture<Set<Map.Entry<K, Versioned<V>>>> mapEntrySet(String mapName);
 
+    /**
+     * Gets a page of entries in the map, in key order.
+     *
+     * @param mapName map name
+     * @param after key after which the page starts, or null to start with the first key
+     * @param limit maximum number of entries to return
+     * @return A completable future to be completed with the result once complete.
+     */
+    CompletableFuture<List<Map.Entry<K, Versioned<V>>>> mapScan(String mapName, K after, int limit);
+
      /**
      * Atomically add the given value to current value of the specified counter.
      *
@@ -17,6 +17,7 @@
 package org.onosproject.store.consistent.impl;
 
 import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentSkipListMap;
 
 import org.onlab.util.KryoNamespace;
 import org.onosproject.cluster.NodeId;
@@ -78,6 +79,9 @@ public class DatabaseSerializer extends SerializerConfig {
             .register(org.onosproject.store.consistent.impl.CommitResponse.class)
             .register(Match.class)
             .register(NodeId.class)
+            .register(new BinaryKey.KeySerializer(), BinaryKey.class)
+            .register(ConcurrentSkipListMap.class)
+            .register(DefaultDatabaseState.Update.class)
             .build();
 
     private static final KryoSerializer SERIALIZER = new KryoSerializer() {
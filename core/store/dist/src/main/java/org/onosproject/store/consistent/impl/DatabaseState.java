@@ -17,6 +17,7 @@
 package org.onosproject.store.consistent.impl;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -24,6 +25,7 @@ import java.util.Set;
 import org.onosproject.store.service.Transaction;
 import org.onosproject.store.service.Versioned;
 
+import net.kuujo.copycat.protocol.Consistency;
 import net.kuujo.copycat.state.Command;
 import net.kuujo.copycat.state.Initializer;
 import net.kuujo.copycat.state.Query;
@@ -55,17 +57,40 @@ public interface DatabaseState<K, V> {
   @Query
   boolean mapIsEmpty(String mapName);
 
+  /**
+   * Returns whether a map contains a key.
+   * <p>
+   * Keys are typed as {@code Object} here, as commands replayed from logs
+   * written by earlier releases carry their keys in hex string form.
+   *
+   * @param mapName map name
+   * @param key key, or its legacy hex string form
+   * @return true if the map contains the key
+   */
   @Query
-  boolean mapContainsKey(String mapName, K key);
+  boolean mapContainsKey(String mapName, Object key);
 
   @Query
   boolean mapContainsValue(String mapName, V value);
 
   @Query
-  Versioned<V> mapGet(String mapName, K key);
+  Versioned<V> mapGet(String mapName, Object key);
+
+  @Query(consistency = Consistency.WEAK)
+  boolean mapContainsKeyLocal(String mapName, K key);
+
+  @Query(consistency = Consistency.WEAK)
+  Versioned<V> mapGetLocal(String mapName, K key);
 
   @Command
-  Result<UpdateResult<K, V>> mapUpdate(String mapName, K key, Match<V> valueMatch, Match<Long> versionMatch, V value);
+  Result<UpdateResult<K, V>> mapUpdate(String mapName, Object key, Match<V> valueMatch,
+                                       Match<Long> versionMatch, V value);
+
+  @Query
+  List<Versioned<V>> mapBatchGet(String mapName, List<K> keys);
+
+  @Command
+  Result<List<UpdateResult<K, V>>> mapBatchUpdate(String mapName, List<K> keys, List<V> values);
 
   @Command
   Result<Void> mapClear(String mapName);
@@ -79,6 +104,9 @@ public interface DatabaseState<K, V> {
   @Query
   Set<Entry<K, Versioned<V>>> mapEntrySet(String mapName);
 
+  @Query
+  List<Entry<K, Versioned<V>>> mapScan(String mapName, K after, int limit);
+
   @Command
   Long counterAddAndGet(String counterName, long delta);
 
@@ -19,20 +19,29 @@ package org.onosproject.store.consistent.impl;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
-import org.onlab.util.HexString;
 import org.onlab.util.SharedExecutors;
 import org.onlab.util.Tools;
 import org.onosproject.core.ApplicationId;
 import org.onosproject.store.service.AsyncConsistentMap;
 import org.onosproject.store.service.ConsistentMapException;
+import org.onosproject.store.service.MapCursor;
 import org.onosproject.store.service.MapEvent;
 import org.onosproject.store.service.MapEventListener;
+import org.onosproject.store.service.MapPage;
+import org.onosproject.store.service.ReadConsistency;
 import org.onosproject.store.service.Serializer;
 import org.onosproject.store.service.Versioned;
 import org.slf4j.Logger;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
@@ -45,7 +54,9 @@ import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
+import static org.onosproject.store.consistent.impl.StateMachineUpdate.Target.MAP_BATCH_UPDATE;
 import static org.onosproject.store.consistent.impl.StateMachineUpdate.Target.MAP_UPDATE;
 import static org.onosproject.store.consistent.impl.StateMachineUpdate.Target.TX_COMMIT;
 import static org.slf4j.LoggerFactory.getLogger;
@@ -65,6 +76,7 @@ public class DefaultAsyncConsistentMap<K, V>  implements AsyncConsistentMap<K, V
     private final Serializer serializer;
     private final boolean readOnly;
     private final boolean purgeOnUninstall;
+    private final ReadConsistency readConsistency;
 
     private static final String PRIMITIVE_NAME = "consistentMap";
     private static final String SIZE = "size";
@@ -72,15 +84,19 @@ public class DefaultAsyncConsistentMap<K, V>  implements AsyncConsistentMap<K, V
     private static final String CONTAINS_KEY = "containsKey";
     private static final String CONTAINS_VALUE = "containsValue";
     private static final String GET = "get";
+    private static final String GET_ALL = "getAll";
     private static final String COMPUTE_IF = "computeIf";
     private static final String PUT = "put";
     private static final String PUT_AND_GET = "putAndGet";
+    private static final String PUT_ALL = "putAll";
     private static final String PUT_IF_ABSENT = "putIfAbsent";
     private static final String REMOVE = "remove";
+    private static final String REMOVE_ALL = "removeAll";
     private static final String CLEAR = "clear";
     private static final String KEY_SET = "keySet";
     private static final String VALUES = "values";
     private static final String ENTRY_SET = "entrySet";
+    private static final String SCAN = "scan";
     private static final String REPLACE = "replace";
     private static final String COMPUTE_IF_ABSENT = "computeIfAbsent";
 
@@ -92,18 +108,18 @@ public class DefaultAsyncConsistentMap<K, V>  implements AsyncConsistentMap<K, V
     private static final String ERROR_NULL_KEY = "Key cannot be null";
     private static final String ERROR_NULL_VALUE = "Null values are not allowed";
 
-    private final LoadingCache<K, String> keyCache = CacheBuilder.newBuilder()
+    private final LoadingCache<K, BinaryKey> keyCache = CacheBuilder.newBuilder()
             .softValues()
-            .build(new CacheLoader<K, String>() {
+            .build(new CacheLoader<K, BinaryKey>() {
 
                 @Override
-                public String load(K key) {
-                    return HexString.toHexString(serializer.encode(key));
+                public BinaryKey load(K key) {
+                    return BinaryKey.wrap(serializer.encode(key));
                 }
             });
 
-    protected K dK(String key) {
-        return serializer.decode(HexString.fromHexString(key));
+    protected K dK(BinaryKey key) {
+        return serializer.decode(key.bytes());
     }
 
     public DefaultAsyncConsistentMap(String name,
@@ -112,13 +128,15 @@ public class DefaultAsyncConsistentMap<K, V>  implements AsyncConsistentMap<K, V
                                      Serializer serializer,
                                      boolean readOnly,
                                      boolean purgeOnUninstall,
-                                     boolean meteringEnabled) {
+                                     boolean meteringEnabled,
+                                     ReadConsistency readConsistency) {
         this.name = checkNotNull(name, "map name cannot be null");
         this.applicationId = applicationId;
         this.database = checkNotNull(database, "database cannot be null");
         this.serializer = checkNotNull(serializer, "serializer cannot be null");
         this.readOnly = readOnly;
         this.purgeOnUninstall = purgeOnUninstall;
+        this.readConsistency = checkNotNull(readConsistency, "read consistency cannot be null");
         this.database.registerConsumer(update -> {
             SharedExecutors.getSingleThreadExecutor().execute(() -> {
                 if (listeners.isEmpty()) {
@@ -126,7 +144,7 @@ public class DefaultAsyncConsistentMap<K, V>  implements AsyncConsistentMap<K, V
                 }
                 try {
                     if (update.target() == MAP_UPDATE) {
-                        Result<UpdateResult<String, byte[]>> result = update.output();
+                        Result<UpdateResult<BinaryKey, byte[]>> result = update.output();
                         if (result.success() && result.value().mapName().equals(name)) {
                             MapEvent<K, V> mapEvent = result.value()
                                                             .<K, V>map(this::dK,
@@ -134,18 +152,15 @@ public class DefaultAsyncConsistentMap<K, V>  implements AsyncConsistentMap<K, V
                                                             .toMapEvent();
                             notifyListeners(mapEvent);
                         }
+                    } else if (update.target() == MAP_BATCH_UPDATE) {
+                        Result<List<UpdateResult<BinaryKey, byte[]>>> result = update.output();
+                        if (result.success()) {
+                            notifyListeners(result.value());
+                        }
                     } else if (update.target() == TX_COMMIT) {
                         CommitResponse response = update.output();
                         if (response.success()) {
-                            response.updates().forEach(u -> {
-                                if (u.mapName().equals(name)) {
-                                    MapEvent<K, V> mapEvent =
-                                            u.<K, V>map(this::dK,
-                                                        v -> serializer.decode(Tools.copyOf(v)))
-                                             .toMapEvent();
-                                    notifyListeners(mapEvent);
-                                }
-                            });
+                            notifyListeners(response.updates());
                         }
                     }
                 } catch (Exception e) {
@@ -207,8 +222,11 @@ public class DefaultAsyncConsistentMap<K, V>  implements AsyncConsistentMap<K, V
     public CompletableFuture<Boolean> containsKey(K key) {
         checkNotNull(key, ERROR_NULL_KEY);
         final MeteringAgent.Context timer = monitor.startTimer(CONTAINS_KEY);
-        return database.mapContainsKey(name, keyCache.getUnchecked(key))
-                .whenComplete((r, e) -> timer.stop(e));
+        BinaryKey binaryKey = keyCache.getUnchecked(key);
+        CompletableFuture<Boolean> result = readConsistency == ReadConsistency.SEQUENTIAL
+                ? database.mapContainsKeyLocal(name, binaryKey)
+                : database.mapContainsKey(name, binaryKey);
+        return result.whenComplete((r, e) -> timer.stop(e));
     }
 
     @Override
@@ -223,11 +241,35 @@ public class DefaultAsyncConsistentMap<K, V>  implements AsyncConsistentMap<K, V
     public CompletableFuture<Versioned<V>> get(K key) {
         checkNotNull(key, ERROR_NULL_KEY);
         final MeteringAgent.Context timer = monitor.startTimer(GET);
-        return database.mapGet(name, keyCache.getUnchecked(key))
-                .whenComplete((r, e) -> timer.stop(e))
+        BinaryKey binaryKey = keyCache.getUnchecked(key);
+        CompletableFuture<Versioned<byte[]>> value = readConsistency == ReadConsistency.SEQUENTIAL
+                ? database.mapGetLocal(name, binaryKey)
+                : database.mapGet(name, binaryKey);
+        return value.whenComplete((r, e) -> timer.stop(e))
                 .thenApply(v -> v != null ? v.map(serializer::decode) : null);
     }
 
+    @Override
+    public CompletableFuture<Map<K, Versioned<V>>> getAll(Collection<K> keys) {
+        checkNotNull(keys, "keys cannot be null");
+        List<K> keyList = ImmutableList.copyOf(keys);
+        if (keyList.isEmpty()) {
+            return CompletableFuture.completedFuture(ImmutableMap.of());
+        }
+        final MeteringAgent.Context timer = monitor.startTimer(GET_ALL);
+        return database.mapBatchGet(name, encodeKeys(keyList))
+                .whenComplete((r, e) -> timer.stop(e))
+                .thenApply(values -> {
+                    Map<K, Versioned<V>> result = Maps.newHashMapWithExpectedSize(values.size());
+                    for (int i = 0; i < values.size(); i++) {
+                        if (values.get(i) != null) {
+                            result.put(keyList.get(i), values.get(i).map(serializer::decode));
+                        }
+                    }
+                    return result;
+                });
+    }
+
     @Override
     public CompletableFuture<Versioned<V>> computeIfAbsent(K key,
                                                            Function<? super K, ? extends V> mappingFunction) {
@@ -308,6 +350,29 @@ public class DefaultAsyncConsistentMap<K, V>  implements AsyncConsistentMap<K, V
                 .whenComplete((r, e) -> timer.stop(e));
     }
 
+    @Override
+    public CompletableFuture<Map<K, Versioned<V>>> putAll(Map<K, V> entries) {
+        checkNotNull(entries, "entries cannot be null");
+        checkIfUnmodifiable();
+        List<K> keyList = ImmutableList.copyOf(entries.keySet());
+        List<byte[]> values = Lists.newArrayListWithCapacity(keyList.size());
+        keyList.forEach(key -> values.add(serializer.encode(checkNotNull(entries.get(key), ERROR_NULL_VALUE))));
+        final MeteringAgent.Context timer = monitor.startTimer(PUT_ALL);
+        return batchUpdate(keyList, values, UpdateResult::newValue)
+                .whenComplete((r, e) -> timer.stop(e));
+    }
+
+    @Override
+    public CompletableFuture<Map<K, Versioned<V>>> removeAll(Collection<K> keys) {
+        checkNotNull(keys, "keys cannot be null");
+        checkIfUnmodifiable();
+        List<K> keyList = ImmutableList.copyOf(ImmutableSet.copyOf(keys));
+        final MeteringAgent.Context timer = monitor.startTimer(REMOVE_ALL);
+        List<byte[]> removals = new ArrayList<>(Collections.nCopies(keyList.size(), null));
+        return batchUpdate(keyList, removals, UpdateResult::oldValue)
+                .whenComplete((r, e) -> timer.stop(e));
+    }
+
     @Override
     public CompletableFuture<Versioned<V>> remove(K key) {
         checkNotNull(key, ERROR_NULL_KEY);
@@ -357,6 +422,18 @@ public class DefaultAsyncConsistentMap<K, V>  implements AsyncConsistentMap<K, V
                         .collect(Collectors.toSet()));
     }
 
+    @Override
+    public CompletableFuture<MapPage<K, V>> scan(MapCursor cursor, int pageSize) {
+        checkArgument(cursor == null || cursor instanceof ScanCursor, "Unknown cursor type");
+        checkArgument(pageSize > 0, "Page size must be positive");
+        final MeteringAgent.Context timer = monitor.startTimer(SCAN);
+        return database.mapScanPage(name, cursor, pageSize)
+                .whenComplete((r, e) -> timer.stop(e))
+                .thenApply(page -> new MapPage<>(
+                        page.entries().stream().map(this::mapRawEntry).collect(Collectors.toList()),
+                        page.next()));
+    }
+
     @Override
     public CompletableFuture<Versioned<V>> putIfAbsent(K key, V value) {
         checkNotNull(key, ERROR_NULL_KEY);
@@ -405,7 +482,7 @@ public class DefaultAsyncConsistentMap<K, V>  implements AsyncConsistentMap<K, V
                 .thenApply(v -> v.updated());
     }
 
-    private Map.Entry<K, Versioned<V>> mapRawEntry(Map.Entry<String, Versioned<byte[]>> e) {
+    private Map.Entry<K, Versioned<V>> mapRawEntry(Map.Entry<BinaryKey, Versioned<byte[]>> e) {
         return Maps.immutableEntry(dK(e.getKey()), e.getValue().<V>map(serializer::decode));
     }
 
@@ -423,6 +500,35 @@ public class DefaultAsyncConsistentMap<K, V>  implements AsyncConsistentMap<K, V
                 .thenApply(r -> r.<K, V>map(this::dK, serializer::decode));
     }
 
+    private List<BinaryKey> encodeKeys(List<K> keys) {
+        return keys.stream().map(keyCache::getUnchecked).collect(Collectors.toList());
+    }
+
+    private CompletableFuture<Map<K, Versioned<V>>> batchUpdate(
+            List<K> keys,
+            List<byte[]> values,
+            Function<UpdateResult<BinaryKey, byte[]>, Versioned<byte[]>> resultValue) {
+        if (keys.isEmpty()) {
+            return CompletableFuture.completedFuture(ImmutableMap.of());
+        }
+        return database.mapBatchUpdate(name, encodeKeys(keys), values)
+                .thenApply(this::unwrapResult)
+                .thenApply(results -> {
+                    Map<K, Versioned<V>> result = Maps.newHashMapWithExpectedSize(results.size());
+                    for (int i = 0; i < results.size(); i++) {
+                        if (results.get(i) == null) {
+                            // locked by a transaction, so left unchanged
+                            continue;
+                        }
+                        Versioned<byte[]> value = resultValue.apply(results.get(i));
+                        if (value != null) {
+                            result.put(keys.get(i), value.map(serializer::decode));
+                        }
+                    }
+                    return result;
+                });
+    }
+
     private <T> T unwrapResult(Result<T> result) {
         if (result.status() == Result.Status.LOCKED) {
             throw new ConsistentMapException.ConcurrentModification();
@@ -449,6 +555,14 @@ public class DefaultAsyncConsistentMap<K, V>  implements AsyncConsistentMap<K, V
         listeners.remove(listener);
     }
 
+    private void notifyListeners(List<UpdateResult<BinaryKey, byte[]>> updates) {
+        updates.forEach(u -> {
+            if (u.mapName().equals(name)) {
+                notifyListeners(u.<K, V>map(this::dK, v -> serializer.decode(Tools.copyOf(v))).toMapEvent());
+            }
+        });
+    }
+
     protected void notifyListeners(MapEvent<K, V> event) {
         if (event == null) {
             return;
@@ -461,5 +575,4 @@ public class DefaultAsyncConsistentMap<K, V>  implements AsyncConsistentMap<K, V
             }
         });
     }
-
 }
@@ -16,9 +16,14 @@
 
 package org.onosproject.store.consistent.impl;
 
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.NoSuchElementException;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
@@ -30,9 +35,13 @@ import java.util.Set;
 
 import org.onosproject.store.service.ConsistentMap;
 import org.onosproject.store.service.ConsistentMapException;
+import org.onosproject.store.service.MapCursor;
 import org.onosproject.store.service.MapEventListener;
+import org.onosproject.store.service.MapPage;
 import org.onosproject.store.service.Versioned;
 
+import com.google.common.collect.Iterators;
+
 /**
  * ConsistentMap implementation that is backed by a Raft consensus
  * based database.
@@ -43,6 +52,7 @@ import org.onosproject.store.service.Versioned;
 public class DefaultConsistentMap<K, V> implements ConsistentMap<K, V> {
 
     private static final int OPERATION_TIMEOUT_MILLIS = 5000;
+    private static final int SCAN_PAGE_SIZE = 1000;
 
     private final DefaultAsyncConsistentMap<K, V> asyncMap;
     private Map<K, V> javaMap;
@@ -80,6 +90,11 @@ public class DefaultConsistentMap<K, V> implements ConsistentMap<K, V> {
         return complete(asyncMap.get(key));
     }
 
+    @Override
+    public Map<K, Versioned<V>> getAll(Collection<K> keys) {
+        return complete(asyncMap.getAll(keys));
+    }
+
     @Override
     public Versioned<V> computeIfAbsent(K key,
             Function<? super K, ? extends V> mappingFunction) {
@@ -115,11 +130,21 @@ public class DefaultConsistentMap<K, V> implements ConsistentMap<K, V> {
         return complete(asyncMap.putAndGet(key, value));
     }
 
+    @Override
+    public Map<K, Versioned<V>> putAll(Map<K, V> entries) {
+        return complete(asyncMap.putAll(entries));
+    }
+
     @Override
     public Versioned<V> remove(K key) {
         return complete(asyncMap.remove(key));
     }
 
+    @Override
+    public Map<K, Versioned<V>> removeAll(Collection<K> keys) {
+        return complete(asyncMap.removeAll(keys));
+    }
+
     @Override
     public void clear() {
         complete(asyncMap.clear());
@@ -127,17 +152,73 @@ public class DefaultConsistentMap<K, V> implements ConsistentMap<K, V> {
 
     @Override
     public Set<K> keySet() {
-        return complete(asyncMap.keySet());
+        return new AbstractSet<K>() {
+            @Override
+            public Iterator<K> iterator() {
+                return Iterators.transform(new ScanIterator(), Entry::getKey);
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public boolean contains(Object key) {
+                return key != null && containsKey((K) key);
+            }
+
+            @Override
+            public int size() {
+                return DefaultConsistentMap.this.size();
+            }
+
+            @Override
+            public boolean isEmpty() {
+                return DefaultConsistentMap.this.isEmpty();
+            }
+        };
     }
 
     @Override
     public Collection<Versioned<V>> values() {
-        return complete(asyncMap.values());
+        return new AbstractCollection<Versioned<V>>() {
+            @Override
+            public Iterator<Versioned<V>> iterator() {
+                return Iterators.transform(new ScanIterator(), Entry::getValue);
+            }
+
+            @Override
+            public int size() {
+                return DefaultConsistentMap.this.size();
+            }
+
+            @Override
+            public boolean isEmpty() {
+                return DefaultConsistentMap.this.isEmpty();
+            }
+        };
     }
 
     @Override
     public Set<Entry<K, Versioned<V>>> entrySet() {
-        return complete(asyncMap.entrySet());
+        return new AbstractSet<Entry<K, Versioned<V>>>() {
+            @Override
+            public Iterator<Entry<K, Versioned<V>>> iterator() {
+                return new ScanIterator();
+            }
+
+            @Override
+            public int size() {
+                return DefaultConsistentMap.this.size();
+            }
+
+            @Override
+            public boolean isEmpty() {
+                return DefaultConsistentMap.this.isEmpty();
+            }
+        };
+    }
+
+    @Override
+    public MapPage<K, V> scan(MapCursor cursor, int pageSize) {
+        return complete(asyncMap.scan(cursor, pageSize));
     }
 
     @Override
@@ -201,4 +282,31 @@ public class DefaultConsistentMap<K, V> implements ConsistentMap<K, V> {
         }
         return javaMap;
     }
-}
\ No newline at end of file
+
+    /**
+     * Iterator over the map entries that fetches them in pages, requesting
+     * each page while the previous one is being consumed.
+     */
+    private final class ScanIterator implements Iterator<Entry<K, Versioned<V>>> {
+        private Iterator<Entry<K, Versioned<V>>> current = Collections.emptyIterator();
+        private CompletableFuture<MapPage<K, V>> nextPage = asyncMap.scan(null, SCAN_PAGE_SIZE);
+
+        @Override
+        public boolean hasNext() {
+            while (!current.hasNext() && nextPage != null) {
+                MapPage<K, V> page = complete(nextPage);
+                nextPage = page.isLast() ? null : asyncMap.scan(page.next(), SCAN_PAGE_SIZE);
+                current = page.entries().iterator();
+            }
+            return current.hasNext();
+        }
+
+        @Override
+        public Entry<K, Versioned<V>> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return current.next();
+        }
+    }
+}
@@ -19,6 +19,7 @@ import org.onosproject.core.ApplicationId;
 import org.onosproject.store.service.AsyncConsistentMap;
 import org.onosproject.store.service.ConsistentMap;
 import org.onosproject.store.service.ConsistentMapBuilder;
+import org.onosproject.store.service.ReadConsistency;
 import org.onosproject.store.service.Serializer;
 
 import static com.google.common.base.Preconditions.checkArgument;
@@ -40,6 +41,7 @@ public class DefaultConsistentMapBuilder<K, V> implements ConsistentMapBuilder<K
     private boolean readOnly = false;
     private boolean metering = true;
     private boolean relaxedReadConsistency = false;
+    private ReadConsistency readConsistency = ReadConsistency.LINEARIZABLE;
     private final DatabaseManager manager;
 
     public DefaultConsistentMapBuilder(DatabaseManager manager) {
@@ -97,6 +99,13 @@ public class DefaultConsistentMapBuilder<K, V> implements ConsistentMapBuilder<K
         return this;
     }
 
+    @Override
+    public ConsistentMapBuilder<K, V> withReadConsistency(ReadConsistency readConsistency) {
+        checkArgument(readConsistency != null);
+        this.readConsistency = readConsistency;
+        return this;
+    }
+
     private void validateInputs() {
         checkState(name != null, "name must be specified");
         checkState(serializer != null, "serializer must be specified");
@@ -126,7 +135,8 @@ public class DefaultConsistentMapBuilder<K, V> implements ConsistentMapBuilder<K
                         serializer,
                         readOnly,
                         purgeOnUninstall,
-                        metering));
+                        metering,
+                        readConsistency));
         } else {
             return manager.registerMap(
                     new DefaultAsyncConsistentMap<>(name,
@@ -135,7 +145,8 @@ public class DefaultConsistentMapBuilder<K, V> implements ConsistentMapBuilder<K
                         serializer,
                         readOnly,
                         purgeOnUninstall,
-                        metering));
+                        metering,
+                        readConsistency));
         }
     }
 }
\ No newline at end of file
@@ -24,6 +24,7 @@ import net.kuujo.copycat.util.concurrent.Futures;
 import net.kuujo.copycat.util.function.TriConsumer;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
@@ -39,8 +40,8 @@ import com.google.common.collect.Sets;
  * Default database.
  */
 public class DefaultDatabase extends AbstractResource<Database> implements Database {
-    private final StateMachine<DatabaseState<String, byte[]>> stateMachine;
-    private DatabaseProxy<String, byte[]> proxy;
+    private final StateMachine<DatabaseState<BinaryKey, byte[]>> stateMachine;
+    private DatabaseProxy<BinaryKey, byte[]> proxy;
     private final Set<Consumer<StateMachineUpdate>> consumers = Sets.newCopyOnWriteArraySet();
     private final TriConsumer<String, Object, Object> watcher = new InternalStateMachineWatcher();
 
@@ -97,7 +98,7 @@ public class DefaultDatabase extends AbstractResource<Database> implements Datab
     }
 
     @Override
-    public CompletableFuture<Boolean> mapContainsKey(String mapName, String key) {
+    public CompletableFuture<Boolean> mapContainsKey(String mapName, BinaryKey key) {
         return checkOpen(() -> proxy.mapContainsKey(mapName, key));
     }
 
@@ -107,23 +108,44 @@ public class DefaultDatabase extends AbstractResource<Database> implements Datab
     }
 
     @Override
-    public CompletableFuture<Versioned<byte[]>> mapGet(String mapName, String key) {
+    public CompletableFuture<Versioned<byte[]>> mapGet(String mapName, BinaryKey key) {
         return checkOpen(() -> proxy.mapGet(mapName, key));
     }
 
     @Override
-    public CompletableFuture<Result<UpdateResult<String, byte[]>>> mapUpdate(
-            String mapName, String key, Match<byte[]> valueMatch, Match<Long> versionMatch, byte[] value) {
+    public CompletableFuture<Boolean> mapContainsKeyLocal(String mapName, BinaryKey key) {
+        return checkOpen(() -> proxy.mapContainsKeyLocal(mapName, key));
+    }
+
+    @Override
+    public CompletableFuture<Versioned<byte[]>> mapGetLocal(String mapName, BinaryKey key) {
+        return checkOpen(() -> proxy.mapGetLocal(mapName, key));
+    }
+
+    @Override
+    public CompletableFuture<Result<UpdateResult<BinaryKey, byte[]>>> mapUpdate(
+            String mapName, BinaryKey key, Match<byte[]> valueMatch, Match<Long> versionMatch, byte[] value) {
         return checkOpen(() -> proxy.mapUpdate(mapName, key, valueMatch, versionMatch, value));
     }
 
+    @Override
+    public CompletableFuture<List<Versioned<byte[]>>> mapBatchGet(String mapName, List<BinaryKey> keys) {
+        return checkOpen(() -> proxy.mapBatchGet(mapName, keys));
+    }
+
+    @Override
+    public CompletableFuture<Result<List<UpdateResult<BinaryKey, byte[]>>>> mapBatchUpdate(
+            String mapName, List<BinaryKey> keys, List<byte[]> values) {
+        return checkOpen(() -> proxy.mapBatchUpdate(mapName, keys, values));
+    }
+
     @Override
     public CompletableFuture<Result<Void>> mapClear(String mapName) {
         return checkOpen(() -> proxy.mapClear(mapName));
     }
 
     @Override
-    public CompletableFuture<Set<String>> mapKeySet(String mapName) {
+    public CompletableFuture<Set<BinaryKey>> mapKeySet(String mapName) {
         return checkOpen(() -> proxy.mapKeySet(mapName));
     }
 
@@ -133,10 +155,16 @@ public class DefaultDatabase extends AbstractResource<Database> implements Datab
     }
 
     @Override
-    public CompletableFuture<Set<Map.Entry<String, Versioned<byte[]>>>> mapEntrySet(String mapName) {
+    public CompletableFuture<Set<Map.Entry<BinaryKey, Versioned<byte[]>>>> mapEntrySet(String mapName) {
         return checkOpen(() -> proxy.mapEntrySet(mapName));
     }
 
+    @Override
+    public CompletableFuture<List<Map.Entry<BinaryKey, Versioned<byte[]>>>> mapScan(
+            String mapName, BinaryKey after, int limit) {
+        return checkOpen(() -> proxy.mapScan(mapName, after, limit));
+    }
+
     @Override
     public CompletableFuture<Long> counterGet(String counterName) {
         return checkOpen(() -> proxy.counterGet(counterName));
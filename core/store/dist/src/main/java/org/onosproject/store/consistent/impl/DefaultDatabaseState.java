@@ -19,10 +19,15 @@ package org.onosproject.store.consistent.impl;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Queue;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.Set;
 
@@ -41,14 +46,14 @@ import net.kuujo.copycat.state.StateContext;
 /**
  * Default database state.
  */
-public class DefaultDatabaseState implements DatabaseState<String, byte[]> {
-    private Long nextVersion;
-    private Map<String, AtomicLong> counters;
-    private Map<String, Map<String, Versioned<byte[]>>> maps;
-    private Map<String, Queue<byte[]>> queues;
-
-    /**
-     * This locks map has a structure similar to the "tables" map above and
+public class DefaultDatabaseState implements DatabaseState<BinaryKey, byte[]> {
+
+    /*
+     * All state is kept in the state context rather than in fields, so that
+     * it is captured when the state machine is snapshotted and picked up
+     * again when a snapshot is installed on a restarted or lagging replica.
+     *
+     * The "locks" entry has a structure similar to the "maps" entry and
      * holds all the provisional updates made during a transaction's prepare phase.
      * The entry value is represented as the tuple: (transactionId, newValue)
      * If newValue == null that signifies this update is attempting to
@@ -57,53 +62,42 @@ public class DefaultDatabaseState implements DatabaseState<String, byte[]> {
      * The presence of a entry in this map indicates that element is
      * participating in a transaction and is currently locked for updates.
      */
-    private Map<String, Map<String, Update>> locks;
+    private static final String COUNTERS = "counters";
+    private static final String MAPS = "maps";
+    private static final String MAP_SIZES = "mapSizes";
+    private static final String LOCKS = "locks";
+    private static final String QUEUES = "queues";
+    private static final String NEXT_VERSION = "nextVersion";
+
+    private StateContext<DatabaseState<BinaryKey, byte[]>> context;
 
     @Initializer
     @Override
-    public void init(StateContext<DatabaseState<String, byte[]>> context) {
-        counters = context.get("counters");
-        if (counters == null) {
-            counters = Maps.newConcurrentMap();
-            context.put("counters", counters);
-        }
-        maps = context.get("maps");
-        if (maps == null) {
-            maps = Maps.newConcurrentMap();
-            context.put("maps", maps);
-        }
-        locks = context.get("locks");
-        if (locks == null) {
-            locks = Maps.newConcurrentMap();
-            context.put("locks", locks);
-        }
-        queues = context.get("queues");
-        if (queues == null) {
-            queues = Maps.newConcurrentMap();
-            context.put("queues", queues);
-        }
-        nextVersion = context.get("nextVersion");
-        if (nextVersion == null) {
-            nextVersion = new Long(0);
-            context.put("nextVersion", nextVersion);
-        }
+    public void init(StateContext<DatabaseState<BinaryKey, byte[]>> context) {
+        this.context = context;
+        counterTable();
+        mapTable();
+        mapSizeTable();
+        lockTable();
+        queueTable();
+        versionCounter();
     }
 
     @Override
     public Set<String> maps() {
-        return ImmutableSet.copyOf(maps.keySet());
+        return ImmutableSet.copyOf(mapTable().keySet());
     }
 
     @Override
     public Map<String, Long> counters() {
         Map<String, Long> counterMap = Maps.newHashMap();
-        counters.forEach((k, v) -> counterMap.put(k, v.get()));
+        counterTable().forEach((k, v) -> counterMap.put(k, v.get()));
         return counterMap;
     }
 
     @Override
     public int mapSize(String mapName) {
-      return getMap(mapName).size();
+        return getMapSize(mapName).get();
     }
 
     @Override
@@ -112,8 +106,8 @@ public class DefaultDatabaseState implements DatabaseState<String, byte[]> {
     }
 
     @Override
-    public boolean mapContainsKey(String mapName, String key) {
-        return getMap(mapName).containsKey(key);
+    public boolean mapContainsKey(String mapName, Object key) {
+        return getMap(mapName).containsKey(binaryKey(key));
     }
 
     @Override
@@ -122,18 +116,28 @@ public class DefaultDatabaseState implements DatabaseState<String, byte[]> {
     }
 
     @Override
-    public Versioned<byte[]> mapGet(String mapName, String key) {
-        return getMap(mapName).get(key);
+    public Versioned<byte[]> mapGet(String mapName, Object key) {
+        return getMap(mapName).get(binaryKey(key));
+    }
+
+    @Override
+    public boolean mapContainsKeyLocal(String mapName, BinaryKey key) {
+        return mapContainsKey(mapName, key);
     }
 
+    @Override
+    public Versioned<byte[]> mapGetLocal(String mapName, BinaryKey key) {
+        return mapGet(mapName, key);
+    }
 
     @Override
-    public Result<UpdateResult<String, byte[]>> mapUpdate(
+    public Result<UpdateResult<BinaryKey, byte[]>> mapUpdate(
             String mapName,
-            String key,
+            Object rawKey,
             Match<byte[]> valueMatch,
             Match<Long> versionMatch,
             byte[] value) {
+        BinaryKey key = binaryKey(rawKey);
         if (isLockedForUpdates(mapName, key)) {
             return Result.locked();
         }
@@ -146,27 +150,56 @@ public class DefaultDatabaseState implements DatabaseState<String, byte[]> {
                 if (currentValue == null) {
                     return Result.ok(new UpdateResult<>(false, mapName, key, null, null));
                 } else {
+                    AtomicInteger size = getMapSize(mapName);
                     getMap(mapName).remove(key);
+                    size.decrementAndGet();
                     return Result.ok(new UpdateResult<>(true, mapName, key, currentValue, null));
                 }
             }
-            Versioned<byte[]> newValue = new Versioned<>(value, ++nextVersion);
-            getMap(mapName).put(key, newValue);
+            Versioned<byte[]> newValue = new Versioned<>(value, versionCounter().incrementAndGet());
+            AtomicInteger size = getMapSize(mapName);
+            if (getMap(mapName).put(key, newValue) == null) {
+                size.incrementAndGet();
+            }
             return Result.ok(new UpdateResult<>(true, mapName, key, currentValue, newValue));
         }
     }
 
+    @Override
+    public List<Versioned<byte[]>> mapBatchGet(String mapName, List<BinaryKey> keys) {
+        Map<BinaryKey, Versioned<byte[]>> map = getMap(mapName);
+        List<Versioned<byte[]>> values = Lists.newArrayListWithCapacity(keys.size());
+        keys.forEach(key -> values.add(map.get(key)));
+        return values;
+    }
+
+    @Override
+    public Result<List<UpdateResult<BinaryKey, byte[]>>> mapBatchUpdate(
+            String mapName,
+            List<BinaryKey> keys,
+            List<byte[]> values) {
+        if (keys.stream().anyMatch(key -> isLockedForUpdates(mapName, key))) {
+            return Result.locked();
+        }
+        List<UpdateResult<BinaryKey, byte[]>> results = Lists.newArrayListWithCapacity(keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            results.add(mapUpdate(mapName, keys.get(i), Match.any(), Match.any(), values.get(i)).value());
+        }
+        return Result.ok(results);
+    }
+
     @Override
     public Result<Void> mapClear(String mapName) {
         if (areTransactionsInProgress(mapName)) {
             return Result.locked();
         }
         getMap(mapName).clear();
+        getMapSize(mapName).set(0);
         return Result.ok(null);
     }
 
     @Override
-    public Set<String> mapKeySet(String mapName) {
+    public Set<BinaryKey> mapKeySet(String mapName) {
         return ImmutableSet.copyOf(getMap(mapName).keySet());
     }
 
@@ -176,7 +209,7 @@ public class DefaultDatabaseState implements DatabaseState<String, byte[]> {
     }
 
     @Override
-    public Set<Entry<String, Versioned<byte[]>>> mapEntrySet(String mapName) {
+    public Set<Entry<BinaryKey, Versioned<byte[]>>> mapEntrySet(String mapName) {
         return ImmutableSet.copyOf(getMap(mapName)
                 .entrySet()
                 .stream()
@@ -184,6 +217,22 @@ public class DefaultDatabaseState implements DatabaseState<String, byte[]> {
                 .collect(Collectors.toSet()));
     }
 
+    @Override
+    public List<Entry<BinaryKey, Versioned<byte[]>>> mapScan(String mapName, BinaryKey after, int limit) {
+        ConcurrentNavigableMap<BinaryKey, Versioned<byte[]>> map = getMap(mapName);
+        if (after != null) {
+            map = map.tailMap(after, false);
+        }
+        List<Entry<BinaryKey, Versioned<byte[]>>> entries = Lists.newArrayList();
+        for (Entry<BinaryKey, Versioned<byte[]>> entry : map.entrySet()) {
+            if (entries.size() >= limit) {
+                break;
+            }
+            entries.add(Maps.immutableEntry(entry.getKey(), entry.getValue()));
+        }
+        return entries;
+    }
+
     @Override
     public Long counterAddAndGet(String counterName, long delta) {
         return getCounter(counterName).addAndGet(delta);
@@ -231,7 +280,7 @@ public class DefaultDatabaseState implements DatabaseState<String, byte[]> {
     public boolean prepare(Transaction transaction) {
         if (transaction.updates().stream().anyMatch(update ->
                     isLockedByAnotherTransaction(update.mapName(),
-                                                 update.key(),
+                                                 BinaryKey.fromHexString(update.key()),
                                                  transaction.id()))) {
             return false;
         }
@@ -255,24 +304,64 @@ public class DefaultDatabaseState implements DatabaseState<String, byte[]> {
         return true;
     }
 
-    private Map<String, Versioned<byte[]>> getMap(String mapName) {
-        return maps.computeIfAbsent(mapName, name -> Maps.newConcurrentMap());
+    private Map<String, AtomicLong> counterTable() {
+        return stateEntry(COUNTERS, Maps::newConcurrentMap);
     }
 
-    private Map<String, Update> getLockMap(String mapName) {
-        return locks.computeIfAbsent(mapName, name -> Maps.newConcurrentMap());
+    private Map<String, ConcurrentNavigableMap<BinaryKey, Versioned<byte[]>>> mapTable() {
+        return stateEntry(MAPS, Maps::newConcurrentMap);
+    }
+
+    private Map<String, AtomicInteger> mapSizeTable() {
+        return stateEntry(MAP_SIZES, Maps::newConcurrentMap);
+    }
+
+    private Map<String, Map<BinaryKey, Update>> lockTable() {
+        return stateEntry(LOCKS, Maps::newConcurrentMap);
+    }
+
+    private Map<String, Queue<byte[]>> queueTable() {
+        return stateEntry(QUEUES, Maps::newConcurrentMap);
+    }
+
+    private AtomicLong versionCounter() {
+        return stateEntry(NEXT_VERSION, AtomicLong::new);
+    }
+
+    private <T> T stateEntry(String name, Supplier<T> initialValue) {
+        T value = context.get(name);
+        if (value == null) {
+            value = initialValue.get();
+            context.put(name, value);
+        }
+        return value;
+    }
+
+    private ConcurrentNavigableMap<BinaryKey, Versioned<byte[]>> getMap(String mapName) {
+        // kept sorted so that maps can be scanned in pages
+        return mapTable().computeIfAbsent(mapName, name -> new ConcurrentSkipListMap<>());
+    }
+
+    // Entry counts are kept next to the maps, as counting a skip list walks it.
+    // Maps restored from a snapshot taken without their count are counted once.
+    private AtomicInteger getMapSize(String mapName) {
+        return mapSizeTable().computeIfAbsent(mapName, name -> new AtomicInteger(getMap(name).size()));
+    }
+
+    private Map<BinaryKey, Update> getLockMap(String mapName) {
+        return lockTable().computeIfAbsent(mapName, name -> Maps.newConcurrentMap());
     }
 
     private AtomicLong getCounter(String counterName) {
-        return counters.computeIfAbsent(counterName, name -> new AtomicLong(0));
+        return counterTable().computeIfAbsent(counterName, name -> new AtomicLong(0));
     }
 
     private Queue<byte[]> getQueue(String queueName) {
-        return queues.computeIfAbsent(queueName, name -> new LinkedList<>());
+        return queueTable().computeIfAbsent(queueName, name -> new LinkedList<>());
     }
 
     private boolean isUpdatePossible(DatabaseUpdate update) {
-        Versioned<byte[]> existingEntry = mapGet(update.mapName(), update.key());
+        Versioned<byte[]> existingEntry = mapGet(update.mapName(), BinaryKey.fromHexString(update.key()));
         switch (update.type()) {
         case PUT:
         case REMOVE:
@@ -293,27 +382,28 @@ public class DefaultDatabaseState implements DatabaseState<String, byte[]> {
     }
 
     private void doProvisionalUpdate(DatabaseUpdate update, long transactionId) {
-        Map<String, Update> lockMap = getLockMap(update.mapName());
+        Map<BinaryKey, Update> lockMap = getLockMap(update.mapName());
+        BinaryKey key = BinaryKey.fromHexString(update.key());
         switch (update.type()) {
         case PUT:
         case PUT_IF_ABSENT:
         case PUT_IF_VERSION_MATCH:
         case PUT_IF_VALUE_MATCH:
-            lockMap.put(update.key(), new Update(transactionId, update.value()));
+            lockMap.put(key, new Update(transactionId, update.value()));
             break;
         case REMOVE:
         case REMOVE_IF_VERSION_MATCH:
         case REMOVE_IF_VALUE_MATCH:
-            lockMap.put(update.key(), new Update(transactionId, null));
+            lockMap.put(key, new Update(transactionId, null));
             break;
         default:
             throw new IllegalStateException("Unsupported type: " + update.type());
         }
     }
 
-    private UpdateResult<String, byte[]> commitProvisionalUpdate(DatabaseUpdate update, long transactionId) {
+    private UpdateResult<BinaryKey, byte[]> commitProvisionalUpdate(DatabaseUpdate update, long transactionId) {
         String mapName = update.mapName();
-        String key = update.key();
+        BinaryKey key = BinaryKey.fromHexString(update.key());
         Update provisionalUpdate = getLockMap(mapName).get(key);
         if (Objects.equal(transactionId, provisionalUpdate.transactionId()))  {
             getLockMap(mapName).remove(key);
@@ -325,7 +415,7 @@ public class DefaultDatabaseState implements DatabaseState<String, byte[]> {
 
     private void undoProvisionalUpdate(DatabaseUpdate update, long transactionId) {
         String mapName = update.mapName();
-        String key = update.key();
+        BinaryKey key = BinaryKey.fromHexString(update.key());
         Update provisionalUpdate = getLockMap(mapName).get(key);
         if (provisionalUpdate == null) {
             return;
@@ -335,24 +425,32 @@ public class DefaultDatabaseState implements DatabaseState<String, byte[]> {
         }
     }
 
-    private boolean isLockedByAnotherTransaction(String mapName, String key, long transactionId) {
+    private boolean isLockedByAnotherTransaction(String mapName, BinaryKey key, long transactionId) {
         Update update = getLockMap(mapName).get(key);
         return update != null && !Objects.equal(transactionId, update.transactionId());
     }
 
-    private boolean isLockedForUpdates(String mapName, String key) {
+    private boolean isLockedForUpdates(String mapName, BinaryKey key) {
         return getLockMap(mapName).containsKey(key);
     }
 
+    // Commands replayed from logs written by earlier releases carry hex string keys.
+    private static BinaryKey binaryKey(Object key) {
+        return key instanceof String ? BinaryKey.fromHexString((String) key) : (BinaryKey) key;
+    }
+
     private boolean areTransactionsInProgress(String mapName) {
         return !getLockMap(mapName).isEmpty();
     }
 
-    private class Update {
+    /**
+     * Provisional update held while a transaction is in progress.
+     */
+    static final class Update {
         private final long transactionId;
         private final byte[] value;
 
-        public Update(long txId, byte[] value) {
+        Update(long txId, byte[] value) {
             this.transactionId = txId;
             this.value = value;
         }
@@ -16,7 +16,9 @@
 
 package org.onosproject.store.consistent.impl;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -29,6 +31,8 @@ import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import org.onosproject.store.service.DatabaseUpdate;
+import org.onosproject.store.service.MapCursor;
+import org.onosproject.store.service.MapPage;
 import org.onosproject.store.service.Transaction;
 import org.onosproject.store.service.Versioned;
 
@@ -48,7 +52,7 @@ import static com.google.common.base.Preconditions.checkState;
 public class PartitionedDatabase implements Database {
 
     private final String name;
-    private final Partitioner<String> partitioner;
+    private final DatabasePartitioner partitioner;
     private final List<Database> partitions;
     private final AtomicBoolean isOpen = new AtomicBoolean(false);
     private static final String DB_NOT_OPEN = "Partitioned Database is not open";
@@ -126,7 +130,7 @@ public class PartitionedDatabase implements Database {
     }
 
     @Override
-    public CompletableFuture<Boolean> mapContainsKey(String mapName, String key) {
+    public CompletableFuture<Boolean> mapContainsKey(String mapName, BinaryKey key) {
         checkState(isOpen.get(), DB_NOT_OPEN);
         return partitioner.getPartition(mapName, key).mapContainsKey(mapName, key);
     }
@@ -144,19 +148,76 @@ public class PartitionedDatabase implements Database {
     }
 
     @Override
-    public CompletableFuture<Versioned<byte[]>> mapGet(String mapName, String key) {
+    public CompletableFuture<Versioned<byte[]>> mapGet(String mapName, BinaryKey key) {
         checkState(isOpen.get(), DB_NOT_OPEN);
         return partitioner.getPartition(mapName, key).mapGet(mapName, key);
     }
 
     @Override
-    public CompletableFuture<Result<UpdateResult<String, byte[]>>> mapUpdate(
-            String mapName, String key, Match<byte[]> valueMatch,
+    public CompletableFuture<Boolean> mapContainsKeyLocal(String mapName, BinaryKey key) {
+        checkState(isOpen.get(), DB_NOT_OPEN);
+        return partitioner.getPartition(mapName, key).mapContainsKeyLocal(mapName, key);
+    }
+
+    @Override
+    public CompletableFuture<Versioned<byte[]>> mapGetLocal(String mapName, BinaryKey key) {
+        checkState(isOpen.get(), DB_NOT_OPEN);
+        return partitioner.getPartition(mapName, key).mapGetLocal(mapName, key);
+    }
+
+    @Override
+    public CompletableFuture<Result<UpdateResult<BinaryKey, byte[]>>> mapUpdate(
+            String mapName, BinaryKey key, Match<byte[]> valueMatch,
             Match<Long> versionMatch, byte[] value) {
         return partitioner.getPartition(mapName, key).mapUpdate(mapName, key, valueMatch, versionMatch, value);
 
     }
 
+    @Override
+    public CompletableFuture<List<Versioned<byte[]>>> mapBatchGet(String mapName, List<BinaryKey> keys) {
+        checkState(isOpen.get(), DB_NOT_OPEN);
+        Map<Database, List<Integer>> keyIndexes = partitionKeys(mapName, keys);
+        if (keyIndexes.size() == 1) {
+            return keyIndexes.keySet().iterator().next().mapBatchGet(mapName, keys);
+        }
+        List<Versioned<byte[]>> values = new ArrayList<>(Collections.nCopies(keys.size(), null));
+        return CompletableFuture.allOf(keyIndexes.entrySet()
+                    .stream()
+                    .map(e -> e.getKey()
+                            .mapBatchGet(mapName, select(keys, e.getValue()))
+                            .thenAccept(v -> scatter(v, e.getValue(), values)))
+                    .toArray(CompletableFuture[]::new))
+                .thenApply(v -> values);
+    }
+
+    @Override
+    public CompletableFuture<Result<List<UpdateResult<BinaryKey, byte[]>>>> mapBatchUpdate(
+            String mapName, List<BinaryKey> keys, List<byte[]> values) {
+        checkState(isOpen.get(), DB_NOT_OPEN);
+        Map<Database, List<Integer>> keyIndexes = partitionKeys(mapName, keys);
+        if (keyIndexes.size() == 1) {
+            return keyIndexes.keySet().iterator().next().mapBatchUpdate(mapName, keys, values);
+        }
+        // Each partition applies its share of the batch on its own; the keys
+        // of a partition locked by a transaction are left with a null result
+        AtomicBoolean isUpdated = new AtomicBoolean(false);
+        List<UpdateResult<BinaryKey, byte[]>> results = new ArrayList<>(Collections.nCopies(keys.size(), null));
+        return CompletableFuture.allOf(keyIndexes.entrySet()
+                    .stream()
+                    .map(e -> e.getKey()
+                            .mapBatchUpdate(mapName,
+                                            select(keys, e.getValue()),
+                                            select(values, e.getValue()))
+                            .thenAccept(r -> {
+                                if (r.success()) {
+                                    scatter(r.value(), e.getValue(), results);
+                                    isUpdated.set(true);
+                                }
+                            }))
+                    .toArray(CompletableFuture[]::new))
+                .thenApply(v -> isUpdated.get() ? Result.ok(results) : Result.locked());
+    }
+
     @Override
     public CompletableFuture<Result<Void>> mapClear(String mapName) {
         AtomicBoolean isLocked = new AtomicBoolean(false);
@@ -170,9 +231,9 @@ public class PartitionedDatabase implements Database {
     }
 
     @Override
-    public CompletableFuture<Set<String>> mapKeySet(String mapName) {
+    public CompletableFuture<Set<BinaryKey>> mapKeySet(String mapName) {
         checkState(isOpen.get(), DB_NOT_OPEN);
-        Set<String> keySet = Sets.newConcurrentHashSet();
+        Set<BinaryKey> keySet = Sets.newConcurrentHashSet();
         return CompletableFuture.allOf(partitions
                     .stream()
                     .map(p -> p.mapKeySet(mapName).thenApply(keySet::addAll))
@@ -192,9 +253,9 @@ public class PartitionedDatabase implements Database {
     }
 
     @Override
-    public CompletableFuture<Set<Entry<String, Versioned<byte[]>>>> mapEntrySet(String mapName) {
+    public CompletableFuture<Set<Entry<BinaryKey, Versioned<byte[]>>>> mapEntrySet(String mapName) {
         checkState(isOpen.get(), DB_NOT_OPEN);
-        Set<Entry<String, Versioned<byte[]>>> entrySet = Sets.newConcurrentHashSet();
+        Set<Entry<BinaryKey, Versioned<byte[]>>> entrySet = Sets.newConcurrentHashSet();
         return CompletableFuture.allOf(partitions
                     .stream()
                     .map(p -> p.mapEntrySet(mapName).thenApply(entrySet::addAll))
@@ -202,6 +263,33 @@ public class PartitionedDatabase implements Database {
                 .thenApply(v -> entrySet);
     }
 
+    @Override
+    public CompletableFuture<List<Entry<BinaryKey, Versioned<byte[]>>>> mapScan(
+            String mapName, BinaryKey after, int limit) {
+        checkState(isOpen.get(), DB_NOT_OPEN);
+        // Keys are spread across partitions by hash, so a page may have to be
+        // filled from any of them: fetch a full page from each partition in
+        // parallel and keep the lowest keys. Paged scans use mapScanPage
+        // instead, which does not fetch any entry more than once.
+        List<CompletableFuture<List<Entry<BinaryKey, Versioned<byte[]>>>>> pages = partitions
+                .stream()
+                .map(p -> p.mapScan(mapName, after, limit))
+                .collect(Collectors.toList());
+        return CompletableFuture.allOf(pages.toArray(new CompletableFuture[pages.size()]))
+                .thenApply(v -> pages
+                        .stream()
+                        .flatMap(page -> page.join().stream())
+                        .sorted(Map.Entry.comparingByKey())
+                        .limit(limit)
+                        .collect(Collectors.toList()));
+    }
+
+    @Override
+    public CompletableFuture<MapPage<BinaryKey, byte[]>> mapScanPage(String mapName, MapCursor cursor, int limit) {
+        checkState(isOpen.get(), DB_NOT_OPEN);
+        return ScanCursor.scan(partitions, mapName, (ScanCursor) cursor, limit);
+    }
+
     @Override
     public CompletableFuture<Long> counterGet(String counterName) {
         checkState(isOpen.get(), DB_NOT_OPEN);
@@ -280,7 +368,7 @@ public class PartitionedDatabase implements Database {
     public CompletableFuture<CommitResponse> commit(Transaction transaction) {
         Map<Database, Transaction> subTransactions = createSubTransactions(transaction);
         AtomicBoolean success = new AtomicBoolean(true);
-        List<UpdateResult<String, byte[]>> allUpdates = Lists.newArrayList();
+        List<UpdateResult<BinaryKey, byte[]>> allUpdates = Lists.newArrayList();
         return CompletableFuture.allOf(subTransactions.entrySet()
                                    .stream()
                                    .map(entry -> entry.getKey().commit(entry.getValue())
@@ -370,6 +458,28 @@ public class PartitionedDatabase implements Database {
         return subTransactions;
     }
 
+    // Groups the positions of the keys by the partition the keys belong to.
+    private Map<Database, List<Integer>> partitionKeys(String mapName, List<BinaryKey> keys) {
+        Map<Database, List<Integer>> keyIndexes = Maps.newHashMap();
+        for (int i = 0; i < keys.size(); i++) {
+            keyIndexes.computeIfAbsent(partitioner.getPartition(mapName, keys.get(i)), p -> Lists.newArrayList())
+                      .add(i);
+        }
+        return keyIndexes;
+    }
+
+    // Picks the elements at the specified positions, in a list that can be sent to a partition.
+    private static <T> List<T> select(List<T> elements, List<Integer> indexes) {
+        return indexes.stream().map(elements::get).collect(Collectors.toList());
+    }
+
+    // Places the results for a partition at the positions of its keys.
+    private static <T> void scatter(List<T> partitionResults, List<Integer> keyIndexes, List<T> results) {
+        for (int i = 0; i < keyIndexes.size(); i++) {
+            results.set(keyIndexes.get(i), partitionResults.get(i));
+        }
+    }
+
     protected void setTransactionManager(TransactionManager transactionManager) {
         this.transactionManager = transactionManager;
     }
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.consistent.impl;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.CompletableFuture;
+
+import org.onosproject.store.service.MapCursor;
+import org.onosproject.store.service.MapPage;
+import org.onosproject.store.service.Versioned;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+/**
+ * Position of a paged scan over a map that is spread across partitions.
+ * <p>
+ * The cursor remembers, for each partition, the last key fetched from it
+ * and the entries fetched but not yet returned. A page is merged in key
+ * order from these entries, and a partition is only asked for more entries
+ * once those held for it run low, so each entry is transferred once.
+ * </p>
+ */
+final class ScanCursor implements MapCursor {
+
+    // Last key fetched from each partition; null if none was fetched
+    private final List<BinaryKey> positions;
+    // Entries fetched from each partition but not yet returned
+    private final List<List<Entry<BinaryKey, Versioned<byte[]>>>> pending;
+    // Whether each partition has no entries beyond its position
+    private final List<Boolean> exhausted;
+
+    private ScanCursor(List<BinaryKey> positions,
+                       List<List<Entry<BinaryKey, Versioned<byte[]>>>> pending,
+                       List<Boolean> exhausted) {
+        this.positions = positions;
+        this.pending = pending;
+        this.exhausted = exhausted;
+    }
+
+    /**
+     * Returns the next page of a scan over the specified partitions.
+     *
+     * @param partitions database partitions holding the map, in a stable order
+     * @param mapName map name
+     * @param cursor cursor returned with the previous page, or null to start a new scan
+     * @param limit maximum number of entries in the page
+     * @return a future for the page, whose cursor is null once all partitions are exhausted
+     */
+    static CompletableFuture<MapPage<BinaryKey, byte[]>> scan(
+            List<Database> partitions, String mapName, ScanCursor cursor, int limit) {
+        checkArgument(cursor == null || cursor.positions.size() == partitions.size(),
+                      "Cursor does not belong to these partitions");
+        int count = partitions.size();
+        List<BinaryKey> positions = Lists.newArrayListWithCapacity(count);
+        List<Deque<Entry<BinaryKey, Versioned<byte[]>>>> pending = Lists.newArrayListWithCapacity(count);
+        List<Boolean> exhausted = Lists.newArrayListWithCapacity(count);
+        for (int i = 0; i < count; i++) {
+            positions.add(cursor == null ? null : cursor.positions.get(i));
+            pending.add(cursor == null ? new ArrayDeque<>() : new ArrayDeque<>(cursor.pending.get(i)));
+            exhausted.add(cursor != null && cursor.exhausted.get(i));
+        }
+
+        // Top up every partition that may hold more entries to a full page,
+        // so that merging cannot run out of one before the page is complete.
+        List<CompletableFuture<Void>> fetches = Lists.newArrayList();
+        for (int i = 0; i < count; i++) {
+            int wanted = limit - pending.get(i).size();
+            if (!exhausted.get(i) && wanted > 0) {
+                int partition = i;
+                fetches.add(partitions.get(i)
+                        .mapScan(mapName, positions.get(i), wanted)
+                        .thenAccept(entries -> {
+                            synchronized (pending) {
+                                pending.get(partition).addAll(entries);
+                                if (!entries.isEmpty()) {
+                                    positions.set(partition, entries.get(entries.size() - 1).getKey());
+                                }
+                                exhausted.set(partition, entries.size() < wanted);
+                            }
+                        }));
+            }
+        }
+
+        return CompletableFuture.allOf(fetches.toArray(new CompletableFuture[fetches.size()]))
+                .thenApply(v -> {
+                    synchronized (pending) {
+                        return merge(positions, pending, exhausted, limit);
+                    }
+                });
+    }
+
+    // Takes the lowest keys across partitions, up to the limit.
+    private static MapPage<BinaryKey, byte[]> merge(List<BinaryKey> positions,
+                                                    List<Deque<Entry<BinaryKey, Versioned<byte[]>>>> pending,
+                                                    List<Boolean> exhausted,
+                                                    int limit) {
+        List<Entry<BinaryKey, Versioned<byte[]>>> entries = Lists.newArrayListWithCapacity(limit);
+        while (entries.size() < limit) {
+            Deque<Entry<BinaryKey, Versioned<byte[]>>> lowest = null;
+            for (Deque<Entry<BinaryKey, Versioned<byte[]>>> candidate : pending) {
+                if (!candidate.isEmpty() && (lowest == null
+                        || candidate.peekFirst().getKey().compareTo(lowest.peekFirst().getKey()) < 0)) {
+                    lowest = candidate;
+                }
+            }
+            if (lowest == null) {
+                break;
+            }
+            entries.add(lowest.pollFirst());
+        }
+
+        boolean done = true;
+        List<List<Entry<BinaryKey, Versioned<byte[]>>>> remaining = Lists.newArrayListWithCapacity(pending.size());
+        for (int i = 0; i < pending.size(); i++) {
+            remaining.add(ImmutableList.copyOf(pending.get(i)));
+            done &= exhausted.get(i) && pending.get(i).isEmpty();
+        }
+        if (done) {
+            return new MapPage<>(entries, null);
+        }
+        return new MapPage<>(entries, new ScanCursor(Collections.unmodifiableList(new ArrayList<>(positions)),
+                                                     ImmutableList.copyOf(remaining),
+                                                     ImmutableList.copyOf(exhausted)));
+    }
+}
@@ -31,6 +31,11 @@ public class SimpleKeyHashPartitioner extends DatabasePartitioner {
         super(partitions);
     }
 
+    @Override
+    public Database getPartition(String mapName, BinaryKey key) {
+        return partitions.get(hash(key) % partitions.size());
+    }
+
     @Override
     public Database getPartition(String mapName, String key) {
         return partitions.get(hash(key) % partitions.size());
@@ -32,6 +32,11 @@ public class SimpleTableHashPartitioner extends DatabasePartitioner {
         super(partitions);
     }
 
+    @Override
+    public Database getPartition(String mapName, BinaryKey key) {
+        return partitions.get(hash(mapName) % partitions.size());
+    }
+
     @Override
     public Database getPartition(String mapName, String key) {
         return partitions.get(hash(mapName) % partitions.size());
@@ -31,6 +31,11 @@ public class StateMachineUpdate {
          */
         MAP_UPDATE,
 
+        /**
+         * Update is for several keys of a map.
+         */
+        MAP_BATCH_UPDATE,
+
         /**
          * Update is a transaction commit.
          */
@@ -59,7 +64,9 @@ public class StateMachineUpdate {
 
     public Target target() {
         // FIXME: This check is brittle
-        if (operationName.contains("mapUpdate")) {
+        if (operationName.contains("mapBatchUpdate")) {
+            return Target.MAP_BATCH_UPDATE;
+        } else if (operationName.contains("mapUpdate")) {
             return Target.MAP_UPDATE;
         } else if (operationName.contains("commit") || operationName.contains("prepareAndCommit")) {
             return Target.TX_COMMIT;
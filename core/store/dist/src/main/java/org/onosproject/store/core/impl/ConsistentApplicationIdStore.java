@@ -35,6 +35,7 @@ import org.onosproject.core.DefaultApplicationId;
 import org.onosproject.store.serializers.KryoNamespaces;
 import org.onosproject.store.service.AtomicCounter;
 import org.onosproject.store.service.ConsistentMap;
+import org.onosproject.store.service.ReadConsistency;
 import org.onosproject.store.service.Serializer;
 import org.onosproject.store.service.StorageException;
 import org.onosproject.store.service.StorageService;
@@ -79,6 +80,10 @@ public class ConsistentApplicationIdStore implements ApplicationIdStore {
                 .withName("onos-app-ids")
                 .withPartitionsDisabled()
                 .withSerializer(SERIALIZER)
+                // reads must stay linearizable: registering an application
+                // allocates a new id when its name is missed, so a stale miss
+                // would burn an id before putIfAbsent finds the existing one
+                .withReadConsistency(ReadConsistency.LINEARIZABLE)
                 .build();
 
         primeAppIds();
@@ -17,10 +17,13 @@ package org.onosproject.store.ecmap;
 
 import com.google.common.base.MoreObjects;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 
 import org.onosproject.cluster.NodeId;
 
 import java.util.Map;
+import java.util.Set;
+
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
@@ -30,17 +33,40 @@ public class AntiEntropyAdvertisement<K> {
 
     private final NodeId sender;
     private final Map<K, MapValue.Digest> digest;
+    private final Set<Integer> buckets;
+    private final boolean replyRequested;
 
     /**
-     * Creates a new anti entropy advertisement message.
+     * Creates a new anti entropy advertisement message covering the
+     * entire map.
      *
      * @param sender the sender's node ID
      * @param digest for map entries
      */
     public AntiEntropyAdvertisement(NodeId sender,
                                     Map<K, MapValue.Digest> digest) {
+        this(sender, digest, ImmutableSet.of(), false);
+    }
+
+    /**
+     * Creates a new anti entropy advertisement message covering only the
+     * specified hash tree leaf buckets.
+     *
+     * @param sender         the sender's node ID
+     * @param digest         for map entries in the buckets
+     * @param buckets        leaf buckets covered by the digest; empty if the
+     *                       digest covers the entire map
+     * @param replyRequested true if the receiver should reply with its own
+     *                       digest for the same buckets
+     */
+    public AntiEntropyAdvertisement(NodeId sender,
+                                    Map<K, MapValue.Digest> digest,
+                                    Set<Integer> buckets,
+                                    boolean replyRequested) {
         this.sender = checkNotNull(sender);
         this.digest = ImmutableMap.copyOf(checkNotNull(digest));
+        this.buckets = ImmutableSet.copyOf(checkNotNull(buckets));
+        this.replyRequested = replyRequested;
     }
 
     /**
@@ -61,11 +87,40 @@ public class AntiEntropyAdvertisement<K> {
         return digest;
     }
 
+    /**
+     * Returns the hash tree leaf buckets covered by this advertisement.
+     *
+     * @return leaf bucket positions; empty if the entire map is covered
+     */
+    public Set<Integer> buckets() {
+        return buckets;
+    }
+
+    /**
+     * Returns whether this advertisement only covers part of the map.
+     *
+     * @return true if only some hash tree buckets are covered
+     */
+    public boolean isScoped() {
+        return !buckets.isEmpty();
+    }
+
+    /**
+     * Returns whether the sender asks for the receiver's digest in return.
+     *
+     * @return true if a reply is requested
+     */
+    public boolean replyRequested() {
+        return replyRequested;
+    }
+
     @Override
     public String toString() {
         return MoreObjects.toStringHelper(getClass())
                 .add("sender", sender)
                 .add("totalEntries", digest.size())
+                .add("buckets", buckets.size())
+                .add("replyRequested", replyRequested)
                 .toString();
     }
 }
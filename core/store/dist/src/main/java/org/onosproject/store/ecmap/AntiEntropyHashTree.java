@@ -0,0 +1,204 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.ecmap;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Hash tree (Merkle tree) summarizing the contents of an eventually
+ * consistent map for use during anti-entropy exchanges.
+ * <p>
+ * Keys are assigned to a fixed number of leaf buckets based on a hash of
+ * their serialized form. Each leaf holds an order independent hash of the
+ * key and value digests in its bucket, and each inner node holds a hash of
+ * its children. Two replicas with the same root hash hold the same entries;
+ * otherwise only the sub-trees whose hashes differ need to be compared.
+ * </p>
+ * <p>
+ * Entry hashes are computed from {@link MapValue.Digest#hashCode()}, so the
+ * timestamps used by the map must have a value based hash code.
+ * </p>
+ *
+ * @param <K> key type
+ */
+final class AntiEntropyHashTree<K> {
+
+    /**
+     * Number of children of each inner node.
+     */
+    static final int FANOUT = 16;
+
+    /**
+     * Level of the leaf buckets; the root is at level 0.
+     */
+    static final int LEAF_LEVEL = 3;
+
+    /**
+     * Total number of leaf buckets.
+     */
+    static final int LEAF_COUNT = (int) Math.pow(FANOUT, LEAF_LEVEL);
+
+    private static final HashFunction HASH_FN = Hashing.murmur3_128();
+
+    private final long[][] levels;
+    private final List<List<K>> buckets;
+    private final int size;
+
+    private AntiEntropyHashTree(long[][] levels, List<List<K>> buckets, int size) {
+        this.levels = levels;
+        this.buckets = buckets;
+        this.size = size;
+    }
+
+    /**
+     * Builds a hash tree over the specified map entries.
+     *
+     * @param items      map entries, including tombstones
+     * @param keyEncoder function used to serialize keys
+     * @param <K>        key type
+     * @param <V>        value type
+     * @return new hash tree
+     */
+    static <K, V> AntiEntropyHashTree<K> build(Map<K, MapValue<V>> items,
+                                               Function<K, byte[]> keyEncoder) {
+        long[][] levels = new long[LEAF_LEVEL + 1][];
+        for (int level = 0; level <= LEAF_LEVEL; level++) {
+            levels[level] = new long[width(level)];
+        }
+        List<List<K>> buckets = Lists.newArrayListWithCapacity(LEAF_COUNT);
+        for (int i = 0; i < LEAF_COUNT; i++) {
+            buckets.add(Lists.newArrayList());
+        }
+
+        long[] leaves = levels[LEAF_LEVEL];
+        int size = 0;
+        for (Map.Entry<K, MapValue<V>> entry : items.entrySet()) {
+            long keyHash = HASH_FN.hashBytes(keyEncoder.apply(entry.getKey())).asLong();
+            int bucket = bucket(keyHash);
+            // Summing entry hashes keeps the leaf hash independent of iteration order
+            leaves[bucket] += HASH_FN.newHasher()
+                    .putLong(keyHash)
+                    .putInt(entry.getValue().digest().hashCode())
+                    .hash()
+                    .asLong();
+            buckets.get(bucket).add(entry.getKey());
+            size++;
+        }
+
+        for (int level = LEAF_LEVEL - 1; level >= 0; level--) {
+            long[] children = levels[level + 1];
+            long[] parents = levels[level];
+            for (int position = 0; position < parents.length; position++) {
+                Hasher hasher = HASH_FN.newHasher();
+                for (int child = position * FANOUT; child < (position + 1) * FANOUT; child++) {
+                    hasher.putLong(children[child]);
+                }
+                parents[position] = hasher.hash().asLong();
+            }
+        }
+
+        List<List<K>> immutableBuckets = Lists.newArrayListWithCapacity(LEAF_COUNT);
+        buckets.forEach(keys -> immutableBuckets.add(ImmutableList.copyOf(keys)));
+        return new AntiEntropyHashTree<>(levels, immutableBuckets, size);
+    }
+
+    /**
+     * Returns the number of nodes at the specified level.
+     *
+     * @param level tree level
+     * @return number of nodes at the level
+     */
+    static int width(int level) {
+        checkArgument(level >= 0 && level <= LEAF_LEVEL, "Invalid level %s", level);
+        return (int) Math.pow(FANOUT, level);
+    }
+
+    private static int bucket(long keyHash) {
+        return (int) ((keyHash & Long.MAX_VALUE) % LEAF_COUNT);
+    }
+
+    /**
+     * Returns the number of entries summarized by this tree.
+     *
+     * @return number of entries
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the hash of the node at the specified position in a level.
+     *
+     * @param level    tree level
+     * @param position position within the level
+     * @return node hash
+     */
+    long hash(int level, int position) {
+        checkArgument(position >= 0 && position < width(level), "Invalid position %s", position);
+        return levels[level][position];
+    }
+
+    /**
+     * Returns the root hash of this tree.
+     *
+     * @return root hash
+     */
+    long rootHash() {
+        return levels[0][0];
+    }
+
+    /**
+     * Returns the hashes of the children of the specified nodes.
+     *
+     * @param level     level of the parent nodes; must be above the leaves
+     * @param positions positions of the parent nodes within the level
+     * @return mapping from child position to child hash
+     */
+    Map<Integer, Long> childHashes(int level, Collection<Integer> positions) {
+        checkArgument(level < LEAF_LEVEL, "Leaf nodes have no children");
+        Map<Integer, Long> hashes = Maps.newHashMap();
+        positions.forEach(position -> {
+            for (int child = position * FANOUT; child < (position + 1) * FANOUT; child++) {
+                hashes.put(child, hash(level + 1, child));
+            }
+        });
+        return hashes;
+    }
+
+    /**
+     * Returns the keys that fall in the specified leaf buckets.
+     *
+     * @param leaves leaf bucket positions
+     * @return keys in the buckets
+     */
+    List<K> keys(Collection<Integer> leaves) {
+        List<K> keys = Lists.newArrayList();
+        leaves.forEach(leaf -> keys.addAll(buckets.get(leaf)));
+        return keys;
+    }
+}
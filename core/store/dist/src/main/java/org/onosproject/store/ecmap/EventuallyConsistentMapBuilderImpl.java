@@ -15,6 +15,7 @@
  */
 package org.onosproject.store.ecmap;
 
+import org.onlab.metrics.MetricsService;
 import org.onlab.util.KryoNamespace;
 import org.onosproject.cluster.ClusterService;
 import org.onosproject.cluster.NodeId;
@@ -39,6 +40,7 @@ public class EventuallyConsistentMapBuilderImpl<K, V>
         implements EventuallyConsistentMapBuilder<K, V> {
     private final ClusterService clusterService;
     private final ClusterCommunicationService clusterCommunicator;
+    private final MetricsService metricsService;
 
     private String name;
     private KryoNamespace.Builder serializerBuilder;
@@ -52,6 +54,7 @@ public class EventuallyConsistentMapBuilderImpl<K, V>
     private TimeUnit antiEntropyTimeUnit = TimeUnit.SECONDS;
     private boolean convergeFaster = false;
     private boolean persistent = false;
+    private boolean hashTreeAntiEntropy = false;
 
     /**
      * Creates a new eventually consistent map builder.
@@ -61,8 +64,23 @@ public class EventuallyConsistentMapBuilderImpl<K, V>
      */
     public EventuallyConsistentMapBuilderImpl(ClusterService clusterService,
                                               ClusterCommunicationService clusterCommunicator) {
+        this(clusterService, clusterCommunicator, null);
+    }
+
+    /**
+     * Creates a new eventually consistent map builder whose maps report the
+     * batching of their peer updates to the metrics service.
+     *
+     * @param clusterService cluster service
+     * @param clusterCommunicator cluster communication service
+     * @param metricsService metrics service; null to report no metrics
+     */
+    public EventuallyConsistentMapBuilderImpl(ClusterService clusterService,
+                                              ClusterCommunicationService clusterCommunicator,
+                                              MetricsService metricsService) {
         this.clusterService = checkNotNull(clusterService);
         this.clusterCommunicator = checkNotNull(clusterCommunicator);
+        this.metricsService = metricsService;
     }
 
     @Override
@@ -137,6 +155,12 @@ public class EventuallyConsistentMapBuilderImpl<K, V>
         return this;
     }
 
+    @Override
+    public EventuallyConsistentMapBuilder<K, V> withHashTreeAntiEntropy() {
+        hashTreeAntiEntropy = true;
+        return this;
+    }
+
     @Override
     public EventuallyConsistentMap<K, V> build() {
         checkNotNull(name, "name is a mandatory parameter");
@@ -156,6 +180,8 @@ public class EventuallyConsistentMapBuilderImpl<K, V>
                                                  antiEntropyPeriod,
                                                  antiEntropyTimeUnit,
                                                  convergeFaster,
-                                                 persistent);
+                                                 persistent,
+                                                 hashTreeAntiEntropy,
+                                                 metricsService);
     }
 }
@@ -23,6 +23,9 @@ import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 
 import org.apache.commons.lang3.tuple.Pair;
+import org.onlab.metrics.MetricsComponent;
+import org.onlab.metrics.MetricsFeature;
+import org.onlab.metrics.MetricsService;
 import org.onlab.util.AbstractAccumulator;
 import org.onlab.util.KryoNamespace;
 import org.onlab.util.SlidingWindowCounter;
@@ -52,7 +55,6 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
-import java.util.Timer;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
@@ -88,6 +90,7 @@ public class EventuallyConsistentMapImpl<K, V>
 
     private final MessageSubject updateMessageSubject;
     private final MessageSubject antiEntropyAdvertisementSubject;
+    private final MessageSubject hashTreeAdvertisementSubject;
 
     private final Set<EventuallyConsistentMapListener<K, V>> listeners
             = Sets.newCopyOnWriteArraySet();
@@ -111,6 +114,10 @@ public class EventuallyConsistentMapImpl<K, V>
     private final long initialDelaySec = 5;
     private final boolean lightweightAntiEntropy;
     private final boolean tombstonesDisabled;
+    private final boolean hashTreeAntiEntropy;
+
+    private final AtomicBoolean hashTreeStale = new AtomicBoolean(true);
+    private AntiEntropyHashTree<K> hashTree;
 
     private static final int WINDOW_SIZE = 5;
     private static final int HIGH_LOAD_THRESHOLD = 0;
@@ -120,6 +127,9 @@ public class EventuallyConsistentMapImpl<K, V>
     private final boolean persistent;
     private final PersistentStore<K, V> persistentStore;
 
+    private static final String METRICS_COMPONENT = "EventuallyConsistentMap";
+    private final MetricsService metricsService;
+
     /**
      * Creates a new eventually consistent map shared amongst multiple instances.
      * <p>
@@ -146,6 +156,10 @@ public class EventuallyConsistentMapImpl<K, V>
      * @param antiEntropyTimeUnit   time unit for anti-entropy period
      * @param convergeFaster        make anti-entropy try to converge faster
      * @param persistent            persist data to disk
+     * @param hashTreeAntiEntropy   exchange hash trees instead of full
+     *                              digests during anti-entropy
+     * @param metricsService        metrics service to report the batching
+     *                              of peer updates to; may be null
      */
     EventuallyConsistentMapImpl(String mapName,
                                 ClusterService clusterService,
@@ -160,8 +174,11 @@ public class EventuallyConsistentMapImpl<K, V>
                                 long antiEntropyPeriod,
                                 TimeUnit antiEntropyTimeUnit,
                                 boolean convergeFaster,
-                                boolean persistent) {
+                                boolean persistent,
+                                boolean hashTreeAntiEntropy,
+                                MetricsService metricsService) {
         this.mapName = mapName;
+        this.metricsService = metricsService;
         items = Maps.newConcurrentMap();
         senderPending = Maps.newConcurrentMap();
         destroyedMessage = mapName + ERROR_DESTROYED;
@@ -228,10 +245,10 @@ public class EventuallyConsistentMapImpl<K, V>
                                                     antiEntropyTimeUnit);
 
         updateMessageSubject = new MessageSubject("ecm-" + mapName + "-update");
-        clusterCommunicator.addSubscriber(updateMessageSubject,
-                                          serializer::decode,
-                                          this::processUpdates,
-                                          this.executor);
+        clusterCommunicator.addBufferSubscriber(updateMessageSubject,
+                                                serializer::decode,
+                                                this::processUpdates,
+                                                this.executor);
 
         antiEntropyAdvertisementSubject = new MessageSubject("ecm-" + mapName + "-anti-entropy");
         clusterCommunicator.addSubscriber(antiEntropyAdvertisementSubject,
@@ -239,6 +256,17 @@ public class EventuallyConsistentMapImpl<K, V>
                                           this::handleAntiEntropyAdvertisement,
                                           this.backgroundExecutor);
 
+        this.hashTreeAntiEntropy = hashTreeAntiEntropy;
+        if (hashTreeAntiEntropy) {
+            hashTreeAdvertisementSubject = new MessageSubject("ecm-" + mapName + "-hash-tree");
+            clusterCommunicator.addSubscriber(hashTreeAdvertisementSubject,
+                                              serializer::decode,
+                                              this::handleHashTreeAdvertisement,
+                                              this.backgroundExecutor);
+        } else {
+            hashTreeAdvertisementSubject = null;
+        }
+
         this.tombstonesDisabled = tombstonesDisabled;
         this.lightweightAntiEntropy = !convergeFaster;
     }
@@ -255,8 +283,9 @@ public class EventuallyConsistentMapImpl<K, V>
                         .register(WallClockTimestamp.class)
                         .register(AntiEntropyAdvertisement.class)
                         .register(UpdateEntry.class)
-                        .register(MapValue.class)
+                        .register(new MapValueSerializer(), MapValue.class)
                         .register(MapValue.Digest.class)
+                        .register(HashTreeAdvertisement.class)
                         .build();
             }
         };
@@ -376,6 +405,7 @@ public class EventuallyConsistentMapImpl<K, V>
             }
         });
         if (updated.get()) {
+            hashTreeStale.set(true);
             if (persistent) {
                 if (tombstone.isPresent()) {
                     persistentStore.update(key, tombstone.get());
@@ -407,6 +437,7 @@ public class EventuallyConsistentMapImpl<K, V>
             }
         });
         if (updated.get()) {
+            hashTreeStale.set(true);
             notifyPeers(new UpdateEntry<>(key, computedValue), peerUpdateFunction.apply(key, computedValue.get()));
             EventuallyConsistentMapEvent.Type updateType = computedValue.isTombstone() ? REMOVE : PUT;
             V value = computedValue.isTombstone()
@@ -475,8 +506,11 @@ public class EventuallyConsistentMapImpl<K, V>
             }
             return existing;
         });
-        if (updated.get() && persistent) {
-            persistentStore.update(key, newValue);
+        if (updated.get()) {
+            hashTreeStale.set(true);
+            if (persistent) {
+                persistentStore.update(key, newValue);
+            }
         }
         return updated.get();
     }
@@ -507,6 +541,11 @@ public class EventuallyConsistentMapImpl<K, V>
 
         clusterCommunicator.removeSubscriber(updateMessageSubject);
         clusterCommunicator.removeSubscriber(antiEntropyAdvertisementSubject);
+        if (hashTreeAntiEntropy) {
+            clusterCommunicator.removeSubscriber(hashTreeAdvertisementSubject);
+        }
+
+        senderPending.keySet().forEach(this::removeMetrics);
     }
 
     private void notifyListeners(EventuallyConsistentMapEvent<K, V> event) {
@@ -523,10 +562,33 @@ public class EventuallyConsistentMapImpl<K, V>
             return;
         }
         peers.forEach(node ->
-            senderPending.computeIfAbsent(node, unusedKey -> new EventAccumulator(node)).add(event)
+            senderPending.computeIfAbsent(node, unusedKey -> newAccumulator(node)).add(event)
         );
     }
 
+    // Creates the update accumulator for a peer and exposes its batching histograms.
+    private EventAccumulator newAccumulator(NodeId peer) {
+        EventAccumulator accumulator = new EventAccumulator(peer);
+        if (metricsService != null) {
+            removeMetrics(peer);
+            MetricsComponent component = metricsService.registerComponent(METRICS_COMPONENT);
+            MetricsFeature feature = component.registerFeature(mapName);
+            metricsService.registerMetric(component, feature, peer + "-batchSize", accumulator.batchSizes());
+            metricsService.registerMetric(component, feature, peer + "-batchInterval", accumulator.batchIntervals());
+        }
+        return accumulator;
+    }
+
+    private void removeMetrics(NodeId peer) {
+        if (metricsService == null) {
+            return;
+        }
+        MetricsComponent component = metricsService.registerComponent(METRICS_COMPONENT);
+        MetricsFeature feature = component.registerFeature(mapName);
+        metricsService.removeMetric(component, feature, peer + "-batchSize");
+        metricsService.removeMetric(component, feature, peer + "-batchInterval");
+    }
+
     private boolean underHighLoad() {
         return counter.get(LOAD_WINDOW) > HIGH_LOAD_THRESHOLD;
     }
@@ -555,7 +617,16 @@ public class EventuallyConsistentMapImpl<K, V>
     }
 
     private void sendAdvertisementToPeer(NodeId peer) {
-        clusterCommunicator.unicast(createAdvertisement(),
+        if (hashTreeAntiEntropy) {
+            sendHashTreeAdvertisementToPeer(peer,
+                    new HashTreeAdvertisement(localNodeId, 0, ImmutableMap.of(0, hashTree().rootHash())));
+        } else {
+            sendAdvertisementToPeer(peer, createAdvertisement());
+        }
+    }
+
+    private void sendAdvertisementToPeer(NodeId peer, AntiEntropyAdvertisement<K> ad) {
+        clusterCommunicator.unicast(ad,
                 antiEntropyAdvertisementSubject,
                 serializer::encode,
                 peer)
@@ -566,11 +637,89 @@ public class EventuallyConsistentMapImpl<K, V>
                 });
     }
 
+    private void sendHashTreeAdvertisementToPeer(NodeId peer, HashTreeAdvertisement ad) {
+        clusterCommunicator.unicast(ad,
+                hashTreeAdvertisementSubject,
+                serializer::encode,
+                peer)
+                .whenComplete((result, error) -> {
+                    if (error != null) {
+                        log.debug("Failed to send hash tree advertisement to {}", peer, error);
+                    }
+                });
+    }
+
     private AntiEntropyAdvertisement<K> createAdvertisement() {
         return new AntiEntropyAdvertisement<K>(localNodeId,
                 ImmutableMap.copyOf(Maps.transformValues(items, MapValue::digest)));
     }
 
+    private AntiEntropyAdvertisement<K> createAdvertisement(Set<Integer> buckets, boolean replyRequested) {
+        return new AntiEntropyAdvertisement<K>(localNodeId,
+                ImmutableMap.copyOf(Maps.transformValues(localItems(buckets), MapValue::digest)),
+                buckets,
+                replyRequested);
+    }
+
+    /**
+     * Returns the hash tree for the current map contents, rebuilding it
+     * if the map was updated since it was last built.
+     */
+    private synchronized AntiEntropyHashTree<K> hashTree() {
+        if (hashTreeStale.getAndSet(false) || hashTree == null) {
+            hashTree = AntiEntropyHashTree.build(items, serializer::encode);
+        }
+        return hashTree;
+    }
+
+    /**
+     * Returns the local entries that fall in the specified hash tree buckets.
+     */
+    private Map<K, MapValue<V>> localItems(Set<Integer> buckets) {
+        Map<K, MapValue<V>> scopedItems = Maps.newHashMap();
+        hashTree().keys(buckets).forEach(key -> {
+            MapValue<V> value = items.get(key);
+            if (value != null) {
+                scopedItems.put(key, value);
+            }
+        });
+        return scopedItems;
+    }
+
+    /**
+     * Compares the advertised hash tree nodes against the local tree. For
+     * inner nodes that differ the children are advertised back to the
+     * sender; for leaf buckets that differ the digests of the entries in
+     * those buckets are exchanged.
+     */
+    private void handleHashTreeAdvertisement(HashTreeAdvertisement ad) {
+        if (destroyed || underHighLoad()) {
+            return;
+        }
+        try {
+            AntiEntropyHashTree<K> tree = hashTree();
+            Set<Integer> mismatched = ad.hashes().entrySet()
+                    .stream()
+                    .filter(e -> tree.hash(ad.level(), e.getKey()) != e.getValue())
+                    .map(Map.Entry::getKey)
+                    .collect(Collectors.toSet());
+            log.debug("Received hash tree advertisement from {} for {} at level {} with {} of {} nodes differing",
+                    ad.sender(), mapName, ad.level(), mismatched.size(), ad.hashes().size());
+            if (mismatched.isEmpty()) {
+                return;
+            }
+            if (ad.level() < AntiEntropyHashTree.LEAF_LEVEL) {
+                sendHashTreeAdvertisementToPeer(ad.sender(),
+                        new HashTreeAdvertisement(localNodeId, ad.level() + 1,
+                                                  tree.childHashes(ad.level(), mismatched)));
+            } else {
+                sendAdvertisementToPeer(ad.sender(), createAdvertisement(mismatched, true));
+            }
+        } catch (Exception e) {
+            log.warn("Error handling hash tree advertisement", e);
+        }
+    }
+
     private void handleAntiEntropyAdvertisement(AntiEntropyAdvertisement<K> ad) {
         if (destroyed || underHighLoad()) {
             return;
@@ -580,7 +729,12 @@ public class EventuallyConsistentMapImpl<K, V>
                     mapName, ad.sender(), ad.digest().size());
             antiEntropyCheckLocalItems(ad).forEach(this::notifyListeners);
 
-            if (!lightweightAntiEntropy) {
+            if (ad.isScoped()) {
+                // Let the sender catch up on entries it is missing or has stale
+                if (ad.replyRequested()) {
+                    sendAdvertisementToPeer(ad.sender(), createAdvertisement(ad.buckets(), false));
+                }
+            } else if (!lightweightAntiEntropy) {
                 // if remote ad has any entries that the local copy is missing, actively sync
                 // TODO: Missing keys is not the way local copy can be behind.
                 if (Sets.difference(ad.digest().keySet(), items.keySet()).size() > 0) {
@@ -598,12 +752,15 @@ public class EventuallyConsistentMapImpl<K, V>
      * 1. If peer has an old entry, updates peer.
      * 2. If peer indicates an entry is removed and has a more recent
      * timestamp than the local entry, update local state.
+     * Scoped advertisements are only checked against the local entries in
+     * the hash tree buckets they cover.
      */
     private List<EventuallyConsistentMapEvent<K, V>> antiEntropyCheckLocalItems(
             AntiEntropyAdvertisement<K> ad) {
         final List<EventuallyConsistentMapEvent<K, V>> externalEvents = Lists.newLinkedList();
         final NodeId sender = ad.sender();
-        items.forEach((key, localValue) -> {
+        final Map<K, MapValue<V>> localItems = ad.isScoped() ? localItems(ad.buckets()) : items;
+        localItems.forEach((key, localValue) -> {
             MapValue.Digest remoteValueDigest = ad.digest().get(key);
             if (remoteValueDigest == null || localValue.isNewerThan(remoteValueDigest.timestamp())) {
                 // local value is more recent, push to sender
@@ -646,14 +803,13 @@ public class EventuallyConsistentMapImpl<K, V>
     private static final int DEFAULT_MAX_EVENTS = 1000;
     private static final int DEFAULT_MAX_IDLE_MS = 10;
     private static final int DEFAULT_MAX_BATCH_MS = 50;
-    private static final Timer TIMER = new Timer("onos-ecm-sender-events");
 
     private final class EventAccumulator extends AbstractAccumulator<UpdateEntry<K, V>> {
 
         private final NodeId peer;
 
         private EventAccumulator(NodeId peer) {
-            super(TIMER, DEFAULT_MAX_EVENTS, DEFAULT_MAX_BATCH_MS, DEFAULT_MAX_IDLE_MS);
+            super(DEFAULT_MAX_EVENTS, DEFAULT_MAX_BATCH_MS, DEFAULT_MAX_IDLE_MS);
             this.peer = peer;
         }
 
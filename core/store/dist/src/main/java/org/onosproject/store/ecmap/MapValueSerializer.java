@@ -0,0 +1,49 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.ecmap;
+
+import org.onosproject.store.Timestamp;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+
+/**
+ * Kryo Serializer for {@link MapValue}.
+ */
+final class MapValueSerializer extends Serializer<MapValue<?>> {
+
+    /**
+     * Creates {@link MapValue} serializer instance.
+     */
+    MapValueSerializer() {
+        // non-null, immutable
+        super(false, true);
+    }
+
+    @Override
+    public void write(Kryo kryo, Output output, MapValue<?> object) {
+        kryo.writeClassAndObject(output, object.timestamp());
+        kryo.writeClassAndObject(output, object.get());
+    }
+
+    @Override
+    public MapValue<?> read(Kryo kryo, Input input, Class<MapValue<?>> type) {
+        Timestamp timestamp = (Timestamp) kryo.readClassAndObject(input);
+        return new MapValue<>(kryo.readClassAndObject(input), timestamp);
+    }
+}
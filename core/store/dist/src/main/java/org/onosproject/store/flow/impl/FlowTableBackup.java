@@ -0,0 +1,166 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.flow.impl;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Sets;
+import org.onosproject.cluster.NodeId;
+import org.onosproject.net.flow.FlowId;
+import org.onosproject.net.flow.StoredFlowEntry;
+
+import java.util.Map;
+import java.util.Set;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Backup of the flow table of a single device, shipped from the master to
+ * the backup node.
+ * <p>
+ * A full backup carries the entire flow table and replaces whatever the
+ * backup node held. An incremental backup only carries the flow entry sets
+ * that changed since the backup with version {@link #baseVersion()}; an
+ * empty set denotes a flow id whose entries were all removed.
+ * </p>
+ */
+public final class FlowTableBackup {
+
+    private final NodeId source;
+    private final boolean full;
+    private final long baseVersion;
+    private final long version;
+    private final Map<FlowId, Set<StoredFlowEntry>> flowEntries;
+
+    private FlowTableBackup(NodeId source, boolean full, long baseVersion, long version,
+                            Map<FlowId, Set<StoredFlowEntry>> flowEntries) {
+        this.source = checkNotNull(source);
+        this.full = full;
+        this.baseVersion = baseVersion;
+        this.version = version;
+        this.flowEntries = ImmutableMap.copyOf(checkNotNull(flowEntries));
+    }
+
+    /**
+     * Creates a full backup of a device flow table.
+     *
+     * @param source      node that sends the backup
+     * @param version     version of this backup
+     * @param flowEntries entire flow table of the device
+     * @return full flow table backup
+     */
+    public static FlowTableBackup full(NodeId source, long version,
+                                       Map<FlowId, Set<StoredFlowEntry>> flowEntries) {
+        return new FlowTableBackup(source, true, 0, version, flowEntries);
+    }
+
+    /**
+     * Creates an incremental backup of a device flow table.
+     *
+     * @param source      node that sends the backup
+     * @param baseVersion version of the backup this one applies to
+     * @param version     version of this backup
+     * @param flowEntries flow entry sets that changed since the base version
+     * @return incremental flow table backup
+     */
+    public static FlowTableBackup delta(NodeId source, long baseVersion, long version,
+                                        Map<FlowId, Set<StoredFlowEntry>> flowEntries) {
+        return new FlowTableBackup(source, false, baseVersion, version, flowEntries);
+    }
+
+    /**
+     * Returns the node that sent this backup.
+     *
+     * @return source node identifier
+     */
+    public NodeId source() {
+        return source;
+    }
+
+    /**
+     * Returns whether this backup carries the entire flow table.
+     *
+     * @return true for a full backup
+     */
+    public boolean isFull() {
+        return full;
+    }
+
+    /**
+     * Returns the version of the backup an incremental backup applies to.
+     *
+     * @return base version
+     */
+    public long baseVersion() {
+        return baseVersion;
+    }
+
+    /**
+     * Returns the version of this backup.
+     *
+     * @return backup version
+     */
+    public long version() {
+        return version;
+    }
+
+    /**
+     * Returns the flow entry sets carried by this backup.
+     *
+     * @return mapping from flow id to flow entries
+     */
+    public Map<FlowId, Set<StoredFlowEntry>> flowEntries() {
+        return flowEntries;
+    }
+
+    /**
+     * Applies this backup to the backup copy of a device flow table.
+     *
+     * @param flowTable backup copy of the flow table
+     */
+    public void applyTo(Map<FlowId, Set<StoredFlowEntry>> flowTable) {
+        if (full) {
+            flowTable.clear();
+        }
+        flowEntries.forEach((flowId, entries) -> {
+            if (entries.isEmpty()) {
+                flowTable.remove(flowId);
+            } else {
+                flowTable.put(flowId, Sets.newCopyOnWriteArraySet(entries));
+            }
+        });
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(getClass())
+                .add("source", source)
+                .add("full", full)
+                .add("baseVersion", baseVersion)
+                .add("version", version)
+                .add("flowIds", flowEntries.size())
+                .toString();
+    }
+
+    @SuppressWarnings("unused")
+    private FlowTableBackup() {
+        this.source = null;
+        this.full = false;
+        this.baseVersion = 0;
+        this.version = 0;
+        this.flowEntries = null;
+    }
+}
@@ -17,6 +17,7 @@ package org.onosproject.store.flow.impl;
 
 import com.google.common.base.Objects;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
@@ -39,6 +40,8 @@ import org.onosproject.core.CoreService;
 import org.onosproject.core.IdGenerator;
 import org.onosproject.mastership.MastershipService;
 import org.onosproject.net.DeviceId;
+import org.onosproject.net.device.DeviceEvent;
+import org.onosproject.net.device.DeviceListener;
 import org.onosproject.net.device.DeviceService;
 import org.onosproject.net.flow.CompletedBatchOperation;
 import org.onosproject.net.flow.DefaultFlowEntry;
@@ -64,6 +67,7 @@ import org.onosproject.store.cluster.messaging.ClusterMessageHandler;
 import org.onosproject.store.flow.ReplicaInfoEvent;
 import org.onosproject.store.flow.ReplicaInfoEventListener;
 import org.onosproject.store.flow.ReplicaInfoService;
+import org.onosproject.store.serializers.KryoNamespaces;
 import org.onosproject.store.serializers.KryoSerializer;
 import org.onosproject.store.serializers.StoreSerializer;
 import org.onosproject.store.serializers.custom.DistributedStoreSerializers;
@@ -82,6 +86,7 @@ import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 import static com.google.common.base.Strings.isNullOrEmpty;
@@ -122,6 +127,7 @@ public class NewDistributedFlowRuleStore
     private int backupPeriod = DEFAULT_BACKUP_PERIOD_MILLIS;
 
     private InternalFlowTable flowTable = new InternalFlowTable();
+    private final DeviceListener deviceListener = new InternalDeviceListener();
 
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
     protected ReplicaInfoService replicaInfoManager;
@@ -157,6 +163,8 @@ public class NewDistributedFlowRuleStore
             serializerPool = KryoNamespace.newBuilder()
                     .register(DistributedStoreSerializers.STORE_COMMON)
                     .nextId(DistributedStoreSerializers.STORE_CUSTOM_BEGIN)
+                    .register(FlowTableBackup.class)
+                    .register(KryoNamespaces.HOT_PATH_V1)
                     .build();
         }
     };
@@ -176,6 +184,7 @@ public class NewDistributedFlowRuleStore
                 msgHandlerPoolSize, groupedThreads("onos/store/flow", "message-handlers"));
 
         registerMessageHandlers(messageHandlingExecutor);
+        deviceService.addListener(deviceListener);
 
         if (backupEnabled) {
             replicaInfoManager.addListener(flowTable);
@@ -196,6 +205,7 @@ public class NewDistributedFlowRuleStore
             backupTask.cancel(true);
         }
         configService.unregisterProperties(getClass(), false);
+        deviceService.removeListener(deviceListener);
         unregisterMessageHandlers();
         messageHandlingExecutor.shutdownNow();
         backupSenderExecutor.shutdownNow();
@@ -458,6 +468,7 @@ public class NewDistributedFlowRuleStore
                             entry = flowTable.getFlowEntry(op.target());
                             if (entry != null) {
                                 entry.setState(FlowEntryState.PENDING_REMOVE);
+                                flowTable.markDirty(entry);
                                 return op;
                             }
                             break;
@@ -503,6 +514,7 @@ public class NewDistributedFlowRuleStore
             stored.setPackets(rule.packets());
             if (stored.state() == FlowEntryState.PENDING_ADD) {
                 stored.setState(FlowEntryState.ADDED);
+                flowTable.markDirty(stored);
                 return new FlowRuleEvent(Type.RULE_ADDED, rule);
             }
             return new FlowRuleEvent(Type.RULE_UPDATED, rule);
@@ -564,6 +576,14 @@ public class NewDistributedFlowRuleStore
         }
     }
 
+    /**
+     * Sends the flow table backups that are due, as the periodic backup
+     * task does.
+     */
+    void backup() {
+        flowTable.backup();
+    }
+
     private final class OnStoreBatch implements ClusterMessageHandler {
 
         @Override
@@ -592,14 +612,33 @@ public class NewDistributedFlowRuleStore
         }
     }
 
+    // Drops the backup state kept for devices that are removed
+    private class InternalDeviceListener implements DeviceListener {
+        @Override
+        public void event(DeviceEvent event) {
+            if (event.type() == DeviceEvent.Type.DEVICE_REMOVED) {
+                flowTable.purgeBackups(event.subject().id());
+            }
+        }
+    }
+
     private class InternalFlowTable implements ReplicaInfoEventListener {
 
         private final Map<DeviceId, Map<FlowId, Set<StoredFlowEntry>>>
                 flowEntries = Maps.newConcurrentMap();
 
-        private final Map<DeviceId, Long> lastBackupTimes = Maps.newConcurrentMap();
-        private final Map<DeviceId, Long> lastUpdateTimes = Maps.newConcurrentMap();
+        // flow ids whose entries changed since the last backup was sent
+        private final Map<DeviceId, Set<FlowId>> dirtyFlowIds = Maps.newConcurrentMap();
+        // devices with a backup in flight
+        private final Set<DeviceId> pendingBackups = Sets.newConcurrentHashSet();
+        // backup node and version of the last acknowledged backup
         private final Map<DeviceId, NodeId> lastBackupNodes = Maps.newConcurrentMap();
+        private final Map<DeviceId, Long> lastBackupVersions = Maps.newConcurrentMap();
+        private final AtomicLong backupVersions = new AtomicLong(System.currentTimeMillis());
+
+        // source and version of the backups held on behalf of other masters
+        private final Map<DeviceId, NodeId> backupSources = Maps.newConcurrentMap();
+        private final Map<DeviceId, Long> backupSourceVersions = Maps.newConcurrentMap();
 
         @Override
         public void event(ReplicaInfoEvent event) {
@@ -627,7 +666,7 @@ public class NewDistributedFlowRuleStore
                     log.warn("Lost backup location {} for deviceId {} and no alternate backup node exists. "
                             + "Flows can be lost if the master goes down", currentBackupNode, deviceId);
                     lastBackupNodes.remove(deviceId);
-                    lastBackupTimes.remove(deviceId);
+                    lastBackupVersions.remove(deviceId);
                     return;
                     // TODO: Pick any available node as backup and ensure hand-off occurs when
                     // a new master is elected.
@@ -647,14 +686,16 @@ public class NewDistributedFlowRuleStore
         }
 
         private void backupFlowEntries(NodeId nodeId, Set<DeviceId> deviceIds) {
-            if (deviceIds.isEmpty()) {
+            Set<DeviceId> devicesToBackup = deviceIds.stream()
+                    .filter(pendingBackups::add)
+                    .collect(Collectors.toSet());
+            if (devicesToBackup.isEmpty()) {
                 return;
             }
-            log.debug("Sending flowEntries for devices {} to {} as backup.", deviceIds, nodeId);
-            Map<DeviceId, Map<FlowId, Set<StoredFlowEntry>>> deviceFlowEntries =
-                    Maps.newConcurrentMap();
-            deviceIds.forEach(id -> deviceFlowEntries.put(id, ImmutableMap.copyOf(getFlowTable(id))));
-            clusterCommunicator.<Map<DeviceId, Map<FlowId, Set<StoredFlowEntry>>>, Set<DeviceId>>sendAndReceive(
+            log.debug("Sending flowEntries for devices {} to {} as backup.", devicesToBackup, nodeId);
+            Map<DeviceId, FlowTableBackup> deviceFlowEntries = Maps.newConcurrentMap();
+            devicesToBackup.forEach(id -> deviceFlowEntries.put(id, createBackup(nodeId, id)));
+            clusterCommunicator.<Map<DeviceId, FlowTableBackup>, Set<DeviceId>>sendAndReceive(
                                         deviceFlowEntries,
                                         FLOW_TABLE_BACKUP,
                                         SERIALIZER::encode,
@@ -666,17 +707,73 @@ public class NewDistributedFlowRuleStore
                                            Sets.difference(deviceFlowEntries.keySet(), backedupDevices);
                                    if (devicesNotBackedup.size() > 0) {
                                        log.warn("Failed to backup devices: {}. Reason: {}",
-                                               devicesNotBackedup, error.getMessage());
+                                               devicesNotBackedup, error != null ? error.getMessage() : null);
+                                       // Changes already taken out of the dirty set are lost
+                                       // to the backup node; resynchronize from scratch.
+                                       devicesNotBackedup.forEach(id -> {
+                                           lastBackupNodes.remove(id);
+                                           lastBackupVersions.remove(id);
+                                       });
                                    }
                                    if (backedupDevices != null) {
                                        backedupDevices.forEach(id -> {
-                                           lastBackupTimes.put(id, System.currentTimeMillis());
                                            lastBackupNodes.put(id, nodeId);
+                                           lastBackupVersions.put(id, deviceFlowEntries.get(id).version());
                                        });
                                    }
+                                   pendingBackups.removeAll(deviceFlowEntries.keySet());
                                });
         }
 
+        /**
+         * Creates the backup of a device flow table to send to the specified
+         * node. Only the flow entries that changed since the last acknowledged
+         * backup are included, unless the backup node has changed.
+         *
+         * @param nodeId   backup node
+         * @param deviceId identifier of the device
+         * @return flow table backup
+         */
+        private FlowTableBackup createBackup(NodeId nodeId, DeviceId deviceId) {
+            Set<FlowId> dirty = dirtyFlowIds.remove(deviceId);
+            Map<FlowId, Set<StoredFlowEntry>> flowTable = getFlowTable(deviceId);
+            Long baseVersion = lastBackupVersions.get(deviceId);
+            long version = backupVersions.incrementAndGet();
+            if (baseVersion == null || !Objects.equal(nodeId, lastBackupNodes.get(deviceId))) {
+                return FlowTableBackup.full(local, version, ImmutableMap.copyOf(flowTable));
+            }
+            Map<FlowId, Set<StoredFlowEntry>> changes = Maps.newHashMap();
+            if (dirty != null) {
+                dirty.forEach(flowId -> changes.put(flowId, flowTable.getOrDefault(flowId, ImmutableSet.of())));
+            }
+            return FlowTableBackup.delta(local, baseVersion, version, changes);
+        }
+
+        /**
+         * Records that the flow entries of the specified flow rule changed and
+         * must be included in the next backup.
+         *
+         * @param rule flow rule whose entries changed
+         */
+        public void markDirty(FlowRule rule) {
+            dirtyFlowIds.computeIfAbsent(rule.deviceId(), id -> Sets.newConcurrentHashSet())
+                        .add(rule.id());
+        }
+
+        /**
+         * Discards the backup state of the specified device, so that any
+         * backup of its flow table starts over with a full one.
+         *
+         * @param deviceId identifier of the device
+         */
+        public void purgeBackups(DeviceId deviceId) {
+            dirtyFlowIds.remove(deviceId);
+            lastBackupNodes.remove(deviceId);
+            lastBackupVersions.remove(deviceId);
+            backupSources.remove(deviceId);
+            backupSourceVersions.remove(deviceId);
+        }
+
         /**
          * Returns the flow table for specified device.
          *
@@ -715,14 +812,14 @@ public class NewDistributedFlowRuleStore
 
         public void add(FlowEntry rule) {
             getFlowEntriesInternal(rule.deviceId(), rule.id()).add((StoredFlowEntry) rule);
-            lastUpdateTimes.put(rule.deviceId(), System.currentTimeMillis());
+            markDirty(rule);
         }
 
         public boolean remove(DeviceId deviceId, FlowEntry rule) {
             try {
                 return getFlowEntriesInternal(deviceId, rule.id()).remove(rule);
             } finally {
-                lastUpdateTimes.put(deviceId, System.currentTimeMillis());
+                markDirty(rule);
             }
         }
 
@@ -741,13 +838,11 @@ public class NewDistributedFlowRuleStore
                 Set<DeviceId> devicesToBackup = mastershipService.getDevicesOf(local)
                             .stream()
                             .filter(deviceId -> {
-                                Long lastBackupTime = lastBackupTimes.get(deviceId);
-                                Long lastUpdateTime = lastUpdateTimes.get(deviceId);
                                 NodeId lastBackupNode = lastBackupNodes.get(deviceId);
                                 NodeId newBackupNode = getBackupNode(deviceId);
-                                return lastBackupTime == null
-                                        ||  !Objects.equal(lastBackupNode, newBackupNode)
-                                        || (lastUpdateTime != null && lastUpdateTime > lastBackupTime);
+                                Set<FlowId> dirty = dirtyFlowIds.get(deviceId);
+                                return !Objects.equal(lastBackupNode, newBackupNode)
+                                        || (dirty != null && !dirty.isEmpty());
                             })
                             .collect(Collectors.toSet());
 
@@ -767,18 +862,26 @@ public class NewDistributedFlowRuleStore
             }
         }
 
-        private Set<DeviceId> onBackupReceipt(Map<DeviceId, Map<FlowId, Set<StoredFlowEntry>>> flowTables) {
+        private Set<DeviceId> onBackupReceipt(Map<DeviceId, FlowTableBackup> flowTables) {
             log.debug("Received flowEntries for {} to backup", flowTables.keySet());
             Set<DeviceId> backedupDevices = Sets.newHashSet();
             try {
-                flowTables.forEach((deviceId, deviceFlowTable) -> {
+                flowTables.forEach((deviceId, backup) -> {
                     // Only process those devices are that not managed by the local node.
-                    if (!Objects.equal(local, mastershipService.getMasterFor(deviceId))) {
-                        Map<FlowId, Set<StoredFlowEntry>> backupFlowTable = getFlowTable(deviceId);
-                        backupFlowTable.clear();
-                        backupFlowTable.putAll(deviceFlowTable);
-                        backedupDevices.add(deviceId);
+                    if (Objects.equal(local, mastershipService.getMasterFor(deviceId))) {
+                        return;
+                    }
+                    // An incremental backup is only usable on top of the backup it was based on.
+                    if (!backup.isFull()
+                            && !(Objects.equal(backup.source(), backupSources.get(deviceId))
+                                 && Objects.equal(backup.baseVersion(), backupSourceVersions.get(deviceId)))) {
+                        log.debug("Rejecting incremental backup {} for {}", backup, deviceId);
+                        return;
                     }
+                    backup.applyTo(getFlowTable(deviceId));
+                    backupSources.put(deviceId, backup.source());
+                    backupSourceVersions.put(deviceId, backup.version());
+                    backedupDevices.add(deviceId);
                 });
             } catch (Exception e) {
                 log.warn("Failure processing backup request", e);
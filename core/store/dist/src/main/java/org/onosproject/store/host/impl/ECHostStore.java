@@ -9,12 +9,8 @@ import static org.onosproject.store.service.EventuallyConsistentMapEvent.Type.PU
 import static org.onosproject.store.service.EventuallyConsistentMapEvent.Type.REMOVE;
 import static org.slf4j.LoggerFactory.getLogger;
 
-import java.util.Collection;
 import java.util.Collections;
-import java.util.Objects;
 import java.util.Set;
-import java.util.function.Predicate;
-import java.util.stream.Collectors;
 
 import org.apache.felix.scr.annotations.Activate;
 import org.apache.felix.scr.annotations.Component;
@@ -50,7 +46,6 @@ import org.onosproject.store.service.StorageService;
 import org.slf4j.Logger;
 
 import com.google.common.collect.HashMultimap;
-import com.google.common.collect.ImmutableMultimap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Multimaps;
 import com.google.common.collect.SetMultimap;
@@ -73,10 +68,9 @@ public class ECHostStore
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
     protected LogicalClockService clockService;
 
-    // Hosts tracked by their location
-    private final SetMultimap<ConnectPoint, Host> locations =
-            Multimaps.synchronizedSetMultimap(
-                    HashMultimap.<ConnectPoint, Host>create());
+    // Hosts indexed by their attributes; kept up to date by the map listener
+    // so that updates replicated from other instances are indexed as well
+    private final HostIndex index = new HostIndex();
 
     private final SetMultimap<ConnectPoint, PortAddresses> portAddresses =
             Multimaps.synchronizedSetMultimap(
@@ -107,7 +101,7 @@ public class ECHostStore
     public void deactivate() {
         hosts.removeListener(hostLocationTracker);
         hosts.destroy();
-        locations.clear();
+        index.clear();
         portAddresses.clear();
 
         log.info("Stopped");
@@ -156,32 +150,27 @@ public class ECHostStore
 
     @Override
     public Set<Host> getHosts(VlanId vlanId) {
-        return filter(hosts.values(), host -> Objects.equals(host.vlan(), vlanId));
+        return index.getHosts(vlanId);
     }
 
     @Override
     public Set<Host> getHosts(MacAddress mac) {
-        return filter(hosts.values(), host -> Objects.equals(host.mac(), mac));
+        return index.getHosts(mac);
     }
 
     @Override
     public Set<Host> getHosts(IpAddress ip) {
-        return filter(hosts.values(), host -> host.ipAddresses().contains(ip));
+        return index.getHosts(ip);
     }
 
     @Override
     public Set<Host> getConnectedHosts(ConnectPoint connectPoint) {
-        return ImmutableSet.copyOf(locations.get(connectPoint));
+        return index.getConnectedHosts(connectPoint);
     }
 
     @Override
     public Set<Host> getConnectedHosts(DeviceId deviceId) {
-        return ImmutableMultimap.copyOf(locations)
-                .entries()
-                .stream()
-                .filter(entry -> entry.getKey().deviceId().equals(deviceId))
-                .map(entry -> entry.getValue())
-                .collect(Collectors.toSet());
+        return index.getConnectedHosts(deviceId);
     }
 
     @Override
@@ -212,10 +201,6 @@ public class ECHostStore
         }
     }
 
-    private Set<Host> filter(Collection<DefaultHost> collection, Predicate<DefaultHost> predicate) {
-        return collection.stream().filter(predicate).collect(Collectors.toSet());
-    }
-
     // checks for type of update to host, sends appropriate event
     private HostEvent updateHost(ProviderId providerId,
                                  HostId hostId,
@@ -240,8 +225,6 @@ public class ECHostStore
 
             // TODO: We need a way to detect conflicting changes and abort update.
             hosts.put(hostId, updatedHost);
-            locations.remove(currentHost.location(), currentHost);
-            locations.put(updatedHost.location(), updatedHost);
 
             HostEvent.Type eventType = hostMoved ? Type.HOST_MOVED : Type.HOST_UPDATED;
             return new HostEvent(eventType, updatedHost);
@@ -254,10 +237,11 @@ public class ECHostStore
         public void event(EventuallyConsistentMapEvent<HostId, DefaultHost> event) {
             DefaultHost host = checkNotNull(event.value());
             if (event.type() == PUT) {
-                boolean isNew = locations.put(host.location(), host);
+                Host previous = index.put(host);
+                boolean isNew = !host.equals(previous);
                 notifyDelegate(new HostEvent(isNew ? HOST_ADDED : HOST_UPDATED, host));
             } else if (event.type() == REMOVE) {
-                if (locations.remove(host.location(), host)) {
+                if (index.remove(host.id()) != null) {
                     notifyDelegate(new HostEvent(HOST_REMOVED, host));
                 }
 
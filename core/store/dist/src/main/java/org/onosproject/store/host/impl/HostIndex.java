@@ -0,0 +1,175 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.host.impl;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.onlab.packet.IpAddress;
+import org.onlab.packet.MacAddress;
+import org.onlab.packet.VlanId;
+import org.onosproject.net.ConnectPoint;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.Host;
+import org.onosproject.net.HostId;
+
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Secondary indexes of hosts by their MAC address, IP addresses, VLAN,
+ * location and device, which allow hosts to be looked up without scanning
+ * the whole inventory.
+ * <p>
+ * Updates are serialized, whereas lookups proceed concurrently with them.
+ * </p>
+ */
+final class HostIndex {
+
+    private final Map<HostId, Host> hosts = new ConcurrentHashMap<>();
+    private final Map<MacAddress, Set<Host>> byMac = new ConcurrentHashMap<>();
+    private final Map<IpAddress, Set<Host>> byIp = new ConcurrentHashMap<>();
+    private final Map<VlanId, Set<Host>> byVlan = new ConcurrentHashMap<>();
+    private final Map<ConnectPoint, Set<Host>> byLocation = new ConcurrentHashMap<>();
+    private final Map<DeviceId, Set<Host>> byDevice = new ConcurrentHashMap<>();
+
+    /**
+     * Indexes the specified host, replacing the previously indexed version
+     * of the same host, if any.
+     *
+     * @param host host to index
+     * @return previously indexed version of the host; null if none
+     */
+    synchronized Host put(Host host) {
+        Host previous = hosts.put(host.id(), host);
+        if (previous != null) {
+            unindex(previous);
+        }
+        index(host);
+        return previous;
+    }
+
+    /**
+     * Removes the specified host from the indexes.
+     *
+     * @param hostId host identifier
+     * @return previously indexed version of the host; null if none
+     */
+    synchronized Host remove(HostId hostId) {
+        Host previous = hosts.remove(hostId);
+        if (previous != null) {
+            unindex(previous);
+        }
+        return previous;
+    }
+
+    /**
+     * Removes all hosts from the indexes.
+     */
+    synchronized void clear() {
+        hosts.clear();
+        byMac.clear();
+        byIp.clear();
+        byVlan.clear();
+        byLocation.clear();
+        byDevice.clear();
+    }
+
+    /**
+     * Returns the hosts with the specified MAC address.
+     *
+     * @param mac MAC address
+     * @return set of hosts
+     */
+    Set<Host> getHosts(MacAddress mac) {
+        return lookup(byMac, mac);
+    }
+
+    /**
+     * Returns the hosts with the specified IP address.
+     *
+     * @param ip IP address
+     * @return set of hosts
+     */
+    Set<Host> getHosts(IpAddress ip) {
+        return lookup(byIp, ip);
+    }
+
+    /**
+     * Returns the hosts in the specified VLAN.
+     *
+     * @param vlanId VLAN identifier
+     * @return set of hosts
+     */
+    Set<Host> getHosts(VlanId vlanId) {
+        return lookup(byVlan, vlanId);
+    }
+
+    /**
+     * Returns the hosts attached to the specified connection point.
+     *
+     * @param connectPoint connection point
+     * @return set of hosts
+     */
+    Set<Host> getConnectedHosts(ConnectPoint connectPoint) {
+        return lookup(byLocation, connectPoint);
+    }
+
+    /**
+     * Returns the hosts attached to the specified device.
+     *
+     * @param deviceId device identifier
+     * @return set of hosts
+     */
+    Set<Host> getConnectedHosts(DeviceId deviceId) {
+        return lookup(byDevice, deviceId);
+    }
+
+    private void index(Host host) {
+        add(byMac, host.mac(), host);
+        add(byVlan, host.vlan(), host);
+        add(byLocation, host.location(), host);
+        add(byDevice, host.location().deviceId(), host);
+        host.ipAddresses().forEach(ip -> add(byIp, ip, host));
+    }
+
+    private void unindex(Host host) {
+        remove(byMac, host.mac(), host);
+        remove(byVlan, host.vlan(), host);
+        remove(byLocation, host.location(), host);
+        remove(byDevice, host.location().deviceId(), host);
+        host.ipAddresses().forEach(ip -> remove(byIp, ip, host));
+    }
+
+    private static <K> void add(Map<K, Set<Host>> index, K key, Host host) {
+        if (key == null) {
+            return;
+        }
+        index.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(host);
+    }
+
+    private static <K> void remove(Map<K, Set<Host>> index, K key, Host host) {
+        Set<Host> hosts = key == null ? null : index.get(key);
+        if (hosts != null && hosts.remove(host) && hosts.isEmpty()) {
+            index.remove(key);
+        }
+    }
+
+    private static <K> Set<Host> lookup(Map<K, Set<Host>> index, K key) {
+        Set<Host> hosts = key == null ? null : index.get(key);
+        return hosts == null ? ImmutableSet.of() : ImmutableSet.copyOf(hosts);
+    }
+}
@@ -93,7 +93,8 @@ public class GossipIntentStore
                 .register(KryoNamespaces.API)
                 .register(IntentData.class)
                 .register(MultiValuedTimestamp.class)
-                .register(WallClockTimestamp.class);
+                .register(WallClockTimestamp.class)
+                .register(KryoNamespaces.HOT_PATH_V1);
 
         currentMap = storageService.<Key, IntentData>eventuallyConsistentMapBuilder()
                 .withName("intent-current")
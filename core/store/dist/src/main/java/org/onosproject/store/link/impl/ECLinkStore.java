@@ -30,7 +30,7 @@ import static org.onosproject.store.service.EventuallyConsistentMapEvent.Type.PU
 import static org.onosproject.store.service.EventuallyConsistentMapEvent.Type.REMOVE;
 import static org.slf4j.LoggerFactory.getLogger;
 
-import java.util.Collection;
+import java.util.Collections;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
@@ -80,6 +80,7 @@ import org.slf4j.Logger;
 
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import com.google.common.util.concurrent.Futures;
 
 /**
@@ -94,6 +95,11 @@ public class ECLinkStore
     private final Logger log = getLogger(getClass());
 
     private final Map<LinkKey, Link> links = Maps.newConcurrentMap();
+
+    // Keys of the cached links indexed by their source and destination
+    // devices; maintained along with the link cache itself
+    private final Map<DeviceId, Set<LinkKey>> egressLinks = Maps.newConcurrentMap();
+    private final Map<DeviceId, Set<LinkKey>> ingressLinks = Maps.newConcurrentMap();
     private EventuallyConsistentMap<Provided<LinkKey>, LinkDescription> linkDescriptions;
 
     private static final MessageSubject LINK_INJECT_MESSAGE = new MessageSubject("inject-link-request");
@@ -161,6 +167,8 @@ public class ECLinkStore
         linkDescriptions.removeListener(linkTracker);
         linkDescriptions.destroy();
         links.clear();
+        egressLinks.clear();
+        ingressLinks.clear();
         clusterCommunicator.removeSubscriber(LINK_INJECT_MESSAGE);
 
         log.info("Stopped");
@@ -178,12 +186,12 @@ public class ECLinkStore
 
     @Override
     public Set<Link> getDeviceEgressLinks(DeviceId deviceId) {
-        return filter(links.values(), link -> deviceId.equals(link.src().deviceId()));
+        return filter(egressLinks, deviceId, link -> true);
     }
 
     @Override
     public Set<Link> getDeviceIngressLinks(DeviceId deviceId) {
-        return filter(links.values(), link -> deviceId.equals(link.dst().deviceId()));
+        return filter(ingressLinks, deviceId, link -> true);
     }
 
     @Override
@@ -193,12 +201,12 @@ public class ECLinkStore
 
     @Override
     public Set<Link> getEgressLinks(ConnectPoint src) {
-        return filter(links.values(), link -> src.equals(link.src()));
+        return filter(egressLinks, src.deviceId(), link -> src.equals(link.src()));
     }
 
     @Override
     public Set<Link> getIngressLinks(ConnectPoint dst) {
-        return filter(links.values(), link -> dst.equals(link.dst()));
+        return filter(ingressLinks, dst.deviceId(), link -> dst.equals(link.dst()));
     }
 
     @Override
@@ -243,6 +251,7 @@ public class ECLinkStore
         Link link = links.compute(linkKey, (key, existingLink) -> {
             Link newLink = composeLink(linkKey);
             if (existingLink == null) {
+                indexLink(key);
                 eventType.set(LINK_ADDED);
                 return newLink;
             } else if (existingLink.state() != newLink.state() ||
@@ -307,7 +316,12 @@ public class ECLinkStore
             (oldLink.type() == INDIRECT && newLink.type() == DIRECT) ||
             !AnnotationsUtil.isEqual(oldLink.annotations(), newLink.annotations())) {
 
-            links.put(key, newLink);
+            links.compute(key, (k, existingLink) -> {
+                if (existingLink == null) {
+                    indexLink(k);
+                }
+                return newLink;
+            });
             return new LinkEvent(LINK_UPDATED, newLink);
         }
         return null;
@@ -350,7 +364,13 @@ public class ECLinkStore
     }
 
     private LinkEvent purgeLinkCache(LinkKey linkKey) {
-        Link removedLink = links.remove(linkKey);
+        AtomicReference<Link> removed = new AtomicReference<>();
+        links.computeIfPresent(linkKey, (key, existingLink) -> {
+            unindexLink(key);
+            removed.set(existingLink);
+            return null;
+        });
+        Link removedLink = removed.get();
         if (removedLink != null) {
             getAllProviders(linkKey).forEach(p -> linkDescriptions.remove(new Provided<>(linkKey, p)));
             return new LinkEvent(LINK_REMOVED, removedLink);
@@ -358,8 +378,46 @@ public class ECLinkStore
         return null;
     }
 
-    private Set<Link> filter(Collection<Link> links, Predicate<Link> predicate) {
-        return links.stream().filter(predicate).collect(Collectors.toSet());
+    // Adds the link key to the device indexes; invoked while holding the
+    // link cache entry, so that no concurrent update of the link interleaves.
+    private void indexLink(LinkKey key) {
+        addToIndex(egressLinks, key.src().deviceId(), key);
+        addToIndex(ingressLinks, key.dst().deviceId(), key);
+    }
+
+    // Removes the link key from the device indexes; see indexLink.
+    private void unindexLink(LinkKey key) {
+        removeFromIndex(egressLinks, key.src().deviceId(), key);
+        removeFromIndex(ingressLinks, key.dst().deviceId(), key);
+    }
+
+    private static void addToIndex(Map<DeviceId, Set<LinkKey>> index, DeviceId deviceId, LinkKey key) {
+        index.compute(deviceId, (id, keys) -> {
+            Set<LinkKey> result = keys != null ? keys : Sets.newConcurrentHashSet();
+            result.add(key);
+            return result;
+        });
+    }
+
+    private static void removeFromIndex(Map<DeviceId, Set<LinkKey>> index, DeviceId deviceId, LinkKey key) {
+        index.computeIfPresent(deviceId, (id, keys) -> {
+            keys.remove(key);
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+
+    // Returns the cached links indexed under the given device which satisfy
+    // the given predicate.
+    private Set<Link> filter(Map<DeviceId, Set<LinkKey>> index, DeviceId deviceId,
+                             Predicate<Link> predicate) {
+        Set<LinkKey> keys = index.get(deviceId);
+        if (keys == null) {
+            return Collections.emptySet();
+        }
+        return keys.stream()
+                .map(links::get)
+                .filter(link -> link != null && predicate.test(link))
+                .collect(Collectors.toSet());
     }
 
     private LinkEvent injectLink(Provided<LinkDescription> linkInjectRequest) {
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.consistent.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.onosproject.store.serializers.KryoNamespaces;
+import org.onosproject.store.service.ReadConsistency;
+import org.onosproject.store.service.Serializer;
+import org.onosproject.store.service.Versioned;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Unit tests for AsyncCachingConsistentMap.
+ */
+public class AsyncCachingConsistentMapTest {
+
+    private static final long TIMEOUT_SEC = 5;
+
+    private List<TestDatabase> partitions;
+    private PartitionedDatabase database;
+    private AsyncCachingConsistentMap<String, String> map;
+
+    @Before
+    public void setUp() {
+        partitions = ImmutableList.of(new TestDatabase("p1"), new TestDatabase("p2"), new TestDatabase("p3"));
+        database = new PartitionedDatabase("test", ImmutableList.copyOf(partitions));
+        map = new AsyncCachingConsistentMap<>("map", null, database, Serializer.using(KryoNamespaces.BASIC),
+                                              false, false, false, ReadConsistency.LINEARIZABLE);
+    }
+
+    private int batchGets() {
+        return partitions.stream().mapToInt(p -> p.calls("mapBatchGet")).sum();
+    }
+
+    @Test
+    public void getAllServesCachedValues() throws Exception {
+        database.open().join();
+        map.put("a", "1").join();
+        map.put("b", "2").join();
+        assertEquals("1", map.get("a").join().value());
+
+        Map<String, Versioned<String>> values = map.getAll(ImmutableList.of("a", "b", "c")).join();
+        assertEquals(2, values.size());
+        assertEquals("1", values.get("a").value());
+        assertEquals("2", values.get("b").value());
+        assertFalse(values.containsKey("c"));
+        int batches = batchGets();
+        assertTrue("misses should be fetched", batches > 0);
+
+        // all three keys, including the absent one, are now cached
+        values = map.getAll(ImmutableList.of("a", "b", "c")).join();
+        assertEquals(2, values.size());
+        assertEquals(batches, batchGets());
+        assertEquals("2", map.get("b").join().value());
+    }
+
+    @Test
+    public void getAllFailingToStart() throws Exception {
+        // the database is not open yet, so the batch read throws immediately
+        CompletableFuture<Map<String, Versioned<String>>> values = map.getAll(ImmutableList.of("a", "b"));
+        assertTrue(values.isCompletedExceptionally());
+
+        // the failed reads must not stay in the cache
+        database.open().join();
+        map.put("a", "1").join();
+        assertEquals("1", map.get("a").get(TIMEOUT_SEC, TimeUnit.SECONDS).value());
+        assertEquals(1, map.getAll(ImmutableList.of("a", "b")).get(TIMEOUT_SEC, TimeUnit.SECONDS).size());
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.consistent.impl;
+
+import static org.easymock.EasyMock.createMock;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+import org.onlab.util.HexString;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.testing.EqualsTester;
+
+/**
+ * Unit tests for BinaryKey.
+ */
+public class BinaryKeyTest {
+
+    @Test
+    public void testEquality() {
+        new EqualsTester()
+                .addEqualityGroup(BinaryKey.wrap(new byte[] {1, 2, 3}),
+                                  BinaryKey.wrap(new byte[] {1, 2, 3}),
+                                  BinaryKey.fromHexString("01:02:03"))
+                .addEqualityGroup(BinaryKey.wrap(new byte[] {1, 2}))
+                .addEqualityGroup(BinaryKey.wrap(new byte[] {(byte) 0xff}))
+                .testEquals();
+    }
+
+    @Test
+    public void testHexString() {
+        byte[] bytes = new byte[] {0, 0x7f, (byte) 0x80, (byte) 0xff};
+        BinaryKey key = BinaryKey.wrap(bytes);
+        assertEquals(HexString.toHexString(bytes), key.toString());
+        assertArrayEquals(bytes, BinaryKey.fromHexString(key.toString()).bytes());
+        assertEquals(4, key.length());
+    }
+
+    @Test
+    public void testOrder() {
+        BinaryKey k1 = BinaryKey.wrap(new byte[] {1});
+        BinaryKey k2 = BinaryKey.wrap(new byte[] {1, 0});
+        BinaryKey k3 = BinaryKey.wrap(new byte[] {(byte) 0x80});
+        assertTrue(k1.compareTo(k2) < 0);
+        assertTrue(k2.compareTo(k3) < 0);
+        assertEquals(0, k1.compareTo(BinaryKey.wrap(new byte[] {1})));
+    }
+
+    @Test
+    public void testPartitionMatchesLegacyHexKey() {
+        List<Database> partitions = ImmutableList.of(createMock(Database.class),
+                                                     createMock(Database.class),
+                                                     createMock(Database.class));
+        SimpleKeyHashPartitioner partitioner = new SimpleKeyHashPartitioner(partitions);
+        for (int i = 0; i < 256; i++) {
+            BinaryKey key = BinaryKey.wrap(new byte[] {(byte) i, (byte) (i * 7), 42});
+            assertSame(partitioner.getPartition("map", key.toString()),
+                       partitioner.getPartition("map", key));
+        }
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.consistent.impl;
+
+import static org.easymock.EasyMock.anyObject;
+import static org.easymock.EasyMock.anyString;
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expectLastCall;
+import static org.easymock.EasyMock.getCurrentArguments;
+import static org.easymock.EasyMock.replay;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.onosproject.store.service.DatabaseUpdate;
+import org.onosproject.store.service.Versioned;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import net.kuujo.copycat.state.StateContext;
+
+/**
+ * Unit tests for DefaultDatabaseState.
+ */
+public class DefaultDatabaseStateTest {
+
+    private static final String MAP = "map";
+    private static final BinaryKey KEY = BinaryKey.wrap(new byte[] {1, 2, 3});
+    private static final byte[] VALUE = new byte[] {4, 5};
+
+    private Map<String, Object> data;
+    private DefaultDatabaseState state;
+
+    @Before
+    public void setUp() {
+        data = Maps.newHashMap();
+        state = newState(data);
+    }
+
+    // Returns a state whose context is backed by the specified data map.
+    @SuppressWarnings("unchecked")
+    private static DefaultDatabaseState newState(Map<String, Object> contents) {
+        StateContext<DatabaseState<BinaryKey, byte[]>> context = createMock(StateContext.class);
+        context.get(anyString());
+        expectLastCall().andAnswer(() -> contents.get(getCurrentArguments()[0])).anyTimes();
+        context.put(anyString(), anyObject());
+        expectLastCall().andAnswer(() -> {
+            contents.put((String) getCurrentArguments()[0], getCurrentArguments()[1]);
+            return null;
+        }).anyTimes();
+        replay(context);
+        DefaultDatabaseState databaseState = new DefaultDatabaseState();
+        databaseState.init(context);
+        return databaseState;
+    }
+
+    @Test
+    public void testBinaryKeys() {
+        Result<UpdateResult<BinaryKey, byte[]>> result =
+                state.mapUpdate(MAP, KEY, Match.any(), Match.any(), VALUE);
+        assertTrue(result.success());
+        assertEquals(KEY, result.value().key());
+        assertTrue(state.mapContainsKey(MAP, BinaryKey.wrap(new byte[] {1, 2, 3})));
+        assertEquals(ImmutableSet.of(KEY), state.mapKeySet(MAP));
+    }
+
+    @Test
+    public void testLegacyHexKeys() {
+        // commands replayed from logs of earlier releases carry hex keys
+        state.mapUpdate(MAP, "01:02:03", Match.any(), Match.any(), VALUE);
+        Versioned<byte[]> value = state.mapGet(MAP, KEY);
+        assertArrayEquals(VALUE, value.value());
+        assertTrue(state.mapContainsKey(MAP, "01:02:03"));
+        assertEquals(ImmutableSet.of(KEY), state.mapKeySet(MAP));
+    }
+
+    @Test
+    public void testLocalReads() {
+        assertNull(state.mapGetLocal(MAP, KEY));
+        assertFalse(state.mapContainsKeyLocal(MAP, KEY));
+        state.mapUpdate(MAP, KEY, Match.any(), Match.any(), VALUE);
+        assertArrayEquals(VALUE, state.mapGetLocal(MAP, KEY).value());
+        assertTrue(state.mapContainsKeyLocal(MAP, KEY));
+    }
+
+    @Test
+    public void testMapSize() {
+        BinaryKey other = BinaryKey.wrap(new byte[] {9});
+        assertEquals(0, state.mapSize(MAP));
+        state.mapUpdate(MAP, KEY, Match.any(), Match.any(), VALUE);
+        state.mapUpdate(MAP, KEY, Match.any(), Match.any(), VALUE);
+        state.mapUpdate(MAP, other, Match.any(), Match.any(), VALUE);
+        assertEquals(2, state.mapSize(MAP));
+        state.mapUpdate(MAP, KEY, Match.any(), Match.any(), null);
+        state.mapUpdate(MAP, KEY, Match.any(), Match.any(), null);
+        assertEquals(1, state.mapSize(MAP));
+        assertEquals(Result.Status.OK, state.mapClear(MAP).status());
+        assertEquals(0, state.mapSize(MAP));
+        assertTrue(state.mapIsEmpty(MAP));
+
+        // a snapshot taken without entry counts is counted when restored
+        state.mapUpdate(MAP, other, Match.any(), Match.any(), VALUE);
+        data.remove("mapSizes");
+        assertEquals(1, newState(data).mapSize(MAP));
+    }
+
+    @Test
+    public void testScan() {
+        for (int i = 9; i >= 0; i--) {
+            state.mapUpdate(MAP, BinaryKey.wrap(new byte[] {(byte) (i * 20)}), Match.any(), Match.any(), VALUE);
+        }
+        List<BinaryKey> scanned = Lists.newArrayList();
+        BinaryKey after = null;
+        List<Entry<BinaryKey, Versioned<byte[]>>> page;
+        do {
+            page = state.mapScan(MAP, after, 3);
+            assertTrue(page.size() <= 3);
+            page.forEach(e -> scanned.add(e.getKey()));
+            after = page.isEmpty() ? null : page.get(page.size() - 1).getKey();
+        } while (page.size() == 3);
+
+        assertEquals(10, scanned.size());
+        for (int i = 1; i < scanned.size(); i++) {
+            // keys are returned in unsigned byte order
+            assertTrue(scanned.get(i - 1).compareTo(scanned.get(i)) < 0);
+        }
+        assertTrue(state.mapScan(MAP, scanned.get(9), 3).isEmpty());
+        assertTrue(state.mapScan("other", null, 3).isEmpty());
+        assertNull(state.mapGet("other", KEY));
+    }
+
+    @Test
+    public void testBatchUpdate() {
+        BinaryKey other = BinaryKey.wrap(new byte[] {9});
+        Result<List<UpdateResult<BinaryKey, byte[]>>> result =
+                state.mapBatchUpdate(MAP, ImmutableList.of(KEY, other), Lists.newArrayList(VALUE, VALUE));
+        assertTrue(result.success());
+        assertEquals(2, result.value().size());
+        assertTrue(result.value().get(1).updated());
+        assertEquals(other, result.value().get(1).key());
+
+        List<Versioned<byte[]>> values = state.mapBatchGet(MAP, ImmutableList.of(other, BinaryKey.wrap(new byte[0])));
+        assertArrayEquals(VALUE, values.get(0).value());
+        assertNull(values.get(1));
+
+        result = state.mapBatchUpdate(MAP, ImmutableList.of(KEY), Lists.newArrayList((byte[]) null));
+        assertTrue(result.value().get(0).updated());
+        assertArrayEquals(VALUE, result.value().get(0).oldValue().value());
+        assertFalse(state.mapContainsKey(MAP, KEY));
+    }
+
+    @Test
+    public void testBatchUpdateLocked() {
+        DatabaseUpdate update = DatabaseUpdate.newBuilder()
+                .withMapName(MAP)
+                .withType(DatabaseUpdate.Type.PUT)
+                .withKey(KEY.toString())
+                .withValue(VALUE)
+                .build();
+        assertTrue(state.prepare(new DefaultTransaction(1, ImmutableList.of(update))));
+
+        BinaryKey other = BinaryKey.wrap(new byte[] {9});
+        Result<List<UpdateResult<BinaryKey, byte[]>>> result =
+                state.mapBatchUpdate(MAP, ImmutableList.of(other, KEY), Lists.newArrayList(VALUE, VALUE));
+        assertEquals(Result.Status.LOCKED, result.status());
+        // nothing is applied when any key is locked
+        assertFalse(state.mapContainsKey(MAP, other));
+    }
+
+    @Test
+    public void testSnapshot() {
+        state.mapUpdate(MAP, KEY, Match.any(), Match.any(), VALUE);
+        state.counterAddAndGet("counter", 5);
+        state.queuePush("queue", VALUE);
+        BinaryKey locked = BinaryKey.wrap(new byte[] {9});
+        DatabaseUpdate update = DatabaseUpdate.newBuilder()
+                .withMapName(MAP)
+                .withType(DatabaseUpdate.Type.PUT)
+                .withKey(locked.toString())
+                .withValue(VALUE)
+                .build();
+        assertTrue(state.prepare(new DefaultTransaction(1, ImmutableList.of(update))));
+
+        DatabaseSerializer serializer = new DatabaseSerializer();
+        Map<String, Object> snapshot = serializer.readObject(serializer.writeObject(data));
+        DefaultDatabaseState restored = newState(snapshot);
+
+        Versioned<byte[]> value = restored.mapGet(MAP, KEY);
+        assertArrayEquals(VALUE, value.value());
+        assertEquals(state.mapGet(MAP, KEY).version(), value.version());
+        assertEquals(Long.valueOf(5), restored.counterGet("counter"));
+        assertArrayEquals(VALUE, restored.queuePop("queue"));
+        assertEquals(Result.Status.LOCKED,
+                     restored.mapUpdate(MAP, locked, Match.any(), Match.any(), VALUE).status());
+
+        // versions keep increasing across the snapshot
+        Result<UpdateResult<BinaryKey, byte[]>> result =
+                restored.mapUpdate(MAP, KEY, Match.any(), Match.any(), VALUE);
+        assertTrue(result.value().newValue().version() > value.version());
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.consistent.impl;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.onosproject.store.service.DatabaseUpdate;
+import org.onosproject.store.service.MapPage;
+import org.onosproject.store.service.Versioned;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Ordering;
+
+/**
+ * Unit tests for PartitionedDatabase.
+ */
+public class PartitionedDatabaseTest {
+
+    private static final String MAP = "map";
+    private static final int KEY_COUNT = 32;
+
+    private List<TestDatabase> partitions;
+    private PartitionedDatabase database;
+
+    @Before
+    public void setUp() {
+        partitions = ImmutableList.of(new TestDatabase("p1"), new TestDatabase("p2"), new TestDatabase("p3"));
+        database = new PartitionedDatabase("test", ImmutableList.copyOf(partitions));
+        database.open().join();
+    }
+
+    private static BinaryKey key(int i) {
+        return BinaryKey.wrap(new byte[] {(byte) i});
+    }
+
+    private static byte[] value(int i) {
+        return new byte[] {(byte) i, (byte) i};
+    }
+
+    @Test
+    public void batchUpdateAndGetAcrossPartitions() {
+        List<BinaryKey> keys = Lists.newArrayList();
+        List<byte[]> values = Lists.newArrayList();
+        for (int i = 0; i < KEY_COUNT; i++) {
+            keys.add(key(i));
+            values.add(value(i));
+        }
+
+        Result<List<UpdateResult<BinaryKey, byte[]>>> result =
+                database.mapBatchUpdate(MAP, keys, values).join();
+        assertTrue(result.success());
+        assertEquals(KEY_COUNT, result.value().size());
+        for (int i = 0; i < KEY_COUNT; i++) {
+            assertEquals("result out of place", key(i), result.value().get(i).key());
+            assertTrue(result.value().get(i).updated());
+        }
+        int used = 0;
+        for (TestDatabase partition : partitions) {
+            assertTrue("one batch per partition", partition.calls("mapBatchUpdate") <= 1);
+            used += partition.calls("mapBatchUpdate");
+            assertEquals("single key updates", 0, partition.calls("mapUpdate"));
+        }
+        assertTrue("keys should span partitions", used > 1);
+        assertEquals(KEY_COUNT, database.mapSize(MAP).join().intValue());
+
+        // read back in reverse order, with a missing key in the middle
+        List<BinaryKey> readKeys = Lists.newArrayList(Lists.reverse(keys));
+        readKeys.add(KEY_COUNT / 2, key(KEY_COUNT + 1));
+        List<Versioned<byte[]>> read = database.mapBatchGet(MAP, readKeys).join();
+        assertEquals(readKeys.size(), read.size());
+        for (int i = 0; i < readKeys.size(); i++) {
+            if (readKeys.get(i).equals(key(KEY_COUNT + 1))) {
+                assertNull(read.get(i));
+            } else {
+                assertArrayEquals("value out of place",
+                                  value(readKeys.get(i).bytes()[0]), read.get(i).value());
+            }
+        }
+        for (TestDatabase partition : partitions) {
+            assertTrue("one batch per partition", partition.calls("mapBatchGet") <= 1);
+            assertEquals("single key reads", 0, partition.calls("mapGet"));
+        }
+    }
+
+    @Test
+    public void batchWithinOnePartition() {
+        List<BinaryKey> keys = ImmutableList.of(key(1));
+        database.mapBatchUpdate(MAP, keys, Lists.newArrayList(value(1))).join();
+        List<Versioned<byte[]>> read = database.mapBatchGet(MAP, keys).join();
+        assertArrayEquals(value(1), read.get(0).value());
+
+        int batches = 0;
+        for (TestDatabase partition : partitions) {
+            batches += partition.calls("mapBatchGet");
+        }
+        assertEquals(1, batches);
+    }
+
+    @Test
+    public void batchUpdateLockedInOnePartition() {
+        BinaryKey locked = key(0);
+        DatabaseUpdate update = DatabaseUpdate.newBuilder()
+                .withMapName(MAP)
+                .withType(DatabaseUpdate.Type.PUT)
+                .withKey(locked.toString())
+                .withValue(value(0))
+                .build();
+        assertTrue(database.prepare(new DefaultTransaction(1, ImmutableList.of(update))).join());
+
+        List<BinaryKey> keys = Lists.newArrayList();
+        List<byte[]> values = Lists.newArrayList();
+        for (int i = 0; i < KEY_COUNT; i++) {
+            keys.add(key(i));
+            values.add(value(i));
+        }
+        Result<List<UpdateResult<BinaryKey, byte[]>>> result =
+                database.mapBatchUpdate(MAP, keys, values).join();
+        assertTrue("other partitions should be updated", result.success());
+        assertNull("locked partition should be left out", result.value().get(0));
+
+        int updated = 0;
+        for (int i = 0; i < KEY_COUNT; i++) {
+            Versioned<byte[]> stored = database.mapGet(MAP, key(i)).join();
+            if (result.value().get(i) == null) {
+                assertNull("key of locked partition updated", stored);
+            } else {
+                assertEquals("result out of place", key(i), result.value().get(i).key());
+                assertArrayEquals(value(i), stored.value());
+                updated++;
+            }
+        }
+        assertTrue("keys should span partitions", updated > 0);
+        assertEquals(updated, database.mapSize(MAP).join().intValue());
+    }
+
+    @Test
+    public void pagedScanFetchesEachEntryOnce() {
+        List<BinaryKey> keys = Lists.newArrayList();
+        List<byte[]> values = Lists.newArrayList();
+        for (int i = 0; i < KEY_COUNT; i++) {
+            keys.add(key(i));
+            values.add(value(i));
+        }
+        database.mapBatchUpdate(MAP, keys, values).join();
+
+        List<BinaryKey> scanned = Lists.newArrayList();
+        MapPage<BinaryKey, byte[]> page = database.mapScanPage(MAP, null, 5).join();
+        scanned.addAll(Lists.transform(page.entries(), Map.Entry::getKey));
+        while (!page.isLast()) {
+            assertTrue("page too large", page.entries().size() <= 5);
+            page = database.mapScanPage(MAP, page.next(), 5).join();
+            scanned.addAll(Lists.transform(page.entries(), Map.Entry::getKey));
+        }
+
+        assertEquals(KEY_COUNT, scanned.size());
+        assertEquals("keys out of order", Ordering.natural().sortedCopy(keys), scanned);
+        int transferred = 0;
+        for (TestDatabase partition : partitions) {
+            transferred += partition.scannedEntries();
+        }
+        assertEquals("entries fetched more than once", KEY_COUNT, transferred);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void batchGetWhenNotOpen() {
+        new PartitionedDatabase("closed", ImmutableList.copyOf(partitions))
+                .mapBatchGet(MAP, ImmutableList.of(key(1)));
+    }
+}
@@ -0,0 +1,307 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.consistent.impl;
+
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static org.easymock.EasyMock.anyObject;
+import static org.easymock.EasyMock.anyString;
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expectLastCall;
+import static org.easymock.EasyMock.getCurrentArguments;
+import static org.easymock.EasyMock.replay;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.onosproject.store.service.Transaction;
+import org.onosproject.store.service.Versioned;
+
+import com.google.common.collect.Maps;
+
+import net.kuujo.copycat.Task;
+import net.kuujo.copycat.cluster.Cluster;
+import net.kuujo.copycat.resource.ResourceState;
+import net.kuujo.copycat.state.StateContext;
+
+/**
+ * Single partition database that applies operations directly to a local
+ * database state, without replication. Counts the operations it serves so
+ * that tests can check how requests were spread across partitions.
+ */
+final class TestDatabase implements Database {
+
+    private final String name;
+    private final DefaultDatabaseState state;
+    private final Map<String, AtomicInteger> calls = Maps.newConcurrentMap();
+    private final AtomicInteger scannedEntries = new AtomicInteger();
+
+    TestDatabase(String name) {
+        this.name = name;
+        this.state = newState(Maps.newHashMap());
+    }
+
+    /**
+     * Returns the number of times the named operation was invoked.
+     *
+     * @param operation operation name, e.g. "mapBatchGet"
+     * @return number of invocations
+     */
+    int calls(String operation) {
+        AtomicInteger count = calls.get(operation);
+        return count == null ? 0 : count.get();
+    }
+
+    /**
+     * Returns the number of entries returned by scans of this partition.
+     *
+     * @return number of scanned entries
+     */
+    int scannedEntries() {
+        return scannedEntries.get();
+    }
+
+    // Returns a state whose context is backed by the specified data map.
+    @SuppressWarnings("unchecked")
+    private static DefaultDatabaseState newState(Map<String, Object> contents) {
+        StateContext<DatabaseState<BinaryKey, byte[]>> context = createMock(StateContext.class);
+        context.get(anyString());
+        expectLastCall().andAnswer(() -> contents.get(getCurrentArguments()[0])).anyTimes();
+        context.put(anyString(), anyObject());
+        expectLastCall().andAnswer(() -> {
+            contents.put((String) getCurrentArguments()[0], getCurrentArguments()[1]);
+            return null;
+        }).anyTimes();
+        replay(context);
+        DefaultDatabaseState databaseState = new DefaultDatabaseState();
+        databaseState.init(context);
+        return databaseState;
+    }
+
+    private <T> CompletableFuture<T> call(String operation, T result) {
+        calls.computeIfAbsent(operation, k -> new AtomicInteger()).incrementAndGet();
+        return completedFuture(result);
+    }
+
+    @Override
+    public CompletableFuture<Set<String>> maps() {
+        return call("maps", state.maps());
+    }
+
+    @Override
+    public CompletableFuture<Map<String, Long>> counters() {
+        return call("counters", state.counters());
+    }
+
+    @Override
+    public CompletableFuture<Integer> mapSize(String mapName) {
+        return call("mapSize", state.mapSize(mapName));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> mapIsEmpty(String mapName) {
+        return call("mapIsEmpty", state.mapIsEmpty(mapName));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> mapContainsKey(String mapName, BinaryKey key) {
+        return call("mapContainsKey", state.mapContainsKey(mapName, key));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> mapContainsValue(String mapName, byte[] value) {
+        return call("mapContainsValue", state.mapContainsValue(mapName, value));
+    }
+
+    @Override
+    public CompletableFuture<Versioned<byte[]>> mapGet(String mapName, BinaryKey key) {
+        return call("mapGet", state.mapGet(mapName, key));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> mapContainsKeyLocal(String mapName, BinaryKey key) {
+        return call("mapContainsKeyLocal", state.mapContainsKeyLocal(mapName, key));
+    }
+
+    @Override
+    public CompletableFuture<Versioned<byte[]>> mapGetLocal(String mapName, BinaryKey key) {
+        return call("mapGetLocal", state.mapGetLocal(mapName, key));
+    }
+
+    @Override
+    public CompletableFuture<List<Versioned<byte[]>>> mapBatchGet(String mapName, List<BinaryKey> keys) {
+        return call("mapBatchGet", state.mapBatchGet(mapName, keys));
+    }
+
+    @Override
+    public CompletableFuture<Result<UpdateResult<BinaryKey, byte[]>>> mapUpdate(
+            String mapName, BinaryKey key, Match<byte[]> valueMatch, Match<Long> versionMatch, byte[] value) {
+        return call("mapUpdate", state.mapUpdate(mapName, key, valueMatch, versionMatch, value));
+    }
+
+    @Override
+    public CompletableFuture<Result<List<UpdateResult<BinaryKey, byte[]>>>> mapBatchUpdate(
+            String mapName, List<BinaryKey> keys, List<byte[]> values) {
+        return call("mapBatchUpdate", state.mapBatchUpdate(mapName, keys, values));
+    }
+
+    @Override
+    public CompletableFuture<Result<Void>> mapClear(String mapName) {
+        return call("mapClear", state.mapClear(mapName));
+    }
+
+    @Override
+    public CompletableFuture<Set<BinaryKey>> mapKeySet(String mapName) {
+        return call("mapKeySet", state.mapKeySet(mapName));
+    }
+
+    @Override
+    public CompletableFuture<Collection<Versioned<byte[]>>> mapValues(String mapName) {
+        return call("mapValues", state.mapValues(mapName));
+    }
+
+    @Override
+    public CompletableFuture<Set<Entry<BinaryKey, Versioned<byte[]>>>> mapEntrySet(String mapName) {
+        return call("mapEntrySet", state.mapEntrySet(mapName));
+    }
+
+    @Override
+    public CompletableFuture<List<Entry<BinaryKey, Versioned<byte[]>>>> mapScan(
+            String mapName, BinaryKey after, int limit) {
+        List<Entry<BinaryKey, Versioned<byte[]>>> entries = state.mapScan(mapName, after, limit);
+        scannedEntries.addAndGet(entries.size());
+        return call("mapScan", entries);
+    }
+
+    @Override
+    public CompletableFuture<Long> counterAddAndGet(String counterName, long delta) {
+        return call("counterAddAndGet", state.counterAddAndGet(counterName, delta));
+    }
+
+    @Override
+    public CompletableFuture<Long> counterGetAndAdd(String counterName, long delta) {
+        return call("counterGetAndAdd", state.counterGetAndAdd(counterName, delta));
+    }
+
+    @Override
+    public CompletableFuture<Long> counterGet(String counterName) {
+        return call("counterGet", state.counterGet(counterName));
+    }
+
+    @Override
+    public CompletableFuture<Long> queueSize(String queueName) {
+        return call("queueSize", state.queueSize(queueName));
+    }
+
+    @Override
+    public CompletableFuture<Void> queuePush(String queueName, byte[] entry) {
+        state.queuePush(queueName, entry);
+        return call("queuePush", null);
+    }
+
+    @Override
+    public CompletableFuture<byte[]> queuePop(String queueName) {
+        return call("queuePop", state.queuePop(queueName));
+    }
+
+    @Override
+    public CompletableFuture<byte[]> queuePeek(String queueName) {
+        return call("queuePeek", state.queuePeek(queueName));
+    }
+
+    @Override
+    public CompletableFuture<CommitResponse> prepareAndCommit(Transaction transaction) {
+        return call("prepareAndCommit", state.prepareAndCommit(transaction));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> prepare(Transaction transaction) {
+        return call("prepare", state.prepare(transaction));
+    }
+
+    @Override
+    public CompletableFuture<CommitResponse> commit(Transaction transaction) {
+        return call("commit", state.commit(transaction));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> rollback(Transaction transaction) {
+        return call("rollback", state.rollback(transaction));
+    }
+
+    @Override
+    public boolean hasChangeNotificationSupport() {
+        return false;
+    }
+
+    @Override
+    public void registerConsumer(Consumer<StateMachineUpdate> consumer) {
+    }
+
+    @Override
+    public void unregisterConsumer(Consumer<StateMachineUpdate> consumer) {
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public Cluster cluster() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Database addStartupTask(Task<CompletableFuture<Void>> task) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Database addShutdownTask(Task<CompletableFuture<Void>> task) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public ResourceState state() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public CompletableFuture<Database> open() {
+        return completedFuture(this);
+    }
+
+    @Override
+    public boolean isOpen() {
+        return true;
+    }
+
+    @Override
+    public CompletableFuture<Void> close() {
+        return completedFuture(null);
+    }
+
+    @Override
+    public boolean isClosed() {
+        return false;
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.ecmap;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import org.junit.Test;
+import org.onlab.util.KryoNamespace;
+import org.onosproject.cluster.NodeId;
+import org.onosproject.store.impl.LogicalTimestamp;
+import org.onosproject.store.serializers.KryoNamespaces;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for AntiEntropyHashTree, including a comparison of the bytes
+ * sent on the wire by full digest and hash tree anti-entropy.
+ */
+public class AntiEntropyHashTreeTest {
+
+    private static final Logger log = LoggerFactory.getLogger(AntiEntropyHashTreeTest.class);
+
+    private static final NodeId NODE1 = new NodeId("node1");
+    private static final NodeId NODE2 = new NodeId("node2");
+
+    private static final KryoNamespace SERIALIZER = KryoNamespace.newBuilder()
+            .register(KryoNamespaces.API)
+            .nextId(KryoNamespaces.BEGIN_USER_CUSTOM_ID)
+            .register(LogicalTimestamp.class)
+            .register(AntiEntropyAdvertisement.class)
+            .register(MapValue.class)
+            .register(MapValue.Digest.class)
+            .register(HashTreeAdvertisement.class)
+            .build();
+
+    private static Map<String, MapValue<String>> items(int count) {
+        Map<String, MapValue<String>> items = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            items.put("key" + i, new MapValue<>("value" + i, new LogicalTimestamp(i)));
+        }
+        return items;
+    }
+
+    private static AntiEntropyHashTree<String> tree(Map<String, MapValue<String>> items) {
+        return AntiEntropyHashTree.build(items, SERIALIZER::serialize);
+    }
+
+    @Test
+    public void testIdenticalContents() {
+        Map<String, MapValue<String>> items = items(1000);
+        AntiEntropyHashTree<String> tree1 = tree(items);
+        AntiEntropyHashTree<String> tree2 = tree(new TreeMap<>(items));
+
+        assertEquals(1000, tree1.size());
+        assertEquals(tree1.rootHash(), tree2.rootHash());
+    }
+
+    @Test
+    public void testDifferenceIsLocalized() {
+        Map<String, MapValue<String>> items1 = items(1000);
+        Map<String, MapValue<String>> items2 = items(1000);
+        items2.put("key42", MapValue.tombstone(new LogicalTimestamp(5000)));
+        AntiEntropyHashTree<String> tree1 = tree(items1);
+        AntiEntropyHashTree<String> tree2 = tree(items2);
+
+        assertNotEquals(tree1.rootHash(), tree2.rootHash());
+
+        Set<Integer> mismatched = ImmutableSet.of(0);
+        for (int level = 0; level < AntiEntropyHashTree.LEAF_LEVEL; level++) {
+            Map<Integer, Long> children = tree2.childHashes(level, mismatched);
+            int childLevel = level + 1;
+            mismatched = children.entrySet().stream()
+                    .filter(e -> tree1.hash(childLevel, e.getKey()) != e.getValue())
+                    .map(Map.Entry::getKey)
+                    .collect(Collectors.toSet());
+            assertEquals(1, mismatched.size());
+        }
+        assertTrue(tree1.keys(mismatched).contains("key42"));
+        assertTrue(tree2.keys(mismatched).contains("key42"));
+    }
+
+    @Test
+    public void testAdvertisementSize() {
+        int count = 100000;
+        Map<String, MapValue<String>> items1 = items(count);
+        Map<String, MapValue<String>> items2 = items(count);
+        items2.put("key42", new MapValue<>("newValue", new LogicalTimestamp(count)));
+
+        int fullDigestBytes = SERIALIZER.serialize(new AntiEntropyAdvertisement<>(NODE1,
+                ImmutableMap.copyOf(Maps.transformValues(items1, MapValue::digest)))).length;
+
+        AntiEntropyHashTree<String> tree1 = tree(items1);
+        int inSyncBytes = SERIALIZER.serialize(new HashTreeAdvertisement(NODE1, 0,
+                ImmutableMap.of(0, tree1.rootHash()))).length;
+        int oneDifferenceBytes = hashTreeExchangeBytes(tree1, items1, tree(items2), items2);
+
+        log.info("Anti-entropy bytes for {} entries: full digest {}, hash tree in sync {}, " +
+                 "hash tree with one difference {}",
+                 count, fullDigestBytes, inSyncBytes, oneDifferenceBytes);
+
+        assertTrue(inSyncBytes < 100);
+        assertTrue(oneDifferenceBytes * 100 < fullDigestBytes);
+    }
+
+    /**
+     * Simulates a hash tree anti-entropy round initiated by the first replica
+     * and returns the total number of bytes exchanged.
+     */
+    private int hashTreeExchangeBytes(AntiEntropyHashTree<String> tree1,
+                                      Map<String, MapValue<String>> items1,
+                                      AntiEntropyHashTree<String> tree2,
+                                      Map<String, MapValue<String>> items2) {
+        AntiEntropyHashTree<String> sender = tree1;
+        AntiEntropyHashTree<String> receiver = tree2;
+        HashTreeAdvertisement ad = new HashTreeAdvertisement(NODE1, 0, ImmutableMap.of(0, sender.rootHash()));
+        int bytes = 0;
+        while (true) {
+            bytes += SERIALIZER.serialize(ad).length;
+            AntiEntropyHashTree<String> local = receiver;
+            HashTreeAdvertisement received = ad;
+            Set<Integer> mismatched = received.hashes().entrySet().stream()
+                    .filter(e -> local.hash(received.level(), e.getKey()) != e.getValue())
+                    .map(Map.Entry::getKey)
+                    .collect(Collectors.toSet());
+            if (mismatched.isEmpty()) {
+                return bytes;
+            }
+            if (received.level() == AntiEntropyHashTree.LEAF_LEVEL) {
+                bytes += scopedAdvertisementBytes(tree1, items1, mismatched);
+                bytes += scopedAdvertisementBytes(tree2, items2, mismatched);
+                return bytes;
+            }
+            ad = new HashTreeAdvertisement(received.sender().equals(NODE1) ? NODE2 : NODE1,
+                                           received.level() + 1,
+                                           local.childHashes(received.level(), mismatched));
+            receiver = sender;
+            sender = local;
+        }
+    }
+
+    private int scopedAdvertisementBytes(AntiEntropyHashTree<String> tree,
+                                         Map<String, MapValue<String>> items,
+                                         Set<Integer> buckets) {
+        Map<String, MapValue.Digest> digest = Maps.newHashMap();
+        tree.keys(buckets).forEach(key -> digest.put(key, items.get(key).digest()));
+        return SERIALIZER.serialize(new AntiEntropyAdvertisement<>(NODE1, digest, buckets, true)).length;
+    }
+}
@@ -15,6 +15,7 @@
  */
 package org.onosproject.store.ecmap;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
@@ -142,7 +143,10 @@ public class EventuallyConsistentMapImplTest {
         // handlers so we can induce events coming in from a peer.
         clusterCommunicator.<String>addSubscriber(anyObject(MessageSubject.class),
                 anyObject(Function.class), anyObject(Consumer.class), anyObject(Executor.class));
-        expectLastCall().andDelegateTo(new TestClusterCommunicationService()).times(2);
+        expectLastCall().andDelegateTo(new TestClusterCommunicationService()).times(1);
+        clusterCommunicator.<String>addBufferSubscriber(anyObject(MessageSubject.class),
+                anyObject(Function.class), anyObject(Consumer.class), anyObject(Executor.class));
+        expectLastCall().andDelegateTo(new TestClusterCommunicationService()).times(1);
 
         replay(clusterCommunicator);
 
@@ -799,6 +803,17 @@ public class EventuallyConsistentMapImplTest {
                 throw new RuntimeException("Unexpected message subject " + subject.toString());
             }
         }
+
+        @Override
+        public <M> void addBufferSubscriber(MessageSubject subject,
+                Function<ByteBuffer, M> decoder, Consumer<M> handler,
+                Executor executor) {
+            if (subject.equals(UPDATE_MESSAGE_SUBJECT)) {
+                updateHandler = (Consumer<Collection<UpdateEntry<String, String>>>) handler;
+            } else {
+                throw new RuntimeException("Unexpected message subject " + subject.toString());
+            }
+        }
     }
 
     /**
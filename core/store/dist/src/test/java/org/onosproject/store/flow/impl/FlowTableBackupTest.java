@@ -0,0 +1,98 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.flow.impl;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.junit.Test;
+import org.onosproject.cluster.NodeId;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.flow.DefaultFlowEntry;
+import org.onosproject.net.flow.DefaultFlowRule;
+import org.onosproject.net.flow.DefaultTrafficSelector;
+import org.onosproject.net.flow.DefaultTrafficTreatment;
+import org.onosproject.net.flow.FlowId;
+import org.onosproject.net.flow.StoredFlowEntry;
+
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.onosproject.net.NetTestTools.APP_ID;
+
+/**
+ * Unit tests for FlowTableBackup.
+ */
+public class FlowTableBackupTest {
+
+    private static final NodeId NID = new NodeId("foo");
+    private static final DeviceId DID = DeviceId.deviceId("of:1");
+
+    private static StoredFlowEntry flowEntry(int priority) {
+        return new DefaultFlowEntry(DefaultFlowRule.builder()
+                .forDevice(DID)
+                .withSelector(DefaultTrafficSelector.emptySelector())
+                .withTreatment(DefaultTrafficTreatment.emptyTreatment())
+                .withPriority(priority)
+                .fromApp(APP_ID)
+                .makePermanent()
+                .build());
+    }
+
+    private static Map<FlowId, Set<StoredFlowEntry>> table(StoredFlowEntry... entries) {
+        Map<FlowId, Set<StoredFlowEntry>> table = Maps.newConcurrentMap();
+        for (StoredFlowEntry entry : entries) {
+            table.computeIfAbsent(entry.id(), id -> Sets.newCopyOnWriteArraySet()).add(entry);
+        }
+        return table;
+    }
+
+    @Test
+    public void fullBackupReplacesTable() {
+        StoredFlowEntry e1 = flowEntry(1);
+        StoredFlowEntry e2 = flowEntry(2);
+        Map<FlowId, Set<StoredFlowEntry>> backupTable = table(e1);
+
+        FlowTableBackup backup = FlowTableBackup.full(NID, 1, table(e2));
+        assertTrue(backup.isFull());
+        backup.applyTo(backupTable);
+
+        assertEquals(table(e2), backupTable);
+    }
+
+    @Test
+    public void deltaBackupOnlyTouchesChangedFlows() {
+        StoredFlowEntry e1 = flowEntry(1);
+        StoredFlowEntry e2 = flowEntry(2);
+        StoredFlowEntry e3 = flowEntry(3);
+        Map<FlowId, Set<StoredFlowEntry>> backupTable = table(e1, e2);
+
+        FlowTableBackup backup = FlowTableBackup.delta(NID, 1, 2,
+                ImmutableMap.of(e2.id(), ImmutableSet.of(), e3.id(), ImmutableSet.of(e3)));
+        assertFalse(backup.isFull());
+        assertEquals(1, backup.baseVersion());
+        backup.applyTo(backupTable);
+
+        assertEquals(table(e1, e3), backupTable);
+
+        // the backup copy must remain mutable should this node become master
+        backupTable.get(e3.id()).add(e2);
+    }
+}
@@ -0,0 +1,352 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.flow.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.onlab.packet.IpAddress;
+import org.onosproject.cfg.ComponentConfigAdapter;
+import org.onosproject.cluster.ClusterServiceAdapter;
+import org.onosproject.cluster.ControllerNode;
+import org.onosproject.cluster.DefaultControllerNode;
+import org.onosproject.cluster.NodeId;
+import org.onosproject.core.CoreServiceAdapter;
+import org.onosproject.mastership.MastershipServiceAdapter;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.device.DeviceEvent;
+import org.onosproject.net.device.DeviceListener;
+import org.onosproject.net.device.DeviceServiceAdapter;
+import org.onosproject.net.flow.DefaultFlowEntry;
+import org.onosproject.net.flow.DefaultFlowRule;
+import org.onosproject.net.flow.DefaultTrafficSelector;
+import org.onosproject.net.flow.DefaultTrafficTreatment;
+import org.onosproject.net.flow.FlowEntry;
+import org.onosproject.net.flow.StoredFlowEntry;
+import org.onosproject.store.cluster.messaging.ClusterCommunicationServiceAdapter;
+import org.onosproject.store.cluster.messaging.MessageSubject;
+import org.onosproject.store.flow.ReplicaInfo;
+import org.onosproject.store.flow.ReplicaInfoEventListener;
+import org.onosproject.store.flow.ReplicaInfoService;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.onosproject.net.NetTestTools.APP_ID;
+import static org.onosproject.net.NetTestTools.device;
+import static org.onosproject.net.NetTestTools.did;
+import static org.onosproject.store.flow.impl.FlowStoreMessageSubjects.FLOW_TABLE_BACKUP;
+
+/**
+ * Tests the exchange of flow table backups between distributed flow rule
+ * stores.
+ */
+public class NewDistributedFlowRuleStoreTest {
+
+    private static final DeviceId DID = did("1");
+    private static final NodeId A = new NodeId("a");
+    private static final NodeId B = new NodeId("b");
+    private static final NodeId C = new NodeId("c");
+
+    // Message handlers of the running stores, by node and subject
+    private final Map<NodeId, Map<MessageSubject, Function<byte[], byte[]>>> handlers =
+            Maps.newConcurrentMap();
+    private final Map<NodeId, NewDistributedFlowRuleStore> stores = Maps.newHashMap();
+    private final Map<NodeId, DeviceListener> deviceListeners = Maps.newHashMap();
+    // Backups sent to the backup nodes, in order
+    private final List<FlowTableBackup> sent = Lists.newCopyOnWriteArrayList();
+
+    private volatile NodeId master;
+    private volatile List<NodeId> standbys;
+    private Thread driver;
+
+    @Before
+    public void setUp() {
+        // The periodic backup task finds no devices to back up, so that
+        // backups are only ever sent when the test asks for them
+        driver = Thread.currentThread();
+        master = A;
+        standbys = ImmutableList.of(B, C);
+        start(A);
+        start(B);
+        start(C);
+    }
+
+    @After
+    public void tearDown() {
+        stores.values().forEach(store -> store.deactivate(null));
+    }
+
+    private NewDistributedFlowRuleStore start(NodeId nodeId) {
+        NewDistributedFlowRuleStore store = new NewDistributedFlowRuleStore();
+        store.clusterService = new TestClusterService(nodeId);
+        store.clusterCommunicator = new TestClusterCommunicator(nodeId);
+        store.mastershipService = new TestMastershipService();
+        store.replicaInfoManager = new TestReplicaInfoService();
+        store.deviceService = new TestDeviceService(nodeId);
+        store.coreService = new CoreServiceAdapter();
+        store.configService = new ComponentConfigAdapter();
+        store.activate(null);
+        stores.put(nodeId, store);
+        return store;
+    }
+
+    // Takes the node off the network, as if it had crashed.
+    private void stop(NodeId nodeId) {
+        handlers.remove(nodeId);
+        stores.remove(nodeId).deactivate(null);
+    }
+
+    private NewDistributedFlowRuleStore store(NodeId nodeId) {
+        return stores.get(nodeId);
+    }
+
+    private static StoredFlowEntry flowEntry(int priority) {
+        return new DefaultFlowEntry(DefaultFlowRule.builder()
+                .forDevice(DID)
+                .withSelector(DefaultTrafficSelector.emptySelector())
+                .withTreatment(DefaultTrafficTreatment.emptyTreatment())
+                .withPriority(priority)
+                .fromApp(APP_ID)
+                .makePermanent()
+                .build());
+    }
+
+    private Set<FlowEntry> flowEntries(NodeId nodeId) {
+        return ImmutableSet.copyOf(store(nodeId).getFlowEntries(DID));
+    }
+
+    private FlowTableBackup lastSent() {
+        return sent.get(sent.size() - 1);
+    }
+
+    private void removeDevice(NodeId nodeId) {
+        deviceListeners.get(nodeId).event(new DeviceEvent(DeviceEvent.Type.DEVICE_REMOVED, device("1")));
+    }
+
+    @Test
+    public void fullThenDeltaBackup() {
+        StoredFlowEntry e1 = flowEntry(1);
+        StoredFlowEntry e2 = flowEntry(2);
+        StoredFlowEntry e3 = flowEntry(3);
+        store(A).addOrUpdateFlowRule(e1);
+        store(A).addOrUpdateFlowRule(e2);
+
+        store(A).backup();
+        assertEquals("a single backup should be sent", 1, sent.size());
+        FlowTableBackup full = lastSent();
+        assertTrue("first backup should be full", full.isFull());
+        assertEquals(ImmutableSet.of(e1.id(), e2.id()), full.flowEntries().keySet());
+
+        store(A).removeFlowRule(e1);
+        store(A).addOrUpdateFlowRule(e3);
+        store(A).backup();
+        FlowTableBackup delta = lastSent();
+        assertFalse("only the changes should be sent", delta.isFull());
+        assertEquals("delta should apply to the full backup", full.version(), delta.baseVersion());
+        assertEquals(ImmutableSet.of(e1.id(), e3.id()), delta.flowEntries().keySet());
+        assertTrue("removed flow should be sent as empty", delta.flowEntries().get(e1.id()).isEmpty());
+
+        store(A).backup();
+        assertEquals("nothing should be sent without changes", 2, sent.size());
+
+        // The backup node takes over with the flow table as of the last backup
+        master = B;
+        assertEquals(ImmutableSet.of(e2, e3), flowEntries(B));
+    }
+
+    @Test
+    public void deltaRejectedByRestartedBackup() {
+        StoredFlowEntry e1 = flowEntry(1);
+        StoredFlowEntry e2 = flowEntry(2);
+        store(A).addOrUpdateFlowRule(e1);
+        store(A).backup();
+
+        // The backup node comes back without the backup it acknowledged
+        stop(B);
+        start(B);
+        store(A).addOrUpdateFlowRule(e2);
+        store(A).backup();
+        assertFalse("master is not aware of the restart", lastSent().isFull());
+
+        store(A).backup();
+        assertEquals("rejected delta should be followed by a full backup", 3, sent.size());
+        assertTrue(lastSent().isFull());
+
+        master = B;
+        assertEquals(ImmutableSet.of(e1, e2), flowEntries(B));
+    }
+
+    @Test
+    public void replicaFailover() {
+        StoredFlowEntry e1 = flowEntry(1);
+        StoredFlowEntry e2 = flowEntry(2);
+        store(A).addOrUpdateFlowRule(e1);
+        store(A).backup();
+
+        // The master goes down and its backup node takes over
+        stop(A);
+        master = B;
+        standbys = ImmutableList.of(C);
+        assertEquals(ImmutableSet.of(e1), flowEntries(B));
+
+        // The new master backs up to the next standby, starting from scratch
+        store(B).backup();
+        assertTrue("new backup node should get a full backup", lastSent().isFull());
+        store(B).addOrUpdateFlowRule(e2);
+        store(B).backup();
+        assertFalse(lastSent().isFull());
+
+        stop(B);
+        master = C;
+        standbys = ImmutableList.of();
+        assertEquals(ImmutableSet.of(e1, e2), flowEntries(C));
+    }
+
+    @Test
+    public void deviceRemovalResetsBackups() {
+        StoredFlowEntry e1 = flowEntry(1);
+        StoredFlowEntry e2 = flowEntry(2);
+        StoredFlowEntry e3 = flowEntry(3);
+        store(A).addOrUpdateFlowRule(e1);
+        store(A).backup();
+
+        // The backup node no longer accepts changes on top of what it held
+        removeDevice(B);
+        store(A).addOrUpdateFlowRule(e2);
+        store(A).backup();
+        assertFalse(lastSent().isFull());
+        store(A).backup();
+        assertTrue("rejected delta should be followed by a full backup", lastSent().isFull());
+
+        // Nor does the master send changes on top of what it sent before
+        removeDevice(A);
+        store(A).addOrUpdateFlowRule(e3);
+        store(A).backup();
+        assertEquals(4, sent.size());
+        assertTrue("backup should start over once the device is removed", lastSent().isFull());
+
+        master = B;
+        assertEquals(ImmutableSet.of(e1, e2, e3), flowEntries(B));
+    }
+
+    private class TestClusterService extends ClusterServiceAdapter {
+        private final ControllerNode localNode;
+
+        TestClusterService(NodeId nodeId) {
+            localNode = new DefaultControllerNode(nodeId, IpAddress.valueOf("127.0.0.1"));
+        }
+
+        @Override
+        public ControllerNode getLocalNode() {
+            return localNode;
+        }
+    }
+
+    // Delivers messages to the handlers of the other stores on the caller's thread
+    private class TestClusterCommunicator extends ClusterCommunicationServiceAdapter {
+        private final NodeId nodeId;
+
+        TestClusterCommunicator(NodeId nodeId) {
+            this.nodeId = nodeId;
+        }
+
+        @Override
+        public <M, R> void addSubscriber(MessageSubject subject,
+                                         Function<byte[], M> decoder, Function<M, R> handler,
+                                         Function<R, byte[]> encoder, Executor executor) {
+            handlers.computeIfAbsent(nodeId, id -> Maps.newConcurrentMap())
+                    .put(subject, bytes -> encoder.apply(handler.apply(decoder.apply(bytes))));
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <M, R> CompletableFuture<R> sendAndReceive(M message, MessageSubject subject,
+                                                          Function<M, byte[]> encoder,
+                                                          Function<byte[], R> decoder,
+                                                          NodeId toNodeId) {
+            Function<byte[], byte[]> handler =
+                    handlers.getOrDefault(toNodeId, ImmutableMap.of()).get(subject);
+            CompletableFuture<R> future = new CompletableFuture<>();
+            if (handler == null) {
+                future.completeExceptionally(new IOException("No handler for " + subject));
+                return future;
+            }
+            if (subject.equals(FLOW_TABLE_BACKUP)) {
+                sent.addAll(((Map<?, FlowTableBackup>) message).values());
+            }
+            future.complete(decoder.apply(handler.apply(encoder.apply(message))));
+            return future;
+        }
+    }
+
+    private class TestMastershipService extends MastershipServiceAdapter {
+        @Override
+        public NodeId getMasterFor(DeviceId deviceId) {
+            return master;
+        }
+
+        @Override
+        public Set<DeviceId> getDevicesOf(NodeId nodeId) {
+            return Thread.currentThread() == driver && nodeId.equals(master) ?
+                    ImmutableSet.of(DID) : ImmutableSet.of();
+        }
+    }
+
+    private class TestReplicaInfoService implements ReplicaInfoService {
+        @Override
+        public ReplicaInfo getReplicaInfoFor(DeviceId deviceId) {
+            return new ReplicaInfo(master, standbys.stream()
+                    .filter(stores::containsKey)
+                    .collect(Collectors.toList()));
+        }
+
+        @Override
+        public void addListener(ReplicaInfoEventListener listener) {
+        }
+
+        @Override
+        public void removeListener(ReplicaInfoEventListener listener) {
+        }
+    }
+
+    private class TestDeviceService extends DeviceServiceAdapter {
+        private final NodeId nodeId;
+
+        TestDeviceService(NodeId nodeId) {
+            this.nodeId = nodeId;
+        }
+
+        @Override
+        public void addListener(DeviceListener listener) {
+            deviceListeners.put(nodeId, listener);
+        }
+    }
+}
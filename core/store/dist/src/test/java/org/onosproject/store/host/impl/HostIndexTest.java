@@ -0,0 +1,98 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.host.impl;
+
+import java.util.Set;
+
+import org.junit.Test;
+import org.onlab.packet.IpAddress;
+import org.onlab.packet.MacAddress;
+import org.onlab.packet.VlanId;
+import org.onosproject.net.ConnectPoint;
+import org.onosproject.net.DefaultHost;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.Host;
+import org.onosproject.net.HostId;
+import org.onosproject.net.HostLocation;
+import org.onosproject.net.PortNumber;
+import org.onosproject.net.provider.ProviderId;
+
+import com.google.common.collect.ImmutableSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for HostIndex.
+ */
+public class HostIndexTest {
+
+    private static final ProviderId PID = new ProviderId("of", "foo");
+    private static final MacAddress MAC1 = MacAddress.valueOf("00:00:00:00:00:01");
+    private static final MacAddress MAC2 = MacAddress.valueOf("00:00:00:00:00:02");
+    private static final VlanId VLAN = VlanId.vlanId((short) 10);
+    private static final IpAddress IP1 = IpAddress.valueOf("10.0.0.1");
+    private static final IpAddress IP2 = IpAddress.valueOf("10.0.0.2");
+    private static final DeviceId DID1 = DeviceId.deviceId("of:1");
+    private static final DeviceId DID2 = DeviceId.deviceId("of:2");
+    private static final HostLocation LOC1 = new HostLocation(DID1, PortNumber.portNumber(1), 0);
+    private static final HostLocation LOC2 = new HostLocation(DID2, PortNumber.portNumber(1), 0);
+
+    private static Host host(MacAddress mac, HostLocation location, IpAddress... ips) {
+        return new DefaultHost(PID, HostId.hostId(mac, VLAN), mac, VLAN, location,
+                               ImmutableSet.copyOf(ips));
+    }
+
+    @Test
+    public void lookups() {
+        HostIndex index = new HostIndex();
+        Host h1 = host(MAC1, LOC1, IP1);
+        Host h2 = host(MAC2, LOC1, IP2);
+        assertNull(index.put(h1));
+        assertNull(index.put(h2));
+
+        assertEquals(ImmutableSet.of(h1), index.getHosts(MAC1));
+        assertEquals(ImmutableSet.of(h2), index.getHosts(IP2));
+        assertEquals(ImmutableSet.of(h1, h2), index.getHosts(VLAN));
+        assertEquals(ImmutableSet.of(h1, h2),
+                     index.getConnectedHosts(new ConnectPoint(DID1, PortNumber.portNumber(1))));
+        assertEquals(ImmutableSet.of(h1, h2), index.getConnectedHosts(DID1));
+        assertTrue(index.getConnectedHosts(DID2).isEmpty());
+        assertTrue(index.getHosts(VlanId.NONE).isEmpty());
+    }
+
+    @Test
+    public void updatesReplaceStaleEntries() {
+        HostIndex index = new HostIndex();
+        Host h1 = host(MAC1, LOC1, IP1);
+        index.put(h1);
+
+        // Host moved and changed its address
+        Host moved = host(MAC1, LOC2, IP2);
+        assertSame(h1, index.put(moved));
+        assertTrue(index.getHosts(IP1).isEmpty());
+        assertTrue(index.getConnectedHosts(DID1).isEmpty());
+        assertEquals(ImmutableSet.of(moved), index.getHosts(IP2));
+        assertEquals(ImmutableSet.of(moved), index.getConnectedHosts(DID2));
+
+        assertSame(moved, index.remove(moved.id()));
+        assertNull(index.remove(moved.id()));
+        Set<Host> hosts = index.getHosts(MAC1);
+        assertTrue(hosts.isEmpty());
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.link.impl;
+
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.onosproject.cluster.ClusterServiceAdapter;
+import org.onosproject.cluster.NodeId;
+import org.onosproject.mastership.MastershipServiceAdapter;
+import org.onosproject.net.ConnectPoint;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.Link;
+import org.onosproject.net.link.DefaultLinkDescription;
+import org.onosproject.net.provider.ProviderId;
+import org.onosproject.store.cluster.messaging.ClusterCommunicationServiceAdapter;
+import org.onosproject.store.service.TestStorageService;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.onosproject.net.DeviceId.deviceId;
+import static org.onosproject.net.Link.Type.DIRECT;
+import static org.onosproject.net.PortNumber.portNumber;
+
+/**
+ * Test of the link lookups of the eventually consistent link store.
+ */
+public class ECLinkStoreTest {
+
+    private static final ProviderId PID = new ProviderId("of", "foo");
+    private static final DeviceId DID1 = deviceId("of:1");
+    private static final DeviceId DID2 = deviceId("of:2");
+    private static final DeviceId DID3 = deviceId("of:3");
+
+    private ECLinkStore store;
+
+    @Before
+    public void setUp() {
+        ClusterServiceAdapter clusterService = new ClusterServiceAdapter();
+        NodeId local = clusterService.getLocalNode().id();
+
+        store = new ECLinkStore();
+        store.storageService = new TestStorageService();
+        store.clusterService = clusterService;
+        store.clusterCommunicator = new ClusterCommunicationServiceAdapter();
+        store.mastershipService = new MastershipServiceAdapter() {
+            @Override
+            public NodeId getMasterFor(DeviceId deviceId) {
+                return local;
+            }
+        };
+        store.activate();
+    }
+
+    @After
+    public void tearDown() {
+        store.deactivate();
+    }
+
+    private static ConnectPoint cp(DeviceId deviceId, long port) {
+        return new ConnectPoint(deviceId, portNumber(port));
+    }
+
+    private void putLink(ConnectPoint src, ConnectPoint dst) {
+        store.createOrUpdateLink(PID, new DefaultLinkDescription(src, dst, DIRECT));
+    }
+
+    @Test
+    public void indexedLookups() {
+        putLink(cp(DID1, 1), cp(DID2, 1));
+        putLink(cp(DID2, 1), cp(DID1, 1));
+        putLink(cp(DID1, 2), cp(DID3, 1));
+        putLink(cp(DID3, 1), cp(DID1, 2));
+
+        assertEquals("incorrect link count", 4, store.getLinkCount());
+        assertEquals("incorrect egress links", 2, store.getDeviceEgressLinks(DID1).size());
+        assertEquals("incorrect ingress links", 2, store.getDeviceIngressLinks(DID1).size());
+        assertEquals("incorrect egress links", 1, store.getDeviceEgressLinks(DID2).size());
+
+        Set<Link> links = store.getEgressLinks(cp(DID1, 2));
+        assertEquals("incorrect egress links", 1, links.size());
+        assertEquals("incorrect link", cp(DID3, 1), links.iterator().next().dst());
+
+        links = store.getIngressLinks(cp(DID1, 1));
+        assertEquals("incorrect ingress links", 1, links.size());
+        assertEquals("incorrect link", cp(DID2, 1), links.iterator().next().src());
+        assertTrue("no links expected", store.getEgressLinks(cp(DID1, 3)).isEmpty());
+    }
+
+    @Test
+    public void removedLinksAreUnindexed() {
+        putLink(cp(DID1, 1), cp(DID2, 1));
+        putLink(cp(DID1, 2), cp(DID3, 1));
+
+        store.removeLink(cp(DID1, 1), cp(DID2, 1));
+        assertEquals("incorrect egress links", 1, store.getDeviceEgressLinks(DID1).size());
+        assertTrue("no links expected", store.getDeviceIngressLinks(DID2).isEmpty());
+        assertTrue("no links expected", store.getEgressLinks(cp(DID1, 1)).isEmpty());
+
+        putLink(cp(DID1, 1), cp(DID2, 1));
+        assertEquals("incorrect egress links", 2, store.getDeviceEgressLinks(DID1).size());
+        assertEquals("incorrect ingress links", 1, store.getDeviceIngressLinks(DID2).size());
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.serializers;
+
+import org.onlab.packet.IpPrefix;
+import org.onlab.packet.MacAddress;
+import org.onlab.packet.TpPort;
+import org.onlab.packet.VlanId;
+import org.onosproject.net.PortNumber;
+import org.onosproject.net.flow.criteria.Criteria;
+import org.onosproject.net.flow.criteria.Criterion;
+import org.onosproject.net.flow.criteria.EthCriterion;
+import org.onosproject.net.flow.criteria.EthTypeCriterion;
+import org.onosproject.net.flow.criteria.IPCriterion;
+import org.onosproject.net.flow.criteria.IPProtocolCriterion;
+import org.onosproject.net.flow.criteria.PortCriterion;
+import org.onosproject.net.flow.criteria.TcpPortCriterion;
+import org.onosproject.net.flow.criteria.UdpPortCriterion;
+import org.onosproject.net.flow.criteria.VlanIdCriterion;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.KryoException;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+
+/**
+ * Kryo Serializer for the most commonly matched {@link Criterion} types:
+ * {@link PortCriterion}, {@link EthCriterion}, {@link EthTypeCriterion},
+ * {@link VlanIdCriterion}, {@link IPCriterion}, {@link IPProtocolCriterion},
+ * {@link TcpPortCriterion} and {@link UdpPortCriterion}.
+ */
+public final class CriterionSerializer extends Serializer<Criterion> {
+
+    private static final Criterion.Type[] TYPES = Criterion.Type.values();
+
+    /**
+     * Creates {@link Criterion} serializer instance.
+     */
+    public CriterionSerializer() {
+        // non-null, immutable
+        super(false, true);
+    }
+
+    @Override
+    public void write(Kryo kryo, Output output, Criterion object) {
+        output.writeVarInt(object.type().ordinal(), true);
+        switch (object.type()) {
+        case IN_PORT:
+        case IN_PHY_PORT:
+            kryo.writeObject(output, ((PortCriterion) object).port());
+            break;
+        case ETH_SRC:
+        case ETH_DST:
+            output.writeLong(((EthCriterion) object).mac().toLong());
+            break;
+        case ETH_TYPE:
+            output.writeShort(((EthTypeCriterion) object).ethType().toShort());
+            break;
+        case VLAN_VID:
+            output.writeShort(((VlanIdCriterion) object).vlanId().toShort());
+            break;
+        case IPV4_SRC:
+        case IPV4_DST:
+        case IPV6_SRC:
+        case IPV6_DST:
+            kryo.writeClassAndObject(output, ((IPCriterion) object).ip());
+            break;
+        case IP_PROTO:
+            output.writeShort(((IPProtocolCriterion) object).protocol());
+            break;
+        case TCP_SRC:
+        case TCP_DST:
+            output.writeVarInt(((TcpPortCriterion) object).tcpPort().toInt(), true);
+            break;
+        case UDP_SRC:
+        case UDP_DST:
+            output.writeVarInt(((UdpPortCriterion) object).udpPort().toInt(), true);
+            break;
+        default:
+            throw new KryoException("Unsupported criterion type " + object.type());
+        }
+    }
+
+    @Override
+    public Criterion read(Kryo kryo, Input input, Class<Criterion> type) {
+        Criterion.Type criterionType = TYPES[input.readVarInt(true)];
+        switch (criterionType) {
+        case IN_PORT:
+            return Criteria.matchInPort(kryo.readObject(input, PortNumber.class));
+        case IN_PHY_PORT:
+            return Criteria.matchInPhyPort(kryo.readObject(input, PortNumber.class));
+        case ETH_SRC:
+            return Criteria.matchEthSrc(MacAddress.valueOf(input.readLong()));
+        case ETH_DST:
+            return Criteria.matchEthDst(MacAddress.valueOf(input.readLong()));
+        case ETH_TYPE:
+            return Criteria.matchEthType(input.readShort());
+        case VLAN_VID:
+            return Criteria.matchVlanId(VlanId.vlanId(input.readShort()));
+        case IPV4_SRC:
+            return Criteria.matchIPSrc((IpPrefix) kryo.readClassAndObject(input));
+        case IPV4_DST:
+            return Criteria.matchIPDst((IpPrefix) kryo.readClassAndObject(input));
+        case IPV6_SRC:
+            return Criteria.matchIPv6Src((IpPrefix) kryo.readClassAndObject(input));
+        case IPV6_DST:
+            return Criteria.matchIPv6Dst((IpPrefix) kryo.readClassAndObject(input));
+        case IP_PROTO:
+            return Criteria.matchIPProtocol(input.readShort());
+        case TCP_SRC:
+            return Criteria.matchTcpSrc(TpPort.tpPort(input.readVarInt(true)));
+        case TCP_DST:
+            return Criteria.matchTcpDst(TpPort.tpPort(input.readVarInt(true)));
+        case UDP_SRC:
+            return Criteria.matchUdpSrc(TpPort.tpPort(input.readVarInt(true)));
+        case UDP_DST:
+            return Criteria.matchUdpDst(TpPort.tpPort(input.readVarInt(true)));
+        default:
+            throw new KryoException("Unsupported criterion type " + criterionType);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.serializers;
+
+import org.onosproject.net.flow.DefaultFlowEntry;
+import org.onosproject.net.flow.FlowEntry.FlowEntryState;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+
+/**
+ * Kryo Serializer for {@link DefaultFlowEntry}.
+ */
+public final class DefaultFlowEntrySerializer extends Serializer<DefaultFlowEntry> {
+
+    private static final FlowEntryState[] STATES = FlowEntryState.values();
+
+    /**
+     * Creates {@link DefaultFlowEntry} serializer instance.
+     */
+    public DefaultFlowEntrySerializer() {
+        // non-null, mutable
+        super(false, false);
+    }
+
+    @Override
+    public void write(Kryo kryo, Output output, DefaultFlowEntry object) {
+        DefaultFlowRuleSerializer.writeRule(kryo, output, object);
+        output.writeVarLong(object.created(), true);
+        output.writeVarInt(object.state().ordinal(), true);
+        output.writeVarLong(object.life(), true);
+        output.writeVarLong(object.packets(), true);
+        output.writeVarLong(object.bytes(), true);
+        output.writeVarLong(object.lastSeen(), true);
+        output.writeVarInt(object.errType(), false);
+        output.writeVarInt(object.errCode(), false);
+    }
+
+    @Override
+    public DefaultFlowEntry read(Kryo kryo, Input input, Class<DefaultFlowEntry> type) {
+        return new DefaultFlowEntry(DefaultFlowRuleSerializer.readRule(kryo, input),
+                                    input.readVarLong(true),
+                                    STATES[input.readVarInt(true)],
+                                    input.readVarLong(true),
+                                    input.readVarLong(true),
+                                    input.readVarLong(true),
+                                    input.readVarLong(true),
+                                    input.readVarInt(false),
+                                    input.readVarInt(false));
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.serializers;
+
+import org.onosproject.core.GroupId;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.flow.DefaultFlowRule;
+import org.onosproject.net.flow.FlowId;
+import org.onosproject.net.flow.FlowRule;
+import org.onosproject.net.flow.FlowRuleExtPayLoad;
+import org.onosproject.net.flow.TrafficSelector;
+import org.onosproject.net.flow.TrafficTreatment;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+
+/**
+ * Kryo Serializer for {@link DefaultFlowRule}.
+ */
+public final class DefaultFlowRuleSerializer extends Serializer<DefaultFlowRule> {
+
+    /**
+     * Creates {@link DefaultFlowRule} serializer instance.
+     */
+    public DefaultFlowRuleSerializer() {
+        // non-null, immutable
+        super(false, true);
+    }
+
+    @Override
+    public void write(Kryo kryo, Output output, DefaultFlowRule object) {
+        writeRule(kryo, output, object);
+        output.writeVarLong(object.created(), true);
+    }
+
+    @Override
+    public DefaultFlowRule read(Kryo kryo, Input input, Class<DefaultFlowRule> type) {
+        return new DefaultFlowRule(readRule(kryo, input), input.readVarLong(true));
+    }
+
+    /**
+     * Writes the attributes of a flow rule.
+     *
+     * @param kryo   Kryo instance
+     * @param output output to write to
+     * @param rule   flow rule
+     */
+    static void writeRule(Kryo kryo, Output output, FlowRule rule) {
+        kryo.writeObject(output, rule.deviceId());
+        output.writeLong(rule.id().value());
+        output.writeShort(rule.appId());
+        output.writeVarInt(rule.priority(), true);
+        output.writeVarInt(rule.tableId(), true);
+        output.writeVarInt(rule.timeout(), true);
+        output.writeBoolean(rule.isPermanent());
+        kryo.writeClassAndObject(output, rule.selector());
+        kryo.writeClassAndObject(output, rule.treatment());
+        kryo.writeClassAndObject(output, rule.groupId());
+        kryo.writeClassAndObject(output, rule.payLoad());
+    }
+
+    /**
+     * Reads the attributes of a flow rule written by
+     * {@link #writeRule(Kryo, Output, FlowRule)}.
+     *
+     * @param kryo  Kryo instance
+     * @param input input to read from
+     * @return flow rule
+     */
+    static FlowRule readRule(Kryo kryo, Input input) {
+        DecodedFlowRule rule = new DecodedFlowRule();
+        rule.deviceId = kryo.readObject(input, DeviceId.class);
+        rule.id = FlowId.valueOf(input.readLong());
+        rule.appId = input.readShort();
+        rule.priority = input.readVarInt(true);
+        rule.tableId = input.readVarInt(true);
+        rule.timeout = input.readVarInt(true);
+        rule.permanent = input.readBoolean();
+        rule.selector = (TrafficSelector) kryo.readClassAndObject(input);
+        rule.treatment = (TrafficTreatment) kryo.readClassAndObject(input);
+        rule.groupId = (GroupId) kryo.readClassAndObject(input);
+        rule.payLoad = (FlowRuleExtPayLoad) kryo.readClassAndObject(input);
+        return rule;
+    }
+
+    // Holder of decoded attributes, handed to the DefaultFlowRule constructors.
+    private static final class DecodedFlowRule implements FlowRule {
+        private DeviceId deviceId;
+        private FlowId id;
+        private short appId;
+        private int priority;
+        private int tableId;
+        private int timeout;
+        private boolean permanent;
+        private TrafficSelector selector;
+        private TrafficTreatment treatment;
+        private GroupId groupId;
+        private FlowRuleExtPayLoad payLoad;
+
+        @Override
+        public FlowId id() {
+            return id;
+        }
+
+        @Override
+        public short appId() {
+            return appId;
+        }
+
+        @Override
+        public GroupId groupId() {
+            return groupId;
+        }
+
+        @Override
+        public int priority() {
+            return priority;
+        }
+
+        @Override
+        public DeviceId deviceId() {
+            return deviceId;
+        }
+
+        @Override
+        public TrafficSelector selector() {
+            return selector;
+        }
+
+        @Override
+        public TrafficTreatment treatment() {
+            return treatment;
+        }
+
+        @Override
+        public int timeout() {
+            return timeout;
+        }
+
+        @Override
+        public boolean isPermanent() {
+            return permanent;
+        }
+
+        @Override
+        public int tableId() {
+            return tableId;
+        }
+
+        @Override
+        public boolean exactMatch(FlowRule rule) {
+            return false;
+        }
+
+        @Override
+        public FlowRuleExtPayLoad payLoad() {
+            return payLoad;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.serializers;
+
+import org.onosproject.net.flow.DefaultTrafficSelector;
+import org.onosproject.net.flow.TrafficSelector;
+import org.onosproject.net.flow.criteria.Criterion;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+
+/**
+ * Kryo Serializer for {@link DefaultTrafficSelector}.
+ */
+public final class DefaultTrafficSelectorSerializer extends Serializer<DefaultTrafficSelector> {
+
+    /**
+     * Creates {@link DefaultTrafficSelector} serializer instance.
+     */
+    public DefaultTrafficSelectorSerializer() {
+        // non-null, immutable
+        super(false, true);
+    }
+
+    @Override
+    public void write(Kryo kryo, Output output, DefaultTrafficSelector object) {
+        output.writeVarInt(object.criteria().size(), true);
+        for (Criterion criterion : object.criteria()) {
+            kryo.writeClassAndObject(output, criterion);
+        }
+    }
+
+    @Override
+    public DefaultTrafficSelector read(Kryo kryo, Input input, Class<DefaultTrafficSelector> type) {
+        int size = input.readVarInt(true);
+        TrafficSelector.Builder builder = DefaultTrafficSelector.builder();
+        for (int i = 0; i < size; i++) {
+            builder.add((Criterion) kryo.readClassAndObject(input));
+        }
+        return (DefaultTrafficSelector) builder.build();
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.serializers;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.onosproject.cluster.NodeId;
+import org.onosproject.net.intent.Intent;
+import org.onosproject.net.intent.IntentData;
+import org.onosproject.net.intent.IntentState;
+import org.onosproject.store.Timestamp;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+
+/**
+ * Kryo Serializer for {@link IntentData}.
+ */
+public final class IntentDataSerializer extends Serializer<IntentData> {
+
+    /**
+     * Creates {@link IntentData} serializer instance.
+     */
+    public IntentDataSerializer() {
+        // non-null, mutable
+        super(false, false);
+    }
+
+    @Override
+    public void write(Kryo kryo, Output output, IntentData object) {
+        kryo.writeClassAndObject(output, object.intent());
+        kryo.writeObjectOrNull(output, object.request(), IntentState.class);
+        kryo.writeObjectOrNull(output, object.state(), IntentState.class);
+        kryo.writeClassAndObject(output, object.version());
+        kryo.writeObjectOrNull(output, object.origin(), NodeId.class);
+        output.writeVarInt(object.errorCount(), true);
+        List<Intent> installables = object.installables();
+        output.writeVarInt(installables.size(), true);
+        for (Intent installable : installables) {
+            kryo.writeClassAndObject(output, installable);
+        }
+    }
+
+    @Override
+    public IntentData read(Kryo kryo, Input input, Class<IntentData> type) {
+        Intent intent = (Intent) kryo.readClassAndObject(input);
+        IntentState request = kryo.readObjectOrNull(input, IntentState.class);
+        IntentState state = kryo.readObjectOrNull(input, IntentState.class);
+        Timestamp version = (Timestamp) kryo.readClassAndObject(input);
+        IntentData data = new IntentData(intent, request, version);
+        data.setState(state);
+        data.setOrigin(kryo.readObjectOrNull(input, NodeId.class));
+        data.setErrorCount(input.readVarInt(true));
+        int size = input.readVarInt(true);
+        if (size > 0) {
+            List<Intent> installables = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                installables.add((Intent) kryo.readClassAndObject(input));
+            }
+            data.setInstallables(installables);
+        }
+        return data;
+    }
+}
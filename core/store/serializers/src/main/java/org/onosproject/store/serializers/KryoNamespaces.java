@@ -139,6 +139,7 @@ import org.onosproject.net.intent.HostToHostIntent;
 import org.onosproject.net.intent.Intent;
 import org.onosproject.net.intent.IntentId;
 import org.onosproject.net.intent.IntentOperation;
+import org.onosproject.net.intent.IntentData;
 import org.onosproject.net.intent.IntentState;
 import org.onosproject.net.intent.Key;
 import org.onosproject.net.intent.LinkCollectionIntent;
@@ -470,7 +471,43 @@ public final class KryoNamespaces {
                     org.onlab.packet.MplsLabel.class,
                     org.onlab.packet.MPLS.class
             )
+            .build();
+
+    /**
+     * Kryo registration Id of the first hand-written hot path serializer.
+     * It is well above the ids used by {@link #API}, the classes registered
+     * right after it with floating ids, and the user custom ids starting at
+     * {@link #BEGIN_USER_CUSTOM_ID}.
+     */
+    static final int HOT_PATH_ID = 500;
 
+    /**
+     * KryoNamespace, version 1, of the hand-written serializers for types on
+     * the store hot paths.
+     * <p>
+     * It is registered after {@link #API}, whose default serializers it
+     * supersedes for the same classes; the ids of those remain readable.
+     * Classes registered after it with floating ids follow its own ids.
+     * The serialized form of these classes differs from that of
+     * {@link #API}, so a store may only switch to it once all of its peers
+     * have, and a change to these serializers calls for a new version.
+     * </p>
+     */
+    public static final KryoNamespace HOT_PATH_V1 = KryoNamespace.newBuilder()
+            .nextId(HOT_PATH_ID)
+            .register(new DefaultFlowRuleSerializer(), DefaultFlowRule.class)
+            .register(new DefaultFlowEntrySerializer(), DefaultFlowEntry.class)
+            .register(new DefaultTrafficSelectorSerializer(), DefaultTrafficSelector.class)
+            .register(new CriterionSerializer(),
+                      PortCriterion.class,
+                      EthCriterion.class,
+                      EthTypeCriterion.class,
+                      VlanIdCriterion.class,
+                      IPCriterion.class,
+                      IPProtocolCriterion.class,
+                      TcpPortCriterion.class,
+                      UdpPortCriterion.class)
+            .register(new IntentDataSerializer(), IntentData.class)
             .build();
 
 
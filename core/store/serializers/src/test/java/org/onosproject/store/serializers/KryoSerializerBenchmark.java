@@ -0,0 +1,183 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.serializers;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.onlab.packet.Ethernet;
+import org.onlab.packet.IpPrefix;
+import org.onlab.packet.MacAddress;
+import org.onlab.packet.TpPort;
+import org.onlab.util.KryoNamespace;
+import org.onosproject.cluster.NodeId;
+import org.onosproject.core.DefaultApplicationId;
+import org.onosproject.core.IdGenerator;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.HostId;
+import org.onosproject.net.PortNumber;
+import org.onosproject.net.flow.DefaultFlowEntry;
+import org.onosproject.net.flow.DefaultFlowRule;
+import org.onosproject.net.flow.DefaultTrafficSelector;
+import org.onosproject.net.flow.DefaultTrafficTreatment;
+import org.onosproject.net.flow.FlowEntry.FlowEntryState;
+import org.onosproject.net.flow.TrafficSelector;
+import org.onosproject.net.intent.HostToHostIntent;
+import org.onosproject.net.intent.Intent;
+import org.onosproject.net.intent.IntentData;
+import org.onosproject.net.intent.IntentState;
+import org.onosproject.store.service.WallClockTimestamp;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Micro-benchmarks of the serialization of frequently stored types, comparing
+ * the hand-written serializers of {@link KryoNamespaces#HOT_PATH_V1} with the
+ * default, reflection based ones.
+ * <p>
+ * {@link KryoSerializerTest} checks that the hand-written serializers also
+ * yield smaller output. To also measure the allocation rate, run with the
+ * GC profiler, e.g.
+ * {@code java -cp <test classpath> org.openjdk.jmh.Main KryoSerializerBenchmark -prof gc}.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class KryoSerializerBenchmark {
+
+    private static final DeviceId DID = DeviceId.deviceId("of:0000000000000001");
+
+    /**
+     * Serializers under comparison.
+     */
+    @Param({"reflective", "handwritten"})
+    public String namespace;
+
+    private final IdGenerator idGenerator = new AtomicLong()::incrementAndGet;
+
+    private KryoNamespace kryo;
+    private TrafficSelector selector;
+    private DefaultFlowEntry flowEntry;
+    private IntentData intentData;
+    private byte[] selectorBytes;
+    private byte[] flowEntryBytes;
+    private byte[] intentDataBytes;
+
+    @Setup
+    public void setUp() {
+        kryo = "reflective".equals(namespace) ? reflectiveNamespace() : handwrittenNamespace();
+        Intent.bindIdGenerator(idGenerator);
+
+        selector = DefaultTrafficSelector.builder()
+                .matchInPort(PortNumber.portNumber(1))
+                .matchEthSrc(MacAddress.valueOf("00:00:00:00:00:01"))
+                .matchEthDst(MacAddress.valueOf("00:00:00:00:00:02"))
+                .matchEthType(Ethernet.TYPE_IPV4)
+                .matchIPSrc(IpPrefix.valueOf("10.0.0.1/32"))
+                .matchIPDst(IpPrefix.valueOf("10.0.0.2/32"))
+                .matchIPProtocol((byte) 6)
+                .matchTcpDst(TpPort.tpPort(80))
+                .build();
+        flowEntry = new DefaultFlowEntry(DefaultFlowRule.builder()
+                                                 .forDevice(DID)
+                                                 .withSelector(selector)
+                                                 .withTreatment(DefaultTrafficTreatment.builder()
+                                                                        .setOutput(PortNumber.portNumber(2))
+                                                                        .build())
+                                                 .withPriority(40000)
+                                                 .fromApp(new DefaultApplicationId(1, "bench"))
+                                                 .makePermanent()
+                                                 .build(),
+                                         System.currentTimeMillis(), FlowEntryState.ADDED,
+                                         100, 1000, 100000, System.currentTimeMillis(), -1, -1);
+        intentData = new IntentData(HostToHostIntent.builder()
+                                            .appId(new DefaultApplicationId(1, "bench"))
+                                            .one(HostId.hostId("00:00:00:00:00:01/-1"))
+                                            .two(HostId.hostId("00:00:00:00:00:02/-1"))
+                                            .build(),
+                                    IntentState.INSTALLED, new WallClockTimestamp());
+        intentData.setOrigin(new NodeId("bench"));
+
+        selectorBytes = kryo.serialize(selector);
+        flowEntryBytes = kryo.serialize(flowEntry);
+        intentDataBytes = kryo.serialize(intentData);
+    }
+
+    @TearDown
+    public void tearDown() {
+        Intent.unbindIdGenerator(idGenerator);
+    }
+
+    // Namespace in which the hot types use Kryo's default serializers.
+    static KryoNamespace reflectiveNamespace() {
+        return KryoNamespace.newBuilder()
+                .register(KryoNamespaces.API)
+                .register(IntentData.class)
+                .build();
+    }
+
+    // Namespace in which the hot types use the hand-written serializers.
+    static KryoNamespace handwrittenNamespace() {
+        return KryoNamespace.newBuilder()
+                .register(reflectiveNamespace())
+                .register(KryoNamespaces.HOT_PATH_V1)
+                .build();
+    }
+
+    @Benchmark
+    public byte[] serializeSelector() {
+        return kryo.serialize(selector);
+    }
+
+    @Benchmark
+    public Object deserializeSelector() {
+        return kryo.deserialize(selectorBytes);
+    }
+
+    @Benchmark
+    public byte[] serializeFlowEntry() {
+        return kryo.serialize(flowEntry);
+    }
+
+    @Benchmark
+    public Object deserializeFlowEntry() {
+        return kryo.deserialize(flowEntryBytes);
+    }
+
+    @Benchmark
+    public byte[] serializeIntentData() {
+        return kryo.serialize(intentData);
+    }
+
+    @Benchmark
+    public Object deserializeIntentData() {
+        return kryo.deserialize(intentDataBytes);
+    }
+}
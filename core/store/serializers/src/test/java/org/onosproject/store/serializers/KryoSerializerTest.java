@@ -15,6 +15,8 @@
  */
 package org.onosproject.store.serializers;
 
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.Registration;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
@@ -31,6 +33,7 @@ import org.onosproject.cluster.NodeId;
 import org.onosproject.cluster.RoleInfo;
 import org.onosproject.core.DefaultApplicationId;
 import org.onosproject.core.DefaultGroupId;
+import org.onosproject.core.IdGenerator;
 import org.onosproject.mastership.MastershipTerm;
 import org.onosproject.net.Annotations;
 import org.onosproject.net.ChannelSpacing;
@@ -53,15 +56,25 @@ import org.onosproject.net.OmsPort;
 import org.onosproject.net.PortNumber;
 import org.onosproject.net.OduSignalType;
 import org.onosproject.net.SparseAnnotations;
+import org.onosproject.net.flow.DefaultFlowEntry;
 import org.onosproject.net.flow.DefaultFlowRule;
 import org.onosproject.net.flow.DefaultTrafficSelector;
 import org.onosproject.net.flow.DefaultTrafficTreatment;
 import org.onosproject.net.flow.FlowId;
 import org.onosproject.net.flow.FlowRule;
+import org.onosproject.net.flow.FlowEntry.FlowEntryState;
 import org.onosproject.net.flow.FlowRuleBatchEntry;
+import org.onosproject.net.flow.TrafficSelector;
+import org.onosproject.net.flow.criteria.Criteria;
+import org.onosproject.net.HostId;
+import org.onosproject.net.intent.HostToHostIntent;
+import org.onosproject.net.intent.Intent;
+import org.onosproject.net.intent.IntentData;
 import org.onosproject.net.intent.IntentId;
+import org.onosproject.net.intent.IntentState;
 import org.onosproject.net.newresource.ResourcePath;
 import org.onosproject.net.provider.ProviderId;
+import org.onosproject.store.service.WallClockTimestamp;
 import org.onosproject.net.resource.link.BandwidthResource;
 import org.onosproject.net.resource.link.BandwidthResourceAllocation;
 import org.onosproject.net.resource.link.DefaultLinkResourceAllocations;
@@ -78,6 +91,7 @@ import org.onosproject.net.intent.constraint.LinkTypeConstraint;
 import org.onosproject.net.intent.constraint.ObstacleConstraint;
 import org.onosproject.net.intent.constraint.WaypointConstraint;
 import org.onlab.packet.ChassisId;
+import org.onlab.packet.Ethernet;
 import org.onlab.packet.IpAddress;
 import org.onlab.packet.Ip4Address;
 import org.onlab.packet.Ip6Address;
@@ -85,6 +99,7 @@ import org.onlab.packet.IpPrefix;
 import org.onlab.packet.Ip4Prefix;
 import org.onlab.packet.Ip6Prefix;
 import org.onlab.packet.MacAddress;
+import org.onlab.packet.TpPort;
 import org.onlab.util.KryoNamespace;
 
 import java.nio.ByteBuffer;
@@ -93,6 +108,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 import java.time.Duration;
 
 import static java.util.Arrays.asList;
@@ -129,6 +145,12 @@ public class KryoSerializerTest {
     private static final OchSignal OCH_SIGNAL1 = (OchSignal) org.onosproject.net.Lambda.ochSignal(
             GridType.DWDM, ChannelSpacing.CHL_100GHZ, -8, 4);
     private static final VlanId VLAN1 = VlanId.vlanId((short) 100);
+    private static final TrafficSelector SELECTOR1 = DefaultTrafficSelector.builder()
+            .matchInPort(P1)
+            .matchEthType(Ethernet.TYPE_IPV4)
+            .matchIPDst(IpPrefix.valueOf("10.0.0.1/32"))
+            .matchTcpDst(TpPort.tpPort(80))
+            .build();
 
     private KryoSerializer serializer;
 
@@ -145,6 +167,8 @@ public class KryoSerializerTest {
                 serializerPool = KryoNamespace.newBuilder()
                         .register(KryoNamespaces.API)
                         .nextId(KryoNamespaces.BEGIN_USER_CUSTOM_ID)
+                        .register(WallClockTimestamp.class)
+                        .register(KryoNamespaces.HOT_PATH_V1)
                         .build();
             }
         };
@@ -258,6 +282,161 @@ public class KryoSerializerTest {
         testSerializedEquals(entry2);
     }
 
+    @Test
+    public void testDefaultFlowRule() {
+        testSerializedEquals(DefaultFlowRule.builder()
+                                     .forDevice(DID1)
+                                     .withSelector(SELECTOR1)
+                                     .withTreatment(DefaultTrafficTreatment.builder().setOutput(P2).build())
+                                     .withPriority(40000)
+                                     .fromApp(new DefaultApplicationId(1, "1"))
+                                     .makeTemporary(10)
+                                     .forTable(2)
+                                     .build());
+    }
+
+    @Test
+    public void testDefaultFlowRuleCreationTime() {
+        DefaultFlowRule rule = new DefaultFlowRule(DefaultFlowRule.builder()
+                                                           .forDevice(DID1)
+                                                           .withSelector(SELECTOR1)
+                                                           .withTreatment(DefaultTrafficTreatment.emptyTreatment())
+                                                           .withPriority(10)
+                                                           .fromApp(new DefaultApplicationId(1, "1"))
+                                                           .makePermanent()
+                                                           .build(),
+                                                   500L);
+        DefaultFlowRule copy = serializer.decode(serializer.encode(rule));
+        assertEquals(500L, copy.created());
+    }
+
+    @Test
+    public void testHotPathIds() {
+        // Layout of an eventually consistent map serializer, which adds
+        // floating and user custom registrations of its own
+        KryoNamespace namespace = KryoNamespace.newBuilder()
+                .register(KryoNamespaces.API)
+                .register(IntentData.class)
+                .register(KryoNamespaces.HOT_PATH_V1)
+                .register(KryoNamespaces.BASIC)
+                .nextId(KryoNamespaces.BEGIN_USER_CUSTOM_ID)
+                .register(WallClockTimestamp.class)
+                .build();
+        Kryo kryo = namespace.borrow();
+        try {
+            assertEquals(KryoNamespaces.HOT_PATH_ID, kryo.getRegistration(DefaultFlowRule.class).getId());
+            for (Class<?> type : asList(DefaultFlowRule.class, DefaultFlowEntry.class, IntentData.class,
+                                        DeviceId.class, byte[].class, HashMap.class, AtomicLong.class,
+                                        WallClockTimestamp.class)) {
+                Registration registration = kryo.getRegistration(type);
+                assertSame("id of " + type + " is taken", registration,
+                           kryo.getRegistration(registration.getId()));
+            }
+        } finally {
+            namespace.release(kryo);
+        }
+    }
+
+    @Test
+    public void testHandwrittenSerializersAreCompact() {
+        KryoNamespace reflective = KryoSerializerBenchmark.reflectiveNamespace();
+        KryoNamespace handwritten = KryoSerializerBenchmark.handwrittenNamespace();
+        assertTrue("selector should serialize more compactly",
+                   handwritten.serialize(SELECTOR1).length < reflective.serialize(SELECTOR1).length);
+
+        FlowRule rule = DefaultFlowRule.builder()
+                .forDevice(DID1)
+                .withSelector(SELECTOR1)
+                .withTreatment(DefaultTrafficTreatment.builder().setOutput(P2).build())
+                .withPriority(40000)
+                .fromApp(new DefaultApplicationId(1, "1"))
+                .makePermanent()
+                .build();
+        DefaultFlowEntry entry = new DefaultFlowEntry(rule, 500L, FlowEntryState.ADDED,
+                                                      12, 345, 67890, 1000L, -1, -1);
+        assertTrue("flow entry should serialize more compactly",
+                   handwritten.serialize(entry).length < reflective.serialize(entry).length);
+    }
+
+    @Test
+    public void testDefaultFlowEntry() {
+        FlowRule rule = DefaultFlowRule.builder()
+                .forDevice(DID1)
+                .withSelector(SELECTOR1)
+                .withTreatment(DefaultTrafficTreatment.emptyTreatment())
+                .withPriority(10)
+                .fromApp(new DefaultApplicationId(1, "1"))
+                .makePermanent()
+                .build();
+        DefaultFlowEntry entry = new DefaultFlowEntry(rule, 500L, FlowEntryState.ADDED,
+                                                      12, 345, 67890, 1000L, -1, -1);
+        testSerializedEquals(entry);
+
+        DefaultFlowEntry copy = serializer.decode(serializer.encode(entry));
+        assertEquals(FlowEntryState.ADDED, copy.state());
+        assertEquals(12, copy.life());
+        assertEquals(345, copy.packets());
+        assertEquals(67890, copy.bytes());
+        assertEquals(1000L, copy.lastSeen());
+        assertEquals(rule.id(), copy.id());
+        assertEquals(rule.appId(), copy.appId());
+        assertEquals(rule.isPermanent(), copy.isPermanent());
+        assertEquals(500L, copy.created());
+    }
+
+    @Test
+    public void testDefaultTrafficSelector() {
+        testSerializedEquals(SELECTOR1);
+        testSerializedEquals(DefaultTrafficSelector.emptySelector());
+    }
+
+    @Test
+    public void testCriteria() {
+        testSerializedEquals(Criteria.matchInPort(P1));
+        testSerializedEquals(Criteria.matchInPhyPort(P2));
+        testSerializedEquals(Criteria.matchEthSrc(MacAddress.valueOf("00:00:00:00:00:01")));
+        testSerializedEquals(Criteria.matchEthDst(MacAddress.BROADCAST));
+        testSerializedEquals(Criteria.matchEthType(0x88cc));
+        testSerializedEquals(Criteria.matchVlanId(VLAN1));
+        testSerializedEquals(Criteria.matchIPSrc(IpPrefix.valueOf("10.0.0.0/8")));
+        testSerializedEquals(Criteria.matchIPDst(IpPrefix.valueOf("10.1.2.3/32")));
+        testSerializedEquals(Criteria.matchIPv6Src(IpPrefix.valueOf("1111::/64")));
+        testSerializedEquals(Criteria.matchIPv6Dst(IpPrefix.valueOf("2222::1/128")));
+        testSerializedEquals(Criteria.matchIPProtocol((short) 17));
+        testSerializedEquals(Criteria.matchTcpSrc(TpPort.tpPort(65535)));
+        testSerializedEquals(Criteria.matchTcpDst(TpPort.tpPort(80)));
+        testSerializedEquals(Criteria.matchUdpSrc(TpPort.tpPort(0)));
+        testSerializedEquals(Criteria.matchUdpDst(TpPort.tpPort(4789)));
+    }
+
+    @Test
+    public void testIntentData() {
+        IdGenerator idGenerator = new AtomicLong()::incrementAndGet;
+        Intent.bindIdGenerator(idGenerator);
+        try {
+            Intent intent = HostToHostIntent.builder()
+                    .appId(new DefaultApplicationId(1, "1"))
+                    .one(HostId.hostId("00:00:00:00:00:01/-1"))
+                    .two(HostId.hostId("00:00:00:00:00:02/-1"))
+                    .build();
+            IntentData data = new IntentData(intent, IntentState.INSTALL_REQ,
+                                             new WallClockTimestamp(100L));
+            data.setState(IntentState.INSTALLING);
+            data.setOrigin(new NodeId("foo"));
+            data.setErrorCount(2);
+            testSerializedEquals(data);
+
+            IntentData copy = serializer.decode(serializer.encode(data));
+            assertEquals(IntentState.INSTALL_REQ, copy.request());
+            assertEquals(IntentState.INSTALLING, copy.state());
+            assertEquals(new NodeId("foo"), copy.origin());
+            assertEquals(2, copy.errorCount());
+            assertTrue(copy.installables().isEmpty());
+        } finally {
+            Intent.unbindIdGenerator(idGenerator);
+        }
+    }
+
     @Test
     public void testIpPrefix() {
         testSerializedEquals(IpPrefix.valueOf("192.168.0.1/24"));
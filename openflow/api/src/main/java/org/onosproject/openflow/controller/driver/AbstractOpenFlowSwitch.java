@@ -16,7 +16,7 @@
 
 package org.onosproject.openflow.controller.driver;
 
-import org.jboss.netty.channel.Channel;
+import io.netty.channel.Channel;
 import org.onlab.packet.IpAddress;
 import org.onosproject.net.Device;
 import org.onosproject.net.driver.AbstractHandlerBehaviour;
@@ -58,6 +58,7 @@ public abstract class AbstractOpenFlowSwitch extends AbstractHandlerBehaviour
     protected final Logger log = LoggerFactory.getLogger(getClass());
 
     private Channel channel;
+    private OFMessageWriter writer;
     protected String channelId;
 
     private boolean connected;
@@ -97,15 +98,15 @@ public abstract class AbstractOpenFlowSwitch extends AbstractHandlerBehaviour
 
     @Override
     public void sendMsg(OFMessage m) {
-        if (role == RoleState.MASTER && channel.isConnected()) {
-            channel.write(Collections.singletonList(m));
+        if (role == RoleState.MASTER && channel.isActive()) {
+            writer.write(Collections.singletonList(m), false);
         }
     }
 
     @Override
     public final void sendMsg(List<OFMessage> msgs) {
-        if (role == RoleState.MASTER && channel.isConnected()) {
-            channel.write(msgs);
+        if (role == RoleState.MASTER && channel.isActive()) {
+            writer.write(msgs, false);
         }
     }
 
@@ -113,7 +114,7 @@ public abstract class AbstractOpenFlowSwitch extends AbstractHandlerBehaviour
     public final void sendRoleRequest(OFMessage msg) {
         if (msg instanceof OFRoleRequest ||
                 msg instanceof OFNiciraControllerRoleRequest) {
-            channel.write(Collections.singletonList(msg));
+            writer.write(Collections.singletonList(msg), true);
             return;
         }
         throw new IllegalArgumentException("Someone is trying to send " +
@@ -123,7 +124,7 @@ public abstract class AbstractOpenFlowSwitch extends AbstractHandlerBehaviour
     @Override
     public final void sendHandshakeMessage(OFMessage message) {
         if (!this.isDriverHandshakeComplete()) {
-            channel.write(Collections.singletonList(message));
+            writer.write(Collections.singletonList(message), true);
         }
     }
 
@@ -140,7 +141,8 @@ public abstract class AbstractOpenFlowSwitch extends AbstractHandlerBehaviour
     @Override
     public final void setChannel(Channel channel) {
         this.channel = channel;
-        final SocketAddress address = channel.getRemoteAddress();
+        this.writer = new OFMessageWriter(channel, OFMessageWriter.DEFAULT_MAX_PENDING_BYTES);
+        final SocketAddress address = channel.remoteAddress();
         if (address instanceof InetSocketAddress) {
             final InetSocketAddress inetAddress = (InetSocketAddress) address;
             final IpAddress ipAddress = IpAddress.valueOf(inetAddress.getAddress());
@@ -422,7 +424,7 @@ public abstract class AbstractOpenFlowSwitch extends AbstractHandlerBehaviour
     @Override
     public String toString() {
         return this.getClass().getName() + " [" + ((channel != null)
-                ? channel.getRemoteAddress() : "?")
+                ? channel.remoteAddress() : "?")
                 + " DPID[" + ((getStringId() != null) ? getStringId() : "?") + "]]";
     }
 
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.openflow.controller.driver;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.projectfloodlight.openflow.protocol.OFMessage;
+import org.projectfloodlight.openflow.protocol.OFType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Outbound message writer of a switch channel, which coalesces the messages
+ * written in quick succession into a single channel write.
+ * <p>
+ * Messages are encoded as they are written, on the caller's thread, into a
+ * single pending buffer. The accumulated bytes are only ever handed to the
+ * channel from its event loop, so that messages always go out in the order
+ * in which they were written. Writers on the event loop flush right away
+ * once the bytes reach the byte budget, or on a barrier request or any
+ * message written as urgent; other writers make sure a flush is scheduled
+ * on the event loop, which then sends everything written so far.
+ * </p>
+ */
+final class OFMessageWriter {
+
+    /**
+     * Default number of encoded bytes held back before a flush is forced.
+     */
+    static final int DEFAULT_MAX_PENDING_BYTES = 64 * 1024;
+
+    private static final int INITIAL_BUFFER_SIZE = 2 * 1024;
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final Channel channel;
+    private final int maxPendingBytes;
+    private final Runnable flushTask = this::flush;
+
+    // Guarded by this; OpenFlowJ only encodes into Netty 3 buffers, so the
+    // messages are staged in a reusable heap buffer
+    private final ChannelBuffer pending =
+            ChannelBuffers.dynamicBuffer(INITIAL_BUFFER_SIZE);
+    private boolean flushScheduled;
+
+    /**
+     * Creates a writer for the specified channel.
+     *
+     * @param channel         switch channel
+     * @param maxPendingBytes number of encoded bytes that forces a flush
+     */
+    OFMessageWriter(Channel channel, int maxPendingBytes) {
+        this.channel = channel;
+        this.maxPendingBytes = maxPendingBytes;
+    }
+
+    /**
+     * Writes the specified messages, in order.
+     *
+     * @param msgs   messages to write
+     * @param urgent true if the messages must be flushed without delay
+     */
+    synchronized void write(List<OFMessage> msgs, boolean urgent) {
+        boolean flush = urgent;
+        for (OFMessage msg : msgs) {
+            int mark = pending.writerIndex();
+            try {
+                msg.writeTo(pending);
+            } catch (RuntimeException e) {
+                // Do not leave a partially encoded message on the wire
+                pending.writerIndex(mark);
+                throw e;
+            }
+            flush |= msg.getType() == OFType.BARRIER_REQUEST;
+        }
+
+        flush |= pending.readableBytes() >= maxPendingBytes;
+        if (flush && channel.eventLoop().inEventLoop()) {
+            flush();
+        } else if (!flushScheduled && pending.readable()) {
+            // Writing from this thread could overtake a flush already queued
+            // on the event loop, so the flush is left to the event loop
+            flushScheduled = true;
+            try {
+                channel.eventLoop().execute(flushTask);
+            } catch (RejectedExecutionException e) {
+                // The channel is being shut down along with its event loop
+                log.warn("Discarding {} bytes of messages to {}; channel event loop stopped",
+                         pending.readableBytes(), channel.remoteAddress());
+                flushScheduled = false;
+                pending.clear();
+            }
+        }
+    }
+
+    /**
+     * Writes all pending messages to the channel. Must be called on the
+     * channel's event loop.
+     */
+    synchronized void flush() {
+        flushScheduled = false;
+        if (pending.readable()) {
+            ByteBuf buf = channel.alloc().directBuffer(pending.readableBytes());
+            buf.writeBytes(pending.toByteBuffer());
+            pending.clear();
+            channel.writeAndFlush(buf);
+        }
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.openflow.controller.driver;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalEventLoopGroup;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.util.ReferenceCountUtil;
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.junit.After;
+import org.junit.Test;
+import org.projectfloodlight.openflow.exceptions.OFParseError;
+import org.projectfloodlight.openflow.protocol.OFFactories;
+import org.projectfloodlight.openflow.protocol.OFFactory;
+import org.projectfloodlight.openflow.protocol.OFMessage;
+import org.projectfloodlight.openflow.protocol.OFVersion;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for OFMessageWriter.
+ */
+public class OFMessageWriterTest {
+
+    private static final OFFactory FACTORY = OFFactories.getFactory(OFVersion.OF_13);
+
+    private EventLoopGroup group;
+
+    @After
+    public void tearDown() {
+        if (group != null) {
+            group.shutdownGracefully(0, 0, TimeUnit.SECONDS);
+        }
+    }
+
+    private static OFMessage echo(long xid) {
+        return FACTORY.buildEchoRequest().setXid(xid).build();
+    }
+
+    private static OFMessage barrier(long xid) {
+        return FACTORY.buildBarrierRequest().setXid(xid).build();
+    }
+
+    // Decodes the transaction ids of all complete messages in the given bytes.
+    private static List<Long> xids(byte[] bytes) throws OFParseError {
+        ChannelBuffer in = ChannelBuffers.wrappedBuffer(bytes);
+        List<Long> xids = Lists.newArrayList();
+        OFMessage msg;
+        while (in.readable() && (msg = OFFactories.getGenericReader().readFrom(in)) != null) {
+            xids.add(msg.getXid());
+        }
+        return xids;
+    }
+
+    private static byte[] bytes(ByteBuf buf) {
+        byte[] bytes = new byte[buf.readableBytes()];
+        buf.readBytes(bytes);
+        buf.release();
+        return bytes;
+    }
+
+    @Test
+    public void coalescing() throws OFParseError {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        OFMessageWriter writer =
+                new OFMessageWriter(channel, OFMessageWriter.DEFAULT_MAX_PENDING_BYTES);
+
+        writer.write(ImmutableList.of(echo(1)), false);
+        writer.write(ImmutableList.of(echo(2), echo(3)), false);
+        assertNull("nothing should be written before the flush", channel.readOutbound());
+
+        channel.runPendingTasks();
+        ByteBuf buf = (ByteBuf) channel.readOutbound();
+        assertNotNull(buf);
+        assertEquals(ImmutableList.of(1L, 2L, 3L), xids(bytes(buf)));
+        assertNull("messages should be coalesced", channel.readOutbound());
+    }
+
+    @Test
+    public void urgentFlush() throws OFParseError {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        OFMessageWriter writer =
+                new OFMessageWriter(channel, OFMessageWriter.DEFAULT_MAX_PENDING_BYTES);
+
+        writer.write(ImmutableList.of(echo(1)), false);
+        writer.write(ImmutableList.of(echo(2)), true);
+        ByteBuf buf = (ByteBuf) channel.readOutbound();
+        assertNotNull("urgent messages should be written right away", buf);
+        assertEquals(ImmutableList.of(1L, 2L), xids(bytes(buf)));
+
+        writer.write(ImmutableList.of(barrier(3)), false);
+        buf = (ByteBuf) channel.readOutbound();
+        assertNotNull("barriers should be written right away", buf);
+        assertEquals(ImmutableList.of(3L), xids(bytes(buf)));
+
+        // the flush scheduled by the first write has nothing left to send
+        channel.runPendingTasks();
+        assertNull(channel.readOutbound());
+    }
+
+    @Test
+    public void byteBudget() throws OFParseError {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        OFMessageWriter writer = new OFMessageWriter(channel, 1);
+
+        writer.write(ImmutableList.of(echo(1)), false);
+        ByteBuf buf = (ByteBuf) channel.readOutbound();
+        assertNotNull("messages over the budget should be written right away", buf);
+        assertEquals(ImmutableList.of(1L), xids(bytes(buf)));
+    }
+
+    @Test
+    public void barrierOrderingOffEventLoop() throws Exception {
+        group = new LocalEventLoopGroup(1);
+        LocalAddress address = new LocalAddress(getClass().getSimpleName());
+        ByteArrayOutputStream received = new ByteArrayOutputStream();
+
+        Channel server = new ServerBootstrap()
+                .group(group)
+                .channel(LocalServerChannel.class)
+                .childHandler(new ChannelInitializer<LocalChannel>() {
+                    @Override
+                    protected void initChannel(LocalChannel ch) {
+                        ch.pipeline().addLast(new ChannelInboundHandlerAdapter() {
+                            @Override
+                            public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+                                ByteBuf buf = (ByteBuf) msg;
+                                synchronized (received) {
+                                    buf.readBytes(received, buf.readableBytes());
+                                }
+                                ReferenceCountUtil.release(msg);
+                            }
+                        });
+                    }
+                })
+                .bind(address).sync().channel();
+        Channel client = new Bootstrap()
+                .group(group)
+                .channel(LocalChannel.class)
+                .handler(new ChannelInboundHandlerAdapter())
+                .connect(address).sync().channel();
+
+        OFMessageWriter writer =
+                new OFMessageWriter(client, OFMessageWriter.DEFAULT_MAX_PENDING_BYTES);
+
+        // Hold up the event loop so that the flush of the first message is
+        // still queued when the barrier and the message after it are written
+        CountDownLatch release = new CountDownLatch(1);
+        client.eventLoop().execute(() -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        writer.write(ImmutableList.of(echo(1)), false);
+        writer.write(ImmutableList.of(barrier(2)), false);
+        writer.write(ImmutableList.of(echo(3)), false);
+        writer.write(ImmutableList.of(echo(4)), true);
+        release.countDown();
+
+        List<Long> xids = ImmutableList.of();
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (xids.size() < 4 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            synchronized (received) {
+                xids = xids(received.toByteArray());
+            }
+        }
+        assertEquals(ImmutableList.of(1L, 2L, 3L, 4L), xids);
+
+        client.close().sync();
+        assertTrue(server.close().await(5, TimeUnit.SECONDS));
+    }
+}
@@ -16,43 +16,38 @@
 
 package org.onosproject.openflow.controller.impl;
 
-import java.util.List;
-
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.MessageToByteEncoder;
 import org.jboss.netty.buffer.ChannelBuffer;
 import org.jboss.netty.buffer.ChannelBuffers;
-import org.jboss.netty.channel.Channel;
-import org.jboss.netty.channel.ChannelHandlerContext;
-import org.jboss.netty.handler.codec.oneone.OneToOneEncoder;
 import org.projectfloodlight.openflow.protocol.OFMessage;
 
+import java.util.List;
 
 /**
- * Encode an openflow message for output into a ChannelBuffer, for use in a
- * netty pipeline.
+ * Encode an openflow message for output into a ByteBuf, for use in a
+ * netty pipeline. Buffers already encoded by the switch are passed through.
  */
-public class OFMessageEncoder extends OneToOneEncoder {
+public class OFMessageEncoder extends MessageToByteEncoder<List<OFMessage>> {
 
     @Override
-    protected Object encode(ChannelHandlerContext ctx, Channel channel,
-                            Object msg) throws Exception {
-        if (!(msg instanceof List)) {
-            return msg;
-        }
-
-        @SuppressWarnings("unchecked")
-        List<OFMessage> msglist = (List<OFMessage>) msg;
+    protected void encode(ChannelHandlerContext ctx, List<OFMessage> msglist,
+                          ByteBuf out) throws Exception {
         /* XXX S can't get length of OFMessage in loxigen's openflowj??
         int size = 0;
         for (OFMessage ofm : msglist) {
             size += ofm.getLengthU();
         }*/
 
+        // OpenFlowJ writes to Netty 3 buffers; the encoded bytes are then
+        // copied into the pooled buffer handed to the transport.
         ChannelBuffer buf = ChannelBuffers.dynamicBuffer();
 
         for (OFMessage ofm : msglist) {
             ofm.writeTo(buf);
         }
-        return buf;
+        out.writeBytes(buf.toByteBuffer());
     }
 
 }
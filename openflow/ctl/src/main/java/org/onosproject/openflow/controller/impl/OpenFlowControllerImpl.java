@@ -27,6 +27,7 @@ import org.apache.felix.scr.annotations.Property;
 import org.apache.felix.scr.annotations.Reference;
 import org.apache.felix.scr.annotations.ReferenceCardinality;
 import org.apache.felix.scr.annotations.Service;
+import org.onlab.metrics.MetricsService;
 import org.onosproject.cfg.ComponentConfigService;
 import org.onosproject.net.driver.DefaultDriverProviderService;
 import org.onosproject.net.driver.DriverService;
@@ -77,6 +78,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -88,6 +90,10 @@ import static org.onlab.util.Tools.groupedThreads;
 public class OpenFlowControllerImpl implements OpenFlowController {
     private static final int DEFAULT_OFPORT = 6633;
     private static final int DEFAULT_WORKER_THREADS = 16;
+    private static final int DEFAULT_PACKET_IN_THREADS = 8;
+    private static final int DEFAULT_PACKET_IN_QUEUE_SIZE = 1024;
+    private static final String DEFAULT_PACKET_IN_DROP_POLICY = "TAIL_DROP";
+    private static final long PACKET_IN_DRAIN_TIMEOUT_SEC = 5;
 
     private static final Logger log =
             LoggerFactory.getLogger(OpenFlowControllerImpl.class);
@@ -102,6 +108,9 @@ public class OpenFlowControllerImpl implements OpenFlowController {
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
     protected ComponentConfigService cfgService;
 
+    @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
+    protected MetricsService metricsService;
+
     @Property(name = "openflowPort", intValue = DEFAULT_OFPORT,
             label = "Port number used by OpenFlow protocol; default is 6633")
     private int openflowPort = DEFAULT_OFPORT;
@@ -110,6 +119,21 @@ public class OpenFlowControllerImpl implements OpenFlowController {
             label = "Number of controller worker threads; default is 16")
     private int workerThreads = DEFAULT_WORKER_THREADS;
 
+    @Property(name = "packetInThreads", intValue = DEFAULT_PACKET_IN_THREADS,
+            label = "Number of threads processing packet-ins; default is 8")
+    private int packetInThreads = DEFAULT_PACKET_IN_THREADS;
+
+    @Property(name = "packetInQueueSize", intValue = DEFAULT_PACKET_IN_QUEUE_SIZE,
+            label = "Maximum number of packet-ins queued per switch; default is 1024")
+    private int packetInQueueSize = DEFAULT_PACKET_IN_QUEUE_SIZE;
+
+    @Property(name = "packetInDropPolicy", value = DEFAULT_PACKET_IN_DROP_POLICY,
+            label = "Policy for dropping packet-ins once the queue of a switch is full; " +
+                    "TAIL_DROP or ETHERTYPE_FAIR; default is TAIL_DROP")
+    private String packetInDropPolicy = DEFAULT_PACKET_IN_DROP_POLICY;
+
+    private volatile PacketInDispatcher packetInDispatcher;
+
     private final ExecutorService executorMsgs =
         Executors.newFixedThreadPool(32, groupedThreads("onos/of", "event-stats-%d"));
 
@@ -149,6 +173,7 @@ public class OpenFlowControllerImpl implements OpenFlowController {
     public void activate(ComponentContext context) {
         cfgService.registerProperties(getClass());
         Map<String, String> properties = readComponentConfiguration(context);
+        readPacketInConfiguration(context);
         ctrl.setConfigParams(properties);
         ctrl.start(agent, driverService);
     }
@@ -157,6 +182,7 @@ public class OpenFlowControllerImpl implements OpenFlowController {
     public void deactivate() {
         cfgService.unregisterProperties(getClass(), false);
         ctrl.stop();
+        drain(packetInDispatcher, null);
     }
 
     /**
@@ -181,9 +207,79 @@ public class OpenFlowControllerImpl implements OpenFlowController {
         return outProperties;
     }
 
+    /**
+     * Extracts the packet-in processing properties from the component
+     * configuration context and sets up the packet-in dispatcher accordingly.
+     *
+     * @param context the component context
+     */
+    private void readPacketInConfiguration(ComponentContext context) {
+        Dictionary<?, ?> properties = context.getProperties();
+
+        String threads = get(properties, "packetInThreads");
+        int newThreads = Strings.isNullOrEmpty(threads) ?
+                DEFAULT_PACKET_IN_THREADS : Integer.parseInt(threads.trim());
+
+        String queueSize = get(properties, "packetInQueueSize");
+        int newQueueSize = Strings.isNullOrEmpty(queueSize) ?
+                DEFAULT_PACKET_IN_QUEUE_SIZE : Integer.parseInt(queueSize.trim());
+
+        String policy = get(properties, "packetInDropPolicy");
+        String newPolicy = Strings.isNullOrEmpty(policy) ?
+                DEFAULT_PACKET_IN_DROP_POLICY : policy.trim();
+
+        if (packetInDispatcher != null && newThreads == packetInThreads &&
+                newQueueSize == packetInQueueSize && newPolicy.equals(packetInDropPolicy)) {
+            return;
+        }
+        packetInThreads = newThreads;
+        packetInQueueSize = newQueueSize;
+        packetInDropPolicy = newPolicy;
+
+        PacketInDispatcher.DropPolicy dropPolicy;
+        try {
+            dropPolicy = PacketInDispatcher.DropPolicy.valueOf(packetInDropPolicy);
+        } catch (IllegalArgumentException e) {
+            log.warn("Unknown packet-in drop policy {}; using {}",
+                     packetInDropPolicy, DEFAULT_PACKET_IN_DROP_POLICY);
+            dropPolicy = PacketInDispatcher.DropPolicy.valueOf(DEFAULT_PACKET_IN_DROP_POLICY);
+        }
+
+        // Process whatever the current dispatcher holds before handing over,
+        // so that no packet-in is lost and those of a switch stay in order.
+        // The new dispatcher only takes packet-ins once the current one has
+        // stopped processing them.
+        PacketInDispatcher dispatcher = new PacketInDispatcher(this::processPacketIn,
+                                                               packetInThreads, packetInQueueSize,
+                                                               dropPolicy, metricsService);
+        if (packetInDispatcher != null) {
+            drain(packetInDispatcher, dispatcher);
+        }
+        packetInDispatcher = dispatcher;
+        log.info("Processing packet-ins with {} threads, queue size {} and {} drop policy",
+                 packetInThreads, packetInQueueSize, dropPolicy);
+    }
+
+    // Shuts the dispatcher down once its queued packet-ins are processed;
+    // should that take too long, it is stopped and whatever it still holds
+    // is handed over to the successor, or discarded if there is none.
+    private void drain(PacketInDispatcher dispatcher, PacketInDispatcher successor) {
+        dispatcher.shutdown();
+        try {
+            if (dispatcher.awaitTermination(PACKET_IN_DRAIN_TIMEOUT_SEC, TimeUnit.SECONDS)) {
+                return;
+            }
+            log.warn("Timed out processing the queued packet-ins");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        dispatcher.shutdownNow(successor);
+    }
+
     @Modified
     public void modified(ComponentContext context) {
         Map<String, String> properties = readComponentConfiguration(context);
+        readPacketInConfiguration(context);
         ctrl.stop();
         ctrl.setConfigParams(properties);
         ctrl.start(agent, driverService);
@@ -278,9 +374,7 @@ public class OpenFlowControllerImpl implements OpenFlowController {
             OpenFlowPacketContext pktCtx = DefaultOpenFlowPacketContext
             .packetContextFromPacketIn(this.getSwitch(dpid),
                     (OFPacketIn) msg);
-            for (PacketListener p : ofPacketListener.values()) {
-                p.handlePacket(pktCtx);
-            }
+            packetInDispatcher.dispatch((OFPacketIn) msg, pktCtx);
             break;
         // TODO: Consider using separate threadpool for sensitive messages.
         //    ie. Back to back error could cause us to starve.
@@ -413,6 +507,13 @@ public class OpenFlowControllerImpl implements OpenFlowController {
         }
     }
 
+    // Hands a packet-in to the packet listeners; runs on the packet-in workers.
+    private void processPacketIn(OpenFlowPacketContext pktCtx) {
+        for (PacketListener p : ofPacketListener.values()) {
+            p.handlePacket(pktCtx);
+        }
+    }
+
     private synchronized Collection<OFFlowStatsEntry> publishFlowStats(Dpid dpid,
                                                                        OFFlowStatsReply reply) {
         //TODO: Get rid of synchronized
@@ -591,6 +692,7 @@ public class OpenFlowControllerImpl implements OpenFlowController {
         @Override
         public void removeConnectedSwitch(Dpid dpid) {
             connectedSwitches.remove(dpid);
+            packetInDispatcher.remove(dpid);
             OpenFlowSwitch sw = activeMasterSwitches.remove(dpid);
             if (sw == null) {
                 log.debug("sw was null for {}", dpid);
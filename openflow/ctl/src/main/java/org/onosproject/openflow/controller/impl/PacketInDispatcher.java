@@ -0,0 +1,410 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.openflow.controller.impl;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import org.onlab.metrics.MetricsComponent;
+import org.onlab.metrics.MetricsFeature;
+import org.onlab.metrics.MetricsService;
+import org.onlab.packet.Ethernet;
+import org.onosproject.openflow.controller.Dpid;
+import org.onosproject.openflow.controller.OpenFlowPacketContext;
+import org.projectfloodlight.openflow.protocol.OFPacketIn;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static org.onlab.util.Tools.groupedThreads;
+
+/**
+ * Packet-in processing stage, which hands the packet-ins received from the
+ * switches to the packet listeners on a pool of worker threads, rather than
+ * on the I/O threads of the switch channels.
+ * <p>
+ * Each switch has its own bounded queue, drained by at most one worker at a
+ * time so that its packet-ins are processed in order. A worker processes a
+ * limited batch of packet-ins before yielding to the queues of the other
+ * switches, so that a busy switch cannot starve the rest. Once the queue of
+ * a switch is full, packet-ins are dropped as dictated by the drop policy.
+ * </p>
+ * <p>
+ * Once shut down, the workers drain the queues fully instead of yielding,
+ * and packet-ins still dispatched are processed on the calling thread, so
+ * that none is lost while handing over to another dispatcher. Should that
+ * take too long, the dispatcher can be stopped outright, handing the
+ * packet-ins it still holds, and any dispatched later, over to its
+ * successor in their original order.
+ * </p>
+ */
+final class PacketInDispatcher {
+
+    /**
+     * Policies for dropping packet-ins once the queue of a switch is full.
+     */
+    enum DropPolicy {
+        /**
+         * Drops the incoming packet-in.
+         */
+        TAIL_DROP,
+
+        /**
+         * Drops the most recent packet-in of the ethertype holding the
+         * largest share of the queue, so that a flood of one kind of
+         * traffic cannot crowd out the others.
+         */
+        ETHERTYPE_FAIR
+    }
+
+    private static final String METRICS_COMPONENT = "OpenFlowPacketIn";
+    private static final int BATCH_SIZE = 64;
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final Consumer<OpenFlowPacketContext> processor;
+    private final int queueSize;
+    private final DropPolicy dropPolicy;
+    private final MetricsService metricsService;
+    private final ExecutorService executor;
+    private final Map<Dpid, SwitchQueue> queues = new ConcurrentHashMap<>();
+    private volatile boolean stopping;
+    private volatile boolean stopped;
+    private volatile PacketInDispatcher successor;
+
+    /**
+     * Creates a packet-in dispatcher.
+     *
+     * @param processor      packet-in processor
+     * @param threads        number of worker threads
+     * @param queueSize      maximum number of packet-ins queued per switch
+     * @param dropPolicy     policy applied once a switch queue is full
+     * @param metricsService metrics service; null to not record metrics
+     */
+    PacketInDispatcher(Consumer<OpenFlowPacketContext> processor,
+                       int threads, int queueSize, DropPolicy dropPolicy,
+                       MetricsService metricsService) {
+        this.processor = processor;
+        this.queueSize = queueSize;
+        this.dropPolicy = dropPolicy;
+        this.metricsService = metricsService;
+        this.executor = newFixedThreadPool(threads, groupedThreads("onos/of", "packet-in-%d"));
+    }
+
+    /**
+     * Queues the specified packet-in for processing.
+     *
+     * @param packetIn packet-in message
+     * @param context  packet-in context
+     */
+    void dispatch(OFPacketIn packetIn, OpenFlowPacketContext context) {
+        dispatch(context, dropPolicy == DropPolicy.ETHERTYPE_FAIR ?
+                etherType(packetIn.getData()) : 0);
+    }
+
+    /**
+     * Queues a packet-in of the specified ethertype for processing.
+     *
+     * @param context   packet-in context
+     * @param etherType ethertype of the packet
+     */
+    void dispatch(OpenFlowPacketContext context, short etherType) {
+        Dpid dpid = context.dpid();
+        while (true) {
+            // Once stopped, no more queues are created
+            SwitchQueue queue = stopped ? queues.get(dpid) :
+                    queues.computeIfAbsent(dpid, SwitchQueue::new);
+            if (queue != null && queue.offer(context, etherType)) {
+                return;
+            }
+            if (stopped) {
+                // The packet-ins the queue held have been handed over, so
+                // this one follows them
+                PacketInDispatcher next = successor;
+                if (next != null) {
+                    next.dispatch(context, etherType);
+                }
+                return;
+            }
+            // The switch was removed meanwhile; start over with a new queue
+        }
+    }
+
+    /**
+     * Discards the queue of the specified switch, along with its metrics.
+     *
+     * @param dpid switch dpid
+     */
+    void remove(Dpid dpid) {
+        // Closed while still mapped, so that a concurrent dispatch cannot
+        // slip a packet-in into it after it is gone
+        queues.computeIfPresent(dpid, (id, queue) -> {
+            queue.close(null);
+            queue.unregisterMetrics();
+            return null;
+        });
+    }
+
+    /**
+     * Stops the worker threads once the queued packet-ins are processed.
+     */
+    void shutdown() {
+        stopping = true;
+        executor.shutdown();
+        queues.values().forEach(SwitchQueue::unregisterMetrics);
+    }
+
+    /**
+     * Waits for the packet-ins queued before the shutdown to be processed.
+     *
+     * @param timeout maximum time to wait
+     * @param unit    unit of the timeout
+     * @return true if all were processed; false if the timeout elapsed first
+     * @throws InterruptedException if interrupted while waiting
+     */
+    boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return executor.awaitTermination(timeout, unit);
+    }
+
+    /**
+     * Stops the worker threads without processing the queued packet-ins,
+     * which are handed over to the specified dispatcher instead, as are
+     * those dispatched from now on. A packet-in being processed when this
+     * is called may still be in progress once it returns.
+     *
+     * @param next dispatcher taking over; null to discard the packet-ins
+     */
+    void shutdownNow(PacketInDispatcher next) {
+        successor = next;
+        stopping = true;
+        stopped = true;
+        // The metrics are named after the switches, as are those of the
+        // successor, so they go before any packet-in is handed over
+        queues.values().forEach(SwitchQueue::unregisterMetrics);
+        queues.forEach((dpid, queue) -> {
+            queue.close(next);
+            queues.remove(dpid, queue);
+        });
+        // Only now, so that interrupted workers find nothing left to process
+        executor.shutdownNow();
+    }
+
+    /**
+     * Returns the ethertype of the specified ethernet frame, looking past
+     * a VLAN tag if there is one.
+     *
+     * @param frame ethernet frame
+     * @return ethertype; 0 if the frame is truncated
+     */
+    static short etherType(byte[] frame) {
+        if (frame == null || frame.length < 14) {
+            return 0;
+        }
+        short type = (short) ((frame[12] & 0xff) << 8 | frame[13] & 0xff);
+        if (type == Ethernet.TYPE_VLAN && frame.length >= 18) {
+            type = (short) ((frame[16] & 0xff) << 8 | frame[17] & 0xff);
+        }
+        return type;
+    }
+
+    // Packet-in waiting in a switch queue
+    private static final class QueuedPacket {
+        private final OpenFlowPacketContext context;
+        private final short etherType;
+
+        private QueuedPacket(OpenFlowPacketContext context, short etherType) {
+            this.context = context;
+            this.etherType = etherType;
+        }
+    }
+
+    // Bounded queue of the packet-ins of a single switch, which also serves
+    // as the task draining it.
+    private final class SwitchQueue implements Runnable {
+        private final String name;
+        private final Meter drops;
+
+        // Guarded by this
+        private final Deque<QueuedPacket> packets = new ArrayDeque<>();
+        private final Map<Short, Integer> etherTypeCounts = new HashMap<>();
+        private boolean scheduled;
+        private boolean closed;
+
+        private SwitchQueue(Dpid dpid) {
+            this.name = dpid.toString();
+            this.drops = stopping ? null : registerMetrics();
+        }
+
+        // Queues the packet-in, or drops it as the drop policy dictates;
+        // returns false if the queue is closed.
+        private boolean offer(OpenFlowPacketContext context, short etherType) {
+            synchronized (this) {
+                if (stopped && !closed) {
+                    // Hand over what is queued ahead of this packet-in
+                    close(successor);
+                }
+                if (closed) {
+                    return false;
+                }
+                if (packets.size() >= queueSize && !makeRoom(etherType)) {
+                    markDropped();
+                    return true;
+                }
+                packets.add(new QueuedPacket(context, etherType));
+                etherTypeCounts.merge(etherType, 1, Integer::sum);
+                if (scheduled) {
+                    return true;
+                }
+                scheduled = true;
+                if (submit()) {
+                    return true;
+                }
+            }
+            // The dispatcher is stopping; drain the queue on this thread
+            run();
+            return true;
+        }
+
+        // Evicts a queued packet-in in favour of one of the given ethertype,
+        // as the drop policy permits.
+        private boolean makeRoom(short etherType) {
+            if (dropPolicy != DropPolicy.ETHERTYPE_FAIR) {
+                return false;
+            }
+            Map.Entry<Short, Integer> largest = null;
+            for (Map.Entry<Short, Integer> entry : etherTypeCounts.entrySet()) {
+                if (largest == null || entry.getValue() > largest.getValue()) {
+                    largest = entry;
+                }
+            }
+            int incoming = etherTypeCounts.getOrDefault(etherType, 0);
+            if (largest == null || largest.getValue() <= incoming + 1) {
+                return false;
+            }
+            short victim = largest.getKey();
+            Iterator<QueuedPacket> it = packets.descendingIterator();
+            while (it.hasNext()) {
+                if (it.next().etherType == victim) {
+                    it.remove();
+                    etherTypeCounts.computeIfPresent(victim, (t, n) -> n > 1 ? n - 1 : null);
+                    markDropped();
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                // Once stopping, keep on draining until the queue is empty
+                for (int i = 0; i < BATCH_SIZE || stopping; i++) {
+                    QueuedPacket packet;
+                    synchronized (this) {
+                        packet = packets.poll();
+                        if (packet == null) {
+                            scheduled = false;
+                            return;
+                        }
+                        etherTypeCounts.computeIfPresent(packet.etherType,
+                                                         (t, n) -> n > 1 ? n - 1 : null);
+                    }
+                    try {
+                        processor.accept(packet.context);
+                    } catch (Exception e) {
+                        log.warn("Unable to process packet-in from {}", name, e);
+                    }
+                }
+                // Yield to the other switches before draining the rest
+                synchronized (this) {
+                    if (packets.isEmpty()) {
+                        scheduled = false;
+                        return;
+                    }
+                    if (submit()) {
+                        return;
+                    }
+                }
+            }
+        }
+
+        // Submits this queue to be drained by a worker; returns false if the
+        // dispatcher is shut down, in which case the caller drains it.
+        private boolean submit() {
+            try {
+                executor.execute(this);
+                return true;
+            } catch (RejectedExecutionException e) {
+                log.debug("Draining packet-ins from {} in place; dispatcher stopped", name);
+                return false;
+            }
+        }
+
+        // Closes the queue, handing the queued packet-ins over to the given
+        // dispatcher or discarding them if there is none.
+        private synchronized void close(PacketInDispatcher next) {
+            closed = true;
+            if (next != null) {
+                packets.forEach(packet -> next.dispatch(packet.context, packet.etherType));
+            }
+            packets.clear();
+            etherTypeCounts.clear();
+        }
+
+        private int depth() {
+            synchronized (this) {
+                return packets.size();
+            }
+        }
+
+        private void markDropped() {
+            if (drops != null) {
+                drops.mark();
+            }
+        }
+
+        private Meter registerMetrics() {
+            if (metricsService == null) {
+                return null;
+            }
+            MetricsComponent component = metricsService.registerComponent(METRICS_COMPONENT);
+            MetricsFeature feature = component.registerFeature(name);
+            metricsService.removeMetric(component, feature, "queueDepth");
+            metricsService.registerMetric(component, feature, "queueDepth",
+                                          (Gauge<Integer>) this::depth);
+            return metricsService.createMeter(component, feature, "drops");
+        }
+
+        private void unregisterMetrics() {
+            if (metricsService != null) {
+                MetricsComponent component = metricsService.registerComponent(METRICS_COMPONENT);
+                MetricsFeature feature = component.registerFeature(name);
+                metricsService.removeMetric(component, feature, "queueDepth");
+                metricsService.removeMetric(component, feature, "drops");
+            }
+        }
+    }
+}
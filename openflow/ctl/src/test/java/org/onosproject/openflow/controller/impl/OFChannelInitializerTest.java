@@ -0,0 +1,131 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.openflow.controller.impl;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalEventLoopGroup;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the setup of OpenFlow channel pipelines and their
+ * handshake timeout, which runs on the channel's event loop.
+ */
+public class OFChannelInitializerTest {
+
+    private static final LocalAddress ADDRESS = new LocalAddress("of-test");
+
+    private LocalEventLoopGroup group;
+    private Channel server;
+    private final CompletableFuture<Throwable> caught = new CompletableFuture<>();
+
+    @Before
+    public void setUp() {
+        group = new LocalEventLoopGroup(1);
+    }
+
+    @After
+    public void tearDown() {
+        if (server != null) {
+            server.close().syncUninterruptibly();
+        }
+        group.shutdownGracefully(0, 0, TimeUnit.SECONDS).syncUninterruptibly();
+    }
+
+    @Test
+    public void pipelineLayout() throws Exception {
+        SocketChannel socket = SocketChannel.open();
+        try {
+            NioSocketChannel channel = new NioSocketChannel(socket);
+            new OFChannelInitializer(new Controller(), null).initChannel(channel);
+
+            ChannelPipeline pipeline = channel.pipeline();
+            assertTrue(pipeline.first() instanceof OFMessageDecoder);
+            assertTrue(pipeline.get("ofmessageencoder") instanceof OFMessageEncoder);
+            assertTrue(pipeline.get("handshaketimeout") instanceof HandshakeTimeoutHandler);
+            assertTrue(pipeline.last() instanceof OFChannelHandler);
+        } finally {
+            socket.close();
+        }
+    }
+
+    // Starts a server whose channels time out if not handshaken within a second.
+    private void startServer() {
+        server = new ServerBootstrap()
+                .group(group)
+                .channel(LocalServerChannel.class)
+                .childHandler(new ChannelInitializer<LocalChannel>() {
+                    @Override
+                    protected void initChannel(LocalChannel channel) {
+                        OFChannelHandler handler = new OFChannelHandler(new Controller());
+                        channel.pipeline().addLast(new HandshakeTimeoutHandler(handler, 1),
+                                                   new ExceptionCatcher());
+                    }
+                })
+                .bind(ADDRESS).syncUninterruptibly().channel();
+    }
+
+    private Channel connect() {
+        return new Bootstrap()
+                .group(group)
+                .channel(LocalChannel.class)
+                .handler(new ChannelInboundHandlerAdapter())
+                .connect(ADDRESS).syncUninterruptibly().channel();
+    }
+
+    @Test
+    public void handshakeTimeout() throws Exception {
+        startServer();
+        Channel client = connect();
+        assertSame(HandshakeTimeoutHandler.EXCEPTION, caught.get(5, TimeUnit.SECONDS));
+        client.close().syncUninterruptibly();
+    }
+
+    @Test
+    public void noTimeoutOnceClosed() throws Exception {
+        startServer();
+        connect().close().syncUninterruptibly();
+        Thread.sleep(1500);
+        assertFalse("closed channel should not time out", caught.isDone());
+    }
+
+    // Records the exceptions reaching the end of the server pipeline.
+    private final class ExceptionCatcher extends ChannelInboundHandlerAdapter {
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            caught.complete(cause);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.openflow.controller.impl;
+
+import com.google.common.collect.ImmutableList;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.Test;
+import org.projectfloodlight.openflow.protocol.OFFactories;
+import org.projectfloodlight.openflow.protocol.OFFactory;
+import org.projectfloodlight.openflow.protocol.OFMessage;
+import org.projectfloodlight.openflow.protocol.OFVersion;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Unit tests for the OpenFlow message encoder and decoder.
+ */
+public class OFMessageCodecTest {
+
+    private static final OFFactory FACTORY = OFFactories.getFactory(OFVersion.OF_13);
+
+    private final List<OFMessage> messages = ImmutableList.of(
+            FACTORY.buildEchoRequest().setXid(1).build(),
+            FACTORY.buildHello().setXid(2).build(),
+            FACTORY.buildBarrierRequest().setXid(3).build());
+
+    // Encodes the messages into a single buffer.
+    private ByteBuf encode(List<OFMessage> msgs) {
+        EmbeddedChannel encoder = new EmbeddedChannel(new OFMessageEncoder());
+        encoder.writeOutbound(msgs);
+        ByteBuf encoded = (ByteBuf) encoder.readOutbound();
+        assertNull("messages should be encoded together", encoder.readOutbound());
+        assertFalse(encoder.finish());
+        return encoded;
+    }
+
+    @Test
+    public void roundTrip() {
+        ByteBuf encoded = encode(messages);
+        EmbeddedChannel decoder = new EmbeddedChannel(new OFMessageDecoder());
+        decoder.writeInbound(encoded);
+        for (OFMessage message : messages) {
+            assertEquals(message, decoder.readInbound());
+        }
+        assertNull(decoder.readInbound());
+    }
+
+    @Test
+    public void fragmentedInput() {
+        ByteBuf encoded = encode(messages);
+        EmbeddedChannel decoder = new EmbeddedChannel(new OFMessageDecoder());
+
+        // feed the bytes in chunks that split the messages, including the headers
+        while (encoded.isReadable()) {
+            int chunk = Math.min(5, encoded.readableBytes());
+            decoder.writeInbound(encoded.readBytes(chunk));
+        }
+        encoded.release();
+
+        for (OFMessage message : messages) {
+            assertEquals(message, decoder.readInbound());
+        }
+        assertNull(decoder.readInbound());
+    }
+
+    @Test
+    public void incompleteMessageWaits() {
+        ByteBuf encoded = encode(messages.subList(0, 1));
+        EmbeddedChannel decoder = new EmbeddedChannel(new OFMessageDecoder());
+
+        decoder.writeInbound(encoded.readBytes(encoded.readableBytes() - 1));
+        assertNull("partial message should not be decoded", decoder.readInbound());
+        decoder.writeInbound(encoded);
+        assertEquals(messages.get(0), decoder.readInbound());
+    }
+}
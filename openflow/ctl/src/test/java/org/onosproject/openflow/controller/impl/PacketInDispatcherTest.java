@@ -0,0 +1,265 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.openflow.controller.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import org.junit.After;
+import org.junit.Test;
+import org.onlab.packet.Ethernet;
+import org.onosproject.openflow.controller.Dpid;
+import org.onosproject.openflow.controller.OpenFlowPacketContext;
+import org.projectfloodlight.openflow.types.OFPort;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.onosproject.openflow.controller.impl.PacketInDispatcher.DropPolicy.ETHERTYPE_FAIR;
+import static org.onosproject.openflow.controller.impl.PacketInDispatcher.DropPolicy.TAIL_DROP;
+
+/**
+ * Unit tests for PacketInDispatcher.
+ */
+public class PacketInDispatcherTest {
+
+    private static final Dpid DPID = new Dpid(1);
+
+    private final List<OpenFlowPacketContext> processed = Lists.newCopyOnWriteArrayList();
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private PacketInDispatcher dispatcher;
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        if (dispatcher != null) {
+            dispatcher.shutdown();
+        }
+    }
+
+    // Processes packet-ins, holding up the first one until released.
+    private void process(OpenFlowPacketContext context) {
+        processed.add(context);
+        started.countDown();
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Dispatches a packet-in that keeps the only worker busy.
+    private OpenFlowPacketContext block() throws InterruptedException {
+        OpenFlowPacketContext blocker = new TestPacketContext();
+        dispatcher.dispatch(blocker, Ethernet.TYPE_IPV4);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        return blocker;
+    }
+
+    private void awaitProcessed(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (processed.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    public void tailDrop() throws InterruptedException {
+        dispatcher = new PacketInDispatcher(this::process, 1, 2, TAIL_DROP, null);
+        OpenFlowPacketContext blocker = block();
+
+        OpenFlowPacketContext p1 = new TestPacketContext();
+        OpenFlowPacketContext p2 = new TestPacketContext();
+        OpenFlowPacketContext p3 = new TestPacketContext();
+        dispatcher.dispatch(p1, Ethernet.TYPE_IPV4);
+        dispatcher.dispatch(p2, Ethernet.TYPE_IPV4);
+        dispatcher.dispatch(p3, Ethernet.TYPE_IPV4);
+
+        release.countDown();
+        awaitProcessed(3);
+        Thread.sleep(50);
+        assertEquals(ImmutableList.of(blocker, p1, p2), processed);
+    }
+
+    @Test
+    public void etherTypeFairDrop() throws InterruptedException {
+        dispatcher = new PacketInDispatcher(this::process, 1, 3, ETHERTYPE_FAIR, null);
+        OpenFlowPacketContext blocker = block();
+
+        OpenFlowPacketContext a1 = new TestPacketContext();
+        OpenFlowPacketContext a2 = new TestPacketContext();
+        OpenFlowPacketContext a3 = new TestPacketContext();
+        OpenFlowPacketContext i1 = new TestPacketContext();
+        OpenFlowPacketContext i2 = new TestPacketContext();
+        dispatcher.dispatch(a1, Ethernet.TYPE_ARP);
+        dispatcher.dispatch(a2, Ethernet.TYPE_ARP);
+        dispatcher.dispatch(a3, Ethernet.TYPE_ARP);
+        // evicts the most recent ARP packet
+        dispatcher.dispatch(i1, Ethernet.TYPE_IPV4);
+        // would leave IPv4 with a larger share than ARP, so it is dropped
+        dispatcher.dispatch(i2, Ethernet.TYPE_IPV4);
+
+        release.countDown();
+        awaitProcessed(4);
+        Thread.sleep(50);
+        assertEquals(ImmutableList.of(blocker, a1, a2, i1), processed);
+    }
+
+    @Test
+    public void shutdownDrainsQueues() throws InterruptedException {
+        dispatcher = new PacketInDispatcher(this::process, 1, 1024, TAIL_DROP, null);
+        OpenFlowPacketContext blocker = block();
+
+        // more than a single batch is left queued at shutdown
+        List<OpenFlowPacketContext> expected = Lists.newArrayList(blocker);
+        for (int i = 0; i < 200; i++) {
+            OpenFlowPacketContext packet = new TestPacketContext();
+            expected.add(packet);
+            dispatcher.dispatch(packet, Ethernet.TYPE_IPV4);
+        }
+        dispatcher.shutdown();
+
+        release.countDown();
+        assertTrue(dispatcher.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(expected, processed);
+
+        // packet-ins arriving after the shutdown are processed in place
+        OpenFlowPacketContext late = new TestPacketContext();
+        dispatcher.dispatch(late, Ethernet.TYPE_IPV4);
+        expected.add(late);
+        assertEquals(expected, processed);
+    }
+
+    @Test
+    public void removalStartsNewQueue() throws InterruptedException {
+        dispatcher = new PacketInDispatcher(this::process, 1, 1024, TAIL_DROP, null);
+        OpenFlowPacketContext blocker = block();
+
+        OpenFlowPacketContext discarded = new TestPacketContext();
+        dispatcher.dispatch(discarded, Ethernet.TYPE_IPV4);
+        dispatcher.remove(DPID);
+        // a packet-in from the switch once it is back is not lost to the
+        // closed queue
+        OpenFlowPacketContext p1 = new TestPacketContext();
+        dispatcher.dispatch(p1, Ethernet.TYPE_IPV4);
+
+        release.countDown();
+        awaitProcessed(2);
+        Thread.sleep(50);
+        assertEquals(ImmutableList.of(blocker, p1), processed);
+    }
+
+    @Test
+    public void shutdownNowHandsOver() throws InterruptedException {
+        dispatcher = new PacketInDispatcher(this::process, 1, 1024, TAIL_DROP, null);
+        OpenFlowPacketContext blocker = block();
+
+        List<OpenFlowPacketContext> expected = Lists.newArrayList();
+        for (int i = 0; i < 100; i++) {
+            OpenFlowPacketContext packet = new TestPacketContext();
+            expected.add(packet);
+            dispatcher.dispatch(packet, Ethernet.TYPE_IPV4);
+        }
+        dispatcher.shutdown();
+        assertFalse(dispatcher.awaitTermination(50, TimeUnit.MILLISECONDS));
+
+        List<OpenFlowPacketContext> handedOver = Lists.newCopyOnWriteArrayList();
+        PacketInDispatcher successor =
+                new PacketInDispatcher(handedOver::add, 1, 1024, TAIL_DROP, null);
+        dispatcher.shutdownNow(successor);
+        // packet-ins still dispatched follow those handed over
+        OpenFlowPacketContext late = new TestPacketContext();
+        dispatcher.dispatch(late, Ethernet.TYPE_IPV4);
+        expected.add(late);
+
+        successor.shutdown();
+        assertTrue(successor.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(expected, handedOver);
+        assertTrue(dispatcher.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals("the stopped dispatcher should not process any more packet-ins",
+                     ImmutableList.of(blocker), processed);
+    }
+
+    @Test
+    public void etherType() {
+        byte[] frame = new byte[18];
+        frame[12] = (byte) 0x08;
+        frame[13] = (byte) 0x06;
+        assertEquals(Ethernet.TYPE_ARP, PacketInDispatcher.etherType(frame));
+
+        frame[12] = (byte) 0x81;
+        frame[13] = (byte) 0x00;
+        frame[16] = (byte) 0x08;
+        frame[17] = (byte) 0x00;
+        assertEquals(Ethernet.TYPE_IPV4, PacketInDispatcher.etherType(frame));
+
+        assertEquals(0, PacketInDispatcher.etherType(new byte[10]));
+    }
+
+    private static class TestPacketContext implements OpenFlowPacketContext {
+        @Override
+        public boolean block() {
+            return false;
+        }
+
+        @Override
+        public boolean isHandled() {
+            return false;
+        }
+
+        @Override
+        public void send() {
+        }
+
+        @Override
+        public void build(OFPort outPort) {
+        }
+
+        @Override
+        public void build(Ethernet ethFrame, OFPort outPort) {
+        }
+
+        @Override
+        public Ethernet parsed() {
+            return null;
+        }
+
+        @Override
+        public byte[] unparsed() {
+            return new byte[0];
+        }
+
+        @Override
+        public Dpid dpid() {
+            return DPID;
+        }
+
+        @Override
+        public Integer inPort() {
+            return 1;
+        }
+
+        @Override
+        public boolean isBuffered() {
+            return false;
+        }
+    }
+}
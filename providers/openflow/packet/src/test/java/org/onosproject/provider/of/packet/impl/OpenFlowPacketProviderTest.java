@@ -186,6 +186,28 @@ public class OpenFlowPacketProviderTest {
 
     }
 
+    @Test
+    public void outboundFrameIsCopied() {
+        byte[] frame = new byte[64];
+        frame[12] = (byte) 0x08;
+        frame[13] = (byte) 0x06;
+        OFPacketIn pkt = sw.factory().buildPacketIn()
+                .setBufferId(OFBufferId.NO_BUFFER)
+                .setInPort(OFPort.of(1))
+                .setReason(OFPacketInReason.NO_MATCH)
+                .setData(frame)
+                .build();
+
+        controller.processPacket(null, pkt);
+        PacketContext ctx = registry.ctx;
+        assertNotNull("message unprocessed", ctx);
+
+        // rewriting the outbound bytes leaves the inbound frame untouched
+        ctx.outPacket().data().array()[0] = (byte) 0xff;
+        assertEquals("inbound frame modified", 0, ctx.inPacket().unparsed().get(0));
+        assertEquals("wrong ethertype", Ethernet.TYPE_ARP, ctx.inPacket().parsed().getEtherType());
+    }
+
     private static OFPortDesc portDesc(int port) {
         OFPortDesc.Builder builder = OFFactoryVer10.INSTANCE.buildPortDesc();
         builder.setPortNo(OFPort.of(port));
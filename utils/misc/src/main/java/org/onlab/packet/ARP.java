@@ -420,8 +420,8 @@ public class ARP extends BasePacket {
 
             // Check we have enough space for the addresses
             checkHeaderLength(length, INITIAL_HEADER_LENGTH +
-                    2 * hwAddressLength +
-                    2 * protocolAddressLength);
+                    2 * (0xff & hwAddressLength) +
+                    2 * (0xff & protocolAddressLength));
 
             arp.senderHardwareAddress = new byte[0xff & hwAddressLength];
             bb.get(arp.senderHardwareAddress, 0, arp.senderHardwareAddress.length);
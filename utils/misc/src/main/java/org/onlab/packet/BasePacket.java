@@ -18,6 +18,8 @@
 
 package org.onlab.packet;
 
+import java.util.Arrays;
+
 /**
  *
  *
@@ -26,6 +28,12 @@ public abstract class BasePacket implements IPacket {
     protected IPacket parent;
     protected IPacket payload;
 
+    // Payload bytes whose decoding is deferred until the payload is asked for
+    private volatile Deserializer<? extends IPacket> payloadDeserializer;
+    private byte[] payloadData;
+    private int payloadOffset;
+    private int payloadLength;
+
     /**
      * @return the parent
      */
@@ -49,6 +57,9 @@ public abstract class BasePacket implements IPacket {
      */
     @Override
     public IPacket getPayload() {
+        if (this.payloadDeserializer != null) {
+            decodePayload();
+        }
         return this.payload;
     }
 
@@ -58,10 +69,58 @@ public abstract class BasePacket implements IPacket {
      */
     @Override
     public IPacket setPayload(final IPacket payload) {
-        this.payload = payload;
+        synchronized (this) {
+            this.payload = payload;
+            clearLazyPayload();
+        }
         return this;
     }
 
+    /**
+     * Defers decoding of the payload until it is first asked for. The given
+     * range of the backing array is neither copied nor parsed until then, so
+     * it must not be modified afterwards.
+     *
+     * @param deserializer deserializer for the payload
+     * @param data backing array
+     * @param offset offset of the payload in the backing array
+     * @param length length of the payload
+     */
+    protected void setLazyPayload(final Deserializer<? extends IPacket> deserializer,
+                                  final byte[] data, final int offset, final int length) {
+        synchronized (this) {
+            this.payload = null;
+            this.payloadData = data;
+            this.payloadOffset = offset;
+            this.payloadLength = length;
+            this.payloadDeserializer = deserializer;
+        }
+    }
+
+    private synchronized void decodePayload() {
+        final Deserializer<? extends IPacket> deserializer = this.payloadDeserializer;
+        if (deserializer == null) {
+            return;
+        }
+        IPacket decoded;
+        try {
+            decoded = deserializer.deserialize(this.payloadData, this.payloadOffset,
+                                               this.payloadLength);
+        } catch (DeserializationException e) {
+            // Keep the raw bytes rather than fail the accessor
+            decoded = new Data(Arrays.copyOfRange(this.payloadData, this.payloadOffset,
+                                                  this.payloadOffset + this.payloadLength));
+        }
+        decoded.setParent(this);
+        this.payload = decoded;
+        clearLazyPayload();
+    }
+
+    private void clearLazyPayload() {
+        this.payloadData = null;
+        this.payloadDeserializer = null;
+    }
+
     @Override
     public void resetChecksum() {
         if (this.parent != null) {
@@ -79,7 +138,7 @@ public abstract class BasePacket implements IPacket {
         final int prime = 6733;
         int result = 1;
         result = prime * result
-                + (this.payload == null ? 0 : this.payload.hashCode());
+                + (this.getPayload() == null ? 0 : this.getPayload().hashCode());
         return result;
     }
 
@@ -100,11 +159,12 @@ public abstract class BasePacket implements IPacket {
             return false;
         }
         final BasePacket other = (BasePacket) obj;
-        if (this.payload == null) {
-            if (other.payload != null) {
+        final IPacket payload = this.getPayload();
+        if (payload == null) {
+            if (other.getPayload() != null) {
                 return false;
             }
-        } else if (!this.payload.equals(other.payload)) {
+        } else if (!payload.equals(other.getPayload())) {
             return false;
         }
         return true;
@@ -587,6 +587,10 @@ public class DHCP extends BasePacket {
             dhcp.serverIPAddress = bb.getInt();
             dhcp.gatewayIPAddress = bb.getInt();
             final int hardwareAddressLength = 0xff & dhcp.hardwareAddressLength;
+            if (hardwareAddressLength > 16) {
+                throw new DeserializationException("Hardware address length "
+                        + hardwareAddressLength + " exceeds the 16 byte field");
+            }
             dhcp.clientHardwareAddress = new byte[hardwareAddressLength];
 
             bb.get(dhcp.clientHardwareAddress);
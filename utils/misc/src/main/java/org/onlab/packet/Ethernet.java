@@ -279,9 +279,10 @@ public class Ethernet extends BasePacket {
     @Override
     public byte[] serialize() {
         byte[] payloadData = null;
-        if (this.payload != null) {
-            this.payload.setParent(this);
-            payloadData = this.payload.serialize();
+        final IPacket payload = this.getPayload();
+        if (payload != null) {
+            payload.setParent(this);
+            payloadData = payload.serialize();
         }
         int length = 14 + (this.vlanID == Ethernet.VLAN_UNTAGGED ? 0 : 4)
                 + (payloadData == null ? 0 : payloadData.length);
@@ -338,7 +339,6 @@ public class Ethernet extends BasePacket {
         }
         this.etherType = ethType;
 
-        IPacket payload;
         Deserializer<? extends IPacket> deserializer;
         if (Ethernet.ETHERTYPE_DESERIALIZER_MAP.containsKey(ethType)) {
             deserializer = Ethernet.ETHERTYPE_DESERIALIZER_MAP.get(ethType);
@@ -346,9 +346,10 @@ public class Ethernet extends BasePacket {
             deserializer = Data.deserializer();
         }
         try {
-            this.payload = deserializer.deserialize(data, bb.position(),
-                                                    bb.limit() - bb.position());
-            this.payload.setParent(this);
+            IPacket decoded = deserializer.deserialize(data, bb.position(),
+                                                       bb.limit() - bb.position());
+            decoded.setParent(this);
+            this.setPayload(decoded);
         } catch (DeserializationException e) {
             return this;
         }
@@ -579,6 +580,22 @@ public class Ethernet extends BasePacket {
      * @return deserializer function
      */
     public static Deserializer<Ethernet> deserializer() {
+        return deserializer(false);
+    }
+
+    /**
+     * Deserializer function for Ethernet packets which decodes the header
+     * only. The payload, and in turn the headers it carries, are decoded
+     * from the original array the first time they are asked for, and the
+     * array must therefore not be modified afterwards.
+     *
+     * @return lazy deserializer function
+     */
+    public static Deserializer<Ethernet> lazyDeserializer() {
+        return deserializer(true);
+    }
+
+    private static Deserializer<Ethernet> deserializer(boolean lazy) {
         return (data, offset, length) -> {
             checkInput(data, offset, length, ETHERNET_HEADER_LENGTH);
 
@@ -606,17 +623,23 @@ public class Ethernet extends BasePacket {
             }
             eth.setEtherType(ethType);
 
-            IPacket payload;
             Deserializer<? extends IPacket> deserializer;
-            if (Ethernet.ETHERTYPE_DESERIALIZER_MAP.containsKey(ethType)) {
+            if (lazy && ethType == TYPE_IPV4) {
+                deserializer = IPv4.lazyDeserializer();
+            } else if (Ethernet.ETHERTYPE_DESERIALIZER_MAP.containsKey(ethType)) {
                 deserializer = Ethernet.ETHERTYPE_DESERIALIZER_MAP.get(ethType);
             } else {
                 deserializer = Data.deserializer();
             }
-            payload = deserializer.deserialize(data, bb.position(),
-                                               bb.limit() - bb.position());
-            payload.setParent(eth);
-            eth.setPayload(payload);
+            if (lazy) {
+                eth.setLazyPayload(deserializer, data, bb.position(),
+                                   bb.limit() - bb.position());
+            } else {
+                IPacket payload = deserializer.deserialize(data, bb.position(),
+                                                           bb.limit() - bb.position());
+                payload.setParent(eth);
+                eth.setPayload(payload);
+            }
 
             return eth;
         };
@@ -367,9 +367,10 @@ s     */
     @Override
     public byte[] serialize() {
         byte[] payloadData = null;
-        if (this.payload != null) {
-            this.payload.setParent(this);
-            payloadData = this.payload.serialize();
+        final IPacket payload = this.getPayload();
+        if (payload != null) {
+            payload.setParent(this);
+            payloadData = payload.serialize();
         }
 
         int optionsLength = 0;
@@ -456,9 +457,10 @@ s     */
             deserializer = Data.deserializer();
         }
         try {
-            this.payload = deserializer.deserialize(data, bb.position(),
-                                                    bb.limit() - bb.position());
-            this.payload.setParent(this);
+            IPacket decoded = deserializer.deserialize(data, bb.position(),
+                                                       bb.limit() - bb.position());
+            decoded.setParent(this);
+            this.setPayload(decoded);
         } catch (DeserializationException e) {
             return this;
         }
@@ -677,6 +679,20 @@ s     */
      * @return deserializer function
      */
     public static Deserializer<IPv4> deserializer() {
+        return deserializer(false);
+    }
+
+    /**
+     * Deserializer function for IPv4 packets which decodes the header only,
+     * deferring decoding of the payload until it is first asked for.
+     *
+     * @return lazy deserializer function
+     */
+    public static Deserializer<IPv4> lazyDeserializer() {
+        return deserializer(true);
+    }
+
+    private static Deserializer<IPv4> deserializer(boolean lazy) {
         return (data, offset, length) -> {
             checkInput(data, offset, length, HEADER_LENGTH);
 
@@ -713,9 +729,14 @@ s     */
             } else {
                 deserializer = Data.deserializer();
             }
-            ipv4.payload = deserializer.deserialize(data, bb.position(),
-                                                    bb.limit() - bb.position());
-            ipv4.payload.setParent(ipv4);
+            if (lazy) {
+                ipv4.setLazyPayload(deserializer, data, bb.position(),
+                                    bb.limit() - bb.position());
+            } else {
+                ipv4.payload = deserializer.deserialize(data, bb.position(),
+                                                        bb.limit() - bb.position());
+                ipv4.payload.setParent(ipv4);
+            }
 
             if (ipv4.totalLength != length) {
                 ipv4.isTruncated = true;
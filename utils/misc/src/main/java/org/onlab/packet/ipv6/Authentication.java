@@ -26,6 +26,7 @@ import org.onlab.packet.IPv6;
 import java.nio.ByteBuffer;
 import java.util.Arrays;
 
+import static org.onlab.packet.PacketUtils.checkHeaderLength;
 import static org.onlab.packet.PacketUtils.checkInput;
 
 /**
@@ -280,7 +281,12 @@ public class Authentication extends BasePacket implements IExtensionHeader {
             bb.getShort();
             authentication.securityParamIndex = bb.getInt();
             authentication.sequence = bb.getInt();
-            int icvLength = (authentication.payloadLength + MINUS) * LENGTH_UNIT - FIXED_HEADER_LENGTH;
+            int icvLength = ((0xff & authentication.payloadLength) + MINUS) * LENGTH_UNIT - FIXED_HEADER_LENGTH;
+            if (icvLength < 0) {
+                throw new DeserializationException("Payload length "
+                        + authentication.payloadLength + " is shorter than the fixed header");
+            }
+            checkHeaderLength(bb.remaining(), icvLength);
             authentication.integrityCheck = new byte[icvLength];
             bb.get(authentication.integrityCheck, 0, icvLength);
 
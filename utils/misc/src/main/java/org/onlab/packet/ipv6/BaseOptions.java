@@ -237,7 +237,7 @@ public class BaseOptions extends BasePacket implements IExtensionHeader {
             baseOptions.nextHeader = bb.get();
             baseOptions.headerExtLength = bb.get();
             int optionLength =
-                    FIXED_OPTIONS_LENGTH + LENGTH_UNIT * baseOptions.headerExtLength;
+                    FIXED_OPTIONS_LENGTH + LENGTH_UNIT * (0xff & baseOptions.headerExtLength);
 
             checkHeaderLength(bb.remaining(), optionLength);
 
@@ -268,7 +268,7 @@ public class Routing extends BasePacket implements IExtensionHeader {
             routing.routingType = bb.get();
             routing.segmentsLeft = bb.get();
             int dataLength =
-                    FIXED_ROUTING_DATA_LENGTH + LENGTH_UNIT * routing.headerExtLength;
+                    FIXED_ROUTING_DATA_LENGTH + LENGTH_UNIT * (0xff & routing.headerExtLength);
 
             checkHeaderLength(bb.remaining(), dataLength);
 
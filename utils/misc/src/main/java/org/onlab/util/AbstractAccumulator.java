@@ -15,35 +15,87 @@
  */
 package org.onlab.util;
 
+import com.codahale.metrics.ExponentiallyDecayingReservoir;
+import com.codahale.metrics.Histogram;
 import com.google.common.collect.Lists;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayDeque;
 import java.util.List;
+import java.util.Queue;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
+import static org.onlab.util.Tools.groupedThreads;
 
 /**
  * Base implementation of an item accumulator. It allows triggering based on
  * item inter-arrival time threshold, maximum batch life threshold and maximum
  * batch size.
+ * <p>
+ * Accumulators created without a timer of their own are driven by a shared
+ * scheduler with millisecond resolution and size their batches adaptively:
+ * the given thresholds become upper bounds, within which the batch size
+ * and the idle time are derived from the observed item arrival rate and the
+ * time taken to process a batch. Under light load items are
+ * therefore processed with little delay, while bursts yield larger batches.
+ * Batches are processed on the shared thread pool, one at a time per
+ * accumulator.
+ * </p>
+ * <p>
+ * Accumulators given a timer keep the fixed thresholds: a batch is finalized
+ * by the call to {@link #add(Object)} which fills it and then processed on
+ * the timer thread, like those finalized by the idle and max age checks, in
+ * the order in which the batches were finalized.
+ * </p>
  */
 public abstract class AbstractAccumulator<T> implements Accumulator<T> {
 
     private Logger log = LoggerFactory.getLogger(AbstractAccumulator.class);
 
+    // Weight of the latest sample in the moving averages
+    private static final double EWMA_WEIGHT = 0.2;
+    private static final long MIN_IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    // Runs the check-points of adaptive accumulators; unlike the coarse
+    // shared timer, it only wakes up when a check-point is due.
+    private static final ScheduledExecutorService SCHEDULER =
+            Executors.newSingleThreadScheduledExecutor(groupedThreads("onlab/accumulator", "scheduler"));
+
     private final Timer timer;
+    private final ScheduledExecutorService scheduler;
+    private final Executor executor;
+    private final LongSupplier clock;
+    private final boolean adaptive;
     private final int maxItems;
     private final int maxBatchMillis;
     private final int maxIdleMillis;
+    private final long maxBatchNanos;
+    private final long maxIdleNanos;
 
-    private volatile TimerTask idleTask = new ProcessorTask();
-    private volatile TimerTask maxTask = new ProcessorTask();
+    private final Histogram batchSizes = new Histogram(new ExponentiallyDecayingReservoir());
+    private final Histogram batchIntervals = new Histogram(new ExponentiallyDecayingReservoir());
 
+    // All of the following are guarded by this
     private List<T> items = Lists.newArrayList();
+    private long batchId;
+    private boolean idleCheckPending;
+    private boolean processing;
+    private final Queue<List<T>> finalized = new ArrayDeque<>();
+    private boolean drainScheduled;
+    private long firstArrival;
+    private long lastArrival;
+    private long lastBatch;
+    private double interArrivalNanos;
+    private double processingNanos;
 
     /**
      * Creates an item accumulator capable of triggering on the specified
@@ -59,111 +111,279 @@ public abstract class AbstractAccumulator<T> implements Accumulator<T> {
      */
     protected AbstractAccumulator(Timer timer, int maxItems,
                                   int maxBatchMillis, int maxIdleMillis) {
-        this.timer = checkNotNull(timer, "Timer cannot be null");
+        this(checkNotNull(timer, "Timer cannot be null"), null, null,
+             System::nanoTime, maxItems, maxBatchMillis, maxIdleMillis);
+    }
+
+    /**
+     * Creates an item accumulator driven by the shared scheduler, which
+     * adapts its batches to the load within the specified thresholds.
+     *
+     * @param maxItems       maximum number of items to accumulate before
+     *                       processing is triggered
+     * @param maxBatchMillis maximum number of millis allowed since the first
+     *                       item before processing is triggered
+     * @param maxIdleMillis  maximum number millis between items before
+     *                       processing is triggered
+     */
+    protected AbstractAccumulator(int maxItems, int maxBatchMillis, int maxIdleMillis) {
+        this(SCHEDULER, SharedExecutors.getPoolThreadExecutor(), System::nanoTime,
+             maxItems, maxBatchMillis, maxIdleMillis);
+    }
 
+    /**
+     * Creates an adaptive item accumulator driven by the specified scheduler
+     * and clock, which processes its batches on the given executor.
+     *
+     * @param scheduler      scheduler of the check-points
+     * @param executor       executor of the batch processing
+     * @param clock          source of the current time in nanoseconds
+     * @param maxItems       maximum number of items to accumulate before
+     *                       processing is triggered
+     * @param maxBatchMillis maximum number of millis allowed since the first
+     *                       item before processing is triggered
+     * @param maxIdleMillis  maximum number millis between items before
+     *                       processing is triggered
+     */
+    AbstractAccumulator(ScheduledExecutorService scheduler, Executor executor,
+                        LongSupplier clock, int maxItems,
+                        int maxBatchMillis, int maxIdleMillis) {
+        this(null, checkNotNull(scheduler, "Scheduler cannot be null"),
+             checkNotNull(executor, "Executor cannot be null"),
+             checkNotNull(clock, "Clock cannot be null"),
+             maxItems, maxBatchMillis, maxIdleMillis);
+    }
+
+    private AbstractAccumulator(Timer timer, ScheduledExecutorService scheduler,
+                                Executor executor, LongSupplier clock, int maxItems,
+                                int maxBatchMillis, int maxIdleMillis) {
         checkArgument(maxItems > 1, "Maximum number of items must be > 1");
         checkArgument(maxBatchMillis > 0, "Maximum millis must be positive");
         checkArgument(maxIdleMillis > 0, "Maximum idle millis must be positive");
 
+        this.timer = timer;
+        this.adaptive = timer == null;
+        this.scheduler = scheduler;
+        this.executor = executor;
+        this.clock = clock;
         this.maxItems = maxItems;
         this.maxBatchMillis = maxBatchMillis;
         this.maxIdleMillis = maxIdleMillis;
+        this.maxBatchNanos = TimeUnit.MILLISECONDS.toNanos(maxBatchMillis);
+        this.maxIdleNanos = TimeUnit.MILLISECONDS.toNanos(maxIdleMillis);
+        // Assume light load until items start arriving
+        this.interArrivalNanos = maxIdleNanos;
     }
 
     @Override
     public synchronized void add(T item) {
-        idleTask = cancelIfActive(idleTask);
+        long now = clock.getAsLong();
+        if (lastArrival != 0) {
+            interArrivalNanos = ewma(interArrivalNanos, Math.min(now - lastArrival, maxBatchNanos));
+        }
+        lastArrival = now;
         items.add(checkNotNull(item, "Item cannot be null"));
 
-        // Did we hit the max item threshold?
-        if (items.size() >= maxItems) {
-            maxTask = cancelIfActive(maxTask);
-            scheduleNow();
+        // Did we hit the item threshold?
+        if (items.size() >= targetItems()) {
+            dispatch();
         } else {
-            // Otherwise, schedule idle task and if this is a first item
-            // also schedule the max batch age task.
-            idleTask = schedule(maxIdleMillis);
+            // Otherwise, make sure that the idle time is being checked and if
+            // this is a first item also schedule the max batch age check.
             if (items.size() == 1) {
-                maxTask = schedule(maxBatchMillis);
+                firstArrival = now;
+                schedule(new CheckTask(batchId, false), maxBatchMillis);
             }
+            scheduleIdleCheck(idleNanos());
         }
     }
 
-    /**
-     * Finalizes the current batch, if ready, and schedules a new processor
-     * in the immediate future.
-     */
-    private void scheduleNow() {
-        if (isReady()) {
-            TimerTask task = new ProcessorTask(finalizeCurrentBatch());
-            timer.schedule(task, 1);
+    // Returns the number of items which triggers processing of the batch.
+    private int targetItems() {
+        if (!adaptive) {
+            return maxItems;
         }
+        // As many items as are expected to arrive within the idle time, or
+        // while a batch is being processed, if that takes longer
+        double window = Math.max(maxIdleNanos, processingNanos);
+        double expected = Math.ceil(window / Math.max(interArrivalNanos, 1));
+        return (int) Math.max(1, Math.min(maxItems, expected));
     }
 
-    /**
-     * Schedules a new processor task given number of millis in the future.
-     * Batch finalization is deferred to time of execution.
-     */
-    private TimerTask schedule(int millis) {
-        TimerTask task = new ProcessorTask();
-        timer.schedule(task, millis);
-        return task;
+    // Returns the time without new items which triggers processing.
+    private long idleNanos() {
+        if (!adaptive) {
+            return maxIdleNanos;
+        }
+        // Stop waiting once items are overdue compared to their usual pace
+        long idle = (long) (4 * interArrivalNanos);
+        return Math.max(MIN_IDLE_NANOS, Math.min(maxIdleNanos, idle));
+    }
+
+    private static double ewma(double average, long sample) {
+        return average + EWMA_WEIGHT * (sample - average);
+    }
+
+    private void scheduleIdleCheck(long nanos) {
+        if (!idleCheckPending) {
+            idleCheckPending = true;
+            schedule(new CheckTask(batchId, true), millis(nanos));
+        }
+    }
+
+    private static int millis(long nanos) {
+        return (int) Math.max(1, TimeUnit.NANOSECONDS.toMillis(nanos + 999_999));
+    }
+
+    private void schedule(Runnable task, int millis) {
+        if (timer != null) {
+            timer.schedule(new WrappedTask(task), millis);
+        } else {
+            scheduler.schedule(task, millis, TimeUnit.MILLISECONDS);
+        }
     }
 
     /**
-     * Cancels the specified task if it is active.
+     * Finalizes the current batch and hands it over for processing, if the
+     * accumulator is ready and, unless it has a timer of its own, no other
+     * batch is being processed.
      */
-    private TimerTask cancelIfActive(TimerTask task) {
-        if (task != null) {
-            task.cancel();
+    private void dispatch() {
+        if (processing || items.isEmpty()) {
+            // The batch will be re-examined once processing completes
+            return;
+        }
+        if (!isReady()) {
+            scheduleIdleCheck(maxIdleNanos);
+            return;
         }
-        return task;
+        List<T> batch = finalizeCurrentBatch();
+        if (!adaptive) {
+            // Queue the batch behind those awaiting the timer thread
+            finalized.add(batch);
+            if (!drainScheduled) {
+                drainScheduled = true;
+                timer.schedule(new WrappedTask(this::drain), 0);
+            }
+            return;
+        }
+        processing = true;
+        executor.execute(() -> process(batch));
     }
 
-    // Task for triggering processing of accumulated items
-    private class ProcessorTask extends TimerTask {
-
-        private final List<T> items;
+    // Processes the batches finalized so far, in order, on the timer thread.
+    private void drain() {
+        while (true) {
+            List<T> batch;
+            synchronized (this) {
+                batch = finalized.poll();
+                if (batch == null) {
+                    drainScheduled = false;
+                    return;
+                }
+            }
+            try {
+                processItems(batch);
+            } catch (Exception e) {
+                log.warn("Unable to process batch due to", e);
+            }
+        }
+    }
 
-        // Creates a new processor task with deferred batch finalization.
-        ProcessorTask() {
-            this.items = null;
+    private void process(List<T> batch) {
+        long start = clock.getAsLong();
+        try {
+            processItems(batch);
+        } catch (Exception e) {
+            log.warn("Unable to process batch due to", e);
+        } finally {
+            long now = clock.getAsLong();
+            synchronized (this) {
+                processingNanos = ewma(processingNanos, now - start);
+                processing = false;
+                if (!items.isEmpty()) {
+                    if (items.size() >= targetItems()
+                            || now - firstArrival >= maxBatchNanos
+                            || now - lastArrival >= idleNanos()) {
+                        dispatch();
+                    } else {
+                        scheduleIdleCheck(idleNanos());
+                    }
+                }
+            }
         }
+    }
+
+    // Task for checking whether the accumulated items are due for processing
+    private class CheckTask implements Runnable {
+
+        private final long checkedBatchId;
+        private final boolean idle;
 
-        // Creates a new processor task with pre-emptive batch finalization.
-        ProcessorTask(List<T> items) {
-            this.items = items;
+        // Creates a new check of either the idle time or the max batch age.
+        CheckTask(long checkedBatchId, boolean idle) {
+            this.checkedBatchId = checkedBatchId;
+            this.idle = idle;
         }
 
         @Override
         public void run() {
             synchronized (AbstractAccumulator.this) {
-                idleTask = cancelIfActive(idleTask);
-            }
-            if (isReady()) {
-                try {
-                    synchronized (AbstractAccumulator.this) {
-                        maxTask = cancelIfActive(maxTask);
-                    }
-                    List<T> batch = items != null ? items : finalizeCurrentBatch();
-                    if (!batch.isEmpty()) {
-                        processItems(batch);
-                    }
-                } catch (Exception e) {
-                    log.warn("Unable to process batch due to", e);
+                if (checkedBatchId != batchId) {
+                    // The batch has been processed already
+                    return;
                 }
-            } else {
-                synchronized (AbstractAccumulator.this) {
-                    idleTask = schedule(maxIdleMillis);
+                if (idle) {
+                    idleCheckPending = false;
+                    long remaining = lastArrival + idleNanos() - clock.getAsLong();
+                    if (remaining > 0 && !processing) {
+                        scheduleIdleCheck(remaining);
+                        return;
+                    }
                 }
+                dispatch();
             }
         }
     }
 
-    // Demotes and returns the current batch of items and promotes a new one.
-    private synchronized List<T> finalizeCurrentBatch() {
+    // Adapts a runnable to the timer task expected by java.util.Timer
+    private final class WrappedTask extends TimerTask {
+
+        private final Runnable task;
+
+        WrappedTask(Runnable task) {
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            task.run();
+        }
+    }
+
+    // Demotes and returns the current batch of at most max items and
+    // promotes a new one with the remaining items.
+    private List<T> finalizeCurrentBatch() {
         List<T> toBeProcessed = items;
         items = Lists.newArrayList();
+        if (toBeProcessed.size() > maxItems) {
+            items.addAll(toBeProcessed.subList(maxItems, toBeProcessed.size()));
+            toBeProcessed = Lists.newArrayList(toBeProcessed.subList(0, maxItems));
+        }
+        batchId++;
+        idleCheckPending = false;
+
+        long now = clock.getAsLong();
+        if (lastBatch != 0) {
+            batchIntervals.update(TimeUnit.NANOSECONDS.toMicros(now - lastBatch));
+        }
+        lastBatch = now;
+        batchSizes.update(toBeProcessed.size());
+
+        if (!items.isEmpty()) {
+            firstArrival = now;
+            schedule(new CheckTask(batchId, false), maxBatchMillis);
+        }
         return toBeProcessed;
     }
 
@@ -175,7 +395,7 @@ public abstract class AbstractAccumulator<T> implements Accumulator<T> {
     /**
      * Returns the backing timer.
      *
-     * @return backing timer
+     * @return backing timer; null if driven by the shared scheduler
      */
     public Timer timer() {
         return timer;
@@ -211,4 +431,23 @@ public abstract class AbstractAccumulator<T> implements Accumulator<T> {
         return maxIdleMillis;
     }
 
+    /**
+     * Returns the histogram of the sizes of the processed batches.
+     *
+     * @return batch size histogram
+     */
+    public Histogram batchSizes() {
+        return batchSizes;
+    }
+
+    /**
+     * Returns the histogram of the time between the starts of consecutive
+     * batches, in microseconds.
+     *
+     * @return batch interval histogram
+     */
+    public Histogram batchIntervals() {
+        return batchIntervals;
+    }
+
 }
@@ -28,6 +28,7 @@ import com.esotericsoftware.kryo.Serializer;
 import com.esotericsoftware.kryo.io.ByteBufferInput;
 import com.esotericsoftware.kryo.io.ByteBufferOutput;
 import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
 import com.esotericsoftware.kryo.pool.KryoCallback;
 import com.esotericsoftware.kryo.pool.KryoFactory;
 import com.esotericsoftware.kryo.pool.KryoPool;
@@ -48,6 +49,16 @@ public final class KryoNamespace implements KryoFactory, KryoPool {
     public static final int DEFAULT_BUFFER_SIZE = 4096;
     public static final int MAX_BUFFER_SIZE = 100 * 1000 * 1000;
 
+    /**
+     * Largest output buffer retained for reuse by a serializing thread; the
+     * occasional larger object gets a buffer of its own, which is not kept.
+     */
+    private static final int MAX_CACHED_BUFFER_SIZE = 16 * DEFAULT_BUFFER_SIZE;
+
+    // Output buffer reused by serialize(Object, int) on each thread; it is
+    // removed while in use and dropped once it grows past the cached size.
+    private static final ThreadLocal<Output> OUTPUTS = new ThreadLocal<>();
+
     /**
      * ID to use if this KryoNamespace does not define registration id.
      */
@@ -232,18 +243,27 @@ public final class KryoNamespace implements KryoFactory, KryoPool {
      * @return serialized bytes
      */
     public byte[] serialize(final Object obj, final int bufferSize) {
-        ByteBufferOutput out = new ByteBufferOutput(bufferSize, MAX_BUFFER_SIZE);
+        // Take the cached output buffer, if any, so that a nested call made
+        // from within a serializer gets an output of its own.
+        Output out = OUTPUTS.get();
+        if (out == null) {
+            out = new Output(bufferSize, MAX_BUFFER_SIZE);
+        } else {
+            OUTPUTS.set(null);
+            out.clear();
+        }
         try {
             Kryo kryo = borrow();
             try {
                 kryo.writeClassAndObject(out, obj);
-                out.flush();
                 return out.toBytes();
             } finally {
                 release(kryo);
             }
         } finally {
-            out.release();
+            if (out.getBuffer().length <= MAX_CACHED_BUFFER_SIZE) {
+                OUTPUTS.set(out);
+            }
         }
     }
 
@@ -70,6 +70,14 @@ public class ArpTest {
         PacketTestUtils.testDeserializeTruncated(deserializer, byteHeader);
     }
 
+    @Test
+    public void testDeserializeBadAddressLength() throws Exception {
+        // address lengths are unsigned
+        byte[] bytes = byteHeader.clone();
+        bytes[4] = (byte) 0xff;
+        PacketTestUtils.expectDeserializationException(deserializer, bytes, 0, bytes.length);
+    }
+
     @Test
     public void testDeserialize() throws Exception {
         ARP arp = deserializer.deserialize(byteHeader, 0, byteHeader.length);
@@ -111,6 +111,16 @@ public class DhcpTest {
         PacketTestUtils.testDeserializeTruncated(deserializer, byteHeader);
     }
 
+    @Test
+    public void testDeserializeBadHardwareAddressLength() throws Exception {
+        // longer than the client hardware address field
+        byte[] bytes = byteHeader.clone();
+        bytes[2] = 17;
+        PacketTestUtils.expectDeserializationException(deserializer, bytes, 0, bytes.length);
+        bytes[2] = (byte) 0xff;
+        PacketTestUtils.expectDeserializationException(deserializer, bytes, 0, bytes.length);
+    }
+
     @Test
     public void testDeserialize() throws Exception {
         DHCP dhcp = deserializer.deserialize(byteHeader, 0, byteHeader.length);
@@ -21,7 +21,9 @@ import org.junit.Test;
 
 import java.nio.ByteBuffer;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Unit tests for the Ethernet class.
@@ -100,4 +102,84 @@ public class EthernetTest {
         assertEquals(ethertype, eth.getEtherType());
     }
 
+    private static byte[] frame(short etherType, IPacket payload) {
+        Ethernet eth = new Ethernet();
+        eth.setSourceMACAddress(MacAddress.valueOf("00:00:00:00:00:01"))
+                .setDestinationMACAddress(MacAddress.valueOf("00:00:00:00:00:02"))
+                .setEtherType(etherType)
+                .setPayload(payload);
+        return eth.serialize();
+    }
+
+    private static void assertLazyMatchesEager(byte[] frame) throws DeserializationException {
+        Ethernet eager = Ethernet.deserializer().deserialize(frame, 0, frame.length);
+        Ethernet lazy = Ethernet.lazyDeserializer().deserialize(frame, 0, frame.length);
+        assertEquals(eager, lazy);
+        assertArrayEquals(frame, lazy.serialize());
+    }
+
+    @Test
+    public void testLazyDeserializeArp() throws Exception {
+        ARP arp = new ARP()
+                .setHardwareType(ARP.HW_TYPE_ETHERNET)
+                .setProtocolType(ARP.PROTO_TYPE_IP)
+                .setHardwareAddressLength((byte) Ethernet.DATALAYER_ADDRESS_LENGTH)
+                .setProtocolAddressLength((byte) Ip4Address.BYTE_LENGTH)
+                .setOpCode(ARP.OP_REPLY)
+                .setSenderHardwareAddress(srcMac.toBytes())
+                .setSenderProtocolAddress(Ip4Address.valueOf("10.0.0.1").toOctets())
+                .setTargetHardwareAddress(dstMac.toBytes())
+                .setTargetProtocolAddress(Ip4Address.valueOf("10.0.0.2").toOctets());
+        assertLazyMatchesEager(frame(Ethernet.TYPE_ARP, arp));
+    }
+
+    @Test
+    public void testLazyDeserializeLldp() throws Exception {
+        ONOSLLDP lldp = new ONOSLLDP();
+        lldp.setChassisId(new ChassisId(1));
+        lldp.setPortId(2);
+        lldp.setDevice("of:0000000000000001");
+        byte[] frame = frame(Ethernet.TYPE_LLDP, lldp);
+        assertLazyMatchesEager(frame);
+
+        Ethernet lazy = Ethernet.lazyDeserializer().deserialize(frame, 0, frame.length);
+        assertEquals(Integer.valueOf(2), ONOSLLDP.parseONOSLLDP(lazy).getPort());
+    }
+
+    @Test
+    public void testLazyDeserializeTcp() throws Exception {
+        TCP tcp = new TCP()
+                .setSourcePort(5000)
+                .setDestinationPort(80);
+        tcp.setPayload(new Data(new byte[] {1, 2, 3, 4}));
+        IPv4 ip = new IPv4()
+                .setSourceAddress(Ip4Address.valueOf("10.0.0.1").toInt())
+                .setDestinationAddress(Ip4Address.valueOf("10.0.0.2").toInt())
+                .setProtocol(IPv4.PROTOCOL_TCP)
+                .setTtl((byte) 64);
+        ip.setPayload(tcp);
+        byte[] frame = frame(Ethernet.TYPE_IPV4, ip);
+        assertLazyMatchesEager(frame);
+
+        Ethernet lazy = Ethernet.lazyDeserializer().deserialize(frame, 0, frame.length);
+        IPv4 lazyIp = (IPv4) lazy.getPayload();
+        assertEquals(lazy, lazyIp.getParent());
+        TCP lazyTcp = (TCP) lazyIp.getPayload();
+        assertEquals(lazyIp, lazyTcp.getParent());
+        assertEquals(80, lazyTcp.getDestinationPort());
+    }
+
+    @Test
+    public void testLazyDeserializeMalformedPayload() throws Exception {
+        byte[] frame = new byte[byteHeader.length + 2];
+        System.arraycopy(byteHeader, 0, frame, 0, byteHeader.length);
+        frame[12] = (byte) (Ethernet.TYPE_IPV4 >> 8);
+        frame[13] = (byte) Ethernet.TYPE_IPV4;
+
+        Ethernet eth = Ethernet.lazyDeserializer().deserialize(frame, 0, frame.length);
+        assertEquals(Ethernet.TYPE_IPV4, eth.getEtherType());
+        assertTrue(eth.getPayload() instanceof Data);
+        assertEquals(2, ((Data) eth.getPayload()).getData().length);
+    }
+
 }
@@ -21,6 +21,8 @@ package org.onlab.packet;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import java.util.Arrays;
+
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertFalse;
@@ -114,6 +116,14 @@ public class TCPTest {
         PacketTestUtils.testDeserializeTruncated(deserializer, bytePacketTCP4);
     }
 
+    @Test
+    public void testDeserializeBadDataOffset() throws Exception {
+        // 40 bytes of options, of which only 16 are present
+        byte[] bytes = Arrays.copyOf(bytePacketTCP4, 36);
+        bytes[12] = (byte) 0xf0;
+        PacketTestUtils.expectDeserializationException(deserializer, bytes, 0, bytes.length);
+    }
+
     /**
      * Tests deserialize and getters.
      */
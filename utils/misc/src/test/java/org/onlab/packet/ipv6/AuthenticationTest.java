@@ -21,6 +21,7 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 import org.onlab.packet.Data;
 import org.onlab.packet.Deserializer;
+import org.onlab.packet.PacketTestUtils;
 import org.onlab.packet.UDP;
 
 import static org.hamcrest.Matchers.is;
@@ -96,6 +97,20 @@ public class AuthenticationTest {
         assertArrayEquals(auth.getIntegrityCheck(), icv);
     }
 
+    /**
+     * Tests deserialize of headers whose payload length is out of range.
+     */
+    @Test
+    public void testDeserializeBadLength() {
+        byte[] bytes = bytePacket.clone();
+        // shorter than the fixed header
+        bytes[1] = 0;
+        PacketTestUtils.expectDeserializationException(deserializer, bytes, 0, bytes.length);
+        // longer than the packet, once read as unsigned
+        bytes[1] = (byte) 0xff;
+        PacketTestUtils.expectDeserializationException(deserializer, bytes, 0, bytes.length);
+    }
+
     /**
      * Tests comparator.
      */
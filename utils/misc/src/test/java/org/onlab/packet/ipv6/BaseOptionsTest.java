@@ -22,6 +22,7 @@ import org.junit.Test;
 import org.onlab.packet.Data;
 import org.onlab.packet.Deserializer;
 import org.onlab.packet.IPv6;
+import org.onlab.packet.PacketTestUtils;
 import org.onlab.packet.UDP;
 
 import static org.hamcrest.Matchers.is;
@@ -92,6 +93,17 @@ public class BaseOptionsTest {
         assertArrayEquals(baseopt.getOptions(), options);
     }
 
+    /**
+     * Tests deserialize of headers whose length is out of range once read
+     * as unsigned.
+     */
+    @Test
+    public void testDeserializeBadLength() {
+        byte[] bytes = bytePacket.clone();
+        bytes[1] = (byte) 0xff;
+        PacketTestUtils.expectDeserializationException(deserializer, bytes, 0, bytes.length);
+    }
+
     /**
      * Tests comparator.
      */
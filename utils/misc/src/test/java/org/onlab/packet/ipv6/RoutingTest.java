@@ -22,6 +22,7 @@ import org.junit.Test;
 import org.onlab.packet.Data;
 import org.onlab.packet.DeserializationException;
 import org.onlab.packet.Deserializer;
+import org.onlab.packet.PacketTestUtils;
 import org.onlab.packet.UDP;
 
 import static org.hamcrest.Matchers.is;
@@ -103,6 +104,17 @@ public class RoutingTest {
         assertArrayEquals(routing.getRoutingData(), routingData);
     }
 
+    /**
+     * Tests deserialize of headers whose length is out of range once read
+     * as unsigned.
+     */
+    @Test
+    public void testDeserializeBadLength() {
+        byte[] bytes = bytePacket.clone();
+        bytes[1] = (byte) 0xff;
+        PacketTestUtils.expectDeserializationException(deserializer, bytes, 0, bytes.length);
+    }
+
     /**
      * Tests comparator.
      */
@@ -15,11 +15,20 @@
  */
 package org.onlab.util;
 
+import com.google.common.collect.Lists;
 import org.junit.Ignore;
 import org.junit.Test;
+import org.onlab.junit.NullScheduledExecutor;
 
+import java.util.Comparator;
 import java.util.List;
+import java.util.Set;
 import java.util.Timer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 import static org.junit.Assert.*;
@@ -147,6 +156,94 @@ public class AbstractAccumulatorTest {
         assertEquals("wrong batch count", 200, accumulator.batchCount);
     }
 
+    @Test
+    public void legacyFullBatches() {
+        LegacyAccumulator accumulator = new LegacyAccumulator();
+        IntStream.range(0, 1000).forEach(i -> accumulator.add(new TestItem("#" + i)));
+        assertAfter(2000, () -> assertEquals("wrong item count", 1000, accumulator.itemCount));
+        String expected = IntStream.range(0, 1000).mapToObj(i -> "#" + i).collect(Collectors.joining());
+        assertEquals("items lost or reordered", expected, accumulator.batch);
+        assertEquals("batches should be finalized as they fill up", 200, accumulator.batchCount);
+        assertEquals("batches should be processed on the timer thread", 1, accumulator.threads.size());
+        assertFalse("batches should not be processed by the caller",
+                    accumulator.threads.contains(Thread.currentThread()));
+        assertFalse("batches should be processed one at a time", accumulator.overlapped);
+    }
+
+    @Test
+    public void adaptiveLightLoadTrigger() {
+        FakeScheduler scheduler = new FakeScheduler();
+        AdaptiveAccumulator accumulator = new AdaptiveAccumulator(scheduler);
+        assertNull("adaptive accumulator should have no timer", accumulator.timer());
+        accumulator.add(new TestItem("a"));
+        // a lone item should not wait for the idle time to expire
+        assertEquals("incorrect batch", "a", accumulator.batch);
+        assertEquals("incorrect batch count", 1, accumulator.batchSizes().getCount());
+    }
+
+    @Test
+    public void adaptiveStorm() {
+        FakeScheduler scheduler = new FakeScheduler();
+        AdaptiveAccumulator accumulator = new AdaptiveAccumulator(scheduler);
+        IntStream.range(0, 1000).forEach(i -> {
+            accumulator.add(new TestItem("#" + i));
+            scheduler.advance(TimeUnit.MICROSECONDS.toNanos(10));
+        });
+        // the idle time has shrunk to match the pace of the items, so the tail
+        // is processed well before the max idle time
+        scheduler.advance(TimeUnit.MILLISECONDS.toNanos(2));
+        assertEquals("wrong item count", 1000, accumulator.itemCount);
+        String expected = IntStream.range(0, 1000).mapToObj(i -> "#" + i).collect(Collectors.joining());
+        assertEquals("items lost or reordered", expected, accumulator.batch);
+        assertTrue("storm should be batched", accumulator.batchSizes().getCount() < 500);
+        assertEquals("batches should fill up to the max items", 5,
+                     accumulator.batchSizes().getSnapshot().getMax());
+
+        accumulator.add(new TestItem("x"));
+        assertEquals("should not have fired yet", 1000, accumulator.itemCount);
+        scheduler.advance(TimeUnit.MILLISECONDS.toNanos(2));
+        assertEquals("should have fired", 1001, accumulator.itemCount);
+    }
+
+    @Test
+    public void adaptiveReadyIdleTrigger() {
+        FakeScheduler scheduler = new FakeScheduler();
+        AdaptiveAccumulator accumulator = new AdaptiveAccumulator(scheduler);
+        accumulator.ready = false;
+        accumulator.add(new TestItem("a"));
+        scheduler.advance(TimeUnit.MILLISECONDS.toNanos(699));
+        assertTrue("should not have fired yet", accumulator.batch.isEmpty());
+        accumulator.ready = true;
+        scheduler.advance(TimeUnit.MILLISECONDS.toNanos(1));
+        assertEquals("incorrect batch", "a", accumulator.batch);
+    }
+
+    @Test
+    public void adaptiveBusyProcessing() {
+        FakeScheduler scheduler = new FakeScheduler();
+        List<Runnable> pending = Lists.newArrayList();
+        AdaptiveAccumulator accumulator = new AdaptiveAccumulator(scheduler, pending::add);
+        accumulator.add(new TestItem("a"));
+        assertEquals("first batch should be handed over", 1, pending.size());
+
+        // items arriving while a batch is processed wait for it to complete
+        IntStream.range(0, 7).forEach(i -> {
+            scheduler.advance(TimeUnit.MILLISECONDS.toNanos(1));
+            accumulator.add(new TestItem("#" + i));
+        });
+        scheduler.advance(TimeUnit.SECONDS.toNanos(2));
+        assertEquals("only one batch should be processed at a time", 1, pending.size());
+
+        pending.remove(0).run();
+        assertEquals("incorrect batch", "a", accumulator.batch);
+        assertEquals("overdue items should be handed over on completion", 1, pending.size());
+        pending.remove(0).run();
+        assertEquals("incorrect batch", "a#0#1#2#3#4", accumulator.batch);
+        pending.remove(0).run();
+        assertEquals("incorrect batch", "a#0#1#2#3#4#5#6", accumulator.batch);
+        assertTrue("all batches should be processed", pending.isEmpty());
+    }
+
     private class TestItem {
         private final String s;
 
@@ -181,4 +278,104 @@ public class AbstractAccumulatorTest {
         }
     }
 
+    private class LegacyAccumulator extends AbstractAccumulator<TestItem> {
+
+        final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+        volatile String batch = "";
+        volatile int batchCount = 0;
+        volatile int itemCount = 0;
+        volatile boolean busy = false;
+        volatile boolean overlapped = false;
+
+        protected LegacyAccumulator() {
+            // long enough for the batches to only ever be triggered by size
+            super(timer, 5, 60_000, 60_000);
+        }
+
+        @Override
+        public void processItems(List<TestItem> items) {
+            overlapped |= busy;
+            busy = true;
+            threads.add(Thread.currentThread());
+            for (TestItem item : items) {
+                batch += item.s;
+            }
+            batchCount++;
+            itemCount += items.size();
+            busy = false;
+        }
+    }
+
+    private class AdaptiveAccumulator extends AbstractAccumulator<TestItem> {
+
+        String batch = "";
+        int itemCount = 0;
+        boolean ready = true;
+
+        protected AdaptiveAccumulator(FakeScheduler scheduler) {
+            this(scheduler, Runnable::run);
+        }
+
+        protected AdaptiveAccumulator(FakeScheduler scheduler, Executor executor) {
+            super(scheduler, executor, scheduler::now, 5, 1000, 700);
+        }
+
+        @Override
+        public void processItems(List<TestItem> items) {
+            itemCount += items.size();
+            for (TestItem item : items) {
+                batch += item.s;
+            }
+        }
+
+        @Override
+        public boolean isReady() {
+            return ready;
+        }
+    }
+
+    // Scheduler whose clock only moves forward when advanced by the test,
+    // running the tasks that come due on the caller's thread.
+    private static class FakeScheduler extends NullScheduledExecutor {
+
+        private final List<Task> tasks = Lists.newArrayList();
+        private long now = 1;
+
+        private static class Task {
+            private final long due;
+            private final Runnable command;
+
+            Task(long due, Runnable command) {
+                this.due = due;
+                this.command = command;
+            }
+        }
+
+        long now() {
+            return now;
+        }
+
+        @Override
+        public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+            tasks.add(new Task(now + unit.toNanos(delay), command));
+            return null;
+        }
+
+        // Moves the clock forward by the given nanos, running due tasks in order.
+        void advance(long nanos) {
+            long until = now + nanos;
+            while (true) {
+                Task next = tasks.stream().filter(t -> t.due <= until)
+                        .min(Comparator.comparingLong(t -> t.due)).orElse(null);
+                if (next == null) {
+                    break;
+                }
+                tasks.remove(next);
+                now = Math.max(now, next.due);
+                next.command.run();
+            }
+            now = Math.max(now, until);
+        }
+    }
+
 }
@@ -15,6 +15,11 @@
  */
 package org.onlab.netty;
 
+import io.netty.buffer.ByteBuf;
+
+import java.nio.ByteBuffer;
+
+import org.onlab.netty.SubjectTable.Subject;
 import org.onlab.util.ByteArraySizeHashPrinter;
 import org.onosproject.store.cluster.messaging.Endpoint;
 
@@ -23,21 +28,37 @@ import com.google.common.base.MoreObjects;
 /**
  * Internal message representation with additional attributes
  * for supporting, synchronous request/reply behavior.
+ * <p>
+ * Inbound messages keep their payload in a reference-counted slice of the
+ * receive buffer which must be released once the message has been handled.
+ * </p>
  */
 public final class InternalMessage {
 
     private final long id;
     private final Endpoint sender;
     private final String type;
-    private final byte[] payload;
+    private final Subject subject;
+    private final ByteBuf payloadBuffer;
+    private byte[] payload;
 
     public InternalMessage(long id, Endpoint sender, String type, byte[] payload) {
         this.id = id;
         this.sender = sender;
         this.type = type;
+        this.subject = null;
+        this.payloadBuffer = null;
         this.payload = payload;
     }
 
+    InternalMessage(long id, Endpoint sender, Subject subject, ByteBuf payloadBuffer) {
+        this.id = id;
+        this.sender = sender;
+        this.type = subject.name();
+        this.subject = subject;
+        this.payloadBuffer = payloadBuffer;
+    }
+
     public long id() {
         return id;
     }
@@ -50,17 +71,72 @@ public final class InternalMessage {
         return sender;
     }
 
+    /**
+     * Returns the interned subject of an inbound message.
+     *
+     * @return subject or null if the message was not decoded from the wire
+     */
+    Subject subject() {
+        return subject;
+    }
+
+    /**
+     * Returns the payload as a byte array, copying it out of the payload
+     * buffer on first access.
+     *
+     * @return payload bytes
+     */
     public byte[] payload() {
+        if (payload == null) {
+            byte[] bytes = new byte[payloadBuffer.readableBytes()];
+            payloadBuffer.getBytes(payloadBuffer.readerIndex(), bytes);
+            payload = bytes;
+        }
         return payload;
     }
 
+    /**
+     * Returns a view of the payload that shares its content with the payload
+     * buffer. The view is only valid until the message is released.
+     *
+     * @return payload byte buffer
+     */
+    public ByteBuffer payloadBuffer() {
+        if (payloadBuffer == null) {
+            return ByteBuffer.wrap(payload);
+        }
+        return payloadBuffer.nioBuffer();
+    }
+
+    /**
+     * Increases the reference count of the payload buffer, if any.
+     *
+     * @return this message
+     */
+    public InternalMessage retain() {
+        if (payloadBuffer != null) {
+            payloadBuffer.retain();
+        }
+        return this;
+    }
+
+    /**
+     * Decreases the reference count of the payload buffer, if any,
+     * returning it to the pool once the count reaches zero.
+     */
+    public void release() {
+        if (payloadBuffer != null) {
+            payloadBuffer.release();
+        }
+    }
+
     @Override
     public String toString() {
         return MoreObjects.toStringHelper(this)
                 .add("id", id)
                 .add("type", type)
                 .add("sender", sender)
-                .add("payload", ByteArraySizeHashPrinter.of(payload))
+                .add("payload", payloadBuffer != null ? payloadBuffer : ByteArraySizeHashPrinter.of(payload))
                 .toString();
     }
 }
@@ -22,16 +22,20 @@ import io.netty.handler.codec.ReplayingDecoder;
 
 import java.util.List;
 
+import org.onlab.netty.SubjectTable.Subject;
 import org.onlab.packet.IpAddress;
 import org.onlab.packet.IpAddress.Version;
 import org.onosproject.store.cluster.messaging.Endpoint;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.google.common.base.Charsets;
-
 /**
  * Decoder for inbound messages.
+ * <p>
+ * Message types are resolved against a table of interned subjects straight
+ * from the receive buffer and payloads are handed over as slices of the
+ * receive buffer rather than in freshly allocated arrays.
+ * </p>
  */
 public class MessageDecoder extends ReplayingDecoder<DecoderState> {
 
@@ -42,11 +46,14 @@ public class MessageDecoder extends ReplayingDecoder<DecoderState> {
     private IpAddress senderIp;
     private int senderPort;
     private int messageTypeLength;
-    private String messageType;
+    private Subject messageSubject;
     private int contentLength;
 
-    public MessageDecoder() {
+    private final SubjectTable subjects;
+
+    public MessageDecoder(SubjectTable subjects) {
         super(DecoderState.READ_MESSAGE_ID);
+        this.subjects = subjects;
     }
 
     @Override
@@ -74,20 +81,19 @@ public class MessageDecoder extends ReplayingDecoder<DecoderState> {
             messageTypeLength = buffer.readInt();
             checkpoint(DecoderState.READ_MESSAGE_TYPE);
         case READ_MESSAGE_TYPE:
-            byte[] messageTypeBytes = new byte[messageTypeLength];
-            buffer.readBytes(messageTypeBytes);
-            messageType = new String(messageTypeBytes, Charsets.UTF_8);
+            messageSubject = subjects.lookup(buffer.readSlice(messageTypeLength));
             checkpoint(DecoderState.READ_CONTENT_LENGTH);
         case READ_CONTENT_LENGTH:
             contentLength = buffer.readInt();
             checkpoint(DecoderState.READ_CONTENT);
         case READ_CONTENT:
-            byte[] payload = new byte[contentLength];
-            buffer.readBytes(payload);
+            // The retained slice keeps the cumulation buffer from being
+            // compacted or reused until the message is released.
+            ByteBuf payload = buffer.readSlice(contentLength).retain();
             InternalMessage message = new InternalMessage(
                     messageId,
                     new Endpoint(senderIp, senderPort),
-                    messageType,
+                    messageSubject,
                     payload);
             out.add(message);
             checkpoint(DecoderState.READ_MESSAGE_ID);
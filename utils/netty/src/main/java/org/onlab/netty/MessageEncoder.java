@@ -28,8 +28,6 @@ import org.onosproject.store.cluster.messaging.Endpoint;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.google.common.base.Charsets;
-
 /**
  * Encode InternalMessage out into a byte buffer.
  */
@@ -38,6 +36,12 @@ public class MessageEncoder extends MessageToByteEncoder<InternalMessage> {
 
     private final Logger log = LoggerFactory.getLogger(getClass());
 
+    private final SubjectTable subjects;
+
+    public MessageEncoder(SubjectTable subjects) {
+        this.subjects = subjects;
+    }
+
     @Override
     protected void encode(
             ChannelHandlerContext context,
@@ -60,7 +64,7 @@ public class MessageEncoder extends MessageToByteEncoder<InternalMessage> {
         // write sender port
         out.writeInt(sender.port());
 
-        byte[] messageTypeBytes = message.type().getBytes(Charsets.UTF_8);
+        byte[] messageTypeBytes = subjects.intern(message.type()).bytes();
 
         // write length of message type
         out.writeInt(messageTypeBytes.length);
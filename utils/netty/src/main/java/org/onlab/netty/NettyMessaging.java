@@ -24,6 +24,7 @@ import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoop;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.ServerChannel;
 import io.netty.channel.SimpleChannelInboundHandler;
@@ -34,25 +35,32 @@ import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
 import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.util.Attribute;
+import io.netty.util.AttributeKey;
 
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.security.KeyStore;
 
 import java.util.Map;
+import java.util.Queue;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executor;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
-import org.apache.commons.pool.KeyedPoolableObjectFactory;
-import org.apache.commons.pool.impl.GenericKeyedObjectPool;
 import org.onosproject.store.cluster.messaging.Endpoint;
 import org.onosproject.store.cluster.messaging.MessagingService;
 import org.slf4j.Logger;
@@ -63,6 +71,9 @@ import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.RemovalListener;
 import com.google.common.cache.RemovalNotification;
 
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+
 import javax.net.ssl.KeyManagerFactory;
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLEngine;
@@ -77,9 +88,20 @@ public class NettyMessaging implements MessagingService {
 
     private static final String REPLY_MESSAGE_TYPE = "NETTY_MESSAGING_REQUEST_REPLY";
 
+    public static final int DEFAULT_MAX_BATCH_SIZE = 64;
+    public static final long DEFAULT_MAX_BATCH_DELAY_MICROS = 0;
+    public static final int DEFAULT_CONNECTIONS_PER_PEER = 4;
+
+    private static final long MIN_RECONNECT_BACKOFF_MILLIS = 100;
+    private static final long MAX_RECONNECT_BACKOFF_MILLIS = 5000;
+
+    private static final AttributeKey<OutboundQueue> OUTBOUND_QUEUE = AttributeKey.valueOf("outboundQueue");
+
     private Endpoint localEp;
     private final AtomicBoolean started = new AtomicBoolean(false);
-    private final Map<String, Consumer<InternalMessage>> handlers = new ConcurrentHashMap<>();
+    private final SubjectTable subjects = new SubjectTable();
+    private final int replySubjectId = subjects.register(REPLY_MESSAGE_TYPE).id();
+    private final Map<Integer, Consumer<InternalMessage>> handlers = new ConcurrentHashMap<>();
     private final AtomicLong messageIdGenerator = new AtomicLong(0);
     private final Cache<Long, CompletableFuture<byte[]>> responseFutures = CacheBuilder.newBuilder()
             .expireAfterWrite(10, TimeUnit.SECONDS)
@@ -93,13 +115,17 @@ public class NettyMessaging implements MessagingService {
             })
             .build();
 
-    private final GenericKeyedObjectPool<Endpoint, Channel> channels
-            = new GenericKeyedObjectPool<Endpoint, Channel>(new OnosCommunicationChannelFactory());
+    private final Map<Endpoint, PeerConnections> peers = new ConcurrentHashMap<>();
+    private int connectionsPerPeer = DEFAULT_CONNECTIONS_PER_PEER;
 
     private EventLoopGroup serverGroup;
     private EventLoopGroup clientGroup;
     private Class<? extends ServerChannel> serverChannelClass;
     private Class<? extends Channel> clientChannelClass;
+    private Bootstrap clientBootstrap;
+
+    private volatile int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+    private volatile long maxBatchDelayMicros = DEFAULT_MAX_BATCH_DELAY_MICROS;
 
     protected static final boolean TLS_DISABLED = false;
     protected boolean enableNettyTLS = TLS_DISABLED;
@@ -133,25 +159,55 @@ public class NettyMessaging implements MessagingService {
             return;
         }
         this.localEp = localEp;
-        channels.setLifo(true);
-        channels.setTestOnBorrow(true);
-        channels.setTestOnReturn(true);
-        channels.setMinEvictableIdleTimeMillis(60_000L);
-        channels.setTimeBetweenEvictionRunsMillis(30_000L);
         initEventLoopGroup();
+        clientBootstrap = createClientBootstrap();
         startAcceptingConnections();
         started.set(true);
     }
 
     public void stop() throws Exception {
         if (started.get()) {
-            channels.close();
+            peers.values().forEach(PeerConnections::close);
+            peers.clear();
             serverGroup.shutdownGracefully();
             clientGroup.shutdownGracefully();
             started.set(false);
         }
     }
 
+    /**
+     * Sets the limits for coalescing outbound messages into a single flush.
+     * Messages sent to the same connection are queued and flushed together
+     * once either the batch size is reached or the oldest queued message
+     * has waited for the specified delay. A batch size of 1 disables
+     * coalescing and flushes every message as soon as it is written.
+     *
+     * @param maxBatchSize maximum number of messages per flush
+     * @param maxBatchDelayMicros maximum time in microseconds a message may
+     *                            be held back waiting for more messages;
+     *                            0 flushes on the next I/O loop iteration
+     */
+    public void setBatchLimits(int maxBatchSize, long maxBatchDelayMicros) {
+        checkArgument(maxBatchSize > 0, "Batch size must be positive");
+        checkArgument(maxBatchDelayMicros >= 0, "Batch delay must not be negative");
+        this.maxBatchSize = maxBatchSize;
+        this.maxBatchDelayMicros = maxBatchDelayMicros;
+    }
+
+    /**
+     * Sets the number of connections opened to each peer. Outbound messages
+     * are spread over these connections by subject, so that messages on the
+     * same subject keep their order. Must be
+     * set before the messaging service is started.
+     *
+     * @param connectionsPerPeer number of connections per peer
+     */
+    public void setConnectionsPerPeer(int connectionsPerPeer) {
+        checkArgument(connectionsPerPeer > 0, "Number of connections must be positive");
+        checkState(!started.get(), "Connections per peer cannot be changed once started");
+        this.connectionsPerPeer = connectionsPerPeer;
+    }
+
     @Override
     public CompletableFuture<Void> sendAsync(Endpoint ep, String type, byte[] payload) {
         InternalMessage message = new InternalMessage(messageIdGenerator.incrementAndGet(),
@@ -168,18 +224,17 @@ public class NettyMessaging implements MessagingService {
                 dispatchLocally(message);
                 future.complete(null);
             } else {
-                Channel channel = null;
-                try {
-                    channel = channels.borrowObject(ep);
-                    channel.writeAndFlush(message).addListener(channelFuture -> {
-                        if (!channelFuture.isSuccess()) {
-                            future.completeExceptionally(channelFuture.cause());
-                        } else {
-                            future.complete(null);
-                        }
-                    });
-                } finally {
-                    channels.returnObject(ep, channel);
+                ChannelFuture connection = peers.computeIfAbsent(ep, PeerConnections::new)
+                        .forSubject(message.type());
+                if (connection.isDone()) {
+                    write(connection, message, future);
+                } else if (maxBatchSize > 1) {
+                    // Queued right away rather than once connected, so that
+                    // messages sent after the connection is established
+                    // cannot overtake it; the queue is drained once it is
+                    outboundQueue(connection).enqueue(message, future);
+                } else {
+                    connection.addListener(f -> write(connection, message, future));
                 }
             }
         } catch (Exception e) {
@@ -188,6 +243,38 @@ public class NettyMessaging implements MessagingService {
         return future;
     }
 
+    private void write(ChannelFuture connection, InternalMessage message, CompletableFuture<Void> future) {
+        if (!connection.isSuccess()) {
+            future.completeExceptionally(connection.cause());
+            return;
+        }
+        Channel channel = connection.channel();
+        if (maxBatchSize > 1) {
+            outboundQueue(connection).enqueue(message, future);
+        } else {
+            channel.writeAndFlush(message).addListener(channelFuture -> {
+                if (!channelFuture.isSuccess()) {
+                    future.completeExceptionally(channelFuture.cause());
+                } else {
+                    future.complete(null);
+                }
+            });
+        }
+    }
+
+    OutboundQueue outboundQueue(ChannelFuture connection) {
+        Attribute<OutboundQueue> attribute = connection.channel().attr(OUTBOUND_QUEUE);
+        OutboundQueue queue = attribute.get();
+        if (queue == null) {
+            queue = new OutboundQueue(connection);
+            OutboundQueue existing = attribute.setIfAbsent(queue);
+            if (existing != null) {
+                queue = existing;
+            }
+        }
+        return queue;
+    }
+
     @Override
     public CompletableFuture<byte[]> sendAndReceive(Endpoint ep, String type, byte[] payload) {
         CompletableFuture<byte[]> response = new CompletableFuture<>();
@@ -205,30 +292,56 @@ public class NettyMessaging implements MessagingService {
 
     @Override
     public void registerHandler(String type, Consumer<byte[]> handler, Executor executor) {
-        handlers.put(type, message -> executor.execute(() -> handler.accept(message.payload())));
+        handlers.put(subjectId(type), message -> {
+            byte[] payload = message.payload();
+            executor.execute(() -> handler.accept(payload));
+        });
     }
 
     @Override
-    public void registerHandler(String type, Function<byte[], byte[]> handler, Executor executor) {
-        handlers.put(type, message -> executor.execute(() -> {
-            byte[] responsePayload = handler.apply(message.payload());
-            if (responsePayload != null) {
-                InternalMessage response = new InternalMessage(message.id(),
-                        localEp,
-                        REPLY_MESSAGE_TYPE,
-                        responsePayload);
-                sendAsync(message.sender(), response).whenComplete((result, error) -> {
-                    if (error != null) {
-                        log.debug("Failed to respond", error);
+    public void registerBufferHandler(String type, Consumer<ByteBuffer> handler, Executor executor) {
+        handlers.put(subjectId(type), message -> {
+            // payload buffer stays with the message until the handler is done
+            message.retain();
+            try {
+                executor.execute(() -> {
+                    try {
+                        handler.accept(message.payloadBuffer());
+                    } finally {
+                        message.release();
                     }
                 });
+            } catch (RejectedExecutionException e) {
+                message.release();
+                throw e;
             }
-        }));
+        });
+    }
+
+    @Override
+    public void registerHandler(String type, Function<byte[], byte[]> handler, Executor executor) {
+        handlers.put(subjectId(type), message -> {
+            byte[] payload = message.payload();
+            executor.execute(() -> {
+                byte[] responsePayload = handler.apply(payload);
+                if (responsePayload != null) {
+                    InternalMessage response = new InternalMessage(message.id(),
+                            localEp,
+                            REPLY_MESSAGE_TYPE,
+                            responsePayload);
+                    sendAsync(message.sender(), response).whenComplete((result, error) -> {
+                        if (error != null) {
+                            log.debug("Failed to respond", error);
+                        }
+                    });
+                }
+            });
+        });
     }
 
     @Override
     public void registerHandler(String type, Function<byte[], CompletableFuture<byte[]>> handler) {
-        handlers.put(type, message -> {
+        handlers.put(subjectId(type), message -> {
             handler.apply(message.payload()).whenComplete((result, error) -> {
                 if (error == null) {
                     InternalMessage response = new InternalMessage(message.id(),
@@ -247,7 +360,11 @@ public class NettyMessaging implements MessagingService {
 
     @Override
     public void unregisterHandler(String type) {
-        handlers.remove(type);
+        handlers.remove(subjectId(type));
+    }
+
+    private int subjectId(String type) {
+        return subjects.register(type).id();
     }
 
     private void startAcceptingConnections() throws InterruptedException {
@@ -257,6 +374,7 @@ public class NettyMessaging implements MessagingService {
         b.option(ChannelOption.SO_RCVBUF, 1048576);
         b.option(ChannelOption.TCP_NODELAY, true);
         b.option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT);
+        b.childOption(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT);
         b.group(serverGroup, clientGroup);
         b.channel(serverChannelClass);
         if (enableNettyTLS) {
@@ -277,58 +395,107 @@ public class NettyMessaging implements MessagingService {
         });
     }
 
-    private class OnosCommunicationChannelFactory
-        implements KeyedPoolableObjectFactory<Endpoint, Channel> {
+    private Bootstrap createClientBootstrap() {
+        Bootstrap bootstrap = new Bootstrap();
+        bootstrap.option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT);
+        bootstrap.option(ChannelOption.WRITE_BUFFER_HIGH_WATER_MARK, 10 * 64 * 1024);
+        bootstrap.option(ChannelOption.WRITE_BUFFER_LOW_WATER_MARK, 10 * 32 * 1024);
+        bootstrap.option(ChannelOption.SO_SNDBUF, 1048576);
+        bootstrap.group(clientGroup);
+        bootstrap.channel(clientChannelClass);
+        bootstrap.option(ChannelOption.SO_KEEPALIVE, true);
+        bootstrap.option(ChannelOption.TCP_NODELAY, true);
+        if (enableNettyTLS) {
+            bootstrap.handler(new SSLClientCommunicationChannelInitializer());
+        } else {
+            bootstrap.handler(new OnosCommunicationChannelInitializer());
+        }
+        return bootstrap;
+    }
 
-        @Override
-        public void activateObject(Endpoint endpoint, Channel channel)
-                throws Exception {
+    /**
+     * Fixed set of long-lived connections to a peer, shared by all senders.
+     * Requests and replies are correlated by message id, so any connection
+     * can carry any message and connections are picked without locking.
+     * Each subject is always carried by the same connection, so that messages
+     * on one subject are delivered in the order they were sent.
+     * A connection that failed or was closed is re-established the next time
+     * its slot is picked, unless an attempt to connect to the peer failed
+     * recently; senders then fail fast until the retry backoff has elapsed.
+     */
+    private final class PeerConnections {
+
+        private final Endpoint ep;
+        private final AtomicReferenceArray<ChannelFuture> connections;
+        private final AtomicIntegerArray failedAttempts;
+        private final AtomicLongArray retryAfterNanos;
+
+        private PeerConnections(Endpoint ep) {
+            this.ep = ep;
+            this.connections = new AtomicReferenceArray<>(connectionsPerPeer);
+            this.failedAttempts = new AtomicIntegerArray(connectionsPerPeer);
+            this.retryAfterNanos = new AtomicLongArray(connectionsPerPeer);
         }
 
-        @Override
-        public void destroyObject(Endpoint ep, Channel channel) throws Exception {
-            log.debug("Closing connection to {}", ep);
-            channel.close();
+        private ChannelFuture forSubject(String subject) {
+            int index = Math.floorMod(subject.hashCode(), connections.length());
+            ChannelFuture connection = connections.get(index);
+            while (connection == null || isBroken(connection)) {
+                if (connection != null && System.nanoTime() - retryAfterNanos.get(index) < 0) {
+                    // Peer was unreachable moments ago; do not reconnect on every send
+                    return connection;
+                }
+                ChannelFuture newConnection = clientBootstrap.connect(ep.host().toString(), ep.port());
+                if (connections.compareAndSet(index, connection, newConnection)) {
+                    log.debug("Establishing a new connection to {}", ep);
+                    newConnection.addListener(f -> {
+                        connectAttempted(index, f.isSuccess());
+                        OutboundQueue queue = newConnection.channel().attr(OUTBOUND_QUEUE).get();
+                        if (queue != null) {
+                            // Send, or fail, what was queued while connecting
+                            queue.run();
+                        }
+                    });
+                    return newConnection;
+                }
+                // Lost the race to another sender; use its connection instead
+                newConnection.channel().close();
+                connection = connections.get(index);
+            }
+            return connection;
         }
 
-        @Override
-        public Channel makeObject(Endpoint ep) throws Exception {
-            Bootstrap bootstrap = new Bootstrap();
-            bootstrap.option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT);
-            bootstrap.option(ChannelOption.WRITE_BUFFER_HIGH_WATER_MARK, 10 * 64 * 1024);
-            bootstrap.option(ChannelOption.WRITE_BUFFER_LOW_WATER_MARK, 10 * 32 * 1024);
-            bootstrap.option(ChannelOption.SO_SNDBUF, 1048576);
-            bootstrap.group(clientGroup);
-            // TODO: Make this faster:
-            // http://normanmaurer.me/presentations/2014-facebook-eng-netty/slides.html#37.0
-            bootstrap.channel(clientChannelClass);
-            bootstrap.option(ChannelOption.SO_KEEPALIVE, true);
-            if (enableNettyTLS) {
-                bootstrap.handler(new SSLClientCommunicationChannelInitializer());
-            } else {
-                bootstrap.handler(new OnosCommunicationChannelInitializer());
+        private void connectAttempted(int index, boolean success) {
+            if (success) {
+                failedAttempts.set(index, 0);
+                return;
             }
-            // Start the client.
-            ChannelFuture f = bootstrap.connect(ep.host().toString(), ep.port()).sync();
-            log.debug("Established a new connection to {}", ep);
-            return f.channel();
+            int failures = failedAttempts.incrementAndGet(index);
+            long backoffMillis = Math.min(MAX_RECONNECT_BACKOFF_MILLIS,
+                                          MIN_RECONNECT_BACKOFF_MILLIS << Math.min(failures - 1, 16));
+            retryAfterNanos.set(index, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(backoffMillis));
+            log.debug("Failed to connect to {}; retrying in {} ms", ep, backoffMillis);
         }
 
-        @Override
-        public void passivateObject(Endpoint ep, Channel channel)
-                throws Exception {
+        private boolean isBroken(ChannelFuture connection) {
+            return connection.isDone() && (!connection.isSuccess() || !connection.channel().isActive());
         }
 
-        @Override
-        public boolean validateObject(Endpoint ep, Channel channel) {
-            return channel.isOpen();
+        private void close() {
+            for (int i = 0; i < connections.length(); i++) {
+                ChannelFuture connection = connections.getAndSet(i, null);
+                if (connection != null) {
+                    log.debug("Closing connection to {}", ep);
+                    connection.channel().close();
+                }
+            }
         }
     }
 
     private class SSLServerCommunicationChannelInitializer extends ChannelInitializer<SocketChannel> {
 
         private final ChannelHandler dispatcher = new InboundMessageDispatcher();
-        private final ChannelHandler encoder = new MessageEncoder();
+        private final ChannelHandler encoder = new MessageEncoder(subjects);
 
         @Override
         protected void initChannel(SocketChannel channel) throws Exception {
@@ -355,7 +522,7 @@ public class NettyMessaging implements MessagingService {
 
             channel.pipeline().addLast("ssl", new io.netty.handler.ssl.SslHandler(serverSSLEngine))
                     .addLast("encoder", encoder)
-                    .addLast("decoder", new MessageDecoder())
+                    .addLast("decoder", new MessageDecoder(subjects))
                     .addLast("handler", dispatcher);
         }
 
@@ -364,7 +531,7 @@ public class NettyMessaging implements MessagingService {
     private class SSLClientCommunicationChannelInitializer extends ChannelInitializer<SocketChannel> {
 
         private final ChannelHandler dispatcher = new InboundMessageDispatcher();
-        private final ChannelHandler encoder = new MessageEncoder();
+        private final ChannelHandler encoder = new MessageEncoder(subjects);
 
         @Override
         protected void initChannel(SocketChannel channel) throws Exception {
@@ -390,7 +557,7 @@ public class NettyMessaging implements MessagingService {
 
             channel.pipeline().addLast("ssl", new io.netty.handler.ssl.SslHandler(clientSSLEngine))
                     .addLast("encoder", encoder)
-                    .addLast("decoder", new MessageDecoder())
+                    .addLast("decoder", new MessageDecoder(subjects))
                     .addLast("handler", dispatcher);
         }
 
@@ -399,17 +566,122 @@ public class NettyMessaging implements MessagingService {
     private class OnosCommunicationChannelInitializer extends ChannelInitializer<SocketChannel> {
 
         private final ChannelHandler dispatcher = new InboundMessageDispatcher();
-        private final ChannelHandler encoder = new MessageEncoder();
+        private final ChannelHandler encoder = new MessageEncoder(subjects);
 
         @Override
         protected void initChannel(SocketChannel channel) throws Exception {
                 channel.pipeline()
                         .addLast("encoder", encoder)
-                        .addLast("decoder", new MessageDecoder())
+                        .addLast("decoder", new MessageDecoder(subjects))
                         .addLast("handler", dispatcher);
         }
     }
 
+    /**
+     * Queue of messages waiting to be written to a connection. Messages are
+     * written and flushed in batches from the connection's I/O loop, so that
+     * many concurrent senders share a single flush and a single wake-up of
+     * the I/O loop. Messages sent while the connection is being established
+     * are held in the queue until the connection attempt completes.
+     */
+    final class OutboundQueue implements Runnable {
+
+        private final ChannelFuture connection;
+        private final Channel channel;
+        private final Queue<OutboundMessage> messages = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger(0);
+        // Set while a drain is pending on the I/O loop, either right away or delayed
+        private final AtomicBoolean scheduled = new AtomicBoolean(false);
+        // Set while a drain is pending on the I/O loop right away
+        private final AtomicBoolean draining = new AtomicBoolean(false);
+
+        private OutboundQueue(ChannelFuture connection) {
+            this.connection = connection;
+            this.channel = connection.channel();
+        }
+
+        void enqueue(InternalMessage message, CompletableFuture<Void> future) {
+            messages.add(new OutboundMessage(message, future));
+            int batchSize = maxBatchSize;
+            long batchDelay = maxBatchDelayMicros;
+            EventLoop eventLoop = channel.eventLoop();
+            try {
+                if (size.incrementAndGet() >= batchSize) {
+                    // A full batch need not wait for a delayed flush, but a
+                    // single pending drain takes care of all queued messages
+                    if (draining.compareAndSet(false, true)) {
+                        scheduled.set(true);
+                        eventLoop.execute(this);
+                    }
+                } else if (scheduled.compareAndSet(false, true)) {
+                    if (batchDelay > 0) {
+                        eventLoop.schedule(this, batchDelay, TimeUnit.MICROSECONDS);
+                    } else {
+                        draining.set(true);
+                        eventLoop.execute(this);
+                    }
+                }
+            } catch (RejectedExecutionException e) {
+                draining.set(false);
+                scheduled.set(false);
+                failAll(e);
+            }
+        }
+
+        @Override
+        public void run() {
+            // Cleared before draining, so that a message queued after the
+            // drain below schedules another one
+            draining.set(false);
+            scheduled.set(false);
+            if (!connection.isDone()) {
+                // Still connecting; drained once the attempt completes
+                return;
+            }
+            int batchSize = maxBatchSize;
+            int written = 0;
+            OutboundMessage outbound;
+            while (written < batchSize && (outbound = messages.poll()) != null) {
+                size.decrementAndGet();
+                CompletableFuture<Void> future = outbound.future;
+                channel.write(outbound.message).addListener(channelFuture -> {
+                    if (!channelFuture.isSuccess()) {
+                        future.completeExceptionally(channelFuture.cause());
+                    } else {
+                        future.complete(null);
+                    }
+                });
+                written++;
+            }
+            if (written > 0) {
+                channel.flush();
+            }
+            // Yield the I/O loop between batches when senders keep up
+            if (!messages.isEmpty() && scheduled.compareAndSet(false, true)) {
+                draining.set(true);
+                channel.eventLoop().execute(this);
+            }
+        }
+
+        private void failAll(Throwable cause) {
+            OutboundMessage outbound;
+            while ((outbound = messages.poll()) != null) {
+                size.decrementAndGet();
+                outbound.future.completeExceptionally(cause);
+            }
+        }
+    }
+
+    private static final class OutboundMessage {
+        private final InternalMessage message;
+        private final CompletableFuture<Void> future;
+
+        private OutboundMessage(InternalMessage message, CompletableFuture<Void> future) {
+            this.message = message;
+            this.future = future;
+        }
+    }
+
     @ChannelHandler.Sharable
     private class InboundMessageDispatcher extends SimpleChannelInboundHandler<InternalMessage> {
 
@@ -419,6 +691,8 @@ public class NettyMessaging implements MessagingService {
                 dispatchLocally(message);
             } catch (RejectedExecutionException e) {
                 log.warn("Unable to dispatch message due to {}", e.getMessage());
+            } finally {
+                message.release();
             }
         }
 
@@ -430,8 +704,9 @@ public class NettyMessaging implements MessagingService {
     }
 
     private void dispatchLocally(InternalMessage message) throws IOException {
-        String type = message.type();
-        if (REPLY_MESSAGE_TYPE.equals(type)) {
+        SubjectTable.Subject subject = message.subject();
+        int subjectId = (subject != null ? subject : subjects.intern(message.type())).id();
+        if (subjectId == replySubjectId) {
             try {
                 CompletableFuture<byte[]> futureResponse =
                     responseFutures.getIfPresent(message.id());
@@ -447,11 +722,11 @@ public class NettyMessaging implements MessagingService {
             }
             return;
         }
-        Consumer<InternalMessage> handler = handlers.get(type);
+        Consumer<InternalMessage> handler = handlers.get(subjectId);
         if (handler != null) {
             handler.accept(message);
         } else {
-            log.debug("No handler registered for {}", type);
+            log.debug("No handler registered for {}", message.type());
         }
     }
 }
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.MoreObjects;
+
+/**
+ * Table of interned message types.
+ * <p>
+ * Message types with a handler are assigned a numeric identifier when they
+ * are registered. Inbound message types are matched against the table
+ * straight from the receive buffer, so that no type string is decoded per
+ * message, and the encoded form of outbound message types is computed only
+ * once. Types read off the wire are never interned: a type that has not been
+ * registered resolves to a transient subject, as do outbound types once the
+ * table holds {@link #MAX_SUBJECTS} subjects.
+ * </p>
+ */
+public final class SubjectTable {
+
+    /**
+     * Number of subjects beyond which outbound message types are no longer
+     * interned.
+     */
+    public static final int MAX_SUBJECTS = 1024;
+
+    /**
+     * Identifier of subjects that are not interned.
+     */
+    public static final int TRANSIENT_ID = -1;
+
+    private final Map<String, Subject> byName = new ConcurrentHashMap<>();
+    private final Map<ByteBuf, Subject> byBytes = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId = new AtomicInteger(0);
+
+    /**
+     * Returns the interned subject for the specified message type, interning
+     * it if need be. Meant for message types with a handler, of which there
+     * is a fixed set.
+     *
+     * @param type message type
+     * @return interned subject
+     */
+    public Subject register(String type) {
+        Subject subject = byName.get(type);
+        return subject != null ? subject : register(type.getBytes(Charsets.UTF_8));
+    }
+
+    /**
+     * Returns the subject for the specified message type, interning it if
+     * the table is not full yet.
+     *
+     * @param type message type
+     * @return interned subject, or a transient one if the table is full
+     */
+    public Subject intern(String type) {
+        Subject subject = byName.get(type);
+        if (subject != null) {
+            return subject;
+        }
+        byte[] bytes = type.getBytes(Charsets.UTF_8);
+        return byName.size() < MAX_SUBJECTS ? register(bytes) : new Subject(TRANSIENT_ID, type, bytes);
+    }
+
+    /**
+     * Returns the subject for the message type encoded in the readable bytes
+     * of the specified buffer. The buffer is not modified.
+     *
+     * @param typeBytes buffer holding the UTF-8 encoded message type
+     * @return interned subject, or a transient one if the type is unknown
+     */
+    public Subject lookup(ByteBuf typeBytes) {
+        Subject subject = byBytes.get(typeBytes);
+        if (subject == null) {
+            byte[] bytes = new byte[typeBytes.readableBytes()];
+            typeBytes.getBytes(typeBytes.readerIndex(), bytes);
+            subject = new Subject(TRANSIENT_ID, new String(bytes, Charsets.UTF_8), bytes);
+        }
+        return subject;
+    }
+
+    private synchronized Subject register(byte[] bytes) {
+        ByteBuf key = Unpooled.wrappedBuffer(bytes);
+        Subject subject = byBytes.get(key);
+        if (subject == null) {
+            subject = new Subject(nextId.getAndIncrement(),
+                                  new String(bytes, Charsets.UTF_8),
+                                  bytes);
+            byBytes.put(key, subject);
+            byName.put(subject.name(), subject);
+        }
+        return subject;
+    }
+
+    /**
+     * Interned message type.
+     */
+    public static final class Subject {
+
+        private final int id;
+        private final String name;
+        private final byte[] bytes;
+
+        private Subject(int id, String name, byte[] bytes) {
+            this.id = id;
+            this.name = name;
+            this.bytes = bytes;
+        }
+
+        /**
+         * Returns the numeric identifier of this subject, local to this table.
+         *
+         * @return subject identifier, or {@link SubjectTable#TRANSIENT_ID} if the
+         * subject is not interned
+         */
+        public int id() {
+            return id;
+        }
+
+        /**
+         * Returns the message type.
+         *
+         * @return message type
+         */
+        public String name() {
+            return name;
+        }
+
+        /**
+         * Returns the UTF-8 encoded message type. The returned array must
+         * not be modified.
+         *
+         * @return encoded message type
+         */
+        byte[] bytes() {
+            return bytes;
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(this)
+                    .add("id", id)
+                    .add("name", name)
+                    .toString();
+        }
+    }
+}
@@ -0,0 +1,289 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.netty;
+
+import com.google.common.collect.Lists;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalEventLoopGroup;
+import io.netty.util.concurrent.SingleThreadEventExecutor;
+import org.junit.After;
+import org.junit.Test;
+import org.onlab.packet.IpAddress;
+import org.onosproject.store.cluster.messaging.Endpoint;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.onlab.junit.TestTools.assertAfter;
+
+/**
+ * Unit tests for NettyMessaging.
+ */
+public class NettyMessagingTest {
+
+    private static final IpAddress LOCALHOST = IpAddress.valueOf("127.0.0.1");
+
+    private final List<NettyMessaging> services = Lists.newArrayList();
+    private EventLoopGroup group;
+    private ExecutorService executor;
+
+    @After
+    public void tearDown() throws Exception {
+        for (NettyMessaging service : services) {
+            service.stop();
+        }
+        if (group != null) {
+            group.shutdownGracefully(0, 0, TimeUnit.SECONDS);
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private static Endpoint endpoint() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return new Endpoint(LOCALHOST, socket.getLocalPort());
+        }
+    }
+
+    private NettyMessaging service(int connectionsPerPeer) {
+        NettyMessaging service = new NettyMessaging();
+        service.setConnectionsPerPeer(connectionsPerPeer);
+        services.add(service);
+        return service;
+    }
+
+    private static InternalMessage message(long id) {
+        return new InternalMessage(id, null, "test", new byte[0]);
+    }
+
+    // Records the messages written to a channel without sending them anywhere.
+    private static class Recorder extends ChannelOutboundHandlerAdapter {
+        private final List<Long> written = Lists.newCopyOnWriteArrayList();
+        private final AtomicInteger flushes = new AtomicInteger();
+
+        @Override
+        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+            written.add(((InternalMessage) msg).id());
+            promise.setSuccess();
+        }
+
+        @Override
+        public void flush(ChannelHandlerContext ctx) {
+            flushes.incrementAndGet();
+        }
+    }
+
+    private LocalChannel channel(Recorder recorder) throws InterruptedException {
+        group = new LocalEventLoopGroup(1);
+        LocalChannel channel = new LocalChannel();
+        channel.pipeline().addLast(recorder);
+        group.register(channel).sync();
+        return channel;
+    }
+
+    @Test
+    public void coalescing() throws Exception {
+        NettyMessaging messaging = new NettyMessaging();
+        messaging.setBatchLimits(4, 0);
+        Recorder recorder = new Recorder();
+        LocalChannel channel = channel(recorder);
+        NettyMessaging.OutboundQueue queue = messaging.outboundQueue(channel.newSucceededFuture());
+
+        // Hold up the I/O loop while the messages are queued
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        channel.eventLoop().execute(() -> {
+            blocked.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(blocked.await(5, TimeUnit.SECONDS));
+        List<CompletableFuture<Void>> futures = Lists.newArrayList();
+        for (long id = 0; id < 20; id++) {
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            queue.enqueue(message(id), future);
+            futures.add(future);
+        }
+        assertEquals("a single drain should be pending for all batches",
+                     1, ((SingleThreadEventExecutor) channel.eventLoop()).pendingTasks());
+
+        release.countDown();
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+        List<Long> expected = Lists.newArrayList();
+        for (long id = 0; id < 20; id++) {
+            expected.add(id);
+        }
+        assertEquals(expected, recorder.written);
+        // the futures complete as the messages are written, ahead of the flush
+        assertAfter(5_000, () -> assertEquals("messages should be flushed in batches",
+                                              5, recorder.flushes.get()));
+    }
+
+    @Test
+    public void fullBatchSkipsDelay() throws Exception {
+        NettyMessaging messaging = new NettyMessaging();
+        messaging.setBatchLimits(4, TimeUnit.SECONDS.toMicros(30));
+        Recorder recorder = new Recorder();
+        NettyMessaging.OutboundQueue queue = messaging.outboundQueue(channel(recorder).newSucceededFuture());
+
+        CompletableFuture<Void> first = new CompletableFuture<>();
+        queue.enqueue(message(0), first);
+        queue.enqueue(message(1), new CompletableFuture<>());
+        queue.enqueue(message(2), new CompletableFuture<>());
+        CompletableFuture<Void> last = new CompletableFuture<>();
+        queue.enqueue(message(3), last);
+
+        CompletableFuture.allOf(first, last).get(5, TimeUnit.SECONDS);
+        assertEquals(Lists.newArrayList(0L, 1L, 2L, 3L), recorder.written);
+        assertAfter(5_000, () -> assertEquals(1, recorder.flushes.get()));
+    }
+
+    @Test
+    public void reconnect() throws Exception {
+        Endpoint epA = endpoint();
+        Endpoint epB = endpoint();
+        NettyMessaging serviceA = service(1);
+        serviceA.start(epA);
+
+        // Sends fail while the peer is down
+        try {
+            serviceA.sendAsync(epB, "test", new byte[0]).get(5, TimeUnit.SECONDS);
+            fail("send to an unreachable peer should fail");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IOException);
+        }
+
+        CountDownLatch received = new CountDownLatch(1);
+        NettyMessaging serviceB = service(1);
+        serviceB.registerHandler("test", (byte[] payload) -> received.countDown(), Runnable::run);
+        serviceB.start(epB);
+
+        // Once the retry backoff has elapsed, the connection is re-established
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (received.getCount() > 0 && System.currentTimeMillis() < deadline) {
+            serviceA.sendAsync(epB, "test", new byte[0]);
+            received.await(50, TimeUnit.MILLISECONDS);
+        }
+        assertEquals("peer should be reached after it came up", 0, received.getCount());
+    }
+
+    @Test
+    public void multiplexing() throws Exception {
+        Endpoint epA = endpoint();
+        Endpoint epB = endpoint();
+        NettyMessaging serviceA = service(4);
+        NettyMessaging serviceB = service(4);
+        serviceA.start(epA);
+        serviceB.start(epB);
+
+        executor = Executors.newFixedThreadPool(4);
+        for (int i = 0; i < 8; i++) {
+            String subject = "subject" + i;
+            serviceB.registerHandler(subject, (byte[] payload) ->
+                    (subject + ':' + new String(payload, StandardCharsets.UTF_8))
+                            .getBytes(StandardCharsets.UTF_8), executor);
+        }
+
+        // Replies are matched to their requests whichever connection carries them
+        List<CompletableFuture<byte[]>> replies = Lists.newArrayList();
+        List<byte[]> expected = Lists.newArrayList();
+        for (int n = 0; n < 100; n++) {
+            String subject = "subject" + (n % 8);
+            String payload = String.valueOf(n);
+            replies.add(serviceA.sendAndReceive(epB, subject, payload.getBytes(StandardCharsets.UTF_8)));
+            expected.add((subject + ':' + payload).getBytes(StandardCharsets.UTF_8));
+        }
+        for (int n = 0; n < replies.size(); n++) {
+            assertArrayEquals(expected.get(n), replies.get(n).get(5, TimeUnit.SECONDS));
+        }
+
+        // Messages sent on a subject by the peer are delivered too
+        AtomicInteger count = new AtomicInteger();
+        serviceA.registerHandler("back", (byte[] payload) -> count.incrementAndGet(), Runnable::run);
+        for (int n = 0; n < 10; n++) {
+            serviceB.sendAsync(epA, "back", new byte[0]);
+        }
+        assertAfter(5_000, () -> assertEquals(10, count.get()));
+    }
+
+    @Test
+    public void perSubjectOrdering() throws Exception {
+        Endpoint epA = endpoint();
+        Endpoint epB = endpoint();
+        NettyMessaging serviceA = service(4);
+        NettyMessaging serviceB = service(4);
+        serviceA.start(epA);
+        serviceB.start(epB);
+
+        int subjects = 8;
+        int messages = 500;
+        List<String> names = Lists.newArrayList();
+        List<List<Integer>> received = Lists.newArrayList();
+        for (int i = 0; i < subjects; i++) {
+            String subject = "ordered" + i;
+            List<Integer> sequence = Lists.newCopyOnWriteArrayList();
+            names.add(subject);
+            received.add(sequence);
+            // handled on the I/O thread, in the order the messages arrive
+            serviceB.registerHandler(subject, (byte[] payload) ->
+                    sequence.add(Integer.parseInt(new String(payload, StandardCharsets.UTF_8))), Runnable::run);
+        }
+        assertTrue("subjects should be spread over the connections",
+                   names.stream().mapToInt(s -> Math.floorMod(s.hashCode(), 4)).distinct().count() > 1);
+
+        // Interleave the subjects, so that consecutive messages on one
+        // subject would overtake each other on different connections
+        List<CompletableFuture<Void>> futures = Lists.newArrayList();
+        for (int n = 0; n < messages; n++) {
+            byte[] payload = String.valueOf(n).getBytes(StandardCharsets.UTF_8);
+            for (String subject : names) {
+                futures.add(serviceA.sendAsync(epB, subject, payload));
+            }
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+
+        List<Integer> expected = Lists.newArrayList();
+        for (int n = 0; n < messages; n++) {
+            expected.add(n);
+        }
+        for (int i = 0; i < subjects; i++) {
+            List<Integer> sequence = received.get(i);
+            assertAfter(5_000, () -> assertEquals(messages, sequence.size()));
+            assertEquals("messages on " + names.get(i) + " should arrive in order", expected, sequence);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.netty;
+
+import com.google.common.base.Charsets;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.Test;
+import org.onlab.netty.SubjectTable.Subject;
+import org.onlab.packet.IpAddress;
+import org.onosproject.store.cluster.messaging.Endpoint;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.onlab.netty.SubjectTable.MAX_SUBJECTS;
+import static org.onlab.netty.SubjectTable.TRANSIENT_ID;
+
+/**
+ * Unit tests for SubjectTable.
+ */
+public class SubjectTableTest {
+
+    private final SubjectTable subjects = new SubjectTable();
+
+    private static ByteBuf bytes(String type) {
+        return Unpooled.wrappedBuffer(type.getBytes(Charsets.UTF_8));
+    }
+
+    @Test
+    public void register() {
+        Subject subject = subjects.register("foo");
+        assertEquals(0, subject.id());
+        assertEquals("foo", subject.name());
+        assertSame(subject, subjects.register("foo"));
+        assertSame(subject, subjects.intern("foo"));
+        assertSame(subject, subjects.lookup(bytes("foo")));
+    }
+
+    @Test
+    public void lookupDoesNotIntern() {
+        for (int i = 0; i < 2 * MAX_SUBJECTS; i++) {
+            Subject subject = subjects.lookup(bytes("type" + i));
+            assertEquals(TRANSIENT_ID, subject.id());
+            assertEquals("type" + i, subject.name());
+        }
+        // none of the types read above took up an identifier
+        assertEquals(0, subjects.register("foo").id());
+    }
+
+    @Test
+    public void internIsBounded() {
+        for (int i = 0; i < MAX_SUBJECTS; i++) {
+            assertEquals(i, subjects.intern("type" + i).id());
+        }
+        Subject subject = subjects.intern("overflow");
+        assertEquals(TRANSIENT_ID, subject.id());
+        assertArrayEquals("overflow".getBytes(Charsets.UTF_8), subject.bytes());
+
+        // message types with a handler are still interned
+        assertEquals(MAX_SUBJECTS, subjects.register("handled").id());
+        assertSame(subjects.register("handled"), subjects.lookup(bytes("handled")));
+    }
+
+    @Test
+    public void decode() {
+        Subject handled = subjects.register("handled");
+        // the sending end has a table of its own
+        EmbeddedChannel channel = new EmbeddedChannel(new MessageEncoder(new SubjectTable()),
+                                                      new MessageDecoder(subjects));
+        Endpoint sender = new Endpoint(IpAddress.valueOf("10.0.0.1"), 9876);
+        byte[] payload = {1, 2, 3, 4};
+        channel.writeOutbound(new InternalMessage(1, sender, "handled", payload));
+        channel.writeOutbound(new InternalMessage(2, sender, "unknown", payload));
+        ByteBuf first = (ByteBuf) channel.readOutbound();
+        ByteBuf second = (ByteBuf) channel.readOutbound();
+        channel.writeInbound(Unpooled.wrappedBuffer(first, second));
+
+        InternalMessage message = (InternalMessage) channel.readInbound();
+        assertSame(handled, message.subject());
+        assertEquals(sender, message.sender());
+        assertArrayEquals(payload, message.payload());
+        message.release();
+
+        message = (InternalMessage) channel.readInbound();
+        assertEquals(TRANSIENT_ID, message.subject().id());
+        assertEquals("unknown", message.type());
+        assertArrayEquals(payload, message.payload());
+        message.release();
+        assertEquals("unknown types should not be interned", 1, subjects.register("other").id());
+        channel.finish();
+    }
+}
@@ -21,6 +21,7 @@ import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.net.SocketAddress;
+import java.nio.ByteBuffer;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
 import java.util.List;
@@ -195,6 +196,11 @@ public class IOLoopMessaging implements MessagingService {
         handlers.put(type, message -> executor.execute(() -> handler.accept(message.payload())));
     }
 
+    @Override
+    public void registerBufferHandler(String type, Consumer<ByteBuffer> handler, Executor executor) {
+        handlers.put(type, message -> executor.execute(() -> handler.accept(ByteBuffer.wrap(message.payload()))));
+    }
+
     @Override
     public void registerHandler(String type, Function<byte[], byte[]> handler, Executor executor) {
         handlers.put(type, message -> executor.execute(() -> {